@@ -0,0 +1,175 @@
+package com.jircik.springcrud.benchmark;
+
+import com.jircik.springcrud.model.User;
+import com.jircik.springcrud.model.UserField;
+import com.jircik.springcrud.repository.UserRepository;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * {@link UserRepository} sobre mapas em memória, para medir o {@link com.jircik.springcrud.service.UserService}
+ * sem o banco. Implementa as leituras e escritas por ID/nome; consultas em lote, projeções e streams não são usados
+ * pelos benchmarks e lançam {@link UnsupportedOperationException}.
+ */
+final class InMemoryUserRepository extends UnsupportedJpaRepository<User, Integer> implements UserRepository {
+
+    private final Map<Integer, User> byId = new ConcurrentHashMap<>();
+    private final Map<String, Integer> idByName = new ConcurrentHashMap<>();
+
+    @Override
+    public <S extends User> S save(S user) {
+        byId.put(user.getId(), user);
+        idByName.put(user.getName(), user.getId());
+        return user;
+    }
+
+    @Override
+    public Optional<User> findById(Integer id) {
+        return Optional.ofNullable(byId.get(id));
+    }
+
+    @Override
+    public Optional<User> findByName(String name) {
+        return Optional.ofNullable(idByName.get(name)).map(byId::get);
+    }
+
+    @Override
+    public Optional<Long> findVersionById(Integer id) {
+        return findById(id).map(User::getVersion);
+    }
+
+    @Override
+    public Optional<Long> findVersionByName(String name) {
+        return findByName(name).map(User::getVersion);
+    }
+
+    @Override
+    public int deleteUserById(Integer id) {
+        User removed = byId.remove(id);
+        if (removed == null) {
+            return 0;
+        }
+        idByName.remove(removed.getName(), id);
+        return 1;
+    }
+
+    @Override
+    public Set<String> findExistingEmails(Collection<String> emails) {
+        throw unsupported();
+    }
+
+    @Override
+    public boolean existsByEmail(String email) {
+        throw unsupported();
+    }
+
+    @Override
+    public Stream<String> streamAllEmails() {
+        throw unsupported();
+    }
+
+    @Override
+    public Stream<User> streamAllForSearch() {
+        throw unsupported();
+    }
+
+    @Override
+    public Slice<User> searchByPrefix(String escapedPrefix, Pageable pageable) {
+        throw unsupported();
+    }
+
+    @Override
+    public List<User> findAllByOrderByIdAsc(Limit limit) {
+        throw unsupported();
+    }
+
+    @Override
+    public List<User> findByIdGreaterThanOrderByIdAsc(Integer id, Limit limit) {
+        throw unsupported();
+    }
+
+    @Override
+    public Stream<User> streamAllOrderedById() {
+        throw unsupported();
+    }
+
+    @Override
+    public int deleteUserByName(String name) {
+        throw unsupported();
+    }
+
+    @Override
+    public int deleteUsersByIdIn(Collection<Integer> ids) {
+        throw unsupported();
+    }
+
+    @Override
+    public int deleteUsersByEmailDomain(String escapedDomain) {
+        throw unsupported();
+    }
+
+    @Override
+    public int deleteUsersByNamePrefix(String escapedPrefix) {
+        throw unsupported();
+    }
+
+    @Override
+    public int patchUser(Integer id, String name, String email, Long expectedVersion) {
+        throw unsupported();
+    }
+
+    @Override
+    public int renameUsersByIdIn(Collection<Integer> ids, String name) {
+        throw unsupported();
+    }
+
+    @Override
+    public int rewriteEmailDomain(String escapedFrom, String to) {
+        throw unsupported();
+    }
+
+    @Override
+    public List<Map<String, Object>> findAllFields(Set<UserField> fields) {
+        throw unsupported();
+    }
+
+    @Override
+    public List<Map<String, Object>> findFieldsAfter(Integer id, Set<UserField> fields, Limit limit) {
+        throw unsupported();
+    }
+
+    @Override
+    public Page<Map<String, Object>> findFields(Set<UserField> fields, Pageable pageable) {
+        throw unsupported();
+    }
+
+    @Override
+    public Optional<Map<String, Object>> findFieldsById(Integer id, Set<UserField> fields) {
+        throw unsupported();
+    }
+
+    @Override
+    public Optional<Map<String, Object>> findFieldsByName(String name, Set<UserField> fields) {
+        throw unsupported();
+    }
+
+    @Override
+    public Optional<RowEstimate> estimateRowCount() {
+        throw unsupported();
+    }
+
+    @Override
+    public UpsertCounts upsertByEmail(List<User> users) {
+        throw unsupported();
+    }
+}
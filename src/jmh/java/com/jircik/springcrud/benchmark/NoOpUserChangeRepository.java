@@ -0,0 +1,81 @@
+package com.jircik.springcrud.benchmark;
+
+import com.jircik.springcrud.model.UserChange;
+import com.jircik.springcrud.repository.UserChangeRepository;
+import org.springframework.data.domain.Limit;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Outbox que não grava nada: os registros de alteração e as travas devolvem 0 linhas, então o serviço mede só o
+ * próprio custo e o do cache, como antes do feed. A leitura do feed não faz parte dos benchmarks.
+ */
+final class NoOpUserChangeRepository extends UnsupportedJpaRepository<UserChange, Long> implements UserChangeRepository {
+
+    @Override
+    public int recordByIds(UserChange.Type type, Collection<Integer> ids, Instant now) {
+        return 0;
+    }
+
+    @Override
+    public int recordByName(UserChange.Type type, String name, Instant now) {
+        return 0;
+    }
+
+    @Override
+    public int recordByEmailDomain(UserChange.Type type, String escapedDomain, Instant now) {
+        return 0;
+    }
+
+    @Override
+    public int recordByNamePrefix(UserChange.Type type, String escapedPrefix, Instant now) {
+        return 0;
+    }
+
+    @Override
+    public int recordEmailDomainRewrite(String escapedFrom, String to, Instant now) {
+        return 0;
+    }
+
+    @Override
+    public List<Integer> lockByIds(Collection<Integer> ids) {
+        return List.of();
+    }
+
+    @Override
+    public List<Integer> lockByName(String name) {
+        return List.of();
+    }
+
+    @Override
+    public List<Integer> lockByEmailDomain(String escapedDomain) {
+        return List.of();
+    }
+
+    @Override
+    public List<Integer> lockByNamePrefix(String escapedPrefix) {
+        return List.of();
+    }
+
+    @Override
+    public List<UserChange> findUnsequenced(Limit limit) {
+        throw unsupported();
+    }
+
+    @Override
+    public List<UserChange> findAfter(long after, Limit limit) {
+        throw unsupported();
+    }
+
+    @Override
+    public long findHeadOffset() {
+        throw unsupported();
+    }
+
+    @Override
+    public int deleteSuperseded(Instant before) {
+        throw unsupported();
+    }
+}
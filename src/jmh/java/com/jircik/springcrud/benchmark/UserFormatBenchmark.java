@@ -0,0 +1,111 @@
+package com.jircik.springcrud.benchmark;
+
+import com.jircik.springcrud.config.UserProtobufHttpMessageConverter;
+import com.jircik.springcrud.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Custo de codificação de GET /api/v1/users em cada formato negociável (JSON, CBOR, Smile, Protobuf),
+ * com e sem gzip. Os tamanhos dos payloads são impressos no setup de cada combinação.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserFormatBenchmark {
+
+    private static final String[] FIRST_NAMES = {"Maria", "José", "Ana", "João", "Francisca", "Antônio", "Letícia", "Carlos"};
+    private static final String[] LAST_NAMES = {"Silva", "Santos", "Oliveira", "Souza", "Rodrigues", "Ferreira", "Alves", "Pereira"};
+    private static final String[] DOMAINS = {"gmail.com", "hotmail.com", "outlook.com", "empresa.com.br", "uol.com.br"};
+
+    @Param({"json", "cbor", "smile", "protobuf"})
+    String format;
+
+    @Param({"100", "10000"})
+    int size;
+
+    private List<User> users;
+    private ObjectWriter writer;
+
+    @Setup
+    public void setUp() throws IOException {
+        // Nomes e e-mails variados, com acentos e versões diferentes de zero, como numa base real
+        Random random = new Random(42);
+        users = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            String last = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            User user = new User(i, first + " " + last, (first + "." + last + i).toLowerCase()
+                    + "@" + DOMAINS[random.nextInt(DOMAINS.length)]);
+            user.setVersion((long) random.nextInt(20));
+            users.add(user);
+        }
+
+        ObjectMapper mapper = switch (format) {
+            case "json" -> JsonMapper.builder().build();
+            case "cbor" -> CBORMapper.builder().build();
+            case "smile" -> SmileMapper.builder().build();
+            default -> null;
+        };
+        writer = mapper == null ? null : mapper.writerFor(new TypeReference<List<User>>() {});
+
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        encode(plain);
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        encodeGzip(gzipped);
+        System.out.printf("%n[payload] format=%s users=%d bytes=%d gzip=%d bytes/user=%.1f%n",
+                format, size, plain.size(), gzipped.size(), (double) plain.size() / size);
+    }
+
+    @Benchmark
+    public void encode() throws IOException {
+        encode(OutputStream.nullOutputStream());
+    }
+
+    /** Codificação mais compressão, como numa resposta acima do limite de server.compression. */
+    @Benchmark
+    public void encodeGzip() throws IOException {
+        encodeGzip(OutputStream.nullOutputStream());
+    }
+
+    private void encode(OutputStream out) throws IOException {
+        if (writer != null) {
+            writer.writeValue(out, users);
+        } else {
+            UserProtobufHttpMessageConverter.writeList(users, out);
+        }
+    }
+
+    private void encodeGzip(OutputStream out) throws IOException {
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out, 8192)) {
+            encode(gzip);
+        }
+    }
+}
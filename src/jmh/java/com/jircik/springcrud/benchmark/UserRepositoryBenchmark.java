@@ -0,0 +1,103 @@
+package com.jircik.springcrud.benchmark;
+
+import com.jircik.springcrud.SpringCrudApplication;
+import com.jircik.springcrud.model.User;
+import com.jircik.springcrud.repository.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link UserRepository} com JPA/Hibernate de verdade sobre um H2 em memória (modo PostgreSQL).
+ * Mede o custo do caminho ORM + JDBC; a latência de rede do Postgres não entra.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserRepositoryBenchmark {
+
+    private static final int USERS = 10_000;
+
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicInteger inserted = new AtomicInteger();
+    private ConfigurableApplicationContext context;
+    private UserRepository userRepository;
+    private JdbcTemplate jdbcTemplate;
+    private List<Integer> ids;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(SpringCrudApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:jmh;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_ON_EXIT=FALSE",
+                        "spring.datasource.username=sa",
+                        "spring.datasource.password=",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.jpa.show-sql=false",
+                        "logging.level.root=warn")
+                .run();
+        userRepository = context.getBean(UserRepository.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        List<User> users = new ArrayList<>(USERS);
+        for (int i = 1; i <= USERS; i++) {
+            users.add(new User(null, "User " + i, "user" + i + "@example.com"));
+        }
+        ids = userRepository.saveAll(users).stream().map(User::getId).toList();
+    }
+
+    /** Remove o que save() inseriu, para a tabela não crescer entre as iterações. */
+    @TearDown(Level.Iteration)
+    public void removeInserted() {
+        jdbcTemplate.update("delete from app_user where email like 'bench%'");
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<User> findById() {
+        return userRepository.findById(ids.get(nextIndex()));
+    }
+
+    @Benchmark
+    public Optional<User> findByName() {
+        return userRepository.findByName("User " + (nextIndex() + 1));
+    }
+
+    @Benchmark
+    public User save() {
+        int n = inserted.incrementAndGet();
+        return userRepository.save(new User(null, "Bench " + n, "bench" + n + "@example.com"));
+    }
+
+    private int nextIndex() {
+        return Math.floorMod(next.getAndIncrement(), USERS);
+    }
+}
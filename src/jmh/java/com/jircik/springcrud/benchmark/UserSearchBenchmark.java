@@ -0,0 +1,72 @@
+package com.jircik.springcrud.benchmark;
+
+import com.jircik.springcrud.dto.UserSearchHit;
+import com.jircik.springcrud.model.User;
+import com.jircik.springcrud.service.UserSearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latência de uma página (21 resultados: 20 + o da próxima página) do índice de busca sobre uma base gerada:
+ * prefixo curto (muitos candidatos), prefixo seletivo, e-mail e busca com erro de digitação (sem correspondência
+ * por prefixo, cai nas variantes).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+@State(Scope.Benchmark)
+public class UserSearchBenchmark {
+
+    private static final String[] FIRST_NAMES = {"Maria", "José", "Ana", "João", "Francisca", "Antônio", "Letícia", "Carlos",
+            "Paulo", "Juliana", "Marcos", "Fernanda", "Rafael", "Camila", "Lucas", "Beatriz"};
+    private static final String[] LAST_NAMES = {"Silva", "Santos", "Oliveira", "Souza", "Rodrigues", "Ferreira", "Alves",
+            "Pereira", "Lima", "Gomes", "Costa", "Ribeiro", "Martins", "Carvalho", "Almeida", "Lopes"};
+    private static final String[] DOMAINS = {"gmail.com", "hotmail.com", "outlook.com", "empresa.com.br", "uol.com.br"};
+    private static final int PAGE = 21;
+
+    @Param({"100000", "1000000"})
+    int size;
+
+    @Param({"an", "fernanda ri", "carlos.almeida12", "oliviera"})
+    String query;
+
+    private UserSearchIndex index;
+
+    @Setup
+    public void setUp() {
+        // Nomes com sobrenome duplo e acentos, e-mails únicos: vários termos por usuário, como numa base real
+        Random random = new Random(42);
+        List<User> users = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            String middle = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            String last = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            users.add(new User(i, first + " " + middle + " " + last, (first + "." + last + i).toLowerCase()
+                    + "@" + DOMAINS[random.nextInt(DOMAINS.length)], 0L));
+        }
+        index = UserSearchIndex.build(users);
+        System.out.printf("%n[index] %d users, %d terms, %d hits for \"%s\"%n", index.size(), index.termCount(),
+                index.search(query, PAGE).size(), query);
+    }
+
+    @Benchmark
+    public List<UserSearchHit> search() {
+        return index.search(query, PAGE);
+    }
+}
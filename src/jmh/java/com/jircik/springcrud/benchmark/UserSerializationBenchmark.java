@@ -0,0 +1,92 @@
+package com.jircik.springcrud.benchmark;
+
+import com.jircik.springcrud.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectReader;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialização Jackson de um {@link User} e de listas grandes (como em GET /api/v1/users).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserSerializationBenchmark {
+
+    private final ObjectMapper mapper = JsonMapper.builder().build();
+    private final ObjectWriter userWriter = mapper.writerFor(User.class);
+    private final ObjectReader userReader = mapper.readerFor(User.class);
+    private final ObjectWriter listWriter = mapper.writerFor(new TypeReference<List<User>>() {});
+
+    private User user;
+    private byte[] userJson;
+
+    @Setup
+    public void setUp() {
+        user = new User(42, "Maria Silva", "maria.silva@example.com");
+        user.setVersion(3L);
+        userJson = userWriter.writeValueAsBytes(user);
+    }
+
+    @State(Scope.Benchmark)
+    public static class UserList {
+
+        @Param({"1000", "100000"})
+        int size;
+
+        List<User> users;
+
+        @Setup
+        public void setUp() {
+            users = new ArrayList<>(size);
+            for (int i = 1; i <= size; i++) {
+                users.add(new User(i, "User " + i, "user" + i + "@example.com"));
+            }
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeUser() {
+        return userWriter.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public User deserializeUser() {
+        return userReader.readValue(userJson);
+    }
+
+    /** Monta o payload inteiro em memória (byte[]). */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public byte[] serializeList(UserList list) {
+        return listWriter.writeValueAsBytes(list.users);
+    }
+
+    /** Escreve direto no stream, como o conversor HTTP faz; mede só o custo do Jackson. */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void streamList(UserList list) {
+        listWriter.writeValue(OutputStream.nullOutputStream(), list.users);
+    }
+}
@@ -0,0 +1,104 @@
+package com.jircik.springcrud.benchmark;
+
+import com.jircik.springcrud.config.BulkProperties;
+import com.jircik.springcrud.config.EmailFilterProperties;
+import com.jircik.springcrud.config.UserCacheProperties;
+import com.jircik.springcrud.config.UserCountProperties;
+import com.jircik.springcrud.config.UserSearchProperties;
+import com.jircik.springcrud.config.WriteBehindProperties;
+import com.jircik.springcrud.model.User;
+import com.jircik.springcrud.service.UserCache;
+import com.jircik.springcrud.service.UserChangeLog;
+import com.jircik.springcrud.service.UserCounter;
+import com.jircik.springcrud.service.UserSearch;
+import com.jircik.springcrud.service.UserEmailFilter;
+import com.jircik.springcrud.service.UserService;
+import com.jircik.springcrud.service.UserWriteBehind;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caminhos de leitura e atualização do {@link UserService} sobre um repositório em memória,
+ * para medir o custo do serviço e do cache sem o banco. Roda com e sem o cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserServiceBenchmark {
+
+    private static final int USERS = 10_000;
+
+    @Param({"true", "false"})
+    boolean cacheEnabled;
+
+    private UserService userService;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        InMemoryUserRepository users = new InMemoryUserRepository();
+        for (int id = 1; id <= USERS; id++) {
+            users.save(new User(id, "User " + id, "user" + id + "@example.com"));
+        }
+        UserCache cache = new UserCache(
+                new UserCacheProperties(cacheEnabled, USERS * 2L, Duration.ofMinutes(10), Duration.ofSeconds(5)));
+        // Write-behind desligado: insertUser grava direto no repositório
+        UserWriteBehind writeBehind = new UserWriteBehind(
+                new WriteBehindProperties(false, 1, Duration.ofMinutes(1), 1, Duration.ofSeconds(1)), new BulkProperties(500, 1000, 5000), null);
+        userService = new UserService(users, cache,
+                new UserCounter(new UserCountProperties(Duration.ofSeconds(5), Duration.ofMinutes(1))), writeBehind,
+                new UserChangeLog(new NoOpUserChangeRepository(), null), disabledEmailFilter(), disabledSearch(),
+                new TransactionTemplate());
+    }
+
+    @Benchmark
+    public User getUserById() {
+        return userService.getUserById(nextId());
+    }
+
+    @Benchmark
+    public User getUserByName() {
+        return userService.getUserByName("User " + nextId());
+    }
+
+    /** Alterna o nome entre dois valores para que toda chamada de fato altere e invalide o cache. */
+    @Benchmark
+    public void updateUser() {
+        int id = nextId();
+        String name = (next / USERS) % 2 == 0 ? "Renamed " + id : "User " + id;
+        userService.updateUser(new User(id, name, null));
+    }
+
+    private int nextId() {
+        next++;
+        return next % USERS + 1;
+    }
+
+    // Filtro de disponibilidade desligado: add/removed não fazem nada
+    private static UserEmailFilter disabledEmailFilter() {
+        return new UserEmailFilter(new EmailFilterProperties(false, 1, 0.01, Duration.ofSeconds(1), Duration.ofHours(6), 0.25),
+                null, null, null, new TransactionTemplate());
+    }
+
+    // Sem índice (nunca iniciada): os ganchos de escrita não fazem nada
+    private static UserSearch disabledSearch() {
+        return new UserSearch(new UserSearchProperties(false, Duration.ofSeconds(1), 1000), null, null, null,
+                new TransactionTemplate());
+    }
+}
@@ -0,0 +1,54 @@
+package com.jircik.springcrud.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Proteção contra sobrecarga: limite de concorrência adaptativo por classe de endpoint (leitura/escrita)
+ * na frente do UserController, com métricas do limite atual, das requisições em andamento e das recusas.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "app.concurrency.enabled", havingValue = "true", matchIfMissing = true)
+public class AdaptiveConcurrencyConfiguration {
+
+    private final AdaptiveConcurrencyLimiter reads;
+    private final AdaptiveConcurrencyLimiter writes;
+    private final AdaptiveConcurrencyProperties properties;
+
+    public AdaptiveConcurrencyConfiguration(AdaptiveConcurrencyProperties properties) {
+        this.properties = properties;
+        this.reads = new AdaptiveConcurrencyLimiter("read", properties);
+        this.writes = new AdaptiveConcurrencyLimiter("write", properties);
+    }
+
+    @Bean
+    AdaptiveConcurrencyFilter adaptiveConcurrencyFilter() {
+        return new AdaptiveConcurrencyFilter(reads, writes, properties.retryAfter());
+    }
+
+    @Bean
+    MeterBinder adaptiveConcurrencyMetrics() {
+        return registry -> {
+            for (AdaptiveConcurrencyLimiter limiter : List.of(reads, writes)) {
+                Gauge.builder("http.server.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                        .description("Current adaptive concurrency limit")
+                        .tag("group", limiter.getName())
+                        .register(registry);
+                Gauge.builder("http.server.concurrency.in-flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                        .description("Requests currently holding a concurrency permit")
+                        .tag("group", limiter.getName())
+                        .register(registry);
+                FunctionCounter.builder("http.server.concurrency.rejected", limiter, AdaptiveConcurrencyLimiter::getRejected)
+                        .description("Requests rejected with 503 by the concurrency limit")
+                        .tag("group", limiter.getName())
+                        .register(registry);
+            }
+        };
+    }
+}
@@ -0,0 +1,113 @@
+package com.jircik.springcrud.config;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.DisconnectedClientHelper;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Aplica o {@link AdaptiveConcurrencyLimiter} às requisições da API: leituras (GET/HEAD) e escritas têm
+ * limites separados, para uma enxurrada de escritas lentas não derrubar as leituras e vice-versa.
+ * Acima do limite a resposta é 503 com Retry-After, escrita pelo próprio filtro: a requisição ainda roda numa
+ * thread do Tomcat, mas não chega ao controller nem pede conexão ao banco, e a thread é liberada logo.
+ * Exceções que escapam do controller (timeout esperando conexão do pool ou vaga do gate) baixam o limite;
+ * respostas 4xx e clientes que desconectaram não entram na medição.
+ */
+public class AdaptiveConcurrencyFilter extends OncePerRequestFilter {
+
+    private static final String STREAM_SUFFIX = "/changes/stream";
+
+    private final AdaptiveConcurrencyLimiter reads;
+    private final AdaptiveConcurrencyLimiter writes;
+    private final String retryAfter;
+
+    public AdaptiveConcurrencyFilter(AdaptiveConcurrencyLimiter reads, AdaptiveConcurrencyLimiter writes, Duration retryAfter) {
+        this.reads = reads;
+        this.writes = writes;
+        this.retryAfter = Long.toString(Math.max(1, retryAfter.toSeconds()));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean read = "GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod());
+        AdaptiveConcurrencyLimiter.Permit permit = (read ? reads : writes).tryAcquire();
+        if (permit == null) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfter);
+            response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            response.getWriter().write("Server is overloaded, retry later");
+            return;
+        }
+
+        try {
+            chain.doFilter(request, response);
+        } catch (Throwable ex) {
+            // Exceção que escapa do controller (timeout do pool ou do gate, banco fora) é o sinal de sobrecarga
+            failed(permit, ex);
+            throw ex;
+        }
+        if (request.isAsyncStarted()) {
+            // Respostas em streaming (ex.: /export) só liberam a vaga quando terminam de fato
+            request.getAsyncContext().addListener(releasing(permit));
+        } else if (isClientError(response.getStatus())) {
+            // 4xx (validação, 404, 412) costuma ser rápido e não diz nada sobre a carga
+            permit.ignore();
+        } else {
+            permit.release();
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        // Streams SSE ficam abertos por minutos: ocupariam uma vaga e distorceriam a latência medida
+        return !uri.startsWith(request.getContextPath() + "/api/") || uri.endsWith(STREAM_SUFFIX);
+    }
+
+    private static AsyncListener releasing(AdaptiveConcurrencyLimiter.Permit permit) {
+        return new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+                permit.release();
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                permit.drop();
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                failed(permit, event.getThrowable());
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        };
+    }
+
+    // Cliente que desconectou não diz nada sobre o servidor; as demais falhas baixam o limite
+    private static void failed(AdaptiveConcurrencyLimiter.Permit permit, Throwable ex) {
+        if (ex != null && DisconnectedClientHelper.isClientDisconnectedException(ex)) {
+            permit.ignore();
+        } else {
+            permit.drop();
+        }
+    }
+
+    private static boolean isClientError(int status) {
+        return status >= 400 && status < 500;
+    }
+}
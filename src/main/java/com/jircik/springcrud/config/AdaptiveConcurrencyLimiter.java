@@ -0,0 +1,156 @@
+package com.jircik.springcrud.config;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limite de concorrência que se ajusta pela latência medida, no estilo TCP Vegas.
+ * <p>
+ * Compara a latência de cada resposta com a latência sem fila (a menor observada): se a razão indica
+ * poucas requisições esperando, o limite sobe; se indica fila, desce. Com o banco lento, o tempo de
+ * resposta cresce junto com a concorrência e o limite cai até perto do que o banco aguenta; o excedente
+ * é recusado na hora em vez de esperar numa thread. A latência sem fila é medida de novo de tempos em
+ * tempos (probe), para acompanhar mudanças permanentes no tempo de resposta do banco.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int probeMultiplier;
+    private final Ticker ticker;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+    private volatile int limit;
+
+    // Protegidos pelo lock do objeto (onSample)
+    private double estimatedLimit;
+    private long rttNoLoad;
+    private long samplesSinceProbe;
+
+    public AdaptiveConcurrencyLimiter(String name, AdaptiveConcurrencyProperties properties) {
+        this(name, properties, Ticker.systemTicker());
+    }
+
+    AdaptiveConcurrencyLimiter(String name, AdaptiveConcurrencyProperties properties, Ticker ticker) {
+        this.name = name;
+        this.minLimit = properties.minLimit();
+        this.maxLimit = properties.maxLimit();
+        this.probeMultiplier = properties.probeMultiplier();
+        this.ticker = ticker;
+        this.estimatedLimit = Math.clamp(properties.initialLimit(), minLimit, maxLimit);
+        this.limit = (int) estimatedLimit;
+    }
+
+    /** Reserva uma vaga; null se o limite foi atingido (a requisição deve ser recusada). */
+    public Permit tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                rejected.increment();
+                return null;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return new Permit(ticker.read(), current + 1);
+            }
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    private synchronized void onSample(long rtt, int inFlightAtStart) {
+        if (rtt <= 0) {
+            return;
+        }
+        // Probe, proporcional ao limite atual: aceita a latência de agora como referência (ex.: o banco ficou mais lento de vez)
+        if (++samplesSinceProbe >= probeMultiplier * estimatedLimit) {
+            samplesSinceProbe = 0;
+            rttNoLoad = rtt;
+            return;
+        }
+        if (rttNoLoad == 0 || rtt < rttNoLoad) {
+            rttNoLoad = rtt;
+            return;
+        }
+        // Pouca carga não diz nada sobre o limite: não sobe só porque as requisições foram rápidas
+        if (inFlightAtStart * 2 < estimatedLimit) {
+            return;
+        }
+
+        // Quantas requisições estão em fila, pela lei de Little: limite * (1 - rttNoLoad / rtt)
+        double queue = Math.ceil(estimatedLimit * (1 - (double) rttNoLoad / rtt));
+        double log = Math.max(1, Math.log10(estimatedLimit));
+        double next;
+        if (queue <= log) {
+            next = estimatedLimit + 6 * log;
+        } else if (queue < 3 * log) {
+            next = estimatedLimit + log;
+        } else if (queue > 6 * log) {
+            next = estimatedLimit - log;
+        } else {
+            return;
+        }
+        estimatedLimit = Math.clamp(next, minLimit, maxLimit);
+        limit = (int) estimatedLimit;
+    }
+
+    // Falha por sobrecarga (timeout do pool ou do gate): desce como quando a fila está grande
+    private synchronized void onDrop() {
+        double log = Math.max(1, Math.log10(estimatedLimit));
+        estimatedLimit = Math.clamp(estimatedLimit - log, minLimit, maxLimit);
+        limit = (int) estimatedLimit;
+    }
+
+    /** Vaga reservada; deve ser liberada com release(), drop() ou ignore() exatamente uma vez. */
+    public final class Permit {
+
+        private final long startNanos;
+        private final int inFlightAtStart;
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        private Permit(long startNanos, int inFlightAtStart) {
+            this.startNanos = startNanos;
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        /** Libera a vaga e usa a latência da requisição para ajustar o limite. */
+        public void release() {
+            if (done.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+                onSample(ticker.read() - startNanos, inFlightAtStart);
+            }
+        }
+
+        /** Libera a vaga e conta a requisição como perdida por sobrecarga: o limite desce. */
+        public void drop() {
+            if (done.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+                onDrop();
+            }
+        }
+
+        /** Libera a vaga sem medir (ex.: o cliente desistiu ou o erro foi do cliente). */
+        public void ignore() {
+            if (done.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.jircik.springcrud.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Limite adaptativo de requisições simultâneas na API (app.concurrency.*), um limite para leituras
+ * e outro para escritas, com os mesmos parâmetros.
+ *
+ * @param enabled         liga/desliga o limite
+ * @param initialLimit    limite ao subir, antes de haver medições
+ * @param minLimit        o limite nunca cai abaixo disso, mesmo com o banco muito lento
+ * @param maxLimit        teto do limite; deve ficar abaixo do número de threads do Tomcat
+ * @param probeMultiplier a cada probeMultiplier * limite respostas a latência de referência é medida de novo
+ * @param retryAfter      valor do Retry-After nas respostas 503
+ */
+@ConfigurationProperties("app.concurrency")
+public record AdaptiveConcurrencyProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("20") int initialLimit,
+        @DefaultValue("5") int minLimit,
+        @DefaultValue("200") int maxLimit,
+        @DefaultValue("30") int probeMultiplier,
+        @DefaultValue("1s") Duration retryAfter) {
+}
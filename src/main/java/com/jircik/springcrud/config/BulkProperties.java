@@ -0,0 +1,19 @@
+package com.jircik.springcrud.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuração das operações em lote (app.users.bulk.*).
+ *
+ * @param chunkSize quantidade de usuários gravados por transação (e de IDs por IN na busca em lote)
+ * @param maxGetIds máximo de IDs distintos por busca em lote
+ * @param importChunkSize linhas por transação na importação com upsert (blocos grandes: o custo fixo de
+ *                        cada bloco é o staging e alguns statements set-based)
+ */
+@ConfigurationProperties("app.users.bulk")
+public record BulkProperties(
+        @DefaultValue("500") int chunkSize,
+        @DefaultValue("1000") int maxGetIds,
+        @DefaultValue("5000") int importChunkSize) {
+}
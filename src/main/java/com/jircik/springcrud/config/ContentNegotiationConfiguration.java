@@ -0,0 +1,27 @@
+package com.jircik.springcrud.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverters;
+import org.springframework.web.servlet.config.annotation.ContentNegotiationConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Formatos de resposta escolhidos pelo Accept: CBOR ({@code application/cbor}) e Smile
+ * ({@code application/x-jackson-smile}) são registrados pelo Spring ao encontrar os módulos do Jackson
+ * no classpath, e o Protobuf ({@code application/x-protobuf}) é adicionado aqui.
+ */
+@Configuration(proxyBeanMethods = false)
+public class ContentNegotiationConfiguration implements WebMvcConfigurer {
+
+    @Override
+    public void configureMessageConverters(HttpMessageConverters.ServerBuilder builder) {
+        builder.addCustomConverter(new UserProtobufHttpMessageConverter());
+    }
+
+    // Conversores customizados ficam antes do JSON; sem Accept (ou com */*) o JSON continua sendo o padrão
+    @Override
+    public void configureContentNegotiation(ContentNegotiationConfigurer configurer) {
+        configurer.defaultContentType(MediaType.APPLICATION_JSON, MediaType.ALL);
+    }
+}
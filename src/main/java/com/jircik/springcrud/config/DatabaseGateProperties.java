@@ -0,0 +1,20 @@
+package com.jircik.springcrud.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Limite de concorrência na frente do pool JDBC (app.datasource.gate.*).
+ *
+ * @param enabled        liga/desliga o limite (só tem efeito com spring.threads.virtual.enabled=true)
+ * @param maxConcurrency conexões simultâneas permitidas; deve ser igual ao maximum-pool-size do Hikari
+ * @param acquireTimeout quanto tempo uma requisição espera na fila antes de falhar
+ */
+@ConfigurationProperties("app.datasource.gate")
+public record DatabaseGateProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("10") int maxConcurrency,
+        @DefaultValue("30s") Duration acquireTimeout) {
+}
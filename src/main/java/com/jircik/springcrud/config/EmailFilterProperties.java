@@ -0,0 +1,27 @@
+package com.jircik.springcrud.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Filtro de e-mails cadastrados (app.users.email-filter.*) usado pela consulta de disponibilidade.
+ *
+ * @param enabled             desligado, toda consulta vai ao banco
+ * @param expectedEmails      capacidade da primeira camada do filtro (ele cresce sozinho além disso)
+ * @param falsePositiveRate   taxa máxima de "talvez" para e-mails livres, que custam uma consulta ao banco
+ * @param refreshInterval     intervalo de leitura do feed de alterações (e-mails gravados por outras instâncias)
+ * @param rebuildInterval     reconstrução periódica a partir de app_user, que descarta e-mails removidos
+ * @param rebuildRemovedRatio reconstrói antes do intervalo quando os e-mails removidos/trocados passam dessa
+ *                            fração do filtro
+ */
+@ConfigurationProperties("app.users.email-filter")
+public record EmailFilterProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("100000") long expectedEmails,
+        @DefaultValue("0.01") double falsePositiveRate,
+        @DefaultValue("1s") Duration refreshInterval,
+        @DefaultValue("6h") Duration rebuildInterval,
+        @DefaultValue("0.25") double rebuildRemovedRatio) {
+}
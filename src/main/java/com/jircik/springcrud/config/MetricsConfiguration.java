@@ -0,0 +1,145 @@
+package com.jircik.springcrud.config;
+
+import com.jircik.springcrud.service.UserChangeFeed;
+import com.jircik.springcrud.service.UserEmailFilter;
+import com.jircik.springcrud.service.UserSearch;
+import com.jircik.springcrud.service.UserWriteBehind;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.hibernate.autoconfigure.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Métricas que o Spring Boot não publica sozinho. Latência HTTP ({@code http.server.requests}),
+ * estatísticas do Hibernate ({@code hibernate.*}) e o pool Hikari ({@code hikaricp.*}) vêm da
+ * autoconfiguração do actuator; os métodos do UserService são medidos via {@code @Timed}.
+ */
+@Configuration(proxyBeanMethods = false)
+public class MetricsConfiguration {
+
+    @Bean
+    HibernatePropertiesCustomizer queryCounterCustomizer() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new QueryCounter());
+    }
+
+    @Bean
+    QueryCountFilter queryCountFilter(MeterRegistry registry) {
+        return new QueryCountFilter(registry);
+    }
+
+    /** Fila na frente do pool: permissões em uso, requisições esperando e tempo de espera. */
+    @Bean
+    MeterBinder databaseGateMetrics(DataSource dataSource) {
+        return registry -> {
+            ConcurrencyLimitedDataSource gate = unwrapGate(dataSource);
+            if (gate == null) {
+                return;
+            }
+            Gauge.builder("db.gate.in-use", gate, ConcurrencyLimitedDataSource::getInUse)
+                    .description("Database permits currently held")
+                    .register(registry);
+            Gauge.builder("db.gate.waiting", gate, ConcurrencyLimitedDataSource::getWaiting)
+                    .description("Threads waiting for a database permit")
+                    .register(registry);
+            FunctionTimer.builder("db.gate.acquire", gate, ConcurrencyLimitedDataSource::getAcquireCount,
+                            ConcurrencyLimitedDataSource::getAcquireNanos, TimeUnit.NANOSECONDS)
+                    .description("Time spent waiting for a database permit")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    MeterBinder userWriteBehindMetrics(UserWriteBehind userWriteBehind) {
+        return registry -> {
+            if (userWriteBehind.isEnabled()) {
+                Gauge.builder("users.write-behind.queue", userWriteBehind, UserWriteBehind::getQueueSize)
+                        .description("Users waiting to be written by the write-behind queue")
+                        .register(registry);
+            }
+        };
+    }
+
+    @Bean
+    MeterBinder userChangeFeedMetrics(UserChangeFeed userChangeFeed) {
+        return registry -> Gauge.builder("users.changes.subscribers", userChangeFeed, UserChangeFeed::getSubscriberCount)
+                .description("Open change feed streams")
+                .register(registry);
+    }
+
+    /** Filtro de disponibilidade de e-mail: tamanho, falsos positivos (esperado e observado) e reconstruções. */
+    @Bean
+    MeterBinder userEmailFilterMetrics(UserEmailFilter userEmailFilter) {
+        return registry -> {
+            Gauge.builder("users.email-filter.size", userEmailFilter, UserEmailFilter::getSize)
+                    .description("Emails in the availability filter")
+                    .register(registry);
+            Gauge.builder("users.email-filter.memory", userEmailFilter, UserEmailFilter::getBytes)
+                    .description("Memory used by the filter bits")
+                    .baseUnit("bytes")
+                    .register(registry);
+            Gauge.builder("users.email-filter.false-positive-rate", userEmailFilter,
+                            UserEmailFilter::getExpectedFalsePositiveRate)
+                    .description("False positive rate expected from the current filter fill")
+                    .tag("source", "expected")
+                    .register(registry);
+            Gauge.builder("users.email-filter.false-positive-rate", userEmailFilter,
+                            UserEmailFilter::getObservedFalsePositiveRate)
+                    .description("Free emails the filter could not rule out, over all free emails checked")
+                    .tag("source", "observed")
+                    .register(registry);
+            FunctionCounter.builder("users.email-filter.checks", userEmailFilter, UserEmailFilter::getDefinitelyAbsentCount)
+                    .description("Availability checks by outcome")
+                    .tag("result", "absent")
+                    .register(registry);
+            FunctionCounter.builder("users.email-filter.checks", userEmailFilter, UserEmailFilter::getFalsePositiveCount)
+                    .description("Availability checks by outcome")
+                    .tag("result", "false-positive")
+                    .register(registry);
+            FunctionCounter.builder("users.email-filter.checks", userEmailFilter, UserEmailFilter::getTakenCount)
+                    .description("Availability checks by outcome")
+                    .tag("result", "taken")
+                    .register(registry);
+            FunctionTimer.builder("users.email-filter.rebuild", userEmailFilter, UserEmailFilter::getRebuildCount,
+                            UserEmailFilter::getRebuildNanos, TimeUnit.NANOSECONDS)
+                    .description("Time spent rebuilding the filter from app_user")
+                    .register(registry);
+        };
+    }
+
+    /** Índice da busca: usuários e termos indexados e construções a partir de app_user. */
+    @Bean
+    MeterBinder userSearchMetrics(UserSearch userSearch) {
+        return registry -> {
+            Gauge.builder("users.search.documents", userSearch, UserSearch::getSize)
+                    .description("Users in the search index")
+                    .register(registry);
+            Gauge.builder("users.search.terms", userSearch, UserSearch::getTermCount)
+                    .description("Distinct terms in the search index")
+                    .register(registry);
+            FunctionTimer.builder("users.search.build", userSearch, UserSearch::getBuildCount,
+                            UserSearch::getBuildNanos, TimeUnit.NANOSECONDS)
+                    .description("Time spent building the search index from app_user")
+                    .register(registry);
+        };
+    }
+
+    // O gate pode estar envolvido por outros wrappers (ex.: QueryTracingDataSource)
+    private static ConcurrencyLimitedDataSource unwrapGate(DataSource dataSource) {
+        try {
+            return dataSource.isWrapperFor(ConcurrencyLimitedDataSource.class)
+                    ? dataSource.unwrap(ConcurrencyLimitedDataSource.class)
+                    : null;
+        } catch (SQLException ex) {
+            return null;
+        }
+    }
+}
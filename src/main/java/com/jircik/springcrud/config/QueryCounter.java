@@ -0,0 +1,32 @@
+package com.jircik.springcrud.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Conta os statements SQL que o Hibernate prepara na thread atual. O {@link QueryCountFilter}
+ * abre a contagem no início da requisição e publica o total no fim.
+ */
+public class QueryCounter implements StatementInspector {
+
+    private static final ThreadLocal<int[]> CURRENT = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        int[] count = CURRENT.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return sql;
+    }
+
+    static void begin() {
+        CURRENT.set(new int[1]);
+    }
+
+    /** Encerra a contagem da thread atual e devolve o total. */
+    static int end() {
+        int[] count = CURRENT.get();
+        CURRENT.remove();
+        return count == null ? 0 : count[0];
+    }
+}
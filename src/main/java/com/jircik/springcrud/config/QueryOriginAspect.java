@@ -0,0 +1,37 @@
+package com.jircik.springcrud.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+/**
+ * Guarda na thread o método de serviço em execução, para o log de consultas saber quem disparou cada
+ * statement. Roda por fora do @Transactional, então os statements do flush no commit também são atribuídos.
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class QueryOriginAspect {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    @Around("execution(public * com.jircik.springcrud.service.*Service.*(..))")
+    public Object trackOrigin(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (CURRENT.get() != null) {
+            // Chamada aninhada: vale o método de entrada
+            return joinPoint.proceed();
+        }
+        CURRENT.set(joinPoint.getSignature().getDeclaringType().getSimpleName() + "." + joinPoint.getSignature().getName());
+        try {
+            return joinPoint.proceed();
+        } finally {
+            CURRENT.remove();
+        }
+    }
+
+    /** Método de serviço da thread atual, ou null fora de um serviço. */
+    static String current() {
+        return CURRENT.get();
+    }
+}
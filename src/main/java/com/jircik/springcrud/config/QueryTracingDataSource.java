@@ -0,0 +1,107 @@
+package com.jircik.springcrud.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * DataSource que mede cada execução de statement e entrega ao {@link SlowQueryLog}: duração,
+ * quantidade de parâmetros (placeholders) e tamanho do batch. Só os métodos execute* são cronometrados.
+ */
+public class QueryTracingDataSource extends DelegatingDataSource {
+
+    private final SlowQueryLog slowQueryLog;
+
+    public QueryTracingDataSource(DataSource target, SlowQueryLog slowQueryLog) {
+        super(target);
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return tracing(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return tracing(super.getConnection(username, password));
+    }
+
+    private Connection tracing(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    if (result instanceof Statement statement) {
+                        String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+                        return tracing(statement, method.getReturnType(), sql);
+                    }
+                    return result;
+                });
+    }
+
+    /** @param preparedSql SQL do prepareStatement/prepareCall; null para Statement simples */
+    private Object tracing(Statement statement, Class<?> type, String preparedSql) {
+        int parameters = preparedSql == null ? 0 : countPlaceholders(preparedSql);
+        int[] batched = {0};
+        String[] lastBatchSql = {preparedSql};
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            String name = method.getName();
+            if (name.equals("addBatch")) {
+                batched[0]++;
+                if (args != null && args.length == 1) {
+                    lastBatchSql[0] = (String) args[0];
+                }
+                return invoke(statement, method, args);
+            }
+            if (!name.startsWith("execute")) {
+                return invoke(statement, method, args);
+            }
+
+            boolean batch = name.endsWith("Batch");
+            String sql = batch ? lastBatchSql[0]
+                    : args != null && args.length > 0 && args[0] instanceof String s ? s : preparedSql;
+            long start = System.nanoTime();
+            try {
+                return invoke(statement, method, args);
+            } finally {
+                slowQueryLog.record(sql, System.nanoTime() - start,
+                        preparedSql != null ? parameters : countPlaceholders(sql), batch ? batched[0] : 1);
+                if (batch) {
+                    batched[0] = 0;
+                }
+            }
+        });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getTargetException();
+        }
+    }
+
+    /** Conta os ? fora de literais entre aspas simples. */
+    static int countPlaceholders(String sql) {
+        if (sql == null) {
+            return 0;
+        }
+        int count = 0;
+        boolean quoted = false;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                quoted = !quoted;
+            } else if (c == '?' && !quoted) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
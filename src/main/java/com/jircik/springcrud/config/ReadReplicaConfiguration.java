@@ -0,0 +1,121 @@
+package com.jircik.springcrud.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.DestructionAwareBeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Roteamento leitura/escrita, ligado quando há ao menos uma réplica em app.datasource.read.replicas.
+ * <p>
+ * O DataSource do primário é envolvido por um {@link LazyConnectionDataSourceProxy} que só pega a
+ * conexão física no primeiro statement; até lá a transação já marcou a conexão como read-only
+ * ({@code @Transactional(readOnly = true)}) e ela sai do {@link ReplicaRoutingDataSource}. As demais
+ * transações usam o primário.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "app.datasource.read.replicas[0].url")
+public class ReadReplicaConfiguration {
+
+    @Bean
+    static ReadReplicaPostProcessor readReplicaPostProcessor(ObjectProvider<ReadReplicaProperties> properties) {
+        return new ReadReplicaPostProcessor(properties);
+    }
+
+    @Bean
+    ReadYourWritesFilter readYourWritesFilter(ReadReplicaProperties properties) {
+        return new ReadYourWritesFilter(properties.primaryAfterWrite());
+    }
+
+    @Bean
+    MeterBinder readReplicaMetrics(ReadReplicaPostProcessor postProcessor) {
+        return registry -> {
+            ReplicaRoutingDataSource replicas = postProcessor.replicas;
+            if (replicas != null) {
+                Gauge.builder("db.replicas.available", replicas, ReplicaRoutingDataSource::getAvailableCount)
+                        .description("Read replicas currently in rotation")
+                        .register(registry);
+            }
+        };
+    }
+
+    /**
+     * Roda antes dos outros wrappers de DataSource (gate, tracing), que passam a envolver o proxy e
+     * enxergam as conexões das réplicas também. Fecha os pools das réplicas junto com o DataSource.
+     */
+    static final class ReadReplicaPostProcessor implements DestructionAwareBeanPostProcessor, Ordered {
+
+        private final ObjectProvider<ReadReplicaProperties> properties;
+        private volatile ReplicaRoutingDataSource replicas;
+
+        ReadReplicaPostProcessor(ObjectProvider<ReadReplicaProperties> properties) {
+            this.properties = properties;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (replicas != null || !(bean instanceof DataSource primary)) {
+                return bean;
+            }
+            replicas = new ReplicaRoutingDataSource(primary, replicaPools(primary, properties.getObject()),
+                    properties.getObject().failureCooldown());
+            LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primary);
+            proxy.setReadOnlyDataSource(replicas);
+            return proxy;
+        }
+
+        @Override
+        public boolean requiresDestruction(Object bean) {
+            return bean instanceof DataSource;
+        }
+
+        @Override
+        public void postProcessBeforeDestruction(Object bean, String beanName) {
+            if (replicas != null) {
+                try {
+                    replicas.close();
+                } catch (Exception ex) {
+                    throw new IllegalStateException("Failed to close read replica pools", ex);
+                }
+            }
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+
+        private static Map<String, DataSource> replicaPools(DataSource primary, ReadReplicaProperties properties) {
+            HikariDataSource primaryPool = primary instanceof HikariDataSource hikari ? hikari : null;
+            Map<String, DataSource> pools = new LinkedHashMap<>();
+            List<ReadReplicaProperties.Replica> replicas = properties.replicas();
+            for (int i = 0; i < replicas.size(); i++) {
+                ReadReplicaProperties.Replica replica = replicas.get(i);
+                HikariConfig config = new HikariConfig();
+                config.setPoolName("replica-" + (i + 1));
+                config.setJdbcUrl(replica.url());
+                config.setUsername(replica.username() != null || primaryPool == null ? replica.username() : primaryPool.getUsername());
+                config.setPassword(replica.password() != null || primaryPool == null ? replica.password() : primaryPool.getPassword());
+                config.setMaximumPoolSize(properties.maximumPoolSize());
+                config.setConnectionTimeout(properties.connectionTimeout().toMillis());
+                config.setReadOnly(true);
+                // Réplica fora do ar na subida não impede a aplicação de iniciar: fica em cooldown e o primário atende
+                config.setInitializationFailTimeout(-1);
+                pools.put(config.getPoolName(), new HikariDataSource(config));
+            }
+            return pools;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.jircik.springcrud.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Réplicas de leitura (app.datasource.read.*). Sem nenhuma réplica configurada, tudo vai para o
+ * spring.datasource, como antes.
+ *
+ * @param replicas          URLs JDBC das réplicas; usuário e senha, se omitidos, são os do primário
+ * @param maximumPoolSize   tamanho do pool Hikari de cada réplica
+ * @param connectionTimeout espera máxima por uma conexão de réplica antes de considerá-la indisponível
+ * @param failureCooldown   quanto tempo uma réplica que falhou fica fora do rodízio
+ * @param primaryAfterWrite read-your-writes: por quanto tempo, depois de uma escrita, o cliente lê do primário; 0 desliga
+ */
+@ConfigurationProperties("app.datasource.read")
+public record ReadReplicaProperties(
+        @DefaultValue List<Replica> replicas,
+        @DefaultValue("10") int maximumPoolSize,
+        @DefaultValue("1s") Duration connectionTimeout,
+        @DefaultValue("10s") Duration failureCooldown,
+        @DefaultValue("2s") Duration primaryAfterWrite) {
+
+    public record Replica(String url, String username, String password) {
+    }
+}
@@ -0,0 +1,82 @@
+package com.jircik.springcrud.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Read-your-writes com réplicas: toda requisição de escrita devolve o cookie {@value #COOKIE} com o
+ * instante até o qual o cliente deve ler do primário. Enquanto ele vale, as leituras desse cliente
+ * não vão para as réplicas e não enxergam o atraso da replicação. O estado fica no cookie, então
+ * funciona com várias instâncias atrás do balanceador. Com a janela em 0 só a própria escrita fica no primário.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String COOKIE = "primary-until";
+
+    private final long windowMillis;
+    private final Clock clock;
+
+    public ReadYourWritesFilter(Duration window) {
+        this(window, Clock.systemUTC());
+    }
+
+    ReadYourWritesFilter(Duration window, Clock clock) {
+        this.windowMillis = window.toMillis();
+        this.clock = clock;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long now = clock.millis();
+        boolean write = !isSafe(request.getMethod());
+        if (write && windowMillis > 0) {
+            // Antes do chain: depois o corpo já pode ter sido enviado e não dá mais para incluir o cookie
+            Cookie cookie = new Cookie(COOKIE, Long.toString(now + windowMillis));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, Duration.ofMillis(windowMillis).toSeconds()));
+            response.addCookie(cookie);
+        }
+        // Leituras feitas durante uma escrita (ex.: versão atual para o If-Match) também vão ao primário
+        if (!write && pinnedUntil(request) <= now) {
+            chain.doFilter(request, response);
+            return;
+        }
+        ReplicaRoutingDataSource.pinToPrimary(true);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReplicaRoutingDataSource.pinToPrimary(false);
+        }
+    }
+
+    private static boolean isSafe(String method) {
+        return "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method);
+    }
+
+    private static long pinnedUntil(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return 0;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException ex) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+}
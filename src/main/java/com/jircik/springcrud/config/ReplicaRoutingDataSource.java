@@ -0,0 +1,132 @@
+package com.jircik.springcrud.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Destino das conexões somente leitura: distribui entre as réplicas em round-robin e pula as que
+ * falharam há pouco. Uma réplica que não entrega conexão fica fora do rodízio por failureCooldown e
+ * depois volta a ser tentada; sem nenhuma disponível, a leitura vai para o primário.
+ * <p>
+ * Só a obtenção da conexão tem failover: um erro no meio de uma consulta sobe normalmente.
+ * Requisições fixadas no primário ({@link ReadYourWritesFilter}) e leituras feitas em {@link #onPrimary}
+ * não passam pelas réplicas.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+    private static final ThreadLocal<Boolean> PINNED_TO_PRIMARY = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final long failureCooldownMillis;
+    private final Clock clock;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, Duration failureCooldown) {
+        this(primary, replicas, failureCooldown, Clock.systemUTC());
+    }
+
+    ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, Duration failureCooldown, Clock clock) {
+        this.primary = primary;
+        replicas.forEach((name, dataSource) -> this.replicas.add(new Replica(name, dataSource)));
+        this.failureCooldownMillis = failureCooldown.toMillis();
+        this.clock = clock;
+    }
+
+    static void pinToPrimary(boolean pinned) {
+        if (pinned) {
+            PINNED_TO_PRIMARY.set(Boolean.TRUE);
+        } else {
+            PINNED_TO_PRIMARY.remove();
+        }
+    }
+
+    /**
+     * Faz a leitura no primário mesmo fora da janela de read-your-writes (ex.: cargas do cache, que ficam
+     * guardadas para todos os clientes). Vale só se a transação ainda não pegou conexão: o proxy preguiçoso
+     * escolhe o destino no primeiro comando.
+     */
+    public static <T> T onPrimary(Supplier<T> read) {
+        if (PINNED_TO_PRIMARY.get() != null) {
+            return read.get();
+        }
+        PINNED_TO_PRIMARY.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            PINNED_TO_PRIMARY.remove();
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (PINNED_TO_PRIMARY.get() != null || replicas.isEmpty()) {
+            return primary.getConnection();
+        }
+        long now = clock.millis();
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (replica.downUntil > now) {
+                continue;
+            }
+            try {
+                return replica.dataSource.getConnection();
+            } catch (SQLException ex) {
+                replica.downUntil = now + failureCooldownMillis;
+                log.warn("Read replica {} unavailable, skipping it for {} ms: {}", replica.name, failureCooldownMillis, ex.getMessage());
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Replica routing uses the credentials of each pool");
+    }
+
+    /** Réplicas que estão no rodízio agora (fora do cooldown de falha). */
+    public int getAvailableCount() {
+        long now = clock.millis();
+        return (int) replicas.stream().filter(replica -> replica.downUntil <= now).count();
+    }
+
+    public int getReplicaCount() {
+        return replicas.size();
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private static final class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private volatile long downUntil;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.jircik.springcrud.config;
+
+import com.jircik.springcrud.dto.ReshardResult;
+import com.jircik.springcrud.dto.ShardStats;
+import com.jircik.springcrud.service.UserResharder;
+import org.jspecify.annotations.Nullable;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+
+import java.util.List;
+
+/**
+ * Endpoint administrativo do modo particionado: GET /actuator/shards mostra o anel e os usuários por shard,
+ * POST (corpo {"ring": ["shard-1", "shard-2", "shard-3"]}, ou vazio para todos) troca o anel e move os
+ * usuários para os donos novos, com a API no ar. Responde quando a movimentação termina.
+ */
+@Endpoint(id = "shards")
+public class ShardEndpoint {
+
+    private final UserResharder userResharder;
+
+    public ShardEndpoint(UserResharder userResharder) {
+        this.userResharder = userResharder;
+    }
+
+    @ReadOperation
+    public ShardStats shards() {
+        return userResharder.stats();
+    }
+
+    @WriteOperation
+    public ReshardResult reshard(@Nullable List<String> ring) {
+        return userResharder.reshard(ring);
+    }
+}
@@ -0,0 +1,95 @@
+package com.jircik.springcrud.config;
+
+import com.jircik.springcrud.repository.ShardRing;
+import com.jircik.springcrud.repository.ShardedUserRepository;
+import com.jircik.springcrud.service.UserResharder;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Modo particionado, ligado quando há ao menos um shard em app.sharding.shards. Cria um pool Hikari por shard,
+ * aplica as migrações de db/shard em cada um e a de db/directory no primário (histórico do Flyway em tabelas
+ * próprias, independentes do profile migrations) e expõe o rebalanceamento em /actuator/shards.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "app.sharding.shards[0].url")
+public class ShardingConfiguration {
+
+    @Bean
+    ShardedUserRepository shardedUserRepository(ShardingProperties properties, DataSource dataSource) {
+        migrate(dataSource, "classpath:db/directory", "flyway_directory_history");
+        Map<String, DataSource> pools = shardPools(dataSource, properties);
+        pools.values().forEach(pool -> migrate(pool, "classpath:db/shard", "flyway_shard_history"));
+        List<String> ring = properties.ring().isEmpty() ? List.copyOf(pools.keySet()) : properties.ring();
+        return new ShardedUserRepository(dataSource, pools, new ShardRing(ring, properties.virtualNodes()));
+    }
+
+    @Bean
+    UserResharder userResharder(ShardedUserRepository shardedUserRepository, TransactionTemplate transactionTemplate,
+                                ShardingProperties properties) {
+        return new UserResharder(shardedUserRepository, transactionTemplate, properties.virtualNodes(),
+                properties.moveBatchSize());
+    }
+
+    @Bean
+    ShardEndpoint shardEndpoint(UserResharder userResharder) {
+        return new ShardEndpoint(userResharder);
+    }
+
+    @Bean
+    ShardingUnsupportedFilter shardingUnsupportedFilter() {
+        return new ShardingUnsupportedFilter();
+    }
+
+    // Bancos já com tabelas (o primário, ou um shard reaproveitado) entram como baseline 0 e recebem a V1
+    private static void migrate(DataSource dataSource, String location, String historyTable) {
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations(location)
+                .table(historyTable)
+                .baselineOnMigrate(true)
+                .baselineVersion("0")
+                .load()
+                .migrate();
+    }
+
+    private static Map<String, DataSource> shardPools(DataSource primary, ShardingProperties properties) {
+        HikariDataSource primaryPool = hikariPool(primary);
+        Map<String, DataSource> pools = new LinkedHashMap<>();
+        List<ShardingProperties.Shard> shards = properties.shards();
+        for (int i = 0; i < shards.size(); i++) {
+            ShardingProperties.Shard shard = shards.get(i);
+            HikariConfig config = new HikariConfig();
+            config.setPoolName(shard.name() != null ? shard.name() : "shard-" + (i + 1));
+            config.setJdbcUrl(shard.url());
+            config.setUsername(shard.username() != null || primaryPool == null ? shard.username() : primaryPool.getUsername());
+            config.setPassword(shard.password() != null || primaryPool == null ? shard.password() : primaryPool.getPassword());
+            config.setMaximumPoolSize(properties.maximumPoolSize());
+            config.setConnectionTimeout(properties.connectionTimeout().toMillis());
+            if (pools.put(config.getPoolName(), new HikariDataSource(config)) != null) {
+                throw new IllegalArgumentException("Duplicate shard name " + config.getPoolName());
+            }
+        }
+        return pools;
+    }
+
+    // O DataSource do contexto vem envolvido (gate, tracing, réplicas): o pool do primário fica por baixo
+    private static HikariDataSource hikariPool(DataSource dataSource) {
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+        } catch (SQLException ex) {
+            return null;
+        }
+    }
+}
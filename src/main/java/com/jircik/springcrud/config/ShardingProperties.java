@@ -0,0 +1,32 @@
+package com.jircik.springcrud.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Particionamento de app_user por hash (app.sharding.*). Sem nenhum shard configurado, tudo fica no
+ * spring.datasource, como antes; com shards, o spring.datasource guarda só o diretório e a sequence de IDs.
+ *
+ * @param shards            bancos que guardam os usuários; usuário e senha, se omitidos, são os do primário
+ * @param ring              shards que recebem usuários pelo hash (vazio = todos); um shard novo entra na lista
+ *                          depois do rebalanceamento (POST /actuator/shards)
+ * @param virtualNodes      pontos de cada shard no anel de hash consistente; mais pontos, distribuição mais uniforme
+ * @param maximumPoolSize   tamanho do pool Hikari de cada shard
+ * @param connectionTimeout espera máxima por uma conexão de shard
+ * @param moveBatchSize     usuários lidos por vez de cada shard durante o rebalanceamento
+ */
+@ConfigurationProperties("app.sharding")
+public record ShardingProperties(
+        @DefaultValue List<Shard> shards,
+        @DefaultValue List<String> ring,
+        @DefaultValue("128") int virtualNodes,
+        @DefaultValue("10") int maximumPoolSize,
+        @DefaultValue("1s") Duration connectionTimeout,
+        @DefaultValue("500") int moveBatchSize) {
+
+    public record Shard(String name, String url, String username, String password) {
+    }
+}
@@ -0,0 +1,50 @@
+package com.jircik.springcrud.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * No modo particionado, recusa com 501 os endpoints que ainda leem ou escrevem app_user direto no primário
+ * (operações em massa, importação, count, feed de alterações, disponibilidade de e-mail, write-behind e
+ * paginação por offset), em vez de responder com dados do primário, que não tem mais os usuários.
+ */
+public class ShardingUnsupportedFilter extends OncePerRequestFilter {
+
+    private static final String USERS = "/api/v1/users";
+    private static final List<String> UNSUPPORTED_PATHS = List.of(
+            "/bulk", "/import", "/count", "/changes", "/email-availability", "/writes",
+            "/search");
+    private static final List<String> UNSUPPORTED_PARAMS = List.of("page", "ids", "emailDomain", "namePrefix");
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!unsupported(request)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        response.setStatus(HttpStatus.NOT_IMPLEMENTED.value());
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.getWriter().write("Not available while app_user is sharded (app.sharding.shards)");
+    }
+
+    private static boolean unsupported(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (!path.startsWith(USERS)) {
+            return false;
+        }
+        String rest = path.substring(USERS.length());
+        if (UNSUPPORTED_PATHS.stream().anyMatch(rest::startsWith)) {
+            return true;
+        }
+        return rest.isEmpty() && UNSUPPORTED_PARAMS.stream().anyMatch(param -> request.getParameter(param) != null);
+    }
+}
@@ -0,0 +1,46 @@
+package com.jircik.springcrud.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Log de consultas lentas: intercepta o DataSource, registra de qual método de serviço veio cada
+ * statement e publica o relatório em /actuator/slowqueries. Substitui o spring.jpa.show-sql.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "app.slow-query.enabled", havingValue = "true", matchIfMissing = true)
+public class SlowQueryConfiguration {
+
+    @Bean
+    SlowQueryLog slowQueryLog(SlowQueryProperties properties) {
+        return new SlowQueryLog(properties);
+    }
+
+    @Bean
+    static BeanPostProcessor queryTracingPostProcessor(ObjectProvider<SlowQueryLog> slowQueryLog) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof QueryTracingDataSource)) {
+                    return new QueryTracingDataSource(dataSource, slowQueryLog.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    QueryOriginAspect queryOriginAspect() {
+        return new QueryOriginAspect();
+    }
+
+    @Bean
+    SlowQueryEndpoint slowQueryEndpoint(SlowQueryLog slowQueryLog) {
+        return new SlowQueryEndpoint(slowQueryLog);
+    }
+}
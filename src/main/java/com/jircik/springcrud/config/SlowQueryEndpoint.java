@@ -0,0 +1,30 @@
+package com.jircik.springcrud.config;
+
+import com.jircik.springcrud.dto.SlowQueryReport;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+/**
+ * Endpoint administrativo do log de consultas: GET /actuator/slowqueries mostra o relatório,
+ * DELETE zera as consultas mais lentas e as formas agregadas.
+ */
+@Endpoint(id = "slowqueries")
+public class SlowQueryEndpoint {
+
+    private final SlowQueryLog slowQueryLog;
+
+    public SlowQueryEndpoint(SlowQueryLog slowQueryLog) {
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    @ReadOperation
+    public SlowQueryReport report() {
+        return slowQueryLog.report();
+    }
+
+    @DeleteOperation
+    public void reset() {
+        slowQueryLog.reset();
+    }
+}
@@ -0,0 +1,177 @@
+package com.jircik.springcrud.config;
+
+import com.jircik.springcrud.dto.SlowQueryReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * Registro de statements SQL executados, alimentado pelo {@link QueryTracingDataSource}.
+ * <p>
+ * Cada statement soma em contadores {@link LongAdder} da sua forma de SQL. As mais lentas ficam num min-heap
+ * limitado a top entradas (desde o último reset): quem não passa do menor tempo do heap cheio é descartado com
+ * uma leitura volátil, sem lock, então só os raros statements que entram no top disputam o lock.
+ * Logar custa caro, então só acontece acima do threshold ou para a fração amostrada.
+ */
+public class SlowQueryLog {
+
+    private static final Logger log = LoggerFactory.getLogger(SlowQueryLog.class);
+    private static final String OTHER_SHAPES = "(other)";
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w$.])-?\\d+(?:\\.\\d+)?");
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final long thresholdNanos;
+    private final double sampleRate;
+    private final int top;
+    private final int maxShapes;
+    private final PriorityQueue<Sample> slowest = new PriorityQueue<>(Comparator.comparingLong(Sample::durationNanos));
+    private final ReentrantLock slowestLock = new ReentrantLock();
+    // Menor duração do heap quando cheio; -1 enquanto há espaço
+    private volatile long slowestFloorNanos = -1;
+    private final AtomicLong recorded = new AtomicLong();
+    private final Map<String, ShapeStats> shapes = new ConcurrentHashMap<>();
+    private final Map<String, String> normalized = new ConcurrentHashMap<>();
+
+    public SlowQueryLog(SlowQueryProperties properties) {
+        this.thresholdNanos = properties.threshold().toNanos();
+        this.sampleRate = properties.sampleRate();
+        this.top = Math.max(1, properties.top());
+        this.maxShapes = properties.maxShapes();
+    }
+
+    public void record(String sql, long durationNanos, int parameters, int batchSize) {
+        String origin = QueryOriginAspect.current();
+        recorded.incrementAndGet();
+        if (durationNanos > slowestFloorNanos) {
+            offer(new Sample(System.currentTimeMillis(), durationNanos, sql, parameters, batchSize, origin));
+        }
+        shapeStats(sql).record(durationNanos);
+
+        if (durationNanos >= thresholdNanos) {
+            log.warn("Slow query ({} ms, {} params, batch {}, from {}): {}",
+                    durationNanos / 1_000_000, parameters, batchSize, origin, sql);
+        } else if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            log.info("Sampled query ({} µs, {} params, batch {}, from {}): {}",
+                    durationNanos / 1_000, parameters, batchSize, origin, sql);
+        }
+    }
+
+    /** Monta o relatório a partir das mais lentas desde o último reset e das formas agregadas. */
+    public SlowQueryReport report() {
+        List<Sample> samples;
+        slowestLock.lock();
+        try {
+            samples = List.copyOf(slowest);
+        } finally {
+            slowestLock.unlock();
+        }
+        List<SlowQueryReport.Query> slowestQueries = samples.stream()
+                .sorted(Comparator.comparingLong(Sample::durationNanos).reversed())
+                .map(Sample::toQuery)
+                .toList();
+        List<SlowQueryReport.Shape> topShapes = shapes.entrySet().stream()
+                .map(entry -> entry.getValue().toShape(entry.getKey()))
+                .sorted(Comparator.comparingDouble(SlowQueryReport.Shape::totalMillis).reversed())
+                .limit(top)
+                .toList();
+        return new SlowQueryReport(recorded.get(), slowestQueries, topShapes);
+    }
+
+    public void reset() {
+        slowestLock.lock();
+        try {
+            slowest.clear();
+            slowestFloorNanos = -1;
+        } finally {
+            slowestLock.unlock();
+        }
+        shapes.clear();
+        recorded.set(0);
+    }
+
+    // ReentrantLock e não synchronized: record roda na thread da requisição, que pode ser virtual
+    private void offer(Sample sample) {
+        slowestLock.lock();
+        try {
+            if (slowest.size() < top) {
+                slowest.add(sample);
+            } else if (sample.durationNanos() > slowest.peek().durationNanos()) {
+                slowest.poll();
+                slowest.add(sample);
+            }
+            if (slowest.size() >= top) {
+                slowestFloorNanos = slowest.peek().durationNanos();
+            }
+        } finally {
+            slowestLock.unlock();
+        }
+    }
+
+    private ShapeStats shapeStats(String sql) {
+        String shape = normalized.get(sql);
+        if (shape == null) {
+            shape = normalize(sql);
+            // O SQL do Hibernate se repete; só limita o cache para SQL montado com literais
+            if (normalized.size() < maxShapes * 4) {
+                normalized.put(sql, shape);
+            }
+        }
+        ShapeStats stats = shapes.get(shape);
+        if (stats != null) {
+            return stats;
+        }
+        return shapes.size() < maxShapes
+                ? shapes.computeIfAbsent(shape, key -> new ShapeStats())
+                : shapes.computeIfAbsent(OTHER_SHAPES, key -> new ShapeStats());
+    }
+
+    /** Troca literais por ?, colapsa listas IN e espaços, para agrupar statements da mesma forma. */
+    static String normalize(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = IN_LIST.matcher(shape).replaceAll("(?...)");
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+    }
+
+    private record Sample(long atMillis, long durationNanos, String sql, int parameters, int batchSize, String origin) {
+
+        SlowQueryReport.Query toQuery() {
+            return new SlowQueryReport.Query(Instant.ofEpochMilli(atMillis), durationNanos / 1e6, sql, parameters,
+                    batchSize, origin);
+        }
+    }
+
+    private static final class ShapeStats {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        void record(long durationNanos) {
+            count.increment();
+            totalNanos.add(durationNanos);
+            maxNanos.accumulate(durationNanos);
+        }
+
+        SlowQueryReport.Shape toShape(String sql) {
+            long n = count.sum();
+            double total = totalNanos.sum() / 1e6;
+            return new SlowQueryReport.Shape(sql, n, total, n == 0 ? 0 : total / n, maxNanos.get() / 1e6);
+        }
+    }
+}
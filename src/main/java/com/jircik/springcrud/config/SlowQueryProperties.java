@@ -0,0 +1,24 @@
+package com.jircik.springcrud.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Log de consultas lentas (app.slow-query.*).
+ *
+ * @param enabled    liga/desliga a interceptação dos statements
+ * @param threshold  statements a partir dessa duração são logados em WARN
+ * @param sampleRate fração (0 a 1) dos demais statements logados em INFO; 0 desliga a amostragem
+ * @param top        quantas consultas (as mais lentas desde o último reset) e formas o relatório mostra
+ * @param maxShapes  limite de formas de SQL distintas agregadas; o excedente vai para "(other)"
+ */
+@ConfigurationProperties("app.slow-query")
+public record SlowQueryProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("200ms") Duration threshold,
+        @DefaultValue("0") double sampleRate,
+        @DefaultValue("20") int top,
+        @DefaultValue("500") int maxShapes) {
+}
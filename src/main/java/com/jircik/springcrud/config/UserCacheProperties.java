@@ -0,0 +1,22 @@
+package com.jircik.springcrud.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Configuração do cache de leitura de usuários (app.users.cache.*).
+ *
+ * @param enabled     liga/desliga o cache (desligado, toda leitura vai ao banco)
+ * @param maximumSize quantidade máxima de entradas em cada índice (por ID e por nome)
+ * @param ttl         tempo de vida de um usuário encontrado
+ * @param negativeTtl tempo de vida de um "não encontrado", mantido curto de propósito
+ */
+@ConfigurationProperties("app.users.cache")
+public record UserCacheProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("100000") long maximumSize,
+        @DefaultValue("10m") Duration ttl,
+        @DefaultValue("5s") Duration negativeTtl) {
+}
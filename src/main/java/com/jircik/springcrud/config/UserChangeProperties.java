@@ -0,0 +1,27 @@
+package com.jircik.springcrud.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Feed de alterações de usuários (app.users.changes.*): outbox, atribuição de offsets e entrega por SSE.
+ *
+ * @param pollInterval    de quanto em quanto tempo o relay procura registros sem offset (os desta instância são
+ *                        atribuídos logo após o commit) e cada stream SSE consulta o feed sem ter sido avisado
+ * @param batchSize       registros por transação do relay e máximo por página/rajada de eventos
+ * @param compactAfter    idade a partir da qual um registro é removido se o mesmo usuário tiver um mais novo
+ * @param compactInterval intervalo entre compactações
+ * @param heartbeat       intervalo do comentário SSE enviado em streams ociosos (mantém proxies conectados)
+ * @param streamTimeout   duração máxima de um stream SSE; o cliente reconecta com Last-Event-ID
+ */
+@ConfigurationProperties("app.users.changes")
+public record UserChangeProperties(
+        @DefaultValue("1s") Duration pollInterval,
+        @DefaultValue("1000") int batchSize,
+        @DefaultValue("24h") Duration compactAfter,
+        @DefaultValue("10m") Duration compactInterval,
+        @DefaultValue("15s") Duration heartbeat,
+        @DefaultValue("30m") Duration streamTimeout) {
+}
@@ -0,0 +1,19 @@
+package com.jircik.springcrud.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Configuração da contagem de usuários (app.users.count.*).
+ *
+ * @param exactTtl   por quanto tempo o resultado de count() é reaproveitado no modo exato
+ * @param liveResync intervalo para ressincronizar o contador em memória com count(); corrige o que
+ *                   ele não enxerga (escritas de outras instâncias ou direto no banco)
+ */
+@ConfigurationProperties("app.users.count")
+public record UserCountProperties(
+        @DefaultValue("5s") Duration exactTtl,
+        @DefaultValue("1m") Duration liveResync) {
+}
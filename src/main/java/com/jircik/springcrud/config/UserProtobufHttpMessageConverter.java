@@ -0,0 +1,162 @@
+package com.jircik.springcrud.config;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import com.jircik.springcrud.dto.UserPage;
+import com.jircik.springcrud.model.User;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Escreve {@link User}, {@code List<User>} e {@code UserPage<User>} em Protobuf, conforme
+ * {@code src/main/proto/user.proto}. A codificação é feita direto no stream com CodedOutputStream,
+ * sem gerar classes com o protoc nem copiar as entidades para mensagens intermediárias.
+ * Só escrita: o corpo das requisições continua sendo JSON.
+ */
+public class UserProtobufHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final MediaType APPLICATION_PROTOBUF = new MediaType("application", "x-protobuf");
+
+    // Números dos campos em user.proto
+    private static final int USER_ID = 1;
+    private static final int USER_NAME = 2;
+    private static final int USER_EMAIL = 3;
+    private static final int USER_VERSION = 4;
+    private static final int LIST_USERS = 1;
+    private static final int PAGE_ITEMS = 1;
+    private static final int PAGE_NEXT_CURSOR = 2;
+
+    public UserProtobufHttpMessageConverter() {
+        super(APPLICATION_PROTOBUF);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return User.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return canWrite(mediaType) && isSupported(type != null ? ResolvableType.forType(type) : ResolvableType.forClass(clazz));
+    }
+
+    // supports(Class) só enxerga a classe crua (List, UserPage); os tipos genéricos são checados em canWrite
+    @Override
+    public List<MediaType> getSupportedMediaTypes(Class<?> clazz) {
+        return getSupportedMediaTypes();
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    private static boolean isSupported(ResolvableType type) {
+        Class<?> raw = type.toClass();
+        if (User.class.isAssignableFrom(raw)) {
+            return true;
+        }
+        if (Collection.class.isAssignableFrom(raw)) {
+            return isUser(type.asCollection().resolveGeneric(0));
+        }
+        if (UserPage.class.isAssignableFrom(raw)) {
+            return isUser(type.as(UserPage.class).resolveGeneric(0));
+        }
+        return false;
+    }
+
+    private static boolean isUser(Class<?> element) {
+        return element != null && User.class.isAssignableFrom(element);
+    }
+
+    @Override
+    protected void writeInternal(Object body, Type type, HttpOutputMessage outputMessage) throws IOException {
+        CodedOutputStream output = CodedOutputStream.newInstance(outputMessage.getBody());
+        switch (body) {
+            case User user -> writeUserFields(output, user);
+            case Collection<?> users -> writeUsers(output, LIST_USERS, users);
+            case UserPage<?> page -> {
+                writeUsers(output, PAGE_ITEMS, page.items());
+                if (page.nextCursor() != null) {
+                    output.writeString(PAGE_NEXT_CURSOR, page.nextCursor());
+                }
+            }
+            default -> throw new IllegalArgumentException("Unsupported type " + body.getClass().getName());
+        }
+        output.flush();
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Protobuf request bodies are not supported", inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Protobuf request bodies are not supported", inputMessage);
+    }
+
+    private static void writeUsers(CodedOutputStream output, int field, Collection<?> users) throws IOException {
+        for (Object element : users) {
+            User user = (User) element;
+            // Mensagem aninhada: tag, tamanho e os campos (o tamanho é calculado sem alocar)
+            output.writeTag(field, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            output.writeUInt32NoTag(userSize(user));
+            writeUserFields(output, user);
+        }
+    }
+
+    private static void writeUserFields(CodedOutputStream output, User user) throws IOException {
+        if (user.getId() != null) {
+            output.writeInt32(USER_ID, user.getId());
+        }
+        if (user.getName() != null) {
+            output.writeString(USER_NAME, user.getName());
+        }
+        if (user.getEmail() != null) {
+            output.writeString(USER_EMAIL, user.getEmail());
+        }
+        if (user.getVersion() != null) {
+            output.writeInt64(USER_VERSION, user.getVersion());
+        }
+    }
+
+    private static int userSize(User user) {
+        int size = 0;
+        if (user.getId() != null) {
+            size += CodedOutputStream.computeInt32Size(USER_ID, user.getId());
+        }
+        if (user.getName() != null) {
+            size += CodedOutputStream.computeStringSize(USER_NAME, user.getName());
+        }
+        if (user.getEmail() != null) {
+            size += CodedOutputStream.computeStringSize(USER_EMAIL, user.getEmail());
+        }
+        if (user.getVersion() != null) {
+            size += CodedOutputStream.computeInt64Size(USER_VERSION, user.getVersion());
+        }
+        return size;
+    }
+
+    /** Escreve uma UserList, como na resposta de GET /api/v1/users (usado também nos benchmarks). */
+    public static void writeList(List<User> users, OutputStream out) throws IOException {
+        CodedOutputStream output = CodedOutputStream.newInstance(out);
+        writeUsers(output, LIST_USERS, users);
+        output.flush();
+    }
+}
@@ -0,0 +1,20 @@
+package com.jircik.springcrud.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Busca por nome e e-mail (app.users.search.*) para o autocomplete.
+ *
+ * @param enabled         desligado, a busca vai ao banco (só prefixo, sem tolerância a erros de digitação)
+ * @param refreshInterval intervalo de leitura do feed de alterações (escritas em massa e de outras instâncias)
+ * @param maxResults      posição máxima alcançável pela paginação ((page + 1) * size)
+ */
+@ConfigurationProperties("app.users.search")
+public record UserSearchProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("1s") Duration refreshInterval,
+        @DefaultValue("1000") int maxResults) {
+}
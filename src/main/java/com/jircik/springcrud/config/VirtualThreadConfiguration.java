@@ -0,0 +1,50 @@
+package com.jircik.springcrud.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Suporte ao modo com virtual threads ({@code spring.threads.virtual.enabled=true}).
+ * <p>
+ * Com a propriedade ligada, o próprio Spring Boot faz o Tomcat e os executores da aplicação usarem
+ * virtual threads. Aqui ficam as duas peças que faltam: o limite de concorrência na frente do pool
+ * JDBC e o monitor de pinning.
+ */
+@Configuration(proxyBeanMethods = false)
+public class VirtualThreadConfiguration {
+
+    /**
+     * Envolve o DataSource do pool em um {@link ConcurrencyLimitedDataSource}. Só no modo com virtual threads:
+     * com platform threads o próprio tamanho do pool do Tomcat já limita quem disputa conexões.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+    @ConditionalOnProperty(name = "app.datasource.gate.enabled", havingValue = "true", matchIfMissing = true)
+    static BeanPostProcessor databaseGatePostProcessor(ObjectProvider<DatabaseGateProperties> properties) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ConcurrencyLimitedDataSource)) {
+                    DatabaseGateProperties gate = properties.getObject();
+                    return new ConcurrencyLimitedDataSource(dataSource, gate.maxConcurrency(), gate.acquireTimeout());
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+    @ConditionalOnProperty(name = "app.threads.pinning-monitor.enabled", havingValue = "true", matchIfMissing = true)
+    VirtualThreadPinningMonitor virtualThreadPinningMonitor(
+            @Value("${app.threads.pinning-monitor.threshold:20ms}") Duration threshold) {
+        return new VirtualThreadPinningMonitor(threshold);
+    }
+}
@@ -0,0 +1,25 @@
+package com.jircik.springcrud.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Cadastro assíncrono (write-behind) de usuários (app.users.write-behind.*). O tamanho de cada
+ * lote/transação é o mesmo do cadastro em lote, app.users.bulk.chunk-size.
+ *
+ * @param enabled           POST /api/v1/users enfileira e responde 202 em vez de gravar na hora
+ * @param queueCapacity     usuários aguardando gravação; com a fila cheia o POST responde 429
+ * @param statusTtl         por quanto tempo o resultado de cada token continua consultável
+ * @param statusCapacity    máximo de tokens guardados; acima disso os mais antigos saem antes do statusTtl
+ * @param shutdownTimeout   tempo máximo para esvaziar a fila no desligamento
+ */
+@ConfigurationProperties("app.users.write-behind")
+public record WriteBehindProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("10000") int queueCapacity,
+        @DefaultValue("10m") Duration statusTtl,
+        @DefaultValue("100000") long statusCapacity,
+        @DefaultValue("30s") Duration shutdownTimeout) {
+}
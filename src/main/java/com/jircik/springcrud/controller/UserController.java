@@ -1,44 +1,290 @@
 package com.jircik.springcrud.controller;
 
+import com.jircik.springcrud.dto.BulkCreateResult;
+import com.jircik.springcrud.dto.BulkGetResult;
+import com.jircik.springcrud.dto.BulkIdsRequest;
+import com.jircik.springcrud.dto.BulkRenameRequest;
+import com.jircik.springcrud.dto.BulkUpdateResult;
+import com.jircik.springcrud.dto.EmailAvailability;
+import com.jircik.springcrud.dto.EmailDomainRewriteRequest;
+import com.jircik.springcrud.dto.ImportResult;
+import com.jircik.springcrud.dto.UserCacheStats;
+import com.jircik.springcrud.dto.UserChangePage;
+import com.jircik.springcrud.dto.UserCount;
+import com.jircik.springcrud.dto.UserPage;
+import com.jircik.springcrud.dto.UserPatch;
+import com.jircik.springcrud.dto.UserSearchResult;
+import com.jircik.springcrud.dto.UserWriteStatus;
 import com.jircik.springcrud.model.User;
+import com.jircik.springcrud.model.UserField;
+import com.jircik.springcrud.service.UserBulkService;
+import com.jircik.springcrud.service.UserChangeFeed;
+import com.jircik.springcrud.service.UserCountService;
+import com.jircik.springcrud.service.UserEmailFilter;
+import com.jircik.springcrud.service.UserExportService;
+import com.jircik.springcrud.service.UserImportService;
+import com.jircik.springcrud.service.UserSearch;
 import com.jircik.springcrud.service.UserService;
+import com.jircik.springcrud.service.UserVersionMismatchException;
+import com.jircik.springcrud.service.WriteBehindRejectedException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.web.PagedModel;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import tools.jackson.databind.DeserializationFeature;
+import tools.jackson.databind.MappingIterator;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectReader;
+import tools.jackson.dataformat.csv.CsvMapper;
+import tools.jackson.dataformat.csv.CsvReadFeature;
+import tools.jackson.dataformat.csv.CsvSchema;
+
+import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("api/v1/users")
 @RequiredArgsConstructor
 public class UserController {
 
+    // CSV da importação: cabeçalho obrigatório (name,email em qualquer ordem); outras colunas são ignoradas
+    private static final ObjectReader CSV_READER = CsvMapper.builder()
+            .enable(CsvReadFeature.TRIM_SPACES)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build()
+            .readerFor(User.class)
+            .with(CsvSchema.emptySchema().withHeader());
+
     private final UserService userService;
+    private final UserExportService userExportService;
+    private final UserImportService userImportService;
+    private final UserBulkService userBulkService;
+    private final UserCountService userCountService;
+    private final UserChangeFeed userChangeFeed;
+    private final UserEmailFilter userEmailFilter;
+    private final UserSearch userSearch;
+    private final ObjectMapper objectMapper;
 
-    @GetMapping
+    @GetMapping(params = "!fields")
     public List<User> getUsers(){
         return userService.getUsers();
     }
 
+    @GetMapping(params = {"limit", "!fields"})
+    public UserPage<User> getUsersAfter(@RequestParam(required = false) String after, @RequestParam int limit){
+        return userService.getUsersAfter(after, limit);
+    }
+
+    // Paginação por offset, apenas para telas administrativas pequenas
+    @GetMapping(params = {"page", "!limit", "!fields"})
+    public PagedModel<User> getUsersPage(@RequestParam int page, @RequestParam(defaultValue = "20") int size){
+        return new PagedModel<>(userService.getUsersPage(page, size));
+    }
+
+    // Sparse fieldsets (?fields=id,email): o SELECT traz só essas colunas e a resposta só essas chaves
+    @GetMapping(params = {"fields", "!limit", "!page", "!ids"})
+    public List<Map<String, Object>> getUserFields(@RequestParam String fields){
+        return userService.getUsers(UserField.parse(fields));
+    }
+
+    @GetMapping(params = {"fields", "limit"})
+    public UserPage<Map<String, Object>> getUserFieldsAfter(@RequestParam String fields,
+                                                            @RequestParam(required = false) String after,
+                                                            @RequestParam int limit){
+        return userService.getUsersAfter(after, limit, UserField.parse(fields));
+    }
+
+    @GetMapping(params = {"fields", "page", "!limit"})
+    public PagedModel<Map<String, Object>> getUserFieldsPage(@RequestParam String fields, @RequestParam int page,
+                                                             @RequestParam(defaultValue = "20") int size){
+        return new PagedModel<>(userService.getUsersPage(page, size, UserField.parse(fields)));
+    }
+
+    // Busca em lote (?ids=1,2,3): um item por ID distinto, na ordem pedida, com NOT_FOUND para os inexistentes
+    @GetMapping(params = {"ids", "!fields"})
+    public BulkGetResult getUsersByIds(@RequestParam List<Integer> ids){
+        return userBulkService.getByIds(ids);
+    }
+
+    // Exportação completa em NDJSON, escrita em streaming (memória constante)
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportUsers(){
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(userExportService::exportNdjson);
+    }
+
+    // Total para dashboards: mode=exact (padrão), approximate (estatísticas do banco) ou live (contador em memória)
+    @GetMapping("/count")
+    public UserCount countUsers(@RequestParam(defaultValue = "exact") String mode){
+        return userCountService.count(UserCount.Mode.parse(mode));
+    }
+
+    // Formulário de cadastro: "livre" vem do filtro de e-mails em memória; só "talvez" consulta o banco
+    @GetMapping("/email-availability")
+    public EmailAvailability getEmailAvailability(@RequestParam String email){
+        return userEmailFilter.check(email);
+    }
+
+    // Autocomplete do admin: prefixo em nome/e-mail, tolerante a um erro de digitação, exatos primeiro
+    @GetMapping("/search")
+    public UserSearchResult searchUsers(@RequestParam String q, @RequestParam(defaultValue = "0") int page,
+                                        @RequestParam(defaultValue = "20") int size){
+        return userSearch.search(q, page, size);
+    }
+
+    @GetMapping("/cache/stats")
+    public List<UserCacheStats> getCacheStats(){
+        return userService.getCacheStats();
+    }
+
+    // Feed de alterações: página a partir de um offset (o nextOffset da resposta é o after da próxima)
+    @GetMapping("/changes")
+    public UserChangePage getChanges(@RequestParam(defaultValue = "0") long after,
+                                     @RequestParam(defaultValue = "100") int limit){
+        return userChangeFeed.read(after, limit);
+    }
+
+    // Offset atual, lido antes de copiar a tabela: o stream a partir dele não perde nada da cópia
+    @GetMapping("/changes/head")
+    public UserChangePage getChangesHead(){
+        return new UserChangePage(List.of(), userChangeFeed.head());
+    }
+
+    // SSE: na reconexão o cliente envia Last-Event-ID, que tem prioridade sobre after
+    @GetMapping(value = "/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(defaultValue = "0") long after,
+                                    @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId){
+        return userChangeFeed.stream(lastEventId != null ? lastEventId : after);
+    }
+
+    // If-None-Match: compara só a versão (cache ou coluna version) e responde 304 sem carregar/serializar o corpo
     @GetMapping("/{id}")
-    public User getUserById(@PathVariable Integer id){
-        return userService.getUserById(id);
+    public ResponseEntity<User> getUserById(@PathVariable Integer id, WebRequest request){
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                && request.checkNotModified(String.valueOf(userService.getUserVersionById(id)))) {
+            return null;
+        }
+        return withETag(userService.getUserById(id));
     }
 
     @GetMapping("/name/{name}")
-    public User getUserByName(@PathVariable String name){
-        return userService.getUserByName(name);
+    public ResponseEntity<User> getUserByName(@PathVariable String name, WebRequest request){
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                && request.checkNotModified(String.valueOf(userService.getUserVersionByName(name)))) {
+            return null;
+        }
+        return withETag(userService.getUserByName(name));
     }
 
+    // Mesmo ETag da representação completa: version é buscada junto e só fica no corpo se foi pedida
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getUserFieldsById(@PathVariable Integer id, @RequestParam String fields,
+                                                                 WebRequest request){
+        Set<UserField> requested = UserField.parse(fields);
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                && request.checkNotModified(String.valueOf(userService.getUserVersionById(id)))) {
+            return null;
+        }
+        return withETag(userService.getUserFieldsById(id, UserField.including(requested, UserField.VERSION)), requested);
+    }
+
+    @GetMapping(value = "/name/{name}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getUserFieldsByName(@PathVariable String name, @RequestParam String fields,
+                                                                   WebRequest request){
+        Set<UserField> requested = UserField.parse(fields);
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                && request.checkNotModified(String.valueOf(userService.getUserVersionByName(name)))) {
+            return null;
+        }
+        return withETag(userService.getUserFieldsByName(name, UserField.including(requested, UserField.VERSION)), requested);
+    }
 
+
+    // 201 (Created) quando grava na hora; 202 (Accepted) com o token no modo write-behind
     @PostMapping
-    @ResponseStatus(HttpStatus.CREATED) // Retorna o código de status HTTP 201 (Created)
-    public void addNweUser(@RequestBody User user){
-        userService.insertUser(user);
+    public ResponseEntity<UserWriteStatus> addNweUser(@RequestBody User user){
+        return userService.insertUser(user)
+                .map(status -> ResponseEntity.accepted()
+                        .location(ServletUriComponentsBuilder.fromCurrentRequestUri()
+                                .path("/writes/{token}").buildAndExpand(status.token()).toUri())
+                        .body(status))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.CREATED).build());
     }
 
+    @GetMapping("/writes/{token}")
+    public UserWriteStatus getWriteStatus(@PathVariable String token){
+        return userService.getWriteStatus(token);
+    }
+
+    // Cadastro em lote: aceita um array JSON ou NDJSON, lido de forma incremental
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public BulkCreateResult addUsers(InputStream body){
+        try (MappingIterator<User> users = objectMapper.readerFor(User.class).readValues(body)) {
+            return userBulkService.createAll(users);
+        }
+    }
+
+    // Sincronização com sistemas externos: upsert pelo e-mail em blocos grandes, com o corpo lido de forma incremental
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ImportResult importUsersCsv(InputStream body){
+        try (MappingIterator<User> rows = CSV_READER.readValues(body)) {
+            return userImportService.importUsers(rows);
+        }
+    }
+
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ImportResult importUsers(InputStream body){
+        try (MappingIterator<User> rows = objectMapper.readerFor(User.class).readValues(body)) {
+            return userImportService.importUsers(rows);
+        }
+    }
+
+    // Mesma busca em lote, para listas de IDs grandes demais para a URL
+    @PostMapping("/bulk/get")
+    public BulkGetResult getUsersByIds(@RequestBody BulkIdsRequest request){
+        return userBulkService.getByIds(request.ids());
+    }
+
+    @PostMapping("/bulk/delete")
+    public BulkUpdateResult removeUsersByIds(@RequestBody BulkIdsRequest request){
+        return userBulkService.deleteByIds(request.ids());
+    }
+
+    @PostMapping("/bulk/rename")
+    public BulkUpdateResult renameUsers(@RequestBody BulkRenameRequest request){
+        return userBulkService.renameByIds(request.ids(), request.name());
+    }
+
+    @PostMapping("/bulk/email-domain")
+    public BulkUpdateResult rewriteEmailDomain(@RequestBody EmailDomainRewriteRequest request){
+        return userBulkService.rewriteEmailDomain(request.from(), request.to());
+    }
+
+    // If-Match: só atualiza se a versão atual for a informada, senão 412 (evita lost update)
     @PutMapping
-    public void updateUser(@RequestBody User user) {
-        userService.updateUser(user);
+    public void updateUser(@RequestBody User user, @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        userService.updateUser(user, expectedVersion(ifMatch));
+    }
+
+    // Atualização parcial: um único UPDATE com os campos presentes; sem escrita se nada mudou
+    @PatchMapping("/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT) // Retorna o código de status HTTP 204 (No Content)
+    public void patchUser(@PathVariable Integer id, @RequestBody UserPatch patch,
+                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        userService.patchUser(id, patch, expectedVersion(ifMatch));
     }
 
     @DeleteMapping("/{id}")
@@ -54,9 +300,93 @@ public class UserController {
     }
 
 
+    @DeleteMapping(params = "emailDomain")
+    public BulkUpdateResult removeUsersByEmailDomain(@RequestParam String emailDomain){
+        return userBulkService.deleteByEmailDomain(emailDomain);
+    }
+
+    @DeleteMapping(params = {"namePrefix", "!emailDomain"})
+    public BulkUpdateResult removeUsersByNamePrefix(@RequestParam String namePrefix){
+        return userBulkService.deleteByNamePrefix(namePrefix);
+    }
+
+
+    private static ResponseEntity<User> withETag(User user) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (user.getVersion() != null) {
+            response.eTag(String.valueOf(user.getVersion()));
+        }
+        return response.body(user);
+    }
+
+    private static ResponseEntity<Map<String, Object>> withETag(Map<String, Object> user, Set<UserField> requested) {
+        Object version = requested.contains(UserField.VERSION)
+                ? user.get(UserField.VERSION.attribute())
+                : user.remove(UserField.VERSION.attribute());
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (version != null) {
+            response.eTag(String.valueOf(version));
+        }
+        return response.body(user);
+    }
+
+    // Tag fraca nunca casa na comparação forte do If-Match: 412. Cabeçalho malformado ou tag que não é
+    // uma versão nossa é erro do cliente: 400
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null) {
+            return null;
+        }
+        ETag etag = ETag.parse(ifMatch).stream().findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Invalid If-Match header: " + ifMatch));
+        if (etag.isWildcard()) {
+            return null;
+        }
+        if (etag.weak()) {
+            throw new UserVersionMismatchException("If-Match requires a strong ETag");
+        }
+        try {
+            return Long.valueOf(etag.tag());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("If-Match is not a user version: " + etag.formattedTag());
+        }
+    }
+
+
     @ExceptionHandler(IllegalStateException.class)
     @ResponseStatus(HttpStatus.NOT_FOUND) // Retorna o código de status HTTP 404 (Not Found)
     public String handleIllegalStateException(IllegalStateException ex) {
         return ex.getMessage();
     }
-}
\ No newline at end of file
+
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    @ResponseStatus(HttpStatus.CONFLICT) // Retorna o código de status HTTP 409 (Conflict), ex.: e-mail duplicado
+    public String handleDataIntegrityViolationException(DataIntegrityViolationException ex) {
+        return "Request conflicts with existing data (duplicate email?)";
+    }
+
+    @ExceptionHandler(UserVersionMismatchException.class)
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED) // Retorna o código de status HTTP 412 (Precondition Failed)
+    public String handleUserVersionMismatchException(UserVersionMismatchException ex) {
+        return ex.getMessage();
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED) // Escrita concorrente detectada pelo @Version no commit
+    public String handleOptimisticLockingFailureException(OptimisticLockingFailureException ex) {
+        return "User was modified concurrently";
+    }
+
+    @ExceptionHandler(WriteBehindRejectedException.class)
+    public ResponseEntity<String> handleWriteBehindRejectedException(WriteBehindRejectedException ex) {
+        // Retorna o código de status HTTP 429 (Too Many Requests): fila do write-behind cheia
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(ex.getMessage());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST) // Retorna o código de status HTTP 400 (Bad Request)
+    public String handleIllegalArgumentException(IllegalArgumentException ex) {
+        return ex.getMessage();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,22 @@
+package com.jircik.springcrud.dto;
+
+import java.util.List;
+
+/**
+ * Resultado do cadastro em lote: totais e o desfecho de cada item, na ordem do corpo da requisição.
+ */
+public record BulkCreateResult(int created, int failed, List<Item> items) {
+
+    public enum Status { CREATED, FAILED }
+
+    public record Item(int index, Status status, Integer id, String error) {
+
+        public static Item created(int index, Integer id) {
+            return new Item(index, Status.CREATED, id, null);
+        }
+
+        public static Item failed(int index, String error) {
+            return new Item(index, Status.FAILED, null, error);
+        }
+    }
+}
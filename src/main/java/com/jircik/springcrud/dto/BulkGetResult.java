@@ -0,0 +1,20 @@
+package com.jircik.springcrud.dto;
+
+import com.jircik.springcrud.model.User;
+
+import java.util.List;
+
+/**
+ * Resultado da busca em lote: um item por ID distinto, na ordem da requisição, inclusive os não encontrados.
+ */
+public record BulkGetResult(int found, int missing, List<Item> items) {
+
+    public enum Status { FOUND, NOT_FOUND }
+
+    public record Item(Integer id, Status status, User user) {
+
+        public static Item of(Integer id, User user) {
+            return new Item(id, user != null ? Status.FOUND : Status.NOT_FOUND, user);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.jircik.springcrud.dto;
+
+import java.util.List;
+
+/**
+ * Lista de IDs para operações em lote.
+ */
+public record BulkIdsRequest(List<Integer> ids) {
+}
@@ -0,0 +1,9 @@
+package com.jircik.springcrud.dto;
+
+import java.util.List;
+
+/**
+ * Renomeia em lote os usuários informados.
+ */
+public record BulkRenameRequest(List<Integer> ids, String name) {
+}
@@ -0,0 +1,7 @@
+package com.jircik.springcrud.dto;
+
+/**
+ * Quantidade de linhas afetadas por uma operação em lote.
+ */
+public record BulkUpdateResult(int affected) {
+}
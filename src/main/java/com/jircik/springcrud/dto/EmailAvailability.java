@@ -0,0 +1,5 @@
+package com.jircik.springcrud.dto;
+
+/** Resposta de GET /users/email-availability. */
+public record EmailAvailability(String email, boolean available) {
+}
@@ -0,0 +1,7 @@
+package com.jircik.springcrud.dto;
+
+/**
+ * Troca o domínio dos e-mails (ex.: from = "old.com", to = "new.com").
+ */
+public record EmailDomainRewriteRequest(String from, String to) {
+}
@@ -0,0 +1,13 @@
+package com.jircik.springcrud.dto;
+
+import java.util.List;
+
+/**
+ * Resultado da importação com upsert pelo e-mail: totais por desfecho e as primeiras linhas recusadas
+ * (index a partir de 0, na ordem do arquivo).
+ */
+public record ImportResult(long inserted, long updated, long unchanged, long rejected, List<Rejection> rejections) {
+
+    public record Rejection(long index, String error) {
+    }
+}
@@ -0,0 +1,16 @@
+package com.jircik.springcrud.dto;
+
+import java.util.List;
+
+/**
+ * Resultado do rebalanceamento (POST /actuator/shards).
+ *
+ * @param ring          anel em vigor ao final
+ * @param scanned       usuários percorridos em todos os shards
+ * @param moved         usuários copiados para o dono novo e removidos do shard antigo
+ * @param failed        usuários que não puderam ser movidos (continuam no shard antigo, achados pelo diretório);
+ *                      rodar de novo tenta outra vez
+ * @param elapsedMillis duração total
+ */
+public record ReshardResult(List<String> ring, long scanned, long moved, long failed, long elapsedMillis) {
+}
@@ -0,0 +1,15 @@
+package com.jircik.springcrud.dto;
+
+import java.util.List;
+
+/**
+ * Estado do particionamento (GET /actuator/shards): usuários por shard e o anel atual.
+ *
+ * @param ring   shards que recebem usuários pelo hash
+ * @param shards todos os shards configurados, inclusive os que estão fora do anel (sendo esvaziados ou ainda vazios)
+ */
+public record ShardStats(List<String> ring, List<Shard> shards) {
+
+    public record Shard(String name, long users, boolean inRing) {
+    }
+}
@@ -0,0 +1,18 @@
+package com.jircik.springcrud.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Relatório do log de consultas: as mais lentas desde o último reset e as formas de SQL que mais consomem tempo.
+ */
+public record SlowQueryReport(long recorded, List<Query> slowest, List<Shape> topShapes) {
+
+    /** Um statement executado; origin é o método de serviço que o disparou (ex.: UserService.getUserById). */
+    public record Query(Instant at, double millis, String sql, int parameters, int batchSize, String origin) {
+    }
+
+    /** SQL normalizado (literais e listas IN trocados por ?) com contagem e tempos acumulados. */
+    public record Shape(String sql, long count, double totalMillis, double meanMillis, double maxMillis) {
+    }
+}
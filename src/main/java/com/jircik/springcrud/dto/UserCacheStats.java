@@ -0,0 +1,7 @@
+package com.jircik.springcrud.dto;
+
+/**
+ * Estatísticas de um índice do cache de usuários.
+ */
+public record UserCacheStats(String cache, long size, long hits, long misses, double hitRate, long evictions) {
+}
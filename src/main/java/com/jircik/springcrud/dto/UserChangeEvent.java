@@ -0,0 +1,18 @@
+package com.jircik.springcrud.dto;
+
+import com.jircik.springcrud.model.UserChange;
+
+import java.time.Instant;
+
+/**
+ * Uma alteração do feed: o offset (para retomar a leitura), o tipo e o estado do usuário depois dela
+ * (em DELETED, o último estado antes da remoção).
+ */
+public record UserChangeEvent(long offset, UserChange.Type type, Integer id, String name, String email, Long version,
+                              Instant changedAt) {
+
+    public static UserChangeEvent of(UserChange change) {
+        return new UserChangeEvent(change.getFeedOffset(), change.getType(), change.getUserId(), change.getName(),
+                change.getEmail(), change.getVersion(), change.getChangedAt());
+    }
+}
@@ -0,0 +1,10 @@
+package com.jircik.springcrud.dto;
+
+import java.util.List;
+
+/**
+ * Página do feed de alterações; nextOffset é o valor de {@code after} para a próxima leitura
+ * (o último offset da página, ou o mesmo after quando não há nada novo).
+ */
+public record UserChangePage(List<UserChangeEvent> changes, long nextOffset) {
+}
@@ -0,0 +1,33 @@
+package com.jircik.springcrud.dto;
+
+import java.time.Instant;
+
+/**
+ * Total de usuários e de onde ele veio.
+ *
+ * @param mode      modo que produziu o número (pode ser EXACT quando o pedido não pôde ser atendido)
+ * @param asOf      momento da medição: execução do count(), último ANALYZE ou última ressincronização do contador;
+ *                  null quando o banco não informa
+ * @param ageMillis idade de asOf no momento da resposta
+ */
+public record UserCount(long count, Mode mode, Instant asOf, Long ageMillis) {
+
+    public enum Mode {
+        /** count() na tabela, reaproveitado por app.users.count.exact-ttl. */
+        EXACT,
+        /** Estatísticas da tabela mantidas pelo banco (O(1)); defasadas até o próximo ANALYZE. */
+        APPROXIMATE,
+        /** Contador em memória ajustado pelas escritas desta instância, ressincronizado periodicamente. */
+        LIVE;
+
+        /** Aceita o nome em qualquer caixa (ex.: ?mode=approximate). */
+        public static Mode parse(String mode) {
+            for (Mode candidate : values()) {
+                if (candidate.name().equalsIgnoreCase(mode.trim())) {
+                    return candidate;
+                }
+            }
+            throw new IllegalArgumentException("Unknown count mode '" + mode + "'. Allowed: exact, approximate, live");
+        }
+    }
+}
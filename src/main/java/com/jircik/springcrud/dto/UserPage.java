@@ -0,0 +1,10 @@
+package com.jircik.springcrud.dto;
+
+import java.util.List;
+
+/**
+ * Página de usuários da paginação por cursor (keyset). T é User ou, com ?fields=, um Map só com os campos pedidos.
+ * nextCursor é opaco para o cliente e vem null quando não há mais páginas.
+ */
+public record UserPage<T>(List<T> items, String nextCursor) {
+}
@@ -0,0 +1,7 @@
+package com.jircik.springcrud.dto;
+
+/**
+ * Atualização parcial: apenas os campos presentes (não nulos e não vazios) são aplicados.
+ */
+public record UserPatch(String name, String email) {
+}
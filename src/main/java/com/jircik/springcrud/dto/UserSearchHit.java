@@ -0,0 +1,16 @@
+package com.jircik.springcrud.dto;
+
+/**
+ * Um resultado da busca, com o tipo de correspondência que definiu a posição dele no ranking.
+ */
+public record UserSearchHit(Integer id, String name, String email, Match match) {
+
+    public enum Match {
+        /** O nome inteiro, uma palavra do nome ou o e-mail é igual à busca. */
+        EXACT,
+        /** Começa com a busca. */
+        PREFIX,
+        /** Começa com a busca a menos de um erro de digitação (troca, falta, sobra ou inversão de um caractere). */
+        FUZZY
+    }
+}
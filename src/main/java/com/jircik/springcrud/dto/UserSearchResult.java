@@ -0,0 +1,10 @@
+package com.jircik.springcrud.dto;
+
+import java.util.List;
+
+/**
+ * Resposta de GET /users/search: uma página do ranking (EXACT, depois PREFIX, depois FUZZY). Sem total: contar
+ * todas as correspondências custaria mais que a própria busca.
+ */
+public record UserSearchResult(String query, List<UserSearchHit> hits, int page, int size, boolean hasNext) {
+}
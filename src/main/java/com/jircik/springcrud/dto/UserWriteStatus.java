@@ -0,0 +1,24 @@
+package com.jircik.springcrud.dto;
+
+/**
+ * Situação de um cadastro enfileirado no modo write-behind, consultada pelo token devolvido no 202.
+ *
+ * @param id    ID gerado, quando CREATED
+ * @param error motivo da falha (ex.: e-mail já cadastrado), quando FAILED
+ */
+public record UserWriteStatus(String token, State state, Integer id, String error) {
+
+    public enum State { PENDING, CREATED, FAILED }
+
+    public static UserWriteStatus pending(String token) {
+        return new UserWriteStatus(token, State.PENDING, null, null);
+    }
+
+    public static UserWriteStatus created(String token, Integer id) {
+        return new UserWriteStatus(token, State.CREATED, id, null);
+    }
+
+    public static UserWriteStatus failed(String token, String error) {
+        return new UserWriteStatus(token, State.FAILED, null, error);
+    }
+}
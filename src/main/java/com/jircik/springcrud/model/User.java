@@ -5,17 +5,25 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
 
 @Entity
 @Table(name = "app_user")
+@DynamicUpdate // UPDATE só com as colunas alteradas
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 public class User {
 
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    // Sequence com alocação em blocos (pooled): permite batch de INSERT no JDBC, ao contrário de IDENTITY
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "app_user_seq")
+    @SequenceGenerator(name = "app_user_seq", sequenceName = "app_user_seq", allocationSize = User.ID_ALLOCATION_SIZE)
     private Integer id;
 
     @Column(nullable = false)
@@ -23,4 +31,32 @@ public class User {
 
     @Column(nullable = false, unique = true)
     private String email;
-}
\ No newline at end of file
+
+    // Controle de concorrência otimista; também é exposto como ETag nas respostas
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
+    public User(Integer id, String name, String email) {
+        this(id, name, email, null);
+    }
+
+    // Identidade pelo ID: dois objetos da mesma linha são iguais; sem ID (ainda não gravado), só a própria instância.
+    // hashCode constante por classe para não mudar quando o ID é atribuído no persist.
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof User user) || Hibernate.getClass(this) != Hibernate.getClass(user)) {
+            return false;
+        }
+        return id != null && id.equals(user.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Hibernate.getClass(this).hashCode();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,57 @@
+package com.jircik.springcrud.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.Instant;
+
+/**
+ * Registro do outbox de alterações de usuários, gravado na mesma transação da escrita em app_user
+ * com o estado do usuário depois dela (na remoção, o último estado).
+ * <p>
+ * O feedOffset é atribuído depois do commit pelo {@code UserChangeFeed}, em ordem crescente e sem
+ * lacunas entre os registros visíveis: um consumidor que leu até o offset N nunca perde um registro
+ * que apareça depois com offset menor.
+ */
+@Entity
+@Table(name = "user_change", indexes = {
+        @Index(name = "user_change_offset_key", columnList = "feed_offset", unique = true),
+        @Index(name = "user_change_user_idx", columnList = "user_id, feed_offset")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class UserChange {
+
+    public enum Type { CREATED, UPDATED, DELETED }
+
+    // IDENTITY: os registros são gravados por INSERT ... SELECT, sem passar pelo gerador do Hibernate
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "feed_offset")
+    private Long feedOffset;
+
+    @Column(name = "user_id", nullable = false)
+    private Integer userId;
+
+    // varchar em todos os bancos (o Hibernate usaria um tipo enum nativo no H2)
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(name = "change_type", nullable = false, length = 16)
+    private Type type;
+
+    private String name;
+
+    private String email;
+
+    private Long version;
+
+    @Column(nullable = false)
+    private Instant changedAt;
+}
@@ -0,0 +1,71 @@
+package com.jircik.springcrud.model;
+
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Campos de {@link User} que podem ser pedidos em {@code ?fields=}. O nome de cada constante em
+ * minúsculas é tanto o atributo JPA quanto a chave no JSON.
+ */
+public enum UserField {
+    ID(User::getId),
+    NAME(User::getName),
+    EMAIL(User::getEmail),
+    VERSION(User::getVersion);
+
+    private final Function<User, Object> getter;
+
+    UserField(Function<User, Object> getter) {
+        this.getter = getter;
+    }
+
+    public String attribute() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /** Lê "id,email" (ordem e repetições não importam); campo desconhecido ou lista vazia geram IllegalArgumentException. */
+    public static Set<UserField> parse(String fields) {
+        Set<UserField> parsed = EnumSet.noneOf(UserField.class);
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            try {
+                parsed.add(valueOf(name.toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalArgumentException("Unknown field '" + name + "'. Allowed: " + allowed());
+            }
+        }
+        if (parsed.isEmpty()) {
+            throw new IllegalArgumentException("fields must list at least one of: " + allowed());
+        }
+        return parsed;
+    }
+
+    /** Mesma forma do resultado das consultas de projeção, a partir de uma entidade já carregada (ex.: do cache). */
+    public static Map<String, Object> project(User user, Set<UserField> fields) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (UserField field : fields) {
+            row.put(field.attribute(), field.getter.apply(user));
+        }
+        return row;
+    }
+
+    /** Cópia de fields com extra, para campos que o servidor precisa mesmo quando não foram pedidos (id, version). */
+    public static Set<UserField> including(Set<UserField> fields, UserField extra) {
+        Set<UserField> selected = EnumSet.copyOf(fields);
+        selected.add(extra);
+        return selected;
+    }
+
+    private static String allowed() {
+        return Stream.of(values()).map(UserField::attribute).collect(Collectors.joining(","));
+    }
+}
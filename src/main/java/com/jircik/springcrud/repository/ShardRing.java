@@ -0,0 +1,61 @@
+package com.jircik.springcrud.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Anel de hash consistente: cada shard ocupa virtualNodes pontos do anel e um ID pertence ao primeiro ponto
+ * depois do seu hash. Ao adicionar ou remover um shard, só os IDs dos trechos vizinhos aos pontos dele mudam
+ * de dono (~1/N dos usuários), em vez de quase todos, como em {@code id % N}.
+ * <p>
+ * Imutável: o rebalanceamento troca o anel inteiro.
+ */
+public final class ShardRing {
+
+    private final NavigableMap<Long, String> points = new TreeMap<>();
+    private final List<String> shards;
+
+    public ShardRing(Collection<String> shards, int virtualNodes) {
+        if (shards.isEmpty() || virtualNodes < 1) {
+            throw new IllegalArgumentException("ring needs at least one shard and one virtual node");
+        }
+        this.shards = List.copyOf(shards);
+        for (String shard : this.shards) {
+            for (int i = 0; i < virtualNodes; i++) {
+                // Colisão entre pontos de shards diferentes é improvável em 64 bits; o primeiro a ocupar fica
+                points.putIfAbsent(hash(shard + "#" + i), shard);
+            }
+        }
+    }
+
+    public String ownerOf(Integer id) {
+        Map.Entry<Long, String> point = points.ceilingEntry(mix(id));
+        return point != null ? point.getValue() : points.firstEntry().getValue();
+    }
+
+    public List<String> shards() {
+        return shards;
+    }
+
+    // FNV-1a sobre os chars, com o finalizador do MurmurHash3 para espalhar os bits
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,432 @@
+package com.jircik.springcrud.repository;
+
+import com.jircik.springcrud.model.User;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * app_user particionado por hash do ID entre vários bancos (app.sharding.*), com um diretório no primário.
+ * <p>
+ * O spring.datasource guarda:
+ * <ul>
+ *     <li>a sequence app_user_seq, que continua gerando IDs globalmente únicos em blocos de
+ *     {@link User#ID_ALLOCATION_SIZE} (mesmo esquema pooled do Hibernate, então os dois modos não colidem);</li>
+ *     <li>user_directory (id, email, name, shard): unicidade global do e-mail, buscas por nome e e-mail e o
+ *     shard onde cada usuário está de fato.</li>
+ * </ul>
+ * As consultas ao diretório usam o DataSource principal e entram na transação do chamador; a linha do usuário no
+ * diretório funciona como lock por usuário entre as escritas (UPDATE/SELECT ... FOR UPDATE) e o rebalanceamento.
+ * Os shards não participam dessa transação (sem 2PC): a escrita no shard fica para o beforeCommit da transação
+ * do chamador, ainda com o lock do diretório, e uma falha nela desfaz a transação. Se a transação não fizer
+ * commit depois disso (outra sincronização ou o próprio commit falhou), a escrita no shard é desfeita no
+ * afterCompletion. Um rollback antes do commit (ex.: falha ao gravar o outbox) não chega a tocar o shard.
+ * <p>
+ * O diretório é a fonte da verdade: leitura por ID (e por nome e e-mail) vai ao shard que ele indica, e uma linha
+ * num shard sem entrada no diretório é sobra, nunca devolvida. Listagens e exportação consultam todos os shards em
+ * paralelo e fazem o merge por ID.
+ */
+public class ShardedUserRepository implements AutoCloseable {
+
+    private static final String COLUMNS = "select id, name, email, version from app_user";
+    private static final int FETCH_SIZE = 1000;
+    private static final RowMapper<User> USER = (rs, row) ->
+            new User(rs.getInt("id"), rs.getString("name"), rs.getString("email"), rs.getLong("version"));
+
+    private final JdbcTemplate directory;
+    private final Map<String, DataSource> dataSources;
+    private final Map<String, JdbcTemplate> shards = new LinkedHashMap<>();
+    private volatile ShardRing ring;
+    private final ReentrantLock idLock = new ReentrantLock();
+    private long nextId = 1;
+    private long lastId;
+
+    public ShardedUserRepository(DataSource directory, Map<String, DataSource> shards, ShardRing ring) {
+        this.directory = new JdbcTemplate(directory);
+        this.dataSources = Map.copyOf(shards);
+        shards.forEach((name, dataSource) -> this.shards.put(name, new JdbcTemplate(dataSource)));
+        setRing(ring);
+    }
+
+    public ShardRing getRing() {
+        return ring;
+    }
+
+    /** Troca o anel (rebalanceamento): inserções vão para os novos donos na hora; leituras seguem o diretório. */
+    public void setRing(ShardRing ring) {
+        if (!shards.keySet().containsAll(ring.shards())) {
+            throw new IllegalArgumentException("Unknown shard in ring " + ring.shards() + ", configured: " + shards.keySet());
+        }
+        this.ring = ring;
+    }
+
+    public Set<String> shardNames() {
+        return shards.keySet();
+    }
+
+    public Optional<User> findById(Integer id) {
+        return locate(id).flatMap(shard -> findOn(shard, id));
+    }
+
+    public Optional<User> findByName(String name) {
+        return findListed("select id, shard from user_directory where name = ? order by id limit 1", name);
+    }
+
+    public Optional<User> findByEmail(String email) {
+        return findListed("select id, shard from user_directory where email = ?", email);
+    }
+
+    public List<User> findAll() {
+        return merge(scatter(shard -> shards.get(shard).query(COLUMNS, USER)), Integer.MAX_VALUE);
+    }
+
+    /** Keyset por ID: cada shard devolve até limit linhas depois de afterId e o merge fica com as limit menores. */
+    public List<User> findAfter(Integer afterId, int limit) {
+        int after = afterId == null ? 0 : afterId;
+        return merge(scatter(shard -> shards.get(shard).query(COLUMNS + " where id > ? order by id limit ?", USER, after, limit)), limit);
+    }
+
+    public long count() {
+        return scatter(shard -> List.of(shards.get(shard).queryForObject("select count(*) from app_user", Long.class)))
+                .stream().mapToLong(Long::longValue).sum();
+    }
+
+    public Map<String, Long> countByShard() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        shards.forEach((name, shard) -> counts.put(name, shard.queryForObject("select count(*) from app_user", Long.class)));
+        return counts;
+    }
+
+    /**
+     * Todos os usuários em ordem de ID, com memória constante: um cursor por shard (abertos em paralelo, cada um
+     * numa transação read-only para o driver respeitar o fetch size) e um merge de k listas ordenadas.
+     * Fechar o stream fecha os cursores.
+     */
+    public Stream<User> streamAllOrderedById() {
+        List<ShardCursor> cursors = scatter(shard -> List.of(new ShardCursor(dataSources.get(shard))));
+        PriorityQueue<ShardCursor> heads = new PriorityQueue<>(Comparator.comparing(cursor -> cursor.head.getId()));
+        try {
+            for (ShardCursor cursor : cursors) {
+                if (cursor.advance()) {
+                    heads.add(cursor);
+                }
+            }
+        } catch (RuntimeException ex) {
+            cursors.forEach(ShardCursor::close);
+            throw ex;
+        }
+        Spliterator<User> merged = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            private Integer previous;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super User> action) {
+                ShardCursor cursor;
+                while ((cursor = heads.poll()) != null) {
+                    User user = cursor.head;
+                    if (cursor.advance()) {
+                        heads.add(cursor);
+                    }
+                    // Mesmo critério do merge das listagens: um ID repetido em dois shards sai uma vez só
+                    if (!user.getId().equals(previous)) {
+                        previous = user.getId();
+                        action.accept(user);
+                        return true;
+                    }
+                }
+                return false;
+            }
+        };
+        return StreamSupport.stream(merged, false).onClose(() -> cursors.forEach(ShardCursor::close));
+    }
+
+    /**
+     * Novo usuário: ID da sequence, linha no diretório (reserva o e-mail; duplicado dá DataIntegrityViolation) e,
+     * no commit, a linha no dono pelo anel. Preenche id e version do usuário.
+     */
+    public User insert(User user) {
+        int id = nextId();
+        String shard = ring.ownerOf(id);
+        directory.update("insert into user_directory (id, email, name, shard) values (?, ?, ?, ?)",
+                id, user.getEmail(), user.getName(), shard);
+        String name = user.getName();
+        String email = user.getEmail();
+        onCommit(() -> shards.get(shard).update("insert into app_user (id, name, email, version) values (?, ?, ?, 0)",
+                        id, name, email),
+                () -> removeCopy(shard, id));
+        user.setId(id);
+        user.setVersion(0L);
+        return user;
+    }
+
+    /**
+     * Grava nome e e-mail exigindo a versão expectedVersion; devolve false se o usuário não existe mais ou mudou.
+     * O UPDATE no diretório vem primeiro: valida o e-mail e trava a linha do usuário até o fim da transação, então
+     * a versão lida do shard em seguida não muda até a escrita no commit.
+     */
+    public boolean update(User user, long expectedVersion) {
+        if (directory.update("update user_directory set name = ?, email = ? where id = ?",
+                user.getName(), user.getEmail(), user.getId()) == 0) {
+            return false;
+        }
+        Optional<String> shard = locate(user.getId());
+        Optional<User> current = shard.flatMap(name -> findOn(name, user.getId()));
+        if (current.isEmpty() || current.get().getVersion() != expectedVersion) {
+            return false;
+        }
+        JdbcTemplate target = shards.get(shard.get());
+        User previous = current.get();
+        String name = user.getName();
+        String email = user.getEmail();
+        onCommit(() -> target.update("update app_user set name = ?, email = ?, version = ? where id = ?",
+                        name, email, expectedVersion + 1, previous.getId()),
+                () -> target.update("update app_user set name = ?, email = ?, version = ? where id = ? and version = ?",
+                        previous.getName(), previous.getEmail(), previous.getVersion(), previous.getId(), expectedVersion + 1));
+        user.setVersion(expectedVersion + 1);
+        return true;
+    }
+
+    public boolean deleteById(Integer id) {
+        Optional<String> shard = lock(id);
+        if (shard.isEmpty()) {
+            return false;
+        }
+        Optional<User> previous = findOn(shard.get(), id);
+        onCommit(() -> removeCopy(shard.get(), id),
+                () -> previous.ifPresent(user -> shards.get(shard.get()).update(
+                        "insert into app_user (id, name, email, version) values (?, ?, ?, ?)",
+                        user.getId(), user.getName(), user.getEmail(), user.getVersion())));
+        return directory.update("delete from user_directory where id = ?", id) == 1;
+    }
+
+    // Como no modo sem shards: remove só o usuário de menor ID com esse nome
+    public int deleteByName(String name) {
+        Integer id = directory.queryForObject("select min(id) from user_directory where name = ?", Integer.class, name);
+        return id != null && deleteById(id) ? 1 : 0;
+    }
+
+    /** IDs guardados em um shard, em ordem, para o rebalanceamento percorrer um shard por vez. */
+    public List<Integer> findIdsOnShard(String shard, Integer afterId, int limit) {
+        return shards.get(shard).queryForList("select id from app_user where id > ? order by id limit ?", Integer.class,
+                afterId == null ? 0 : afterId, limit);
+    }
+
+    /**
+     * Copia o usuário de from para to e aponta o diretório para to; deve rodar numa transação do DataSource
+     * principal, que segura o lock da linha do diretório até o commit. A linha em from só sai depois do commit
+     * ({@link #removeCopy}): até lá as leituras pelo dono novo já acham a cópia e as escritas esperam o lock.
+     * <p>
+     * Devolve false sem mexer em nada se o diretório não tem o usuário (removido ou inserção ainda não commitada);
+     * se o diretório aponta para outro shard, a linha em from é sobra de uma movimentação interrompida e é apagada.
+     */
+    public boolean copy(String from, Integer id, String to) {
+        Optional<String> current = lock(id);
+        if (current.isEmpty()) {
+            return false;
+        }
+        if (!current.get().equals(from)) {
+            removeCopy(from, id);
+            return false;
+        }
+        Optional<User> user = findOn(from, id);
+        if (user.isEmpty()) {
+            return false;
+        }
+        JdbcTemplate target = shards.get(to);
+        // Sobra de uma tentativa anterior que falhou antes do commit
+        target.update("delete from app_user where id = ?", id);
+        target.update("insert into app_user (id, name, email, version) values (?, ?, ?, ?)",
+                id, user.get().getName(), user.get().getEmail(), user.get().getVersion());
+        directory.update("update user_directory set shard = ? where id = ?", to, id);
+        return true;
+    }
+
+    public void removeCopy(String shard, Integer id) {
+        shards.get(shard).update("delete from app_user where id = ?", id);
+    }
+
+    /** Fecha os pools dos shards que forem fecháveis (os do Hikari criados pela configuração). */
+    @Override
+    public void close() throws Exception {
+        for (DataSource dataSource : dataSources.values()) {
+            if (dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    // IDs em blocos da mesma sequence do Hibernate: um nextval a cada ID_ALLOCATION_SIZE inserções.
+    // ReentrantLock e não synchronized: o nextval é JDBC e prenderia a carrier thread de uma virtual thread
+    private int nextId() {
+        idLock.lock();
+        try {
+            if (nextId > lastId) {
+                long value = directory.queryForObject("select nextval('app_user_seq')", Long.class);
+                lastId = value;
+                nextId = Math.max(1, value - User.ID_ALLOCATION_SIZE + 1);
+            }
+            return Math.toIntExact(nextId++);
+        } finally {
+            idLock.unlock();
+        }
+    }
+
+    /**
+     * Escrita no shard amarrada à transação do diretório: roda no beforeCommit, ainda com os locks do diretório, e
+     * undo desfaz se a transação terminar sem commit depois disso. Sem transação, roda na hora.
+     */
+    private static void onCommit(Runnable write, Runnable undo) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            write.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean written;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                write.run();
+                written = true;
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (written && status != STATUS_COMMITTED) {
+                    undo.run();
+                }
+            }
+        });
+    }
+
+    private Optional<User> findListed(String sql, String value) {
+        record Entry(Integer id, String shard) {
+        }
+        return directory.query(sql, (rs, row) -> new Entry(rs.getInt("id"), rs.getString("shard")), value)
+                .stream().findFirst().flatMap(entry -> findOn(entry.shard(), entry.id()));
+    }
+
+    private Optional<User> findOn(String shard, Integer id) {
+        return shards.get(shard).query(COLUMNS + " where id = ?", USER, id).stream().findFirst();
+    }
+
+    private Optional<String> locate(Integer id) {
+        return directory.queryForList("select shard from user_directory where id = ?", String.class, id).stream().findFirst();
+    }
+
+    private Optional<String> lock(Integer id) {
+        return directory.queryForList("select shard from user_directory where id = ? for update", String.class, id)
+                .stream().findFirst();
+    }
+
+    // Uma virtual thread por shard; a latência é a do shard mais lento, não a soma
+    private <T> List<T> scatter(Function<String, List<T>> query) {
+        List<T> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<List<T>>> futures = shards.keySet().stream()
+                    .map(shard -> executor.submit(() -> query.apply(shard)))
+                    .toList();
+            for (Future<List<T>> future : futures) {
+                results.addAll(future.get());
+            }
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new DataAccessResourceFailureException("Shard query failed", ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessResourceFailureException("Interrupted while querying shards", ex);
+        }
+        return results;
+    }
+
+    // Sobras de movimentações interrompidas podem repetir um ID em dois shards: fica só uma
+    private static List<User> merge(List<User> users, int limit) {
+        List<User> merged = new ArrayList<>();
+        Integer previous = null;
+        for (User user : users.stream().sorted(Comparator.comparing(User::getId)).toList()) {
+            if (!user.getId().equals(previous)) {
+                merged.add(user);
+                previous = user.getId();
+            }
+            if (merged.size() == limit) {
+                break;
+            }
+        }
+        return merged;
+    }
+
+    /** Cursor JDBC sobre um shard, com conexão própria (os shards não participam das transações do Spring). */
+    private static final class ShardCursor implements AutoCloseable {
+
+        private final Connection connection;
+        private final PreparedStatement statement;
+        private final ResultSet resultSet;
+        private User head;
+
+        private ShardCursor(DataSource dataSource) {
+            try {
+                connection = dataSource.getConnection();
+            } catch (SQLException ex) {
+                throw new DataAccessResourceFailureException("Failed to open shard cursor", ex);
+            }
+            try {
+                connection.setAutoCommit(false);
+                connection.setReadOnly(true);
+                statement = connection.prepareStatement(COLUMNS + " order by id");
+                statement.setFetchSize(FETCH_SIZE);
+                resultSet = statement.executeQuery();
+            } catch (SQLException ex) {
+                JdbcUtils.closeConnection(connection);
+                throw new DataAccessResourceFailureException("Failed to open shard cursor", ex);
+            }
+        }
+
+        private boolean advance() {
+            try {
+                head = resultSet.next() ? USER.mapRow(resultSet, resultSet.getRow()) : null;
+                return head != null;
+            } catch (SQLException ex) {
+                throw new DataAccessResourceFailureException("Failed to read shard cursor", ex);
+            }
+        }
+
+        @Override
+        public void close() {
+            try (connection; statement; resultSet) {
+                connection.rollback();
+                connection.setReadOnly(false);
+                connection.setAutoCommit(true);
+            } catch (SQLException ex) {
+                throw new DataAccessResourceFailureException("Failed to close shard cursor", ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.jircik.springcrud.repository;
+
+import com.jircik.springcrud.model.UserChange;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface UserChangeRepository extends JpaRepository<UserChange, Long> {
+
+    // Registros do outbox: um INSERT ... SELECT a partir de app_user, com o mesmo filtro da escrita.
+    // Depois de INSERT/UPDATE copiam o estado novo; antes de um DELETE, o último estado.
+    String RECORD = "insert into UserChange (userId, type, name, email, version, changedAt) " +
+            "select u.id, :type, u.name, u.email, u.version, :now from User u ";
+
+    @Modifying
+    @Query(RECORD + "where u.id in :ids")
+    int recordByIds(@Param("type") UserChange.Type type, @Param("ids") Collection<Integer> ids, @Param("now") Instant now);
+
+    @Modifying
+    // Só o usuário que UserRepository.deleteUserByName remove: o de menor ID com esse nome
+    @Query(RECORD + "where u.id = (select min(n.id) from User n where n.name = :name)")
+    int recordByName(@Param("type") UserChange.Type type, @Param("name") String name, @Param("now") Instant now);
+
+    @Modifying
+    @Query(RECORD + "where u.email like concat('%@', :domain) escape '!'")
+    int recordByEmailDomain(@Param("type") UserChange.Type type, @Param("domain") String escapedDomain,
+                            @Param("now") Instant now);
+
+    @Modifying
+    @Query(RECORD + "where u.name like concat(:prefix, '%') escape '!'")
+    int recordByNamePrefix(@Param("type") UserChange.Type type, @Param("prefix") String escapedPrefix,
+                           @Param("now") Instant now);
+
+    // Travas tomadas antes dos registros que precedem a escrita, com o mesmo filtro dela. Sem isso uma atualização
+    // concorrente que fizesse commit entre o registro e a escrita ficaria depois do DELETED no outbox.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select u.id from User u where u.id in :ids")
+    List<Integer> lockByIds(@Param("ids") Collection<Integer> ids);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select u.id from User u where u.id = (select min(n.id) from User n where n.name = :name)")
+    List<Integer> lockByName(@Param("name") String name);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select u.id from User u where u.email like concat('%@', :domain) escape '!'")
+    List<Integer> lockByEmailDomain(@Param("domain") String escapedDomain);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select u.id from User u where u.name like concat(:prefix, '%') escape '!'")
+    List<Integer> lockByNamePrefix(@Param("prefix") String escapedPrefix);
+
+    // Antes do UPDATE de UserRepository.rewriteEmailDomain: o estado que ele vai produzir, com as mesmas expressões
+    @Modifying
+    @Query("insert into UserChange (userId, type, name, email, version, changedAt) " +
+            "select u.id, com.jircik.springcrud.model.UserChange.Type.UPDATED, u.name, " +
+            "concat(substring(u.email, 1, locate('@', u.email)), :to), u.version + 1, :now " +
+            "from User u where u.email like concat('%@', :from) escape '!'")
+    int recordEmailDomainRewrite(@Param("from") String escapedFrom, @Param("to") String to, @Param("now") Instant now);
+
+    @Query("select coalesce(max(c.feedOffset), 0) from UserChange c")
+    long findHeadOffset();
+
+    // Só enxerga registros de transações já confirmadas; a ordem do id aproxima a ordem das escritas.
+    // FOR UPDATE: o relay de outra instância espera o commit deste e não reatribui os mesmos registros
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from UserChange c where c.feedOffset is null order by c.id")
+    List<UserChange> findUnsequenced(Limit limit);
+
+    @Query("select c from UserChange c where c.feedOffset > :after order by c.feedOffset")
+    List<UserChange> findAfter(@Param("after") long after, Limit limit);
+
+    // Compactação: remove registros antigos que já têm um registro mais novo do mesmo usuário
+    @Modifying
+    @Query("delete from UserChange c where c.feedOffset is not null and c.changedAt < :before " +
+            "and exists (select 1 from UserChange n where n.userId = c.userId and n.feedOffset > c.feedOffset)")
+    int deleteSuperseded(@Param("before") Instant before);
+}
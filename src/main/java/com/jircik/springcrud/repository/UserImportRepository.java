@@ -0,0 +1,22 @@
+package com.jircik.springcrud.repository;
+
+import com.jircik.springcrud.model.User;
+
+import java.util.List;
+
+/**
+ * Upsert em bloco pelo e-mail, com os caminhos nativos do banco: staging numa tabela temporária
+ * (COPY no PostgreSQL) e statements set-based contra app_user.
+ */
+public interface UserImportRepository {
+
+    /**
+     * Grava o bloco: e-mails novos são inseridos (INSERT ... ON CONFLICT DO NOTHING) e, nos existentes,
+     * o nome é atualizado só quando mudou. Linhas iguais ao banco não geram escrita em app_user.
+     * Precisa de uma transação; os e-mails do bloco devem ser distintos.
+     */
+    UpsertCounts upsertByEmail(List<User> users);
+
+    record UpsertCounts(int inserted, int updated) {
+    }
+}
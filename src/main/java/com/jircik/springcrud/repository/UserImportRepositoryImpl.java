@@ -0,0 +1,210 @@
+package com.jircik.springcrud.repository;
+
+import com.jircik.springcrud.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.postgresql.PGConnection;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cada bloco passa por uma tabela temporária (user_import, por conexão, esvaziada no commit):
+ * <ol>
+ *     <li>staging: COPY ... FROM STDIN no PostgreSQL, batch de INSERT no H2;</li>
+ *     <li>um anti-join encontra os e-mails novos, que recebem IDs do mesmo gerador pooled do Hibernate
+ *     (os blocos de 50 da app_user_seq não colidem com os inserts via JPA);</li>
+ *     <li>INSERT ... SELECT com ON CONFLICT (email) DO NOTHING (MERGE no H2) grava os novos;</li>
+ *     <li>um UPDATE com join atualiza só os nomes diferentes, incrementando a versão.</li>
+ * </ol>
+ * Os passos 3 e 4 gravam também o outbox (user_change) na mesma transação; antes do registro do passo 4 as linhas
+ * que ele vai atualizar ficam travadas, para nenhuma escrita concorrente entrar entre o registro e o UPDATE.
+ * Um e-mail criado por outra requisição entre os passos 2 e 3 não é inserido e cai no passo 4.
+ */
+class UserImportRepositoryImpl implements UserImportRepository {
+
+    private static final String POSTGRESQL_STAGING = """
+            create temporary table if not exists user_import (
+                ord integer primary key, id integer, name varchar(255) not null, email varchar(255) not null unique
+            ) on commit delete rows""";
+
+    private static final String POSTGRESQL_COPY = "copy user_import (ord, name, email) from stdin with (format csv)";
+
+    private static final String POSTGRESQL_INSERT = """
+            insert into app_user (id, name, email, version)
+            select id, name, email, 0 from user_import where id is not null
+            on conflict (email) do nothing""";
+
+    private static final String POSTGRESQL_UPDATE = """
+            update app_user u set name = s.name, version = u.version + 1
+            from user_import s
+            where u.email = s.email and u.name <> s.name""";
+
+    // TRANSACTIONAL: sem ele o CREATE faria commit da transação corrente no H2
+    private static final String H2_STAGING = """
+            create local temporary table if not exists user_import (
+                ord integer primary key, id integer, name varchar(255) not null, email varchar(255) not null unique
+            ) on commit delete rows transactional""";
+
+    private static final String H2_INSERT = """
+            merge into app_user u using (select id, name, email from user_import where id is not null) s
+            on u.email = s.email
+            when not matched then insert (id, name, email, version) values (s.id, s.name, s.email, 0)""";
+
+    private static final String H2_UPDATE = """
+            merge into app_user u using user_import s on u.email = s.email
+            when matched and u.name <> s.name then update set name = s.name, version = u.version + 1""";
+
+    private static final String STAGE = "insert into user_import (ord, name, email) values (?, ?, ?)";
+
+    private static final String FRESH = """
+            select ord from user_import s
+            where not exists (select 1 from app_user u where u.email = s.email)
+            order by ord""";
+
+    private static final String ASSIGN_ID = "update user_import set id = ? where ord = ?";
+
+    // Outbox (ver UserChangeRepository): os inseridos depois do INSERT, os atualizados antes do UPDATE,
+    // com o estado que ele vai produzir
+    private static final String RECORD_CREATED = """
+            insert into user_change (user_id, change_type, name, email, version, changed_at)
+            select u.id, 'CREATED', u.name, u.email, u.version, current_timestamp
+            from app_user u join user_import s on s.id = u.id""";
+
+    // Mesmo filtro do UPDATE, sem join: FOR UPDATE trava só as linhas de app_user nos dois bancos
+    private static final String LOCK_UPDATED = """
+            select u.id from app_user u
+            where exists (select 1 from user_import s where s.email = u.email and s.name <> u.name)
+            for update""";
+
+    private static final String RECORD_UPDATED = """
+            insert into user_change (user_id, change_type, name, email, version, changed_at)
+            select u.id, 'UPDATED', s.name, u.email, u.version + 1, current_timestamp
+            from app_user u join user_import s on u.email = s.email
+            where u.name <> s.name""";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public UpsertCounts upsertByEmail(List<User> users) {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        boolean postgres = isPostgres(session.getFactory().getJdbcServices().getDialect());
+
+        List<Integer> fresh = session.doReturningWork(connection -> {
+            execute(connection, postgres ? POSTGRESQL_STAGING : H2_STAGING);
+            if (postgres) {
+                copy(connection, users);
+            } else {
+                batchInsert(connection, users);
+            }
+            return freshRows(connection);
+        });
+
+        // Fora do doReturningWork: o gerador usa a mesma sessão para buscar o próximo bloco da sequence
+        BeforeExecutionGenerator generator = (BeforeExecutionGenerator) session.getFactory().getMappingMetamodel()
+                .getEntityDescriptor(User.class).getGenerator();
+        List<Integer> ids = new ArrayList<>(fresh.size());
+        for (int i = 0; i < fresh.size(); i++) {
+            ids.add((Integer) generator.generate(session, null, null, EventType.INSERT));
+        }
+
+        return session.doReturningWork(connection -> {
+            int inserted = 0;
+            if (!fresh.isEmpty()) {
+                assignIds(connection, fresh, ids);
+                inserted = executeUpdate(connection, postgres ? POSTGRESQL_INSERT : H2_INSERT);
+                executeUpdate(connection, RECORD_CREATED);
+            }
+            execute(connection, LOCK_UPDATED);
+            executeUpdate(connection, RECORD_UPDATED);
+            int updated = executeUpdate(connection, postgres ? POSTGRESQL_UPDATE : H2_UPDATE);
+            return new UpsertCounts(inserted, updated);
+        });
+    }
+
+    private static boolean isPostgres(Dialect dialect) {
+        if (dialect instanceof PostgreSQLDialect) {
+            return true;
+        }
+        if (dialect instanceof H2Dialect) {
+            return false;
+        }
+        throw new UnsupportedOperationException("User import is not supported on " + dialect.getClass().getSimpleName());
+    }
+
+    private static void copy(Connection connection, List<User> users) throws SQLException {
+        StringBuilder csv = new StringBuilder(users.size() * 64);
+        for (int ord = 0; ord < users.size(); ord++) {
+            User user = users.get(ord);
+            csv.append(ord).append(',').append(quote(user.getName())).append(',').append(quote(user.getEmail())).append('\n');
+        }
+        try {
+            connection.unwrap(PGConnection.class).getCopyAPI().copyIn(POSTGRESQL_COPY, new StringReader(csv.toString()));
+        } catch (IOException ex) {
+            throw new SQLException("COPY into user_import failed", ex);
+        }
+    }
+
+    private static String quote(String value) {
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static void batchInsert(Connection connection, List<User> users) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(STAGE)) {
+            for (int ord = 0; ord < users.size(); ord++) {
+                statement.setInt(1, ord);
+                statement.setString(2, users.get(ord).getName());
+                statement.setString(3, users.get(ord).getEmail());
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    private static List<Integer> freshRows(Connection connection) throws SQLException {
+        List<Integer> fresh = new ArrayList<>();
+        try (Statement statement = connection.createStatement(); ResultSet rows = statement.executeQuery(FRESH)) {
+            while (rows.next()) {
+                fresh.add(rows.getInt(1));
+            }
+        }
+        return fresh;
+    }
+
+    private static void assignIds(Connection connection, List<Integer> fresh, List<Integer> ids) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(ASSIGN_ID)) {
+            for (int i = 0; i < fresh.size(); i++) {
+                statement.setInt(1, ids.get(i));
+                statement.setInt(2, fresh.get(i));
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static int executeUpdate(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            return statement.executeUpdate(sql);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.jircik.springcrud.repository;
+
+import com.jircik.springcrud.model.UserField;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Leituras que buscam só as colunas pedidas ({@code ?fields=}). Cada linha vem como um Map
+ * campo -> valor, na ordem de {@link UserField}, sem entidades gerenciadas.
+ */
+public interface UserProjectionRepository {
+
+    Optional<Map<String, Object>> findFieldsById(Integer id, Set<UserField> fields);
+
+    Optional<Map<String, Object>> findFieldsByName(String name, Set<UserField> fields);
+
+    List<Map<String, Object>> findAllFields(Set<UserField> fields);
+
+    /** Keyset: linhas com id maior que afterId (ou desde o início, se null), em ordem de id. */
+    List<Map<String, Object>> findFieldsAfter(Integer afterId, Set<UserField> fields, Limit limit);
+
+    /** Paginação por offset, ordenada por id. */
+    Page<Map<String, Object>> findFields(Set<UserField> fields, Pageable pageable);
+}
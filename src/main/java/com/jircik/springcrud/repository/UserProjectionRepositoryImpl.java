@@ -0,0 +1,99 @@
+package com.jircik.springcrud.repository;
+
+import com.jircik.springcrud.model.User;
+import com.jircik.springcrud.model.UserField;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+/**
+ * Projeções dinâmicas via Criteria com tuplas: o SELECT lista só as colunas pedidas e o resultado
+ * são valores escalares, então nada entra no persistence context (sem snapshot de dirty checking).
+ */
+class UserProjectionRepositoryImpl implements UserProjectionRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<Map<String, Object>> findFieldsById(Integer id, Set<UserField> fields) {
+        return select(fields, (cb, user) -> cb.equal(user.get("id"), id), 0, 1).stream().findFirst();
+    }
+
+    @Override
+    public Optional<Map<String, Object>> findFieldsByName(String name, Set<UserField> fields) {
+        return select(fields, (cb, user) -> cb.equal(user.get("name"), name), 0, 1).stream().findFirst();
+    }
+
+    @Override
+    public List<Map<String, Object>> findAllFields(Set<UserField> fields) {
+        return select(fields, null, 0, -1);
+    }
+
+    @Override
+    public List<Map<String, Object>> findFieldsAfter(Integer afterId, Set<UserField> fields, Limit limit) {
+        return select(fields, afterId == null ? null : (cb, user) -> cb.greaterThan(user.get("id"), afterId),
+                0, limit.max());
+    }
+
+    @Override
+    public Page<Map<String, Object>> findFields(Set<UserField> fields, Pageable pageable) {
+        List<Map<String, Object>> content = select(fields, null, pageable.getOffset(), pageable.getPageSize());
+        return PageableExecutionUtils.getPage(content, pageable, this::count);
+    }
+
+    private List<Map<String, Object>> select(Set<UserField> fields,
+                                             BiFunction<CriteriaBuilder, Root<User>, Predicate> where,
+                                             long offset, int maxResults) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<User> user = query.from(User.class);
+
+        List<Selection<?>> columns = fields.stream()
+                .<Selection<?>>map(field -> user.get(field.attribute()).alias(field.attribute()))
+                .toList();
+        query.select(cb.tuple(columns));
+        if (where != null) {
+            query.where(where.apply(cb, user));
+        }
+        query.orderBy(cb.asc(user.get("id")));
+
+        TypedQuery<Tuple> typed = entityManager.createQuery(query).setFirstResult(Math.toIntExact(offset));
+        if (maxResults >= 0) {
+            typed.setMaxResults(maxResults);
+        }
+        return typed.getResultList().stream().map(tuple -> toRow(tuple, fields)).toList();
+    }
+
+    private long count() {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        query.select(cb.count(query.from(User.class)));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static Map<String, Object> toRow(Tuple tuple, Set<UserField> fields) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (UserField field : fields) {
+            row.put(field.attribute(), tuple.get(field.attribute()));
+        }
+        return row;
+    }
+}
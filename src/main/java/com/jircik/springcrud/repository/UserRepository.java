@@ -1,11 +1,111 @@
 package com.jircik.springcrud.repository;
 
 import com.jircik.springcrud.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 
-public interface UserRepository extends JpaRepository<User,Integer> {
+public interface UserRepository extends JpaRepository<User,Integer>, UserProjectionRepository, UserStatisticsRepository,
+        UserImportRepository {
     Optional<User> findByName(String name);
-}
\ No newline at end of file
+
+    // Apenas a versão, para responder If-None-Match sem carregar a linha inteira
+    @Query("select u.version from User u where u.id = :id")
+    Optional<Long> findVersionById(@Param("id") Integer id);
+
+    @Query("select u.version from User u where u.name = :name")
+    Optional<Long> findVersionByName(@Param("name") String name);
+
+    @Query("select u.email from User u where u.email in :emails")
+    Set<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    // Consulta pelo índice único de email (disponibilidade, quando o filtro de e-mails responde "talvez")
+    boolean existsByEmail(String email);
+
+    // Construção do filtro de e-mails: só a coluna, com cursor do JDBC. Consumir dentro de uma transação e fechar.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "10000"))
+    @Query("select u.email from User u")
+    Stream<String> streamAllEmails();
+
+    // Construção do índice de busca: só as colunas buscadas, sem entidades gerenciadas. Mesmas regras do cursor acima.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "10000"))
+    @Query("select new com.jircik.springcrud.model.User(u.id, u.name, u.email, u.version) from User u")
+    Stream<User> streamAllForSearch();
+
+    // Busca enquanto o índice em memória não está pronto: prefixo do nome ou do e-mail, sem diferenciar maiúsculas
+    @Query("select u from User u where lower(u.name) like concat(:prefix, '%') escape '!' " +
+            "or lower(u.email) like concat(:prefix, '%') escape '!' order by u.name, u.id")
+    Slice<User> searchByPrefix(@Param("prefix") String escapedPrefix, Pageable pageable);
+
+    // Paginação keyset: busca pela chave primária (seek), custo constante em qualquer profundidade
+    List<User> findAllByOrderByIdAsc(Limit limit);
+
+    List<User> findByIdGreaterThanOrderByIdAsc(Integer id, Limit limit);
+
+    // Exportação: cursor do JDBC com fetch size e entidades read-only (sem snapshot de dirty checking).
+    // Precisa ser consumido dentro de uma transação e fechado ao final.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("select u from User u order by u.id")
+    Stream<User> streamAllOrderedById();
+
+    // Operações set-based: um único statement, devolvendo a quantidade de linhas afetadas.
+    // Padrões LIKE usam '!' como caractere de escape (ver UserBulkService.escapeLike).
+    @Modifying
+    @Query("delete from User u where u.id = :id")
+    int deleteUserById(@Param("id") Integer id);
+
+    // Nomes não são únicos: remove um só usuário, o de menor ID (o mesmo critério de UserChangeRepository.recordByName)
+    @Modifying
+    @Query("delete from User u where u.id = (select min(n.id) from User n where n.name = :name)")
+    int deleteUserByName(@Param("name") String name);
+
+    @Modifying
+    @Query("delete from User u where u.id in :ids")
+    int deleteUsersByIdIn(@Param("ids") Collection<Integer> ids);
+
+    @Modifying
+    @Query("delete from User u where u.email like concat('%@', :domain) escape '!'")
+    int deleteUsersByEmailDomain(@Param("domain") String escapedDomain);
+
+    @Modifying
+    @Query("delete from User u where u.name like concat(:prefix, '%') escape '!'")
+    int deleteUsersByNamePrefix(@Param("prefix") String escapedPrefix);
+
+    // PATCH em um único UPDATE: só escreve se algum campo mudar (e se a versão bater, quando informada).
+    // Parâmetros nulos mantêm o valor atual. 0 linhas = inexistente, versão diferente ou nada a mudar.
+    @Modifying
+    @Query("update User u set u.name = coalesce(:name, u.name), u.email = coalesce(:email, u.email), " +
+            "u.version = u.version + 1 " +
+            "where u.id = :id and (:version is null or u.version = :version) " +
+            "and (u.name <> coalesce(:name, u.name) or u.email <> coalesce(:email, u.email))")
+    int patchUser(@Param("id") Integer id, @Param("name") String name, @Param("email") String email,
+                  @Param("version") Long expectedVersion);
+
+    @Modifying
+    @Query("update User u set u.name = :name, u.version = u.version + 1 where u.id in :ids")
+    int renameUsersByIdIn(@Param("ids") Collection<Integer> ids, @Param("name") String name);
+
+    @Modifying
+    @Query("update User u set u.email = concat(substring(u.email, 1, locate('@', u.email)), :to), " +
+            "u.version = u.version + 1 " +
+            "where u.email like concat('%@', :from) escape '!'")
+    int rewriteEmailDomain(@Param("from") String escapedFrom, @Param("to") String to);
+}
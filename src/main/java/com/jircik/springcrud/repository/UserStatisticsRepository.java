@@ -0,0 +1,20 @@
+package com.jircik.springcrud.repository;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Leitura das estatísticas que o próprio banco mantém sobre a tabela de usuários.
+ */
+public interface UserStatisticsRepository {
+
+    /**
+     * Quantidade estimada de linhas, sem varrer a tabela. Vazio quando o banco não oferece a estimativa
+     * ou a tabela ainda não foi analisada.
+     */
+    Optional<RowEstimate> estimateRowCount();
+
+    /** @param analyzedAt quando a estimativa foi calculada (null se o banco não informa) */
+    record RowEstimate(long rows, Instant analyzedAt) {
+    }
+}
@@ -0,0 +1,63 @@
+package com.jircik.springcrud.repository;
+
+import com.jircik.springcrud.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Table;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Estimativa de linhas a partir do catálogo: {@code pg_class.reltuples} no PostgreSQL (atualizado por
+ * VACUUM/ANALYZE, inclusive o autovacuum) e {@code ROW_COUNT_ESTIMATE} no H2. Nos demais bancos não há estimativa.
+ */
+class UserStatisticsRepositoryImpl implements UserStatisticsRepository {
+
+    private static final String TABLE = User.class.getAnnotation(Table.class).name();
+
+    // reltuples é -1 enquanto a tabela nunca foi analisada
+    private static final String POSTGRESQL = """
+            select c.reltuples::bigint,
+                   greatest(s.last_analyze, s.last_autoanalyze, s.last_vacuum, s.last_autovacuum)
+            from pg_class c left join pg_stat_user_tables s on s.relid = c.oid
+            where c.oid = to_regclass(:table) and c.reltuples >= 0""";
+
+    private static final String H2 = """
+            select row_count_estimate, null from information_schema.tables
+            where table_schema = current_schema and table_name = :table""";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<RowEstimate> estimateRowCount() {
+        Dialect dialect = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect();
+        String sql = dialect instanceof PostgreSQLDialect ? POSTGRESQL : dialect instanceof H2Dialect ? H2 : null;
+        if (sql == null) {
+            return Optional.empty();
+        }
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = entityManager.createNativeQuery(sql).setParameter("table", TABLE).getResultList();
+        return rows.stream().findFirst().map(row -> new RowEstimate(((Number) row[0]).longValue(), toInstant(row[1])));
+    }
+
+    private static Instant toInstant(Object value) {
+        return switch (value) {
+            case null -> null;
+            case Instant instant -> instant;
+            case OffsetDateTime dateTime -> dateTime.toInstant();
+            case Timestamp timestamp -> timestamp.toInstant();
+            default -> throw new IllegalStateException("Unexpected timestamp type " + value.getClass().getName());
+        };
+    }
+}
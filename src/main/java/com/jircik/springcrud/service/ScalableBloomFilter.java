@@ -0,0 +1,156 @@
+package com.jircik.springcrud.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter escalável (Almeida et al., 2007): quando a camada atual atinge a capacidade, uma nova camada com
+ * o dobro da capacidade e metade da taxa de falsos positivos é criada. A taxa total fica abaixo de
+ * falsePositiveRate independentemente de quantos elementos entrarem.
+ * <p>
+ * Sem remoção: um elemento removido continua respondendo "talvez". Inserções e consultas são thread-safe e
+ * sem lock (bits em AtomicLongArray); só a criação de uma camada é sincronizada.
+ */
+final class ScalableBloomFilter {
+
+    private static final int GROWTH = 2;
+    private static final double TIGHTENING = 0.5;
+    private static final double LN2_SQUARED = Math.log(2) * Math.log(2);
+
+    private final double firstLayerRate;
+    private final AtomicLong size = new AtomicLong();
+    private volatile Layer[] layers;
+
+    ScalableBloomFilter(long initialCapacity, double falsePositiveRate) {
+        if (initialCapacity < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("capacity must be >= 1 and false positive rate between 0 and 1");
+        }
+        // Soma da série geométrica: p0 / (1 - r) = falsePositiveRate
+        this.firstLayerRate = falsePositiveRate * (1 - TIGHTENING);
+        this.layers = new Layer[]{new Layer(initialCapacity, firstLayerRate)};
+    }
+
+    boolean mightContain(String value) {
+        long hash = hash(value);
+        for (Layer layer : layers) {
+            if (layer.mightContain(hash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void add(String value) {
+        long hash = hash(value);
+        Layer[] current = layers;
+        // Já presente (ou falso positivo): não ocupa a capacidade da camada
+        for (Layer layer : current) {
+            if (layer.mightContain(hash)) {
+                return;
+            }
+        }
+        Layer last = current[current.length - 1];
+        last.put(hash);
+        size.incrementAndGet();
+        if (last.count.incrementAndGet() >= last.capacity) {
+            grow(last);
+        }
+    }
+
+    /** Elementos inseridos (aproximado: um falso positivo na inserção não conta). */
+    long size() {
+        return size.get();
+    }
+
+    long bitCount() {
+        long bits = 0;
+        for (Layer layer : layers) {
+            bits += layer.numBits;
+        }
+        return bits;
+    }
+
+    int layerCount() {
+        return layers.length;
+    }
+
+    /** Taxa de falsos positivos esperada com a ocupação atual de cada camada. */
+    double expectedFalsePositiveRate() {
+        double none = 1;
+        for (Layer layer : layers) {
+            double fill = 1 - Math.exp(-(double) layer.hashes * layer.count.get() / layer.numBits);
+            none *= 1 - Math.pow(fill, layer.hashes);
+        }
+        return 1 - none;
+    }
+
+    private synchronized void grow(Layer full) {
+        Layer[] current = layers;
+        if (current[current.length - 1] != full) {
+            return;
+        }
+        Layer[] grown = new Layer[current.length + 1];
+        System.arraycopy(current, 0, grown, 0, current.length);
+        grown[current.length] = new Layer(full.capacity * GROWTH, firstLayerRate * Math.pow(TIGHTENING, current.length));
+        layers = grown;
+    }
+
+    // FNV-1a sobre os chars, com o finalizador do MurmurHash3 para espalhar os bits
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static final class Layer {
+
+        private final long capacity;
+        private final long numBits;
+        private final int hashes;
+        private final AtomicLongArray bits;
+        private final AtomicLong count = new AtomicLong();
+
+        private Layer(long capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            long words = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / LN2_SQUARED / Long.SIZE);
+            this.bits = new AtomicLongArray(Math.toIntExact(Math.max(1, words)));
+            this.numBits = (long) bits.length() * Long.SIZE;
+            this.hashes = Math.max(1, (int) Math.ceil(-Math.log(falsePositiveRate) / Math.log(2)));
+        }
+
+        // Double hashing (Kirsch-Mitzenmacher): as k posições saem de dois hashes derivados do mesmo valor
+        private boolean mightContain(long hash) {
+            long h1 = hash;
+            long h2 = mix(hash ^ 0x9e3779b97f4a7c15L) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, numBits);
+                if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void put(long hash) {
+            long h1 = hash;
+            long h2 = mix(hash ^ 0x9e3779b97f4a7c15L) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, numBits);
+                long mask = 1L << bit;
+                bits.getAndAccumulate((int) (bit >>> 6), mask, (word, m) -> word | m);
+            }
+        }
+    }
+}
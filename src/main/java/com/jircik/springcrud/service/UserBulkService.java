@@ -0,0 +1,280 @@
+package com.jircik.springcrud.service;
+
+import com.jircik.springcrud.config.BulkProperties;
+import com.jircik.springcrud.dto.BulkCreateResult;
+import com.jircik.springcrud.dto.BulkGetResult;
+import com.jircik.springcrud.dto.BulkCreateResult.Item;
+import com.jircik.springcrud.dto.BulkUpdateResult;
+import com.jircik.springcrud.model.User;
+import com.jircik.springcrud.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.IntSupplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Operações em lote sobre usuários.
+ * <p>
+ * Cadastro: os itens são lidos de forma incremental e gravados em blocos (chunk-size),
+ * um bloco por transação, usando batch de INSERT do JDBC. Falhas são reportadas por item
+ * sem derrubar o restante do lote.
+ * <p>
+ * Remoção e atualização: um statement set-based por bloco de IDs (ou um único statement
+ * para filtros por domínio/prefixo), sem carregar entidades.
+ * <p>
+ * Toda escrita grava também o outbox ({@link UserChangeLog}) na mesma transação, com o mesmo filtro.
+ * <p>
+ * Busca: IDs deduplicados e limitados a max-get-ids, resolvidos pelo cache e, para o que faltar,
+ * por um SELECT ... IN por bloco, todos na mesma transação read-only (uma conexão por chamada).
+ */
+@Service
+@RequiredArgsConstructor
+public class UserBulkService {
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final BulkProperties properties;
+    private final UserCache userCache;
+    private final UserCounter userCounter;
+    private final UserChangeLog userChangeLog;
+    private final UserEmailFilter userEmailFilter;
+
+    public BulkCreateResult createAll(Iterator<User> users) {
+        List<Item> results = new ArrayList<>();
+        List<PendingUser> chunk = new ArrayList<>(properties.chunkSize());
+        int index = 0;
+
+        while (true) {
+            User user;
+            try {
+                if (!users.hasNext()) {
+                    break;
+                }
+                user = users.next();
+            } catch (RuntimeException ex) {
+                // Corpo malformado: o parser não consegue continuar, os blocos anteriores já foram gravados
+                results.add(Item.failed(index, "Malformed item: " + ex.getMessage()));
+                break;
+            }
+
+            if (isBlank(user.getName()) || isBlank(user.getEmail())) {
+                results.add(Item.failed(index++, "name and email are required"));
+                continue;
+            }
+            chunk.add(new PendingUser(index++, user.getName(), user.getEmail()));
+
+            if (chunk.size() == properties.chunkSize()) {
+                insertChunk(chunk, results);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            insertChunk(chunk, results);
+        }
+
+        results.sort(Comparator.comparingInt(Item::index));
+        int created = (int) results.stream().filter(item -> item.status() == BulkCreateResult.Status.CREATED).count();
+        return new BulkCreateResult(created, results.size() - created, results);
+    }
+
+    private void insertChunk(List<PendingUser> chunk, List<Item> results) {
+        // Uma única consulta por bloco para detectar e-mails já cadastrados
+        Set<String> existing = userRepository.findExistingEmails(chunk.stream().map(PendingUser::email).toList());
+        Set<String> seen = new HashSet<>();
+        List<PendingUser> accepted = new ArrayList<>(chunk.size());
+
+        for (PendingUser pending : chunk) {
+            if (existing.contains(pending.email())) {
+                results.add(Item.failed(pending.index(), "User with email " + pending.email() + " already exists"));
+            } else if (!seen.add(pending.email())) {
+                results.add(Item.failed(pending.index(), "Duplicate email " + pending.email() + " in request"));
+            } else {
+                accepted.add(pending);
+            }
+        }
+        if (accepted.isEmpty()) {
+            return;
+        }
+        accepted.forEach(pending -> userEmailFilter.add(pending.email()));
+
+        try {
+            List<User> saved = transactionTemplate.execute(status -> {
+                List<User> entities = userRepository.saveAll(accepted.stream().map(PendingUser::toEntity).toList());
+                userRepository.flush();
+                userChangeLog.created(entities.stream().map(User::getId).toList());
+                return entities;
+            });
+            for (int i = 0; i < accepted.size(); i++) {
+                results.add(Item.created(accepted.get(i).index(), saved.get(i).getId()));
+                userCache.evict(saved.get(i).getId(), saved.get(i).getName());
+            }
+            userCounter.add(saved.size());
+        } catch (DataAccessException ex) {
+            // Conflito concorrente (ex.: e-mail gravado por outra requisição): refaz o bloco item a item
+            for (PendingUser pending : accepted) {
+                results.add(insertOne(pending));
+            }
+        }
+    }
+
+    private Item insertOne(PendingUser pending) {
+        try {
+            User saved = transactionTemplate.execute(status -> {
+                User entity = userRepository.saveAndFlush(pending.toEntity());
+                userChangeLog.created(List.of(entity.getId()));
+                return entity;
+            });
+            userCache.evict(saved.getId(), saved.getName());
+            userCounter.add(1);
+            return Item.created(pending.index(), saved.getId());
+        } catch (DataAccessException ex) {
+            return Item.failed(pending.index(), "User with email " + pending.email() + " could not be created");
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public BulkGetResult getByIds(List<Integer> ids) {
+        List<Integer> distinct = distinctIds(ids);
+        if (distinct.size() > properties.maxGetIds()) {
+            throw new IllegalArgumentException("At most " + properties.maxGetIds() + " distinct ids per request, got " + distinct.size());
+        }
+        Map<Integer, Optional<User>> users = userCache.getAllById(distinct, this::findInChunks);
+
+        List<BulkGetResult.Item> items = new ArrayList<>(distinct.size());
+        int found = 0;
+        for (Integer id : distinct) {
+            User user = users.get(id).orElse(null);
+            items.add(BulkGetResult.Item.of(id, user));
+            if (user != null) {
+                found++;
+            }
+        }
+        return new BulkGetResult(found, items.size() - found, items);
+    }
+
+    public BulkUpdateResult deleteByIds(List<Integer> ids) {
+        return deleted(inChunks(ids, chunk -> {
+            userChangeLog.deleting(chunk);
+            return userRepository.deleteUsersByIdIn(chunk);
+        }));
+    }
+
+    public BulkUpdateResult deleteByEmailDomain(String domain) {
+        requireText(domain, "emailDomain");
+        String escaped = escapeLike(domain);
+        return deleted(inTransaction(() -> {
+            userChangeLog.deletingByEmailDomain(escaped);
+            return userRepository.deleteUsersByEmailDomain(escaped);
+        }));
+    }
+
+    public BulkUpdateResult deleteByNamePrefix(String prefix) {
+        requireText(prefix, "namePrefix");
+        String escaped = escapeLike(prefix);
+        return deleted(inTransaction(() -> {
+            userChangeLog.deletingByNamePrefix(escaped);
+            return userRepository.deleteUsersByNamePrefix(escaped);
+        }));
+    }
+
+    public BulkUpdateResult renameByIds(List<Integer> ids, String name) {
+        requireText(name, "name");
+        return new BulkUpdateResult(inChunks(ids, chunk -> {
+            int renamed = userRepository.renameUsersByIdIn(chunk, name);
+            userChangeLog.updated(chunk);
+            return renamed;
+        }));
+    }
+
+    public BulkUpdateResult rewriteEmailDomain(String from, String to) {
+        requireText(from, "from");
+        requireText(to, "to");
+        String escaped = escapeLike(from);
+        return new BulkUpdateResult(inTransaction(() -> {
+            // Os e-mails novos não são conhecidos um a um: o filtro de disponibilidade é reconstruído após o commit
+            userEmailFilter.invalidate();
+            userChangeLog.rewritingEmailDomain(escaped, to);
+            return userRepository.rewriteEmailDomain(escaped, to);
+        }));
+    }
+
+    private BulkUpdateResult deleted(int affected) {
+        userCounter.add(-affected);
+        userEmailFilter.removed(affected);
+        return new BulkUpdateResult(affected);
+    }
+
+    private int inChunks(List<Integer> ids, ToIntFunction<List<Integer>> statement) {
+        List<Integer> distinct = distinctIds(ids);
+        int affected = 0;
+        for (int from = 0; from < distinct.size(); from += properties.chunkSize()) {
+            List<Integer> chunk = distinct.subList(from, Math.min(from + properties.chunkSize(), distinct.size()));
+            affected += inTransaction(() -> statement.applyAsInt(chunk));
+        }
+        return affected;
+    }
+
+    private List<User> findInChunks(List<Integer> ids) {
+        List<User> found = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += properties.chunkSize()) {
+            found.addAll(userRepository.findAllById(ids.subList(from, Math.min(from + properties.chunkSize(), ids.size()))));
+        }
+        return found;
+    }
+
+    // Mantém a ordem da primeira ocorrência de cada ID
+    private static List<Integer> distinctIds(List<Integer> ids) {
+        if (ids == null || ids.isEmpty()) {
+            throw new IllegalArgumentException("ids must not be empty");
+        }
+        if (ids.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("ids must not contain null");
+        }
+        return List.copyOf(new LinkedHashSet<>(ids));
+    }
+
+    private int inTransaction(IntSupplier statement) {
+        Integer affected = transactionTemplate.execute(status -> statement.getAsInt());
+        if (affected != null && affected > 0) {
+            // Set-based: não sabemos quais usuários em cache foram afetados
+            userCache.invalidateAll();
+        }
+        return affected == null ? 0 : affected;
+    }
+
+    // Escapa os curingas do LIKE usando '!' (o mesmo caractere declarado nas queries do repositório)
+    static String escapeLike(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+    private static void requireText(String value, String field) {
+        if (isBlank(value)) {
+            throw new IllegalArgumentException(field + " must not be blank");
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private record PendingUser(int index, String name, String email) {
+
+        User toEntity() {
+            return new User(null, name, email);
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.jircik.springcrud.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.jircik.springcrud.config.ReplicaRoutingDataSource;
+import com.jircik.springcrud.config.UserCacheProperties;
+import com.jircik.springcrud.dto.UserCacheStats;
+import com.jircik.springcrud.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Cache de leitura (read-through) de usuários, limitado por tamanho e TTL, com política
+ * W-TinyLFU do Caffeine. Mantém um índice por ID e um índice secundário nome -> ID,
+ * e guarda resultados negativos ("não encontrado") por um tempo curto.
+ * <p>
+ * Consistência: as escritas invalidam depois do commit e incrementam um contador de escritas;
+ * uma carga que viu o contador mudar descarta o que acabou de gravar. Com réplicas de leitura, as cargas vão
+ * ao primário: uma linha atrasada lida da réplica ficaria no cache pelo TTL inteiro e seria servida também a
+ * quem acabou de escrever, passando por cima do read-your-writes.
+ * <p>
+ * As cargas rodam fora do compute do Caffeine de propósito: o compute segura um lock
+ * {@code synchronized} do ConcurrentHashMap, e uma consulta JDBC dentro dele prende
+ * (pin) a carrier thread quando a requisição roda em virtual thread no Java 21.
+ * O custo é que misses simultâneos da mesma chave podem ir ao banco mais de uma vez.
+ */
+@Component
+public class UserCache {
+
+    private final boolean enabled;
+    private final Cache<Integer, Optional<User>> byId;
+    private final Cache<String, Optional<Integer>> idByName;
+    private final AtomicLong writes = new AtomicLong();
+
+    @Autowired
+    public UserCache(UserCacheProperties properties) {
+        this(properties, Ticker.systemTicker());
+    }
+
+    UserCache(UserCacheProperties properties, Ticker ticker) {
+        this.enabled = properties.enabled();
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(properties.maximumSize())
+                .expireAfter(new PresenceExpiry<Integer, User>(properties))
+                .ticker(ticker)
+                .recordStats()
+                .build();
+        this.idByName = Caffeine.newBuilder()
+                .maximumSize(properties.maximumSize())
+                .expireAfter(new PresenceExpiry<String, Integer>(properties))
+                .ticker(ticker)
+                .recordStats()
+                .build();
+    }
+
+    public Optional<User> getById(Integer id, Function<Integer, Optional<User>> loader) {
+        if (!enabled) {
+            return loader.apply(id);
+        }
+
+        Optional<User> cached = byId.getIfPresent(id);
+        if (cached != null) {
+            return cached;
+        }
+        long writesBefore = writes.get();
+        Optional<User> loaded = ReplicaRoutingDataSource.onPrimary(() -> loader.apply(id));
+        byId.put(id, loaded);
+        if (writes.get() != writesBefore) {
+            // Houve escrita durante a carga: o valor pode estar obsoleto, então não fica no cache
+            byId.invalidate(id);
+        }
+        return loaded;
+    }
+
+    public Optional<User> getByName(String name, Function<String, Optional<User>> loader) {
+        if (!enabled) {
+            return loader.apply(name);
+        }
+
+        Optional<Integer> cachedId = idByName.getIfPresent(name);
+        if (cachedId != null) {
+            if (cachedId.isEmpty()) {
+                return Optional.empty();
+            }
+            Optional<User> user = byId.getIfPresent(cachedId.get());
+            if (user != null && matchesName(user, name)) {
+                return user;
+            }
+            // O usuário mudou de nome, foi removido ou saiu do índice por ID
+            idByName.invalidate(name);
+        }
+
+        long writesBefore = writes.get();
+        Optional<User> loaded = ReplicaRoutingDataSource.onPrimary(() -> loader.apply(name));
+        loaded.ifPresent(user -> byId.put(user.getId(), loaded));
+        idByName.put(name, loaded.map(User::getId));
+        if (writes.get() != writesBefore) {
+            idByName.invalidate(name);
+            loaded.ifPresent(user -> byId.invalidate(user.getId()));
+        }
+        return loaded;
+    }
+
+    /**
+     * Busca vários IDs de uma vez: os que estão em cache (inclusive como "não encontrado") não vão ao banco;
+     * os demais são carregados numa única chamada ao loader. Devolve uma entrada para cada ID pedido.
+     */
+    public Map<Integer, Optional<User>> getAllById(Collection<Integer> ids, Function<List<Integer>, List<User>> loader) {
+        Map<Integer, Optional<User>> result = new HashMap<>();
+        List<Integer> missing = new ArrayList<>();
+        for (Integer id : ids) {
+            Optional<User> cached = enabled ? byId.getIfPresent(id) : null;
+            if (cached != null) {
+                result.put(id, cached);
+            } else {
+                missing.add(id);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        long writesBefore = writes.get();
+        Map<Integer, User> loaded = new HashMap<>();
+        List<User> users = enabled ? ReplicaRoutingDataSource.onPrimary(() -> loader.apply(missing)) : loader.apply(missing);
+        users.forEach(user -> loaded.put(user.getId(), user));
+        for (Integer id : missing) {
+            result.put(id, Optional.ofNullable(loaded.get(id)));
+        }
+        if (enabled) {
+            missing.forEach(id -> byId.put(id, result.get(id)));
+            if (writes.get() != writesBefore) {
+                byId.invalidateAll(missing);
+            }
+        }
+        return result;
+    }
+
+    /** Devolve o usuário se já estiver em cache, sem carregar; null caso contrário. */
+    public User peekById(Integer id) {
+        if (!enabled) {
+            return null;
+        }
+        Optional<User> user = byId.getIfPresent(id);
+        return user == null ? null : user.orElse(null);
+    }
+
+    public User peekByName(String name) {
+        if (!enabled) {
+            return null;
+        }
+        Optional<Integer> id = idByName.getIfPresent(name);
+        if (id == null || id.isEmpty()) {
+            return null;
+        }
+        User user = peekById(id.get());
+        return user != null && name.equals(user.getName()) ? user : null;
+    }
+
+    /** Invalida o usuário e os nomes informados (ex.: nome antigo e novo) após o commit da transação atual. */
+    public void evict(Integer id, String... names) {
+        afterCommit(() -> {
+            for (String name : names) {
+                if (name != null) {
+                    idByName.invalidate(name);
+                }
+            }
+            if (id != null) {
+                byId.invalidate(id);
+            }
+        });
+    }
+
+    /** Invalida um nome sem conhecer o ID (ex.: remoção por nome), varrendo apenas a memória. */
+    public void evictByName(String name) {
+        afterCommit(() -> {
+            idByName.invalidate(name);
+            byId.asMap().values().removeIf(user -> matchesName(user, name));
+        });
+    }
+
+    /** Para operações em lote, que afetam linhas sem saber quais estão no cache. */
+    public void invalidateAll() {
+        afterCommit(() -> {
+            idByName.invalidateAll();
+            byId.invalidateAll();
+        });
+    }
+
+    public List<UserCacheStats> stats() {
+        return List.of(toStats("byId", byId), toStats("byName", idByName));
+    }
+
+    private void afterCommit(Runnable invalidation) {
+        Runnable counted = () -> {
+            // Incrementa antes de invalidar: uma carga que gravar depois disso vai enxergar a escrita
+            writes.incrementAndGet();
+            invalidation.run();
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    counted.run();
+                }
+            });
+        } else {
+            counted.run();
+        }
+    }
+
+    private static boolean matchesName(Optional<User> user, String name) {
+        return user.isPresent() && name.equals(user.get().getName());
+    }
+
+    private static UserCacheStats toStats(String name, Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        return new UserCacheStats(name, cache.estimatedSize(), stats.hitCount(), stats.missCount(),
+                stats.hitRate(), stats.evictionCount());
+    }
+
+    /** TTL normal para valores presentes e TTL curto para resultados negativos. */
+    private record PresenceExpiry<K, V>(long ttlNanos, long negativeTtlNanos) implements Expiry<K, Optional<V>> {
+
+        PresenceExpiry(UserCacheProperties properties) {
+            this(properties.ttl().toNanos(), properties.negativeTtl().toNanos());
+        }
+
+        @Override
+        public long expireAfterCreate(K key, Optional<V> value, long currentTime) {
+            return value.isPresent() ? ttlNanos : negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(K key, Optional<V> value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(K key, Optional<V> value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
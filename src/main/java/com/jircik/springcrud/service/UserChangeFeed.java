@@ -0,0 +1,292 @@
+package com.jircik.springcrud.service;
+
+import com.jircik.springcrud.config.UserChangeProperties;
+import com.jircik.springcrud.dto.UserChangeEvent;
+import com.jircik.springcrud.dto.UserChangePage;
+import com.jircik.springcrud.model.UserChange;
+import com.jircik.springcrud.repository.UserChangeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Feed de alterações de usuários a partir do outbox ({@link UserChange}).
+ * <p>
+ * Relay: uma thread atribui offsets (maior offset + 1, + 2, ...) aos registros já confirmados, em uma
+ * transação por lote. Como só enxerga registros confirmados e o feed_offset é único, um registro nunca
+ * recebe offset menor que um já visível; com várias instâncias, a que perder a corrida pelo mesmo offset
+ * desfaz o lote e tenta de novo. A mesma thread compacta o outbox: registros mais antigos que
+ * compact-after são removidos quando o usuário tem um registro mais novo, então o outbox guarda o
+ * histórico recente e o último estado de cada usuário (inclusive os removidos).
+ * <p>
+ * Leitura: por página ({@link #read}) ou por SSE ({@link #stream}), sempre a partir de um offset. Cada
+ * stream roda em uma virtual thread que consulta o feed quando o relay avisa ou a cada poll-interval.
+ */
+@Component
+public class UserChangeFeed implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(UserChangeFeed.class);
+
+    private final UserChangeProperties properties;
+    private final UserChangeRepository userChangeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Semaphore wakeUps = new Semaphore(0);
+    private final ReentrantLock sequencing = new ReentrantLock();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition sequenced = lock.newCondition();
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private long generation;
+    private volatile boolean running;
+    private volatile Thread relay;
+    private volatile ExecutorService streams;
+
+    public UserChangeFeed(UserChangeProperties properties, UserChangeRepository userChangeRepository,
+                          TransactionTemplate transactionTemplate) {
+        this.properties = properties;
+        this.userChangeRepository = userChangeRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /** Avisa o relay de que há registros novos (chamado após o commit da escrita). */
+    public void wakeUp() {
+        wakeUps.release();
+    }
+
+    /** Alterações com offset maior que after, em ordem. */
+    public UserChangePage read(long after, int limit) {
+        checkOffset(after);
+        if (limit < 1 || limit > properties.batchSize()) {
+            throw new IllegalArgumentException("limit must be between 1 and " + properties.batchSize());
+        }
+        List<UserChangeEvent> changes = userChangeRepository.findAfter(after, Limit.of(limit)).stream()
+                .map(UserChangeEvent::of)
+                .toList();
+        return new UserChangePage(changes, changes.isEmpty() ? after : changes.getLast().offset());
+    }
+
+    /** Maior offset atribuído: ponto de partida de quem acabou de copiar a tabela inteira. */
+    public long head() {
+        return userChangeRepository.findHeadOffset();
+    }
+
+    /** Stream SSE a partir de after: um evento por alteração, com id = offset (o Last-Event-ID da reconexão). */
+    public SseEmitter stream(long after) {
+        checkOffset(after);
+        ExecutorService executor = streams;
+        if (executor == null) {
+            throw new IllegalStateException("User change feed is not running");
+        }
+        SseEmitter emitter = new SseEmitter(properties.streamTimeout().toMillis());
+        AtomicBoolean open = new AtomicBoolean(true);
+        emitter.onCompletion(() -> open.set(false));
+        emitter.onTimeout(() -> open.set(false));
+        emitter.onError(ex -> open.set(false));
+
+        subscribers.incrementAndGet();
+        executor.execute(() -> {
+            try {
+                pump(emitter, after, open);
+            } finally {
+                subscribers.decrementAndGet();
+            }
+        });
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.get();
+    }
+
+    /** Atribui offsets a um lote de registros confirmados; devolve quantos. */
+    int sequence() {
+        Integer assigned;
+        sequencing.lock();
+        try {
+            assigned = transactionTemplate.execute(status -> {
+                List<UserChange> pending = userChangeRepository.findUnsequenced(Limit.of(properties.batchSize()));
+                if (pending.isEmpty()) {
+                    return 0;
+                }
+                long head = userChangeRepository.findHeadOffset();
+                for (UserChange change : pending) {
+                    change.setFeedOffset(++head);
+                }
+                return pending.size();
+            });
+        } catch (DataIntegrityViolationException ex) {
+            // Outra instância atribuiu os mesmos offsets antes; o próximo ciclo parte do novo maior offset
+            log.debug("Concurrent offset assignment, retrying", ex);
+            return 0;
+        } finally {
+            sequencing.unlock();
+        }
+        if (assigned != null && assigned > 0) {
+            signalStreams();
+            return assigned;
+        }
+        return 0;
+    }
+
+    /** Remove registros antigos já superados por um mais novo do mesmo usuário; devolve quantos. */
+    int compact() {
+        Integer removed = transactionTemplate.execute(status ->
+                userChangeRepository.deleteSuperseded(Instant.now().minus(properties.compactAfter())));
+        return removed == null ? 0 : removed;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        streams = Executors.newVirtualThreadPerTaskExecutor();
+        relay = Thread.ofPlatform().name("user-change-relay").daemon().start(this::relayLoop);
+    }
+
+    // Encerra os streams (os clientes reconectam em outra instância) e o relay
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        signalStreams();
+        relay.interrupt();
+        streams.shutdown();
+        try {
+            relay.join(properties.pollInterval().toMillis() + 1000);
+            if (!streams.awaitTermination(properties.pollInterval().toMillis() + 1000, TimeUnit.MILLISECONDS)) {
+                streams.shutdownNow();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        relay = null;
+        streams = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void relayLoop() {
+        long compactEvery = properties.compactInterval().toNanos();
+        long nextCompaction = System.nanoTime() + compactEvery;
+        while (running) {
+            try {
+                wakeUps.tryAcquire(properties.pollInterval().toMillis(), TimeUnit.MILLISECONDS);
+                wakeUps.drainPermits();
+                // Lote cheio: pode haver mais registros esperando
+                int assigned;
+                do {
+                    assigned = sequence();
+                } while (running && assigned == properties.batchSize());
+                if (System.nanoTime() - nextCompaction >= 0) {
+                    nextCompaction = System.nanoTime() + compactEvery;
+                    int removed = compact();
+                    log.debug("Compacted {} superseded user changes", removed);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException ex) {
+                // Banco indisponível etc.: os registros continuam no outbox e são atribuídos no próximo ciclo
+                log.warn("User change relay failed", ex);
+            }
+        }
+    }
+
+    private void pump(SseEmitter emitter, long after, AtomicBoolean open) {
+        long offset = after;
+        long heartbeatNanos = properties.heartbeat().toNanos();
+        long lastSent = System.nanoTime();
+        try {
+            while (open.get() && running) {
+                long seen = generation();
+                UserChangePage page = read(offset, properties.batchSize());
+                for (UserChangeEvent change : page.changes()) {
+                    emitter.send(SseEmitter.event().id(Long.toString(change.offset())).data(change, MediaType.APPLICATION_JSON));
+                }
+                if (!page.changes().isEmpty()) {
+                    offset = page.nextOffset();
+                    lastSent = System.nanoTime();
+                    continue;
+                }
+                if (System.nanoTime() - lastSent >= heartbeatNanos) {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                    lastSent = System.nanoTime();
+                }
+                awaitSequenced(seen, properties.pollInterval());
+            }
+            emitter.complete();
+        } catch (IOException | IllegalStateException ex) {
+            // Cliente desconectou ou o emitter já foi concluído (timeout)
+            open.set(false);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            emitter.complete();
+        } catch (RuntimeException ex) {
+            log.warn("User change stream failed", ex);
+            emitter.completeWithError(ex);
+        }
+    }
+
+    private long generation() {
+        lock.lock();
+        try {
+            return generation;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ReentrantLock em vez de wait/notify: não prende a carrier thread das virtual threads dos streams
+    private void awaitSequenced(long seen, Duration timeout) throws InterruptedException {
+        lock.lock();
+        try {
+            long nanos = timeout.toNanos();
+            while (generation == seen && nanos > 0 && running) {
+                nanos = sequenced.awaitNanos(nanos);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void signalStreams() {
+        lock.lock();
+        try {
+            generation++;
+            sequenced.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void checkOffset(long after) {
+        if (after < 0) {
+            throw new IllegalArgumentException("after must be >= 0");
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.jircik.springcrud.service;
+
+import com.jircik.springcrud.model.UserChange.Type;
+import com.jircik.springcrud.repository.UserChangeRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.Collection;
+
+/**
+ * Grava o outbox de alterações de usuários. Deve ser chamado dentro da transação da escrita: o registro
+ * só fica visível se ela fizer commit. Depois do commit o {@link UserChangeFeed} é acordado para
+ * atribuir os offsets sem esperar o próximo poll.
+ * <p>
+ * Métodos no particípio (created, updated) vêm depois da escrita; os no gerúndio (deleting, rewriting)
+ * vêm antes dela, porque depois as linhas já não existem ou não são mais encontradas pelo mesmo filtro.
+ * Esses travam as linhas (FOR UPDATE) antes de registrar: uma atualização concorrente ou já fez commit, e o
+ * registro copia o estado dela, ou espera esta transação terminar. Assim nada entra no outbox entre o registro
+ * e a escrita.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserChangeLog {
+
+    private final UserChangeRepository userChangeRepository;
+    private final UserChangeFeed userChangeFeed;
+
+    public void created(Collection<Integer> ids) {
+        if (!ids.isEmpty()) {
+            recorded(userChangeRepository.recordByIds(Type.CREATED, ids, Instant.now()));
+        }
+    }
+
+    public void updated(Collection<Integer> ids) {
+        if (!ids.isEmpty()) {
+            recorded(userChangeRepository.recordByIds(Type.UPDATED, ids, Instant.now()));
+        }
+    }
+
+    public void deleting(Collection<Integer> ids) {
+        if (!ids.isEmpty()) {
+            userChangeRepository.lockByIds(ids);
+            recorded(userChangeRepository.recordByIds(Type.DELETED, ids, Instant.now()));
+        }
+    }
+
+    public void deletingByName(String name) {
+        userChangeRepository.lockByName(name);
+        recorded(userChangeRepository.recordByName(Type.DELETED, name, Instant.now()));
+    }
+
+    public void deletingByEmailDomain(String escapedDomain) {
+        userChangeRepository.lockByEmailDomain(escapedDomain);
+        recorded(userChangeRepository.recordByEmailDomain(Type.DELETED, escapedDomain, Instant.now()));
+    }
+
+    public void deletingByNamePrefix(String escapedPrefix) {
+        userChangeRepository.lockByNamePrefix(escapedPrefix);
+        recorded(userChangeRepository.recordByNamePrefix(Type.DELETED, escapedPrefix, Instant.now()));
+    }
+
+    public void rewritingEmailDomain(String escapedFrom, String to) {
+        userChangeRepository.lockByEmailDomain(escapedFrom);
+        recorded(userChangeRepository.recordEmailDomainRewrite(escapedFrom, to, Instant.now()));
+    }
+
+    /** Para registros gravados fora deste componente (ex.: SQL nativo da importação). */
+    public void recorded(int records) {
+        if (records == 0) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    userChangeFeed.wakeUp();
+                }
+            });
+        } else {
+            userChangeFeed.wakeUp();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.jircik.springcrud.service;
+
+import com.jircik.springcrud.config.UserCountProperties;
+import com.jircik.springcrud.dto.UserCount;
+import com.jircik.springcrud.dto.UserCount.Mode;
+import com.jircik.springcrud.repository.UserRepository;
+import com.jircik.springcrud.repository.UserStatisticsRepository.RowEstimate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Total de usuários sem trazer a tabela: count() com cache curto (EXACT), estatísticas do banco
+ * (APPROXIMATE) ou o contador em memória (LIVE). Cada resposta informa o modo usado e a idade do número.
+ */
+@Service
+public class UserCountService {
+
+    private final UserRepository userRepository;
+    private final UserCounter userCounter;
+    private final long exactTtlMillis;
+    private final Clock clock;
+    private volatile Measurement exact;
+
+    @Autowired
+    public UserCountService(UserRepository userRepository, UserCounter userCounter, UserCountProperties properties) {
+        this(userRepository, userCounter, properties, Clock.systemUTC());
+    }
+
+    UserCountService(UserRepository userRepository, UserCounter userCounter, UserCountProperties properties, Clock clock) {
+        this.userRepository = userRepository;
+        this.userCounter = userCounter;
+        this.exactTtlMillis = properties.exactTtl().toMillis();
+        this.clock = clock;
+    }
+
+    public UserCount count(Mode mode) {
+        return switch (mode) {
+            case EXACT -> exactCount();
+            case APPROXIMATE -> approximateCount();
+            case LIVE -> liveCount();
+        };
+    }
+
+    private UserCount exactCount() {
+        Measurement current = exact;
+        if (current == null || clock.millis() - current.asOf().toEpochMilli() >= exactTtlMillis) {
+            // Sem lock: no pior caso, chamadas simultâneas com o cache vencido fazem mais de um count()
+            Instant asOf = clock.instant();
+            current = new Measurement(userRepository.count(), asOf);
+            exact = current;
+        }
+        return result(current.count(), Mode.EXACT, current.asOf());
+    }
+
+    // Sem estimativa no banco (ou tabela nunca analisada), responde com o exato e diz isso em mode
+    private UserCount approximateCount() {
+        Optional<RowEstimate> estimate = userRepository.estimateRowCount();
+        if (estimate.isEmpty()) {
+            return exactCount();
+        }
+        return result(estimate.get().rows(), Mode.APPROXIMATE, estimate.get().analyzedAt());
+    }
+
+    private UserCount liveCount() {
+        UserCounter.Reading reading = userCounter.read(userRepository::count);
+        return result(reading.count(), Mode.LIVE, reading.syncedAt());
+    }
+
+    private UserCount result(long count, Mode mode, Instant asOf) {
+        Long age = asOf == null ? null : Math.max(0, clock.millis() - asOf.toEpochMilli());
+        return new UserCount(count, mode, asOf, age);
+    }
+
+    private record Measurement(long count, Instant asOf) {
+    }
+}
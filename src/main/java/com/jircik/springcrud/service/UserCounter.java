@@ -0,0 +1,84 @@
+package com.jircik.springcrud.service;
+
+import com.jircik.springcrud.config.UserCountProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Contador de usuários em memória para polling frequente: as escritas do UserService e do UserBulkService
+ * somam/subtraem depois do commit, e o valor é ressincronizado com count() a cada app.users.count.live-resync.
+ * <p>
+ * O valor é base + delta: as escritas só tocam o LongAdder (sem contenção), e a ressincronização troca a base.
+ * Escritas que terminam durante o count() da ressincronização podem ser contadas duas vezes; o erro
+ * dura até a próxima ressincronização.
+ */
+@Component
+public class UserCounter {
+
+    private final long resyncMillis;
+    private final Clock clock;
+    private final LongAdder delta = new LongAdder();
+    private volatile Snapshot base;
+
+    @Autowired
+    public UserCounter(UserCountProperties properties) {
+        this(properties, Clock.systemUTC());
+    }
+
+    UserCounter(UserCountProperties properties, Clock clock) {
+        this.resyncMillis = properties.liveResync().toMillis();
+        this.clock = clock;
+    }
+
+    /** Registra delta usuários criados (positivo) ou removidos (negativo) quando a transação atual fizer commit. */
+    public void add(long change) {
+        if (change == 0) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    delta.add(change);
+                }
+            });
+        } else {
+            delta.add(change);
+        }
+    }
+
+    /** Valor atual e o momento da última ressincronização, que é feita aqui quando venceu. */
+    public Reading read(LongSupplier exactCount) {
+        Snapshot current = base;
+        if (current == null || clock.millis() - current.syncedAt().toEpochMilli() >= resyncMillis) {
+            current = resync(exactCount);
+        }
+        return new Reading(current.offset() + delta.sum(), current.syncedAt());
+    }
+
+    private synchronized Snapshot resync(LongSupplier exactCount) {
+        Snapshot current = base;
+        if (current != null && clock.millis() - current.syncedAt().toEpochMilli() < resyncMillis) {
+            return current; // outra thread acabou de ressincronizar
+        }
+        long deltaBefore = delta.sum();
+        Instant syncedAt = clock.instant();
+        long exact = exactCount.getAsLong();
+        current = new Snapshot(exact - deltaBefore, syncedAt);
+        base = current;
+        return current;
+    }
+
+    public record Reading(long count, Instant syncedAt) {
+    }
+
+    private record Snapshot(long offset, Instant syncedAt) {
+    }
+}
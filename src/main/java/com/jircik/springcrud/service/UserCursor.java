@@ -0,0 +1,38 @@
+package com.jircik.springcrud.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Codifica o último ID de uma página em um cursor opaco (Base64 URL-safe),
+ * para que o cliente não dependa do formato da chave primária.
+ */
+final class UserCursor {
+
+    private static final String PREFIX = "id:";
+
+    private UserCursor() {
+    }
+
+    static String encode(Integer lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Integer decode(String cursor) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, ex);
+        }
+        if (!raw.startsWith(PREFIX)) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        try {
+            return Integer.valueOf(raw.substring(PREFIX.length()));
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, ex);
+        }
+    }
+}
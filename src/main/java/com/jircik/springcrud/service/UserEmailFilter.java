@@ -0,0 +1,325 @@
+package com.jircik.springcrud.service;
+
+import com.jircik.springcrud.config.EmailFilterProperties;
+import com.jircik.springcrud.config.UserChangeProperties;
+import com.jircik.springcrud.dto.EmailAvailability;
+import com.jircik.springcrud.dto.UserChangeEvent;
+import com.jircik.springcrud.dto.UserChangePage;
+import com.jircik.springcrud.model.UserChange;
+import com.jircik.springcrud.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Disponibilidade de e-mail para o formulário de cadastro: um {@link ScalableBloomFilter} com os e-mails de
+ * app_user responde "livre" sem ir ao banco; só um "talvez" custa a consulta pelo índice único.
+ * <p>
+ * O filtro nunca pode deixar de conter um e-mail cadastrado:
+ * <ul>
+ *     <li>as escritas desta instância adicionam o e-mail antes de gravar (um rollback só deixa um falso positivo);</li>
+ *     <li>as de outras instâncias chegam pelo feed de alterações, lido a cada refresh-interval;</li>
+ *     <li>a reconstrução lê o head do feed antes de percorrer a tabela e segue o feed a partir dele, e as escritas
+ *     durante a reconstrução vão para os dois filtros.</li>
+ * </ul>
+ * Remoções não saem do filtro (viram falsos positivos): são contadas e disparam uma reconstrução quando passam de
+ * rebuild-removed-ratio, além da reconstrução periódica. Até a primeira construção terminar, ou depois de uma
+ * escrita que troca e-mails em massa ({@link #invalidate()}), as consultas vão direto ao banco.
+ */
+@Component
+public class UserEmailFilter implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(UserEmailFilter.class);
+
+    private final EmailFilterProperties properties;
+    private final UserRepository userRepository;
+    private final UserChangeFeed userChangeFeed;
+    private final UserChangeProperties changeProperties;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Semaphore rebuildRequests = new Semaphore(0);
+    private final AtomicLong removed = new AtomicLong();
+    private final AtomicLong definitelyAbsent = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+    private final AtomicLong taken = new AtomicLong();
+    private final AtomicLong rebuilds = new AtomicLong();
+    private final AtomicLong rebuildNanos = new AtomicLong();
+    private final Object publishing = new Object();
+    private final AtomicInteger openInvalidations = new AtomicInteger();
+    private final AtomicLong invalidationEpoch = new AtomicLong();
+    private volatile ScalableBloomFilter filter;
+    private volatile ScalableBloomFilter building;
+    private volatile boolean running;
+    private volatile Thread worker;
+    private long offset;
+
+    public UserEmailFilter(EmailFilterProperties properties, UserRepository userRepository, UserChangeFeed userChangeFeed,
+                           UserChangeProperties changeProperties, TransactionTemplate transactionTemplate) {
+        this.properties = properties;
+        this.userRepository = userRepository;
+        this.userChangeFeed = userChangeFeed;
+        this.changeProperties = changeProperties;
+        this.readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public EmailAvailability check(String email) {
+        if (email == null || email.isBlank()) {
+            throw new IllegalArgumentException("email must not be blank");
+        }
+        ScalableBloomFilter current = filter;
+        if (current != null && !current.mightContain(email)) {
+            definitelyAbsent.incrementAndGet();
+            return new EmailAvailability(email, true);
+        }
+        boolean exists = userRepository.existsByEmail(email);
+        if (current != null) {
+            (exists ? taken : falsePositives).incrementAndGet();
+        }
+        return new EmailAvailability(email, !exists);
+    }
+
+    /** Chamado antes de gravar um e-mail novo (cadastro ou troca de e-mail). */
+    public void add(String email) {
+        if (email == null) {
+            return;
+        }
+        // building antes de filter: uma reconstrução que termina entre as duas leituras já contém o e-mail
+        ScalableBloomFilter next = building;
+        if (next != null) {
+            next.add(email);
+        }
+        ScalableBloomFilter current = filter;
+        if (current != null) {
+            current.add(email);
+        }
+    }
+
+    /** E-mails que deixaram de existir (remoção ou troca): ficam no filtro até a próxima reconstrução. */
+    public void removed(long count) {
+        ScalableBloomFilter current = filter;
+        if (count > 0 && current != null
+                && removed.addAndGet(count) > current.size() * properties.rebuildRemovedRatio()) {
+            requestRebuild();
+        }
+    }
+
+    /**
+     * Para escritas que geram e-mails sem conhecê-los um a um (ex.: troca de domínio em massa): as consultas vão ao
+     * banco até a reconstrução, que só começa depois do commit para enxergar os e-mails novos.
+     */
+    public void invalidate() {
+        if (!properties.enabled()) {
+            return;
+        }
+        synchronized (publishing) {
+            openInvalidations.incrementAndGet();
+            filter = null;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidated();
+                }
+            });
+        } else {
+            invalidated();
+        }
+    }
+
+    // Uma reconstrução iniciada antes daqui pode não ter visto os e-mails novos: não é publicada (ver rebuild)
+    private void invalidated() {
+        invalidationEpoch.incrementAndGet();
+        openInvalidations.decrementAndGet();
+        requestRebuild();
+    }
+
+    public boolean isReady() {
+        return filter != null;
+    }
+
+    public long getSize() {
+        ScalableBloomFilter current = filter;
+        return current == null ? 0 : current.size();
+    }
+
+    public long getBytes() {
+        ScalableBloomFilter current = filter;
+        return current == null ? 0 : current.bitCount() / Byte.SIZE;
+    }
+
+    public double getExpectedFalsePositiveRate() {
+        ScalableBloomFilter current = filter;
+        return current == null ? 0 : current.expectedFalsePositiveRate();
+    }
+
+    /** Fração dos e-mails livres consultados que o filtro não descartou (cada um custou uma consulta ao banco). */
+    public double getObservedFalsePositiveRate() {
+        long positives = falsePositives.get();
+        long free = positives + definitelyAbsent.get();
+        return free == 0 ? 0 : (double) positives / free;
+    }
+
+    public long getDefinitelyAbsentCount() {
+        return definitelyAbsent.get();
+    }
+
+    public long getFalsePositiveCount() {
+        return falsePositives.get();
+    }
+
+    public long getTakenCount() {
+        return taken.get();
+    }
+
+    public long getRebuildCount() {
+        return rebuilds.get();
+    }
+
+    public long getRebuildNanos() {
+        return rebuildNanos.get();
+    }
+
+    /** Reconstrói a partir de app_user e do feed. Roda na thread do filtro (ou no teste). */
+    synchronized void rebuild() {
+        long started = System.nanoTime();
+        long epoch = invalidationEpoch.get();
+        ScalableBloomFilter previous = filter;
+        ScalableBloomFilter next = new ScalableBloomFilter(
+                Math.max(properties.expectedEmails(), previous == null ? 0 : previous.size()), properties.falsePositiveRate());
+        building = next;
+        try {
+            long head = readOnlyTransaction.execute(status -> {
+                long feedHead = userChangeFeed.head();
+                try (Stream<String> emails = userRepository.streamAllEmails()) {
+                    emails.forEach(next::add);
+                }
+                return feedHead;
+            });
+            synchronized (publishing) {
+                if (openInvalidations.get() > 0 || invalidationEpoch.get() != epoch) {
+                    // Uma escrita em massa começou ou terminou durante a varredura; a próxima reconstrução publica
+                    return;
+                }
+                offset = head;
+                removed.set(0);
+                filter = next;
+            }
+        } finally {
+            building = null;
+        }
+        // E-mails gravados por outras instâncias durante a varredura
+        follow();
+        long elapsed = System.nanoTime() - started;
+        rebuilds.incrementAndGet();
+        rebuildNanos.addAndGet(elapsed);
+        log.info("Email filter rebuilt with {} emails ({} KB) in {} ms", next.size(), next.bitCount() / Byte.SIZE / 1024,
+                TimeUnit.NANOSECONDS.toMillis(elapsed));
+    }
+
+    /** Lê o feed a partir do último offset e adiciona os e-mails criados ou alterados; devolve quantos eventos. */
+    synchronized int follow() {
+        ScalableBloomFilter current = filter;
+        if (current == null) {
+            return 0;
+        }
+        int events = 0;
+        UserChangePage page;
+        do {
+            page = userChangeFeed.read(offset, changeProperties.batchSize());
+            for (UserChangeEvent change : page.changes()) {
+                if (change.type() != UserChange.Type.DELETED) {
+                    current.add(change.email());
+                }
+            }
+            offset = page.nextOffset();
+            events += page.changes().size();
+        } while (page.changes().size() == changeProperties.batchSize());
+        return events;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running || !properties.enabled()) {
+            return;
+        }
+        running = true;
+        // A primeira construção roda em segundo plano: a aplicação sobe sem esperar a varredura da tabela
+        worker = Thread.ofPlatform().name("user-email-filter").daemon().start(this::workerLoop);
+    }
+
+    @Override
+    public void stop() {
+        Thread current;
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+            current = worker;
+            worker = null;
+        }
+        current.interrupt();
+        try {
+            current.join(properties.refreshInterval().toMillis() + 1000);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void requestRebuild() {
+        rebuildRequests.release();
+    }
+
+    private void workerLoop() {
+        long rebuildEvery = properties.rebuildInterval().toNanos();
+        long nextRebuild = System.nanoTime();
+        boolean rebuildNow = true;
+        while (running) {
+            try {
+                if (rebuildNow || System.nanoTime() - nextRebuild >= 0) {
+                    rebuildRequests.drainPermits();
+                    rebuild();
+                    nextRebuild = System.nanoTime() + rebuildEvery;
+                } else {
+                    follow();
+                }
+                rebuildNow = rebuildRequests.tryAcquire(properties.refreshInterval().toMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException ex) {
+                // Banco indisponível etc.: as consultas continuam corretas (filtro antigo ou banco) e tentamos de novo
+                log.warn("Email filter refresh failed", ex);
+                rebuildNow = false;
+                sleep();
+            }
+        }
+    }
+
+    private void sleep() {
+        try {
+            Thread.sleep(properties.refreshInterval().toMillis());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.jircik.springcrud.service;
+
+import com.jircik.springcrud.model.User;
+import com.jircik.springcrud.repository.ShardedUserRepository;
+import com.jircik.springcrud.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectWriter;
+
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Exporta todos os usuários como NDJSON (um objeto JSON por linha),
+ * escrevendo direto no OutputStream da resposta com memória constante.
+ * No modo particionado (app.sharding.*), lê todos os shards ao mesmo tempo, em ordem de ID.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserExportService {
+
+    private static final int FLUSH_EVERY = 1000;
+
+    private final UserRepository userRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private ShardedUserRepository shardedUserRepository;
+
+    @Autowired(required = false)
+    void setShardedUserRepository(ShardedUserRepository shardedUserRepository) {
+        this.shardedUserRepository = shardedUserRepository;
+    }
+
+    @Transactional(readOnly = true)
+    public long exportNdjson(OutputStream out) {
+        ObjectWriter writer = objectMapper.writerFor(User.class);
+        long written = 0;
+
+        boolean sharded = shardedUserRepository != null;
+        try (Stream<User> users = sharded ? shardedUserRepository.streamAllOrderedById() : userRepository.streamAllOrderedById();
+             JsonGenerator generator = writer.createGenerator(out)) {
+
+            Iterator<User> iterator = users.iterator();
+            while (iterator.hasNext()) {
+                User user = iterator.next();
+                writer.writeValue(generator, user);
+                generator.writeRaw('\n');
+
+                // Remove do contexto de persistência para o heap não crescer com a tabela
+                if (!sharded) {
+                    entityManager.detach(user);
+                }
+
+                if (++written % FLUSH_EVERY == 0) {
+                    generator.flush();
+                }
+            }
+        }
+        return written;
+    }
+}
@@ -0,0 +1,138 @@
+package com.jircik.springcrud.service;
+
+import com.jircik.springcrud.config.BulkProperties;
+import com.jircik.springcrud.dto.ImportResult;
+import com.jircik.springcrud.dto.ImportResult.Rejection;
+import com.jircik.springcrud.model.User;
+import com.jircik.springcrud.repository.UserImportRepository.UpsertCounts;
+import com.jircik.springcrud.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Importação com upsert pelo e-mail, para sincronizar com sistemas externos: as linhas são lidas de forma
+ * incremental e gravadas em blocos de import-chunk-size, um bloco por transação (ver
+ * {@code UserImportRepositoryImpl}). Reimportar um arquivo sem mudanças não escreve em app_user.
+ * <p>
+ * Linhas inválidas são recusadas sem interromper a importação; só as primeiras {@value #MAX_REJECTIONS}
+ * aparecem no resultado. Um e-mail repetido dentro do mesmo bloco é recusado; em blocos diferentes,
+ * a última ocorrência prevalece.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserImportService {
+
+    static final int MAX_REJECTIONS = 100;
+
+    // Tamanho das colunas varchar de app_user
+    private static final int MAX_LENGTH = 255;
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final BulkProperties properties;
+    private final UserCache userCache;
+    private final UserCounter userCounter;
+    private final UserChangeLog userChangeLog;
+    private final UserEmailFilter userEmailFilter;
+
+    public ImportResult importUsers(Iterator<User> rows) {
+        Tally tally = new Tally();
+        List<User> chunk = new ArrayList<>(properties.importChunkSize());
+        Set<String> emails = new HashSet<>();
+        long index = 0;
+
+        while (true) {
+            User row;
+            try {
+                if (!rows.hasNext()) {
+                    break;
+                }
+                row = rows.next();
+            } catch (RuntimeException ex) {
+                // Corpo malformado: o parser não consegue continuar, os blocos anteriores já foram gravados
+                tally.reject(index, "Malformed row: " + ex.getMessage());
+                break;
+            }
+
+            String error = validate(row);
+            if (error == null && !emails.add(row.getEmail())) {
+                error = "Duplicate email " + row.getEmail() + " in the same chunk";
+            }
+            if (error != null) {
+                tally.reject(index++, error);
+                continue;
+            }
+            chunk.add(new User(null, row.getName(), row.getEmail()));
+            index++;
+
+            if (chunk.size() == properties.importChunkSize()) {
+                upsertChunk(chunk, tally);
+                chunk.clear();
+                emails.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            upsertChunk(chunk, tally);
+        }
+        return tally.result();
+    }
+
+    private void upsertChunk(List<User> chunk, Tally tally) {
+        chunk.forEach(user -> userEmailFilter.add(user.getEmail()));
+        UpsertCounts counts = transactionTemplate.execute(status -> {
+            UpsertCounts upserted = userRepository.upsertByEmail(chunk);
+            userChangeLog.recorded(upserted.inserted() + upserted.updated());
+            return upserted;
+        });
+        tally.inserted += counts.inserted();
+        tally.updated += counts.updated();
+        tally.unchanged += chunk.size() - counts.inserted() - counts.updated();
+
+        if (counts.inserted() > 0 || counts.updated() > 0) {
+            // Set-based: não sabemos quais usuários em cache foram afetados
+            userCache.invalidateAll();
+        }
+        userCounter.add(counts.inserted());
+    }
+
+    private static String validate(User row) {
+        if (isBlank(row.getName()) || isBlank(row.getEmail())) {
+            return "name and email are required";
+        }
+        if (row.getName().length() > MAX_LENGTH || row.getEmail().length() > MAX_LENGTH) {
+            return "name and email must have at most " + MAX_LENGTH + " characters";
+        }
+        return null;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static final class Tally {
+
+        private long inserted;
+        private long updated;
+        private long unchanged;
+        private long rejected;
+        private final List<Rejection> rejections = new ArrayList<>();
+
+        private void reject(long index, String error) {
+            rejected++;
+            if (rejections.size() < MAX_REJECTIONS) {
+                rejections.add(new Rejection(index, error));
+            }
+        }
+
+        private ImportResult result() {
+            return new ImportResult(inserted, updated, unchanged, rejected, rejections);
+        }
+    }
+}
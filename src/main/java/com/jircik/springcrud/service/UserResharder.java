@@ -0,0 +1,110 @@
+package com.jircik.springcrud.service;
+
+import com.jircik.springcrud.dto.ReshardResult;
+import com.jircik.springcrud.dto.ShardStats;
+import com.jircik.springcrud.repository.ShardRing;
+import com.jircik.springcrud.repository.ShardedUserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rebalanceamento online dos shards: troca o anel e move, um usuário por vez, quem ficou fora do dono novo.
+ * <p>
+ * Durante a movimentação a API continua atendendo: inserções já usam o anel novo, leituras de quem ainda não foi
+ * movido caem no diretório, e cada movimentação segura o lock da linha do usuário no diretório só pelo tempo da
+ * cópia (ver {@link ShardedUserRepository#copy}). Uma execução interrompida pode ser repetida: quem já está no
+ * dono é ignorado e sobras de cópias são removidas.
+ * <p>
+ * O anel trocado aqui vale até a aplicação reiniciar: depois de rebalancear, atualize app.sharding.ring.
+ */
+public class UserResharder {
+
+    private static final Logger log = LoggerFactory.getLogger(UserResharder.class);
+
+    private final ShardedUserRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final int virtualNodes;
+    private final int batchSize;
+
+    public UserResharder(ShardedUserRepository repository, TransactionTemplate transactionTemplate, int virtualNodes,
+                         int batchSize) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.virtualNodes = virtualNodes;
+        this.batchSize = batchSize;
+    }
+
+    public ShardStats stats() {
+        List<String> ring = repository.getRing().shards();
+        Map<String, Long> counts = repository.countByShard();
+        return new ShardStats(ring, counts.entrySet().stream()
+                .map(shard -> new ShardStats.Shard(shard.getKey(), shard.getValue(), ring.contains(shard.getKey())))
+                .toList());
+    }
+
+    /** Rebalanceia para o anel formado por ring (vazio ou null = todos os shards configurados). */
+    public synchronized ReshardResult reshard(List<String> ring) {
+        long started = System.nanoTime();
+        ShardRing target = new ShardRing(ring == null || ring.isEmpty() ? repository.shardNames() : ring, virtualNodes);
+        repository.setRing(target);
+
+        long scanned = 0;
+        long moved = 0;
+        long failed = 0;
+        for (String shard : repository.shardNames()) {
+            List<Integer> ids;
+            Integer after = null;
+            do {
+                ids = repository.findIdsOnShard(shard, after, batchSize);
+                for (Integer id : ids) {
+                    String owner = target.ownerOf(id);
+                    if (owner.equals(shard)) {
+                        continue;
+                    }
+                    Boolean result = move(shard, id, owner);
+                    if (result == null) {
+                        failed++;
+                    } else if (result) {
+                        moved++;
+                    }
+                }
+                scanned += ids.size();
+                after = ids.isEmpty() ? after : ids.getLast();
+            } while (ids.size() == batchSize);
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        log.info("Resharded to {}: {} users scanned, {} moved, {} failed in {} ms", target.shards(), scanned, moved, failed, elapsed);
+        return new ReshardResult(target.shards(), scanned, moved, failed, elapsed);
+    }
+
+    // true = movido, false = nada a mover (removido ou já em outro shard), null = falhou e fica para a próxima execução
+    private Boolean move(String from, Integer id, String to) {
+        boolean copied;
+        try {
+            copied = Boolean.TRUE.equals(transactionTemplate.execute(status -> repository.copy(from, id, to)));
+        } catch (RuntimeException ex) {
+            log.warn("Failed to move user {} from shard {} to {}", id, from, to, ex);
+            // Rollback: o diretório continua apontando para from e a cópia em to não pode ser lida pelo dono novo
+            try {
+                repository.removeCopy(to, id);
+            } catch (RuntimeException cleanup) {
+                ex.addSuppressed(cleanup);
+            }
+            return null;
+        }
+        if (copied) {
+            // Depois do commit o diretório já aponta para to; se falhar aqui, a sobra sai na próxima execução
+            try {
+                repository.removeCopy(from, id);
+            } catch (RuntimeException ex) {
+                log.warn("Failed to remove the copy of user {} left on shard {}", id, from, ex);
+            }
+        }
+        return copied;
+    }
+}
@@ -0,0 +1,271 @@
+package com.jircik.springcrud.service;
+
+import com.jircik.springcrud.config.UserChangeProperties;
+import com.jircik.springcrud.config.UserSearchProperties;
+import com.jircik.springcrud.dto.UserChangeEvent;
+import com.jircik.springcrud.dto.UserChangePage;
+import com.jircik.springcrud.dto.UserSearchHit;
+import com.jircik.springcrud.dto.UserSearchHit.Match;
+import com.jircik.springcrud.dto.UserSearchResult;
+import com.jircik.springcrud.model.User;
+import com.jircik.springcrud.model.UserChange;
+import com.jircik.springcrud.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Busca por nome e e-mail para o autocomplete do admin: prefixo sem diferenciar maiúsculas e acentos, tolerante a
+ * um erro de digitação, com ranking e paginação, servida pelo {@link UserSearchIndex} em memória.
+ * <p>
+ * O índice é construído na subida a partir de app_user (lendo o head do feed de alterações antes da varredura) e
+ * segue o feed a cada refresh-interval: o feed traz o estado final de toda escrita, inclusive em massa, importação
+ * e de outras instâncias. As escritas do UserService também são aplicadas logo depois do commit, para quem acabou
+ * de gravar achar o usuário sem esperar o feed. Até a primeira construção terminar, a busca vai ao banco
+ * (só prefixo).
+ */
+@Component
+public class UserSearch implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(UserSearch.class);
+
+    static final int MAX_QUERY_LENGTH = 100;
+    static final int MAX_PAGE_SIZE = 100;
+
+    private final UserSearchProperties properties;
+    private final UserRepository userRepository;
+    private final UserChangeFeed userChangeFeed;
+    private final UserChangeProperties changeProperties;
+    private final TransactionTemplate readOnlyTransaction;
+    private final AtomicLong builds = new AtomicLong();
+    private final AtomicLong buildNanos = new AtomicLong();
+    private volatile UserSearchIndex index;
+    private volatile boolean running;
+    private volatile Thread worker;
+    private long offset;
+
+    public UserSearch(UserSearchProperties properties, UserRepository userRepository, UserChangeFeed userChangeFeed,
+                      UserChangeProperties changeProperties, TransactionTemplate transactionTemplate) {
+        this.properties = properties;
+        this.userRepository = userRepository;
+        this.userChangeFeed = userChangeFeed;
+        this.changeProperties = changeProperties;
+        this.readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public UserSearchResult search(String query, int page, int size) {
+        if (query == null || query.isBlank() || query.length() > MAX_QUERY_LENGTH) {
+            throw new IllegalArgumentException("q must have between 1 and " + MAX_QUERY_LENGTH + " characters");
+        }
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE || (page + 1L) * size > properties.maxResults()) {
+            throw new IllegalArgumentException("page must be >= 0, size between 1 and " + MAX_PAGE_SIZE
+                    + " and (page + 1) * size at most " + properties.maxResults());
+        }
+        UserSearchIndex current = index;
+        if (current == null) {
+            return searchDatabase(query, page, size);
+        }
+        int from = page * size;
+        // Um a mais para saber se existe próxima página
+        List<UserSearchHit> ranked = current.search(query, from + size + 1);
+        List<UserSearchHit> hits = from >= ranked.size() ? List.of() : ranked.subList(from, Math.min(from + size, ranked.size()));
+        return new UserSearchResult(query, List.copyOf(hits), page, size, ranked.size() > from + size);
+    }
+
+    /** Usuário gravado pelo UserService (cadastro ou atualização): entra no índice depois do commit. */
+    public void saved(User user) {
+        afterCommit(index -> index.put(user));
+    }
+
+    public void patched(Integer id, String name, String email) {
+        afterCommit(index -> index.patch(id, name, email));
+    }
+
+    public void deleted(Integer id) {
+        afterCommit(index -> index.remove(id));
+    }
+
+    public void deletedByName(String name) {
+        afterCommit(index -> index.removeByName(name));
+    }
+
+    public boolean isReady() {
+        return index != null;
+    }
+
+    public long getSize() {
+        UserSearchIndex current = index;
+        return current == null ? 0 : current.size();
+    }
+
+    public long getTermCount() {
+        UserSearchIndex current = index;
+        return current == null ? 0 : current.termCount();
+    }
+
+    public long getBuildCount() {
+        return builds.get();
+    }
+
+    public long getBuildNanos() {
+        return buildNanos.get();
+    }
+
+    /** Constrói o índice a partir de app_user e segue o feed desde antes da varredura. Roda na thread da busca (ou no teste). */
+    synchronized void build() {
+        long started = System.nanoTime();
+        record Snapshot(long head, UserSearchIndex index) {
+        }
+        Snapshot snapshot = readOnlyTransaction.execute(status -> {
+            long head = userChangeFeed.head();
+            try (Stream<User> users = userRepository.streamAllForSearch()) {
+                return new Snapshot(head, UserSearchIndex.build(users::iterator));
+            }
+        });
+        offset = snapshot.head();
+        index = snapshot.index();
+        follow();
+        long elapsed = System.nanoTime() - started;
+        builds.incrementAndGet();
+        buildNanos.addAndGet(elapsed);
+        log.info("User search index built with {} users and {} terms in {} ms", snapshot.index().size(),
+                snapshot.index().termCount(), TimeUnit.NANOSECONDS.toMillis(elapsed));
+    }
+
+    /** Aplica o feed a partir do último offset; devolve quantos eventos. */
+    synchronized int follow() {
+        UserSearchIndex current = index;
+        if (current == null) {
+            return 0;
+        }
+        int events = 0;
+        UserChangePage page;
+        do {
+            page = userChangeFeed.read(offset, changeProperties.batchSize());
+            for (UserChangeEvent change : page.changes()) {
+                if (change.type() == UserChange.Type.DELETED) {
+                    current.remove(change.id(), change.version() == null ? Long.MAX_VALUE : change.version());
+                } else {
+                    current.put(new User(change.id(), change.name(), change.email(), change.version()));
+                }
+            }
+            offset = page.nextOffset();
+            events += page.changes().size();
+        } while (page.changes().size() == changeProperties.batchSize());
+        return events;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running || !properties.enabled()) {
+            return;
+        }
+        running = true;
+        // A construção roda em segundo plano: a aplicação sobe sem esperar a varredura da tabela
+        worker = Thread.ofPlatform().name("user-search-index").daemon().start(this::workerLoop);
+    }
+
+    @Override
+    public void stop() {
+        Thread current;
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+            current = worker;
+            worker = null;
+        }
+        current.interrupt();
+        try {
+            current.join(properties.refreshInterval().toMillis() + 1000);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Índice ainda não construído (ou desligado): prefixo pelo banco, sem ranking por tipo além de EXACT/PREFIX
+    private UserSearchResult searchDatabase(String query, int page, int size) {
+        String normalized = query.strip().toLowerCase(Locale.ROOT);
+        Slice<User> users = userRepository.searchByPrefix(UserBulkService.escapeLike(normalized), PageRequest.of(page, size));
+        List<UserSearchHit> hits = users.getContent().stream()
+                .map(user -> new UserSearchHit(user.getId(), user.getName(), user.getEmail(),
+                        user.getName().equalsIgnoreCase(normalized) || user.getEmail().equalsIgnoreCase(normalized)
+                                ? Match.EXACT : Match.PREFIX))
+                .toList();
+        return new UserSearchResult(query, hits, page, size, users.hasNext());
+    }
+
+    private void afterCommit(Consumer<UserSearchIndex> change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(change);
+                }
+            });
+        } else {
+            apply(change);
+        }
+    }
+
+    // Sem índice ainda, a escrita chega pelo feed depois da construção
+    private void apply(Consumer<UserSearchIndex> change) {
+        UserSearchIndex current = index;
+        if (current != null) {
+            change.accept(current);
+        }
+    }
+
+    private void workerLoop() {
+        boolean built = false;
+        while (running) {
+            try {
+                if (!built) {
+                    build();
+                    built = true;
+                } else {
+                    follow();
+                }
+                Thread.sleep(properties.refreshInterval().toMillis());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException ex) {
+                // Banco indisponível etc.: a busca continua (índice atual ou banco) e tentamos de novo
+                log.warn("User search index refresh failed", ex);
+                sleep();
+            }
+        }
+    }
+
+    private void sleep() {
+        try {
+            Thread.sleep(properties.refreshInterval().toMillis());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
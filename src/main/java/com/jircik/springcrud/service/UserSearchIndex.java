@@ -0,0 +1,296 @@
+package com.jircik.springcrud.service;
+
+import com.jircik.springcrud.dto.UserSearchHit;
+import com.jircik.springcrud.dto.UserSearchHit.Match;
+import com.jircik.springcrud.model.User;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * Índice em memória para busca por prefixo em nome e e-mail, sem diferenciar maiúsculas nem acentos.
+ * <p>
+ * Os termos de cada usuário (nome inteiro, cada palavra do nome e o e-mail, normalizados) ficam num dicionário
+ * ordenado ({@link ConcurrentSkipListMap}) apontando para os IDs, em arrays ordenados. Um prefixo é um intervalo do
+ * dicionário: a busca percorre os termos em ordem e para quando já tem os resultados pedidos, então o custo depende
+ * do tamanho da página, não de quantos usuários correspondem. A tolerância a erros de digitação gera as variantes da
+ * busca a um erro de distância (Damerau) e procura cada uma como prefixo.
+ * <p>
+ * Leituras sem lock; escritas serializadas no índice e com cópia do array de IDs do termo (copy-on-write).
+ */
+public final class UserSearchIndex {
+
+    static final int FUZZY_MIN_LENGTH = 3;
+    static final int FUZZY_MAX_LENGTH = 24;
+    private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyz0123456789 .-_@";
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+    private static final int[] NONE = new int[0];
+
+    private final ConcurrentSkipListMap<String, int[]> terms;
+    private final ConcurrentHashMap<Integer, Doc> docs;
+
+    public UserSearchIndex() {
+        this(new ConcurrentSkipListMap<>(), new ConcurrentHashMap<>());
+    }
+
+    private UserSearchIndex(ConcurrentSkipListMap<String, int[]> terms, ConcurrentHashMap<Integer, Doc> docs) {
+        this.terms = terms;
+        this.docs = docs;
+    }
+
+    /** Os count primeiros do ranking: EXACT, PREFIX e FUZZY, cada grupo em ordem de termo e de ID. */
+    public List<UserSearchHit> search(String query, int count) {
+        String prefix = normalize(query);
+        Map<Integer, UserSearchHit> hits = new LinkedHashMap<>();
+        collect(terms.getOrDefault(prefix, NONE), Match.EXACT, hits, count);
+        for (Map.Entry<String, int[]> term : terms.subMap(prefix, false, prefix + Character.MAX_VALUE, false).entrySet()) {
+            if (hits.size() >= count) {
+                break;
+            }
+            collect(term.getValue(), Match.PREFIX, hits, count);
+        }
+        if (hits.size() < count && prefix.length() >= FUZZY_MIN_LENGTH && prefix.length() <= FUZZY_MAX_LENGTH) {
+            for (int[] ids : fuzzyTerms(prefix, count).values()) {
+                if (hits.size() >= count) {
+                    break;
+                }
+                collect(ids, Match.FUZZY, hits, count);
+            }
+        }
+        return new ArrayList<>(hits.values());
+    }
+
+    /** Inclui ou atualiza o usuário; uma versão mais antiga que a indexada (evento atrasado do feed) é ignorada. */
+    public synchronized void put(User user) {
+        Doc previous = docs.get(user.getId());
+        long version = user.getVersion() == null ? 0 : user.getVersion();
+        if (previous != null && previous.version > version) {
+            return;
+        }
+        Doc doc = new Doc(user.getId(), user.getName(), user.getEmail(), version, termsOf(user.getName(), user.getEmail()));
+        Set<String> kept = previous == null ? Set.of() : Set.of(previous.terms);
+        Set<String> added = Set.of(doc.terms);
+        if (previous != null) {
+            for (String term : previous.terms) {
+                if (!added.contains(term)) {
+                    removePosting(term, doc.id);
+                }
+            }
+        }
+        for (String term : doc.terms) {
+            if (!kept.contains(term)) {
+                addPosting(term, doc.id);
+            }
+        }
+        docs.put(doc.id, doc);
+    }
+
+    public synchronized void remove(Integer id) {
+        remove(id, Long.MAX_VALUE);
+    }
+
+    /** Remoção vinda do feed: só se o índice não tem uma versão mais nova (usuário recriado com o mesmo ID não existe). */
+    public synchronized void remove(Integer id, long version) {
+        Doc doc = docs.get(id);
+        if (doc == null || doc.version > version) {
+            return;
+        }
+        for (String term : doc.terms) {
+            removePosting(term, id);
+        }
+        docs.remove(id);
+    }
+
+    /** DELETE por nome: sai o usuário de menor ID com exatamente esse nome, o mesmo que o banco remove. */
+    public synchronized void removeByName(String name) {
+        for (int id : terms.getOrDefault(normalize(name), NONE)) {
+            Doc doc = docs.get(id);
+            if (doc != null && doc.name.equals(name)) {
+                remove(id);
+                return;
+            }
+        }
+    }
+
+    /** Atualização parcial (PATCH): mantém o que não veio e assume a versão seguinte à indexada. */
+    public synchronized void patch(Integer id, String name, String email) {
+        Doc doc = docs.get(id);
+        if (doc != null) {
+            put(new User(id, name != null ? name : doc.name, email != null ? email : doc.email, doc.version + 1));
+        }
+    }
+
+    public int size() {
+        return docs.size();
+    }
+
+    public int termCount() {
+        return terms.size();
+    }
+
+    /** Construção em lote (subida): sem copy-on-write, cada termo recebe o array de IDs uma vez só. */
+    public static UserSearchIndex build(Iterable<User> users) {
+        Map<String, IdList> postings = new HashMap<>();
+        ConcurrentHashMap<Integer, Doc> docs = new ConcurrentHashMap<>();
+        for (User user : users) {
+            Doc doc = new Doc(user.getId(), user.getName(), user.getEmail(),
+                    user.getVersion() == null ? 0 : user.getVersion(), termsOf(user.getName(), user.getEmail()));
+            if (docs.put(doc.id, doc) != null) {
+                throw new IllegalArgumentException("Duplicate user ID " + doc.id);
+            }
+            for (String term : doc.terms) {
+                postings.computeIfAbsent(term, key -> new IdList()).add(doc.id);
+            }
+        }
+        TreeMap<String, int[]> sorted = new TreeMap<>();
+        postings.forEach((term, ids) -> sorted.put(term, ids.toSortedArray()));
+        // A partir de um SortedMap a skip list é montada em tempo linear
+        return new UserSearchIndex(new ConcurrentSkipListMap<>(sorted), docs);
+    }
+
+    static String normalize(String value) {
+        String lower = value.toLowerCase(Locale.ROOT).strip();
+        for (int i = 0; i < lower.length(); i++) {
+            if (lower.charAt(i) > 0x7f) {
+                // "José" e "jose" viram o mesmo termo: decompõe e descarta os acentos
+                lower = MARKS.matcher(Normalizer.normalize(lower, Normalizer.Form.NFD)).replaceAll("");
+                break;
+            }
+        }
+        return SPACES.matcher(lower).replaceAll(" ");
+    }
+
+    private static String[] termsOf(String name, String email) {
+        Set<String> terms = new LinkedHashSet<>();
+        String normalizedName = normalize(name);
+        terms.add(normalizedName);
+        if (normalizedName.indexOf(' ') >= 0) {
+            terms.addAll(Arrays.asList(normalizedName.split(" ")));
+        }
+        terms.add(normalize(email));
+        terms.remove("");
+        return terms.toArray(String[]::new);
+    }
+
+    private void collect(int[] ids, Match match, Map<Integer, UserSearchHit> hits, int count) {
+        for (int id : ids) {
+            if (hits.size() >= count) {
+                return;
+            }
+            Doc doc = docs.get(id);
+            if (doc != null) {
+                hits.putIfAbsent(id, new UserSearchHit(id, doc.name, doc.email, match));
+            }
+        }
+    }
+
+    // Termos que começam com alguma variante da busca; por variante, só até juntar count IDs
+    private NavigableMap<String, int[]> fuzzyTerms(String prefix, int count) {
+        NavigableMap<String, int[]> found = new TreeMap<>();
+        for (String variant : variants(prefix)) {
+            int ids = 0;
+            for (Map.Entry<String, int[]> term : terms.tailMap(variant, true).entrySet()) {
+                if (ids >= count || !term.getKey().startsWith(variant)) {
+                    break;
+                }
+                if (!term.getKey().startsWith(prefix)) {
+                    found.putIfAbsent(term.getKey(), term.getValue());
+                }
+                ids += term.getValue().length;
+            }
+        }
+        return found;
+    }
+
+    // Um erro de distância: remoção, inversão de vizinhos, troca e inserção. Inserir no fim só estreitaria o prefixo.
+    private static Set<String> variants(String prefix) {
+        Set<String> variants = new LinkedHashSet<>();
+        StringBuilder builder = new StringBuilder(prefix.length() + 1);
+        for (int i = 0; i < prefix.length(); i++) {
+            builder.setLength(0);
+            variants.add(builder.append(prefix, 0, i).append(prefix, i + 1, prefix.length()).toString());
+            if (i + 1 < prefix.length()) {
+                builder.setLength(0);
+                variants.add(builder.append(prefix, 0, i).append(prefix.charAt(i + 1)).append(prefix.charAt(i))
+                        .append(prefix, i + 2, prefix.length()).toString());
+            }
+            for (int c = 0; c < ALPHABET.length(); c++) {
+                char replacement = ALPHABET.charAt(c);
+                builder.setLength(0);
+                variants.add(builder.append(prefix, 0, i).append(replacement).append(prefix, i + 1, prefix.length()).toString());
+                builder.setLength(0);
+                variants.add(builder.append(prefix, 0, i).append(replacement).append(prefix, i, prefix.length()).toString());
+            }
+        }
+        variants.remove(prefix);
+        // Variantes curtas demais casariam com quase tudo
+        variants.removeIf(variant -> variant.length() < FUZZY_MIN_LENGTH);
+        return variants;
+    }
+
+    private void addPosting(String term, int id) {
+        int[] ids = terms.getOrDefault(term, NONE);
+        int position = Arrays.binarySearch(ids, id);
+        if (position >= 0) {
+            return;
+        }
+        int insertAt = -position - 1;
+        int[] copy = new int[ids.length + 1];
+        System.arraycopy(ids, 0, copy, 0, insertAt);
+        copy[insertAt] = id;
+        System.arraycopy(ids, insertAt, copy, insertAt + 1, ids.length - insertAt);
+        terms.put(term, copy);
+    }
+
+    private void removePosting(String term, int id) {
+        int[] ids = terms.get(term);
+        int position = ids == null ? -1 : Arrays.binarySearch(ids, id);
+        if (position < 0) {
+            return;
+        }
+        if (ids.length == 1) {
+            terms.remove(term);
+            return;
+        }
+        int[] copy = new int[ids.length - 1];
+        System.arraycopy(ids, 0, copy, 0, position);
+        System.arraycopy(ids, position + 1, copy, position, ids.length - position - 1);
+        terms.put(term, copy);
+    }
+
+    private record Doc(int id, String name, String email, long version, String[] terms) {
+    }
+
+    private static final class IdList {
+
+        private int[] ids = new int[1];
+        private int size;
+
+        private void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        private int[] toSortedArray() {
+            int[] sorted = Arrays.copyOf(ids, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
@@ -1,67 +1,408 @@
 package com.jircik.springcrud.service;
 
+import com.jircik.springcrud.dto.UserCacheStats;
+import com.jircik.springcrud.dto.UserPage;
+import com.jircik.springcrud.dto.UserPatch;
+import com.jircik.springcrud.dto.UserWriteStatus;
 import com.jircik.springcrud.model.User;
+import com.jircik.springcrud.model.UserField;
+import com.jircik.springcrud.repository.ShardedUserRepository;
 import com.jircik.springcrud.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
+/**
+ * Leituras são {@code @Transactional(readOnly = true)}: com réplicas configuradas (app.datasource.read.*)
+ * elas vão para uma réplica; escritas e deletes vão sempre para o primário.
+ * <p>
+ * Com shards configurados (app.sharding.*), as operações por ID/nome, a listagem, o cursor e as escritas vão para o
+ * {@link ShardedUserRepository}; a transação do primário cobre só o diretório. Nesse modo as escritas não passam
+ * pelo outbox ({@link UserChangeLog}) nem pelo índice de busca: os dois leem app_user no primário, que está vazia,
+ * e /changes e /search respondem 501.
+ */
 @Service
 @RequiredArgsConstructor
+@Timed(value = "users.service", description = "UserService method latency", histogram = true)
 public class UserService {
 
+    static final int MAX_CURSOR_LIMIT = 1000;
+    static final int MAX_PAGE_SIZE = 100;
+
     private final UserRepository userRepository;
+    private final UserCache userCache;
+    private final UserCounter userCounter;
+    private final UserWriteBehind userWriteBehind;
+    private final UserChangeLog userChangeLog;
+    private final UserEmailFilter userEmailFilter;
+    private final UserSearch userSearch;
+    private final TransactionTemplate transactionTemplate;
+    private ShardedUserRepository shardedUserRepository;
+
+    @Autowired(required = false)
+    void setShardedUserRepository(ShardedUserRepository shardedUserRepository) {
+        this.shardedUserRepository = shardedUserRepository;
+    }
 
+    @Transactional(readOnly = true)
     public List<User> getUsers() {
+        if (shardedUserRepository != null) {
+            return shardedUserRepository.findAll();
+        }
         return userRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
+    public UserPage<User> getUsersAfter(String after, int limit) {
+        checkCursorLimit(limit);
+
+        // Busca um registro a mais para saber se existe próxima página sem precisar de count()
+        Limit fetch = Limit.of(limit + 1);
+        List<User> users;
+        if (shardedUserRepository != null) {
+            users = shardedUserRepository.findAfter(after == null ? null : UserCursor.decode(after), limit + 1);
+        } else {
+            users = after == null
+                    ? userRepository.findAllByOrderByIdAsc(fetch)
+                    : userRepository.findByIdGreaterThanOrderByIdAsc(UserCursor.decode(after), fetch);
+        }
+
+        if (users.size() <= limit) {
+            return new UserPage<>(users, null);
+        }
+        List<User> page = users.subList(0, limit);
+        return new UserPage<>(page, UserCursor.encode(page.getLast().getId()));
+    }
+
+    @Transactional(readOnly = true)
+    public Page<User> getUsersPage(int page, int size) {
+        checkPage(page, size);
+        return userRepository.findAll(PageRequest.of(page, size, Sort.by("id")));
+    }
+
+    // ?fields=: só as colunas pedidas, como Map, sem entidades no persistence context
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getUsers(Set<UserField> fields) {
+        if (shardedUserRepository != null) {
+            return shardedUserRepository.findAll().stream().map(user -> UserField.project(user, fields)).toList();
+        }
+        return userRepository.findAllFields(fields);
+    }
+
+    @Transactional(readOnly = true)
+    public UserPage<Map<String, Object>> getUsersAfter(String after, int limit, Set<UserField> fields) {
+        checkCursorLimit(limit);
+        Integer afterId = after == null ? null : UserCursor.decode(after);
+
+        // O id é sempre buscado para montar o cursor e removido depois se não foi pedido
+        Set<UserField> selected = UserField.including(fields, UserField.ID);
+        List<Map<String, Object>> rows = shardedUserRepository != null
+                ? shardedUserRepository.findAfter(afterId, limit + 1).stream().map(user -> UserField.project(user, selected)).toList()
+                : userRepository.findFieldsAfter(afterId, selected, Limit.of(limit + 1));
+
+        String nextCursor = null;
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            nextCursor = UserCursor.encode((Integer) rows.getLast().get(UserField.ID.attribute()));
+        }
+        if (!fields.contains(UserField.ID)) {
+            rows.forEach(row -> row.remove(UserField.ID.attribute()));
+        }
+        return new UserPage<>(rows, nextCursor);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> getUsersPage(int page, int size, Set<UserField> fields) {
+        checkPage(page, size);
+        return userRepository.findFields(fields, PageRequest.of(page, size));
+    }
+
+    @Transactional(readOnly = true)
     public User getUserById(Integer id) {
-        return userRepository.findById(id).orElseThrow(() -> new IllegalStateException("User with ID " + id + " not found"));
+        return userCache.getById(id, this::findById).orElseThrow(() -> new IllegalStateException("User with ID " + id + " not found"));
     }
 
+    @Transactional(readOnly = true)
     public User getUserByName(String name) {
-        return userRepository.findByName(name).orElseThrow(() -> new IllegalStateException(name + " not found"));
+        return userCache.getByName(name, this::findByName).orElseThrow(() -> new IllegalStateException(name + " not found"));
+    }
+
+    // Entrada em cache atende qualquer combinação de campos; senão, consulta só as colunas pedidas
+    @Transactional(readOnly = true)
+    public Map<String, Object> getUserFieldsById(Integer id, Set<UserField> fields) {
+        User cached = userCache.peekById(id);
+        if (cached != null) {
+            return UserField.project(cached, fields);
+        }
+        if (shardedUserRepository != null) {
+            return UserField.project(getUserById(id), fields);
+        }
+        return userRepository.findFieldsById(id, fields).orElseThrow(() -> new IllegalStateException("User with ID " + id + " not found"));
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Object> getUserFieldsByName(String name, Set<UserField> fields) {
+        User cached = userCache.peekByName(name);
+        if (cached != null) {
+            return UserField.project(cached, fields);
+        }
+        if (shardedUserRepository != null) {
+            return UserField.project(getUserByName(name), fields);
+        }
+        return userRepository.findFieldsByName(name, fields).orElseThrow(() -> new IllegalStateException(name + " not found"));
+    }
+
+    // Versão atual (ETag) sem carregar a linha inteira: usa o cache e, se não houver, só a coluna version
+    @Transactional(readOnly = true)
+    public Long getUserVersionById(Integer id) {
+        User cached = userCache.peekById(id);
+        if (cached != null) {
+            return cached.getVersion();
+        }
+        if (shardedUserRepository != null) {
+            return getUserById(id).getVersion();
+        }
+        return userRepository.findVersionById(id).orElseThrow(() -> new IllegalStateException("User with ID " + id + " not found"));
+    }
+
+    @Transactional(readOnly = true)
+    public Long getUserVersionByName(String name) {
+        User cached = userCache.peekByName(name);
+        if (cached != null) {
+            return cached.getVersion();
+        }
+        if (shardedUserRepository != null) {
+            return getUserByName(name).getVersion();
+        }
+        return userRepository.findVersionByName(name).orElseThrow(() -> new IllegalStateException(name + " not found"));
+    }
+
+    public UserWriteStatus getWriteStatus(String token) {
+        return userWriteBehind.status(token).orElseThrow(() -> new IllegalStateException("Unknown or expired write token " + token));
     }
 
-    public void insertUser(User user) {
-        userRepository.save(user);
+    public List<UserCacheStats> getCacheStats() {
+        return userCache.stats();
     }
 
+    /**
+     * Grava o usuário, ou, com app.users.write-behind.enabled, só o enfileira e devolve o status (PENDING)
+     * com o token para acompanhar a gravação em lote.
+     * <p>
+     * Sem @Transactional: no modo write-behind a requisição só enfileira, sem pegar conexão nem abrir transação.
+     * A gravação imediata roda no transactionTemplate.
+     */
+    public Optional<UserWriteStatus> insertUser(User user) {
+        // Antes de gravar: o filtro de disponibilidade nunca pode dizer "livre" para um e-mail já gravado
+        userEmailFilter.add(user.getEmail());
+        if (shardedUserRepository == null && userWriteBehind.isEnabled()) {
+            return Optional.of(userWriteBehind.submit(user));
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            if (shardedUserRepository != null) {
+                insertSharded(user);
+            } else {
+                saveUser(user);
+            }
+        });
+        return Optional.empty();
+    }
+
+    // Um único DELETE; a quantidade de linhas afetadas decide entre 204 e 404
+    @Transactional
     public void deleteById(Integer id) {
-        if (userRepository.existsById(id)){
-            userRepository.deleteById(id);
-        } else{
+        boolean deleted;
+        if (shardedUserRepository != null) {
+            deleted = shardedUserRepository.deleteById(id);
+        } else {
+            userChangeLog.deleting(List.of(id));
+            deleted = userRepository.deleteUserById(id) == 1;
+        }
+        if (!deleted){
             throw new IllegalStateException("User with ID " + id + " does not exist and cannot be deleted.");
         }
+        userCache.evict(id);
+        userCounter.add(-1);
+        userEmailFilter.removed(1);
+        if (shardedUserRepository == null) {
+            userSearch.deleted(id);
+        }
     }
 
+    // Nomes não são únicos: remove um só usuário, o de menor ID com esse nome (remoção em massa por nome é o /bulk)
+    @Transactional
     public void deleteByName(String name) {
-        User userToDelete = userRepository.findByName(name).orElseThrow(() -> new IllegalStateException("User with name " + name + " does not exist and cannot be deleted."));
-
-        userRepository.delete(userToDelete);
+        int deleted;
+        if (shardedUserRepository != null) {
+            deleted = shardedUserRepository.deleteByName(name);
+        } else {
+            userChangeLog.deletingByName(name);
+            deleted = userRepository.deleteUserByName(name);
+        }
+        if (deleted == 0){
+            throw new IllegalStateException("User with name " + name + " does not exist and cannot be deleted.");
+        }
+        userCache.evictByName(name);
+        userCounter.add(-deleted);
+        userEmailFilter.removed(deleted);
+        if (shardedUserRepository == null) {
+            userSearch.deletedByName(name);
+        }
     }
 
+    @Transactional
     public void updateUser(User updatedUser) {
-        User existingUser = userRepository.findById(updatedUser.getId())
+        updateUser(updatedUser, null);
+    }
+
+    /**
+     * Atualiza o usuário exigindo que a versão atual seja expectedVersion (null = sem pré-condição).
+     * A verificação de versão do Hibernate no commit cobre escritas concorrentes entre a leitura e o save.
+     */
+    @Transactional
+    public void updateUser(User updatedUser, Long expectedVersion) {
+        User existingUser = findById(updatedUser.getId())
                 .orElseThrow(() -> new IllegalStateException(
                         "User with ID " + updatedUser.getId() + " does not exist and cannot be updated."
                 ));
+        if (expectedVersion != null && !expectedVersion.equals(existingUser.getVersion())) {
+            throw new UserVersionMismatchException("User with ID " + updatedUser.getId() + " was modified (current version "
+                    + existingUser.getVersion() + ", expected " + expectedVersion + ").");
+        }
+        String previousName = existingUser.getName();
+        boolean changed = false;
 
         if (updatedUser.getName() != null &&
                 !updatedUser.getName().isEmpty() &&
                 !existingUser.getName().equals(updatedUser.getName())) {
 
             existingUser.setName(updatedUser.getName());
+            changed = true;
         }
 
         if (updatedUser.getEmail() != null &&
                 !updatedUser.getEmail().isEmpty() &&
                 !existingUser.getEmail().equals(updatedUser.getEmail())) {
 
+            userEmailFilter.add(updatedUser.getEmail());
+            userEmailFilter.removed(1);
             existingUser.setEmail(updatedUser.getEmail());
+            changed = true;
+        }
+        if (shardedUserRepository != null) {
+            // A entidade veio do shard, não do persistence context: grava com a versão lida
+            saveSharded(existingUser, changed);
+        } else {
+            userRepository.save(existingUser);
+            if (changed) {
+                // O INSERT ... SELECT do outbox faz o flush antes, então registra a versão já incrementada
+                userChangeLog.updated(List.of(existingUser.getId()));
+                userSearch.saved(existingUser);
+            }
+        }
+        userCache.evict(existingUser.getId(), previousName, existingUser.getName());
+    }
+
+    /**
+     * Atualização parcial em um único UPDATE ... WHERE id = ?, sem ler a linha antes.
+     * Só quando nenhuma linha é afetada consulta a versão para distinguir 404, 412 e "nada mudou".
+     */
+    @Transactional
+    public void patchUser(Integer id, UserPatch patch, Long expectedVersion) {
+        String name = blankToNull(patch.name());
+        String email = blankToNull(patch.email());
+        userEmailFilter.add(email);
+        if (shardedUserRepository != null) {
+            updateUser(new User(id, name, email), expectedVersion);
+            return;
         }
-        userRepository.save(existingUser);
+
+        if ((name != null || email != null) && userRepository.patchUser(id, name, email, expectedVersion) == 1) {
+            userChangeLog.updated(List.of(id));
+            userSearch.patched(id, name, email);
+            if (email != null) {
+                userEmailFilter.removed(1); // o e-mail antigo não é conhecido; no pior caso antecipa a reconstrução
+            }
+            // O nome antigo não é conhecido; o índice por nome detecta a divergência ao consultar
+            userCache.evict(id, name);
+            return;
+        }
+
+        Long currentVersion = userRepository.findVersionById(id).orElseThrow(() -> new IllegalStateException(
+                "User with ID " + id + " does not exist and cannot be updated."));
+        if (expectedVersion != null && !expectedVersion.equals(currentVersion)) {
+            throw new UserVersionMismatchException("User with ID " + id + " was modified (current version "
+                    + currentVersion + ", expected " + expectedVersion + ").");
+        }
+    }
+
+    private Optional<User> findById(Integer id) {
+        return shardedUserRepository != null ? shardedUserRepository.findById(id) : userRepository.findById(id);
+    }
+
+    private Optional<User> findByName(String name) {
+        return shardedUserRepository != null ? shardedUserRepository.findByName(name) : userRepository.findByName(name);
+    }
+
+    // Mesmo critério do save(): sem versão é INSERT, com versão é merge de um usuário existente
+    private void saveUser(User user) {
+        boolean isNew = user.getVersion() == null;
+        User saved = userRepository.save(user);
+        if (isNew) {
+            userCounter.add(1);
+            userChangeLog.created(List.of(saved.getId()));
+        } else {
+            userChangeLog.updated(List.of(saved.getId()));
+        }
+        userSearch.saved(saved);
+        // Remove um possível "não encontrado" em cache para o novo ID/nome
+        userCache.evict(saved.getId(), saved.getName());
+    }
+
+    // Mesmo critério do save(): com versão é a gravação de um usuário existente, exigindo essa versão; sem outbox
+    private void insertSharded(User user) {
+        if (user.getVersion() != null) {
+            saveSharded(user, true);
+            userCache.evict(user.getId(), user.getName());
+            return;
+        }
+        shardedUserRepository.insert(user);
+        userCounter.add(1);
+        userCache.evict(user.getId(), user.getName());
+    }
+
+    private void saveSharded(User user, boolean changed) {
+        if (changed && !shardedUserRepository.update(user, user.getVersion())) {
+            throw new OptimisticLockingFailureException("User with ID " + user.getId() + " was modified or removed concurrently.");
+        }
+    }
+
+    private static void checkCursorLimit(int limit) {
+        if (limit < 1 || limit > MAX_CURSOR_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_CURSOR_LIMIT);
+        }
+    }
+
+    private static void checkPage(int page, int size) {
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("page must be >= 0 and size between 1 and " + MAX_PAGE_SIZE);
+        }
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
     }
 }
@@ -0,0 +1,11 @@
+package com.jircik.springcrud.service;
+
+/**
+ * Lançada quando a versão informada pelo cliente (If-Match) não é a versão atual do usuário.
+ */
+public class UserVersionMismatchException extends RuntimeException {
+
+    public UserVersionMismatchException(String message) {
+        super(message);
+    }
+}
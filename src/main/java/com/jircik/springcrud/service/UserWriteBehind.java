@@ -0,0 +1,171 @@
+package com.jircik.springcrud.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jircik.springcrud.config.BulkProperties;
+import com.jircik.springcrud.config.WriteBehindProperties;
+import com.jircik.springcrud.dto.BulkCreateResult;
+import com.jircik.springcrud.dto.UserWriteStatus;
+import com.jircik.springcrud.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cadastro write-behind: o POST só enfileira e recebe um token; uma thread em segundo plano grava a fila
+ * em lotes pelo {@link UserBulkService#createAll}, uma transação por lote, e guarda o desfecho de cada token.
+ * <p>
+ * Group commit sem espera artificial: enquanto um lote faz commit, os cadastros seguintes se acumulam
+ * e formam o próximo lote. Com pouca carga o lote tem um usuário só e a latência é a de uma gravação.
+ * <p>
+ * A fila é limitada (backpressure: cheia, o cadastro é recusado) e fica só em memória: o que estiver
+ * nela se perde se o processo morrer sem o desligamento normal, que espera a fila esvaziar.
+ */
+@Component
+public class UserWriteBehind implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(UserWriteBehind.class);
+    private static final long POLL_MILLIS = 100;
+
+    private final WriteBehindProperties properties;
+    private final int batchSize;
+    private final UserBulkService userBulkService;
+    private final BlockingQueue<Pending> queue;
+    private final Cache<String, UserWriteStatus> statuses;
+    private volatile boolean accepting;
+    private volatile Thread writer;
+
+    public UserWriteBehind(WriteBehindProperties properties, BulkProperties bulkProperties, UserBulkService userBulkService) {
+        this.properties = properties;
+        this.batchSize = bulkProperties.chunkSize();
+        this.userBulkService = userBulkService;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, properties.queueCapacity()));
+        this.statuses = Caffeine.newBuilder()
+                .expireAfterWrite(properties.statusTtl())
+                .maximumSize(Math.max(1, properties.statusCapacity()))
+                .build();
+    }
+
+    public boolean isEnabled() {
+        return properties.enabled();
+    }
+
+    /** Enfileira o cadastro; lança WriteBehindRejectedException se a fila estiver cheia ou desligando. */
+    public UserWriteStatus submit(User user) {
+        if (isBlank(user.getName()) || isBlank(user.getEmail())) {
+            throw new IllegalArgumentException("name and email are required");
+        }
+        if (!accepting) {
+            throw new WriteBehindRejectedException("User write-behind queue is not accepting writes");
+        }
+        String token = UUID.randomUUID().toString();
+        UserWriteStatus pending = UserWriteStatus.pending(token);
+        statuses.put(token, pending);
+        if (!queue.offer(new Pending(token, new User(null, user.getName(), user.getEmail())))) {
+            statuses.invalidate(token);
+            throw new WriteBehindRejectedException("User write-behind queue is full (" + properties.queueCapacity() + ")");
+        }
+        return pending;
+    }
+
+    public Optional<UserWriteStatus> status(String token) {
+        return Optional.ofNullable(statuses.getIfPresent(token));
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    @Override
+    public synchronized void start() {
+        if (!isEnabled() || writer != null) {
+            return;
+        }
+        accepting = true;
+        writer = Thread.ofPlatform().name("user-write-behind").start(this::drainLoop);
+    }
+
+    // Para de aceitar e espera o writer esvaziar a fila (ele só sai quando a fila está vazia)
+    @Override
+    public synchronized void stop() {
+        Thread current = writer;
+        if (current == null) {
+            return;
+        }
+        accepting = false;
+        try {
+            if (!current.join(properties.shutdownTimeout())) {
+                log.warn("User write-behind did not drain within {}; {} queued users were not written",
+                        properties.shutdownTimeout(), queue.size());
+                current.interrupt();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        writer = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return writer != null;
+    }
+
+    // Para depois do servidor web (fase DEFAULT_PHASE - 2048, que para de receber requisições antes) e antes do
+    // DataSource ser fechado. Fases iguais não têm ordem garantida, daí a fase estritamente menor.
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void drainLoop() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (accepting || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+                batch.clear();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void write(List<Pending> batch) {
+        try {
+            BulkCreateResult result = userBulkService.createAll(batch.stream().map(Pending::user).iterator());
+            for (BulkCreateResult.Item item : result.items()) {
+                String token = batch.get(item.index()).token();
+                statuses.put(token, item.status() == BulkCreateResult.Status.CREATED
+                        ? UserWriteStatus.created(token, item.id())
+                        : UserWriteStatus.failed(token, item.error()));
+            }
+        } catch (RuntimeException ex) {
+            // Falha inesperada (ex.: banco fora): o lote é descartado e cada token informa o erro
+            log.error("User write-behind batch of {} failed", batch.size(), ex);
+            batch.forEach(pending -> statuses.put(pending.token(),
+                    UserWriteStatus.failed(pending.token(), "Write failed: " + ex.getMessage())));
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private record Pending(String token, User user) {
+    }
+}
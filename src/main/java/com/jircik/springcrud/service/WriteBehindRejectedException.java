@@ -0,0 +1,11 @@
+package com.jircik.springcrud.service;
+
+/**
+ * Lançada quando a fila do write-behind está cheia (ou a aplicação está desligando) e o cadastro não foi aceito.
+ */
+public class WriteBehindRejectedException extends RuntimeException {
+
+    public WriteBehindRejectedException(String message) {
+        super(message);
+    }
+}
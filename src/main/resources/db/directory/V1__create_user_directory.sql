@@ -0,0 +1,12 @@
+-- Diretório do modo particionado, no primário: onde cada usuário está, unicidade global do e-mail
+-- e buscas por nome sem consultar todos os shards.
+create table user_directory (
+    id    integer      not null,
+    email varchar(255) not null,
+    name  varchar(255) not null,
+    shard varchar(64)  not null,
+    constraint user_directory_pkey primary key (id),
+    constraint user_directory_email_key unique (email)
+);
+
+create index user_directory_name_idx on user_directory (name);
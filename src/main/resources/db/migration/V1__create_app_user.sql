@@ -0,0 +1,12 @@
+-- Esquema inicial, igual ao gerado pelo Hibernate (ddl-auto=update) para a entidade User.
+-- Bancos já criados pelo ddl-auto entram como baseline (versão 1) sem rodar este script.
+create sequence app_user_seq start with 1 increment by 50;
+
+create table app_user (
+    id      integer      not null,
+    name    varchar(255) not null,
+    email   varchar(255) not null,
+    version bigint       default 0 not null,
+    constraint app_user_pkey primary key (id),
+    constraint app_user_email_key unique (email)
+);
@@ -0,0 +1,15 @@
+-- Outbox do feed de alterações (entidade UserChange). feed_offset é atribuído pelo relay depois do commit.
+create table user_change (
+    id          bigint generated by default as identity,
+    feed_offset bigint,
+    user_id     integer                     not null,
+    change_type varchar(16)                 not null,
+    name        varchar(255),
+    email       varchar(255),
+    version     bigint,
+    changed_at  timestamp(6) with time zone not null,
+    constraint user_change_pkey primary key (id)
+);
+
+create unique index user_change_offset_key on user_change (feed_offset);
+create index user_change_user_idx on user_change (user_id, feed_offset);
@@ -0,0 +1,10 @@
+-- Tabela de usuários de um shard (app.sharding.*): mesmas colunas do primário, sem a sequence,
+-- que continua no primário gerando os IDs de todos os shards.
+create table app_user (
+    id      integer      not null,
+    name    varchar(255) not null,
+    email   varchar(255) not null,
+    version bigint       default 0 not null,
+    constraint app_user_pkey primary key (id),
+    constraint app_user_email_key unique (email)
+);
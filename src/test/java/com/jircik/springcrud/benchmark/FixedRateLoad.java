@@ -0,0 +1,110 @@
+package com.jircik.springcrud.benchmark;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Gerador de carga em modelo aberto: a requisição i é disparada no instante {@code início + i / taxa},
+ * mesmo que as anteriores ainda não tenham respondido, e a latência é medida a partir desse instante
+ * planejado. Assim uma pausa do servidor aparece em todas as requisições que deveriam ter saído
+ * durante ela (sem coordinated omission), e não só na que estava em andamento.
+ */
+final class FixedRateLoad {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(2);
+
+    private FixedRateLoad() {
+    }
+
+    /**
+     * @param rate     requisições por segundo
+     * @param duration duração da fase
+     * @param picker   escolhe a operação da próxima requisição (define o mix)
+     * @param call     executa a operação; devolve false (ou lança exceção) quando a resposta não é a esperada
+     */
+    static <K> Map<K, Recording> run(double rate, Duration duration, Supplier<K> picker, Predicate<K> call) {
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long requests = Math.max(1, duration.toNanos() / intervalNanos);
+        Map<K, Recording> recordings = new ConcurrentHashMap<>();
+        AtomicLong lastCompletion = new AtomicLong();
+
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; i < requests; i++) {
+                long intended = start + i * intervalNanos;
+                long wait;
+                while ((wait = intended - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                K operation = picker.get();
+                Recording recording = recordings.computeIfAbsent(operation, key -> new Recording());
+                executor.execute(() -> {
+                    boolean ok;
+                    try {
+                        ok = call.test(operation);
+                    } catch (RuntimeException ex) {
+                        ok = false;
+                    }
+                    long now = System.nanoTime();
+                    recording.record(now - intended, ok);
+                    lastCompletion.accumulateAndGet(now, Math::max);
+                });
+            }
+        }
+        long elapsedNanos = Math.max(1, lastCompletion.get() - start);
+        recordings.values().forEach(recording -> recording.elapsedNanos = elapsedNanos);
+        return recordings;
+    }
+
+    /** Latências (em microssegundos) e contagem de sucessos/falhas de uma operação. */
+    static final class Recording {
+
+        private final Histogram latencyMicros = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        private final LongAdder failed = new LongAdder();
+        private long elapsedNanos;
+
+        private void record(long latencyNanos, boolean ok) {
+            latencyMicros.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_TRACKABLE_MICROS));
+            if (!ok) {
+                failed.increment();
+            }
+        }
+
+        Histogram histogram() {
+            return latencyMicros;
+        }
+
+        long count() {
+            return latencyMicros.getTotalCount();
+        }
+
+        long failed() {
+            return failed.sum();
+        }
+
+        double errorRate() {
+            return count() == 0 ? 0 : (double) failed() / count();
+        }
+
+        /** Respostas por segundo efetivamente concluídas durante a fase. */
+        double throughput() {
+            return count() / (elapsedNanos / 1e9);
+        }
+
+        Duration percentile(double percentile) {
+            return Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(latencyMicros.getValueAtPercentile(percentile)));
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.jircik.springcrud.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tempo até a primeira requisição respondida (processo novo → primeiro 200 em GET /api/v1/users)
+ * em cada modo de subida: ddl-auto=update, profile migrations (Flyway, sem introspecção),
+ * migrations + Spring AOT e migrations + AOT + CDS.
+ * <p>
+ * Usa o jar extraído do profile startup, com o H2 do classpath de teste no lugar do Postgres.
+ * O arquivo CDS do build foi treinado com outro classpath (só o jar), então este benchmark faz o
+ * próprio treino com o H2 incluído; o ganho medido é o mesmo.
+ * <p>
+ * Fora do build normal; rode com
+ * {@code mvn -Pstartup -DskipTests -Dcds.skip=true package && mvn -Pbenchmark test -Dtest=StartupBenchmark}.
+ */
+@Tag("benchmark")
+class StartupBenchmark {
+
+    private static final Path EXTRACTED = Path.of("target", "extracted");
+    private static final String MAIN_CLASS = "com.jircik.springcrud.SpringCrudApplication";
+    private static final int RUNS = 5;
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+
+    @Test
+    void compareStartupModes() throws Exception {
+        Path jar = applicationJar();
+        String classPath = jar.toAbsolutePath() + File.pathSeparator + h2Jar();
+        Path archive = EXTRACTED.resolve("startup-benchmark.jsa").toAbsolutePath();
+        boolean aot = hasAotClasses(jar);
+
+        List<Mode> modes = new ArrayList<>();
+        modes.add(new Mode("ddl-auto=update", List.of(), "default"));
+        modes.add(new Mode("migrations", List.of(), "migrations"));
+        if (aot) {
+            modes.add(new Mode("migrations + AOT", List.of("-Dspring.aot.enabled=true"), "migrations"));
+            train(classPath, archive);
+            modes.add(new Mode("migrations + AOT + CDS",
+                    List.of("-Dspring.aot.enabled=true", "-XX:SharedArchiveFile=" + archive, "-Xshare:auto"), "migrations"));
+        } else {
+            System.out.println("Jar sem classes AOT (rode mvn -Pstartup package); só os modos sem AOT serão medidos");
+        }
+
+        List<Result> results = new ArrayList<>();
+        for (Mode mode : modes) {
+            long[] millis = new long[RUNS];
+            for (int run = 0; run < RUNS; run++) {
+                millis[run] = timeToFirstRequest(classPath, mode);
+            }
+            Arrays.sort(millis);
+            results.add(new Result(mode.name(), millis));
+        }
+
+        System.out.printf("%n%-26s %10s %10s %10s%n", "mode", "min ms", "median ms", "max ms");
+        results.forEach(result -> System.out.printf("%-26s %10d %10d %10d%n", result.mode(),
+                result.sortedMillis()[0], result.median(), result.sortedMillis()[RUNS - 1]));
+        System.out.println();
+
+        assertTrue(results.getLast().median() < results.getFirst().median(),
+                "The fastest startup mode should beat ddl-auto=update");
+    }
+
+    private long timeToFirstRequest(String classPath, Mode mode) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>(List.of(java(), "-cp", classPath));
+        command.addAll(mode.jvmOptions());
+        command.add(MAIN_CLASS);
+        command.addAll(applicationArguments(mode.profile(), port));
+
+        long start = System.nanoTime();
+        Process process = start(command, "startup-run.log");
+        try {
+            URI uri = URI.create("http://localhost:" + port + "/api/v1/users?limit=1");
+            long deadline = start + STARTUP_TIMEOUT.toNanos();
+            while (System.nanoTime() < deadline) {
+                assertTrue(process.isAlive(), "Application exited during startup (" + mode.name() + ")");
+                try {
+                    HttpResponse<Void> response = client.send(HttpRequest.newBuilder(uri).build(),
+                            HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() == 200) {
+                        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    }
+                } catch (ConnectException ex) {
+                    // ainda subindo
+                }
+                Thread.sleep(5);
+            }
+            return fail("No response within " + STARTUP_TIMEOUT + " (" + mode.name() + ")");
+        } finally {
+            process.destroy();
+            process.waitFor(30, TimeUnit.SECONDS);
+        }
+    }
+
+    /** Treino: sobe o contexto AOT com o profile migrations e grava as classes carregadas ao sair. */
+    private static void train(String classPath, Path archive) throws Exception {
+        List<String> command = new ArrayList<>(List.of(java(), "-cp", classPath,
+                "-XX:ArchiveClassesAtExit=" + archive, "-Dspring.context.exit=onRefresh", "-Dspring.aot.enabled=true",
+                MAIN_CLASS));
+        command.addAll(applicationArguments("migrations", 0));
+        Process process = start(command, "startup-training.log");
+        assertTrue(process.waitFor(STARTUP_TIMEOUT.toSeconds(), TimeUnit.SECONDS), "Training run did not finish");
+        assertTrue(Files.exists(archive), "Training run did not write " + archive);
+    }
+
+    private static List<String> applicationArguments(String profile, int port) {
+        return List.of(
+                "--spring.profiles.active=" + profile,
+                "--server.port=" + port,
+                "--spring.datasource.url=jdbc:h2:mem:startup;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect");
+    }
+
+    private static Process start(List<String> command, String logName) throws IOException {
+        return new ProcessBuilder(command)
+                .directory(EXTRACTED.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(EXTRACTED.resolve(logName).toFile())
+                .start();
+    }
+
+    private static Path applicationJar() throws IOException {
+        assertTrue(Files.isDirectory(EXTRACTED), "Missing " + EXTRACTED + "; run mvn -Pstartup package first");
+        try (Stream<Path> files = Files.list(EXTRACTED)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".jar")).findFirst()
+                    .orElseThrow(() -> new IllegalStateException("No application jar in " + EXTRACTED));
+        }
+    }
+
+    private static boolean hasAotClasses(Path jar) throws IOException {
+        try (ZipFile zip = new ZipFile(jar.toFile())) {
+            return zip.stream().anyMatch(entry -> entry.getName().endsWith("__ApplicationContextInitializer.class"));
+        }
+    }
+
+    private static String h2Jar() {
+        return Arrays.stream(System.getProperty("java.class.path").split(File.pathSeparator))
+                .filter(entry -> entry.contains("h2database"))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("H2 not found on the test classpath"));
+    }
+
+    private static String java() {
+        return Path.of(System.getProperty("java.home"), "bin", "java").toString();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private record Mode(String name, List<String> jvmOptions, String profile) {
+    }
+
+    private record Result(String mode, long[] sortedMillis) {
+
+        long median() {
+            return sortedMillis[sortedMillis.length / 2];
+        }
+    }
+}
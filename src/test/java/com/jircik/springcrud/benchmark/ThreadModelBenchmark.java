@@ -0,0 +1,144 @@
+package com.jircik.springcrud.benchmark;
+
+import com.jircik.springcrud.config.ConcurrencyLimitedDataSource;
+import com.jircik.springcrud.config.VirtualThreadPinningMonitor;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compara platform threads (pool fixo, como o Tomcat padrão) com virtual threads, com e sem o
+ * limite de concorrência na frente do pool JDBC. O banco é um H2 em memória; a latência das
+ * consultas vem de uma função que dorme, e cada "requisição" também espera um pouco fora do banco
+ * (outro serviço, disco etc.), que é onde as platform threads ficam paradas.
+ * <p>
+ * Fora do build normal; rode com {@code mvn -Pbenchmark test -Dtest=ThreadModelBenchmark}.
+ */
+@Tag("benchmark")
+class ThreadModelBenchmark {
+
+    private static final int REQUESTS = 10_000;
+    private static final int PLATFORM_THREADS = 200;
+    private static final int POOL_SIZE = 10;
+    private static final long QUERY_LATENCY_MS = 2;
+    private static final long OTHER_IO_MS = 100;
+
+    private static VirtualThreadPinningMonitor pinningMonitor;
+
+    @BeforeAll
+    static void startPinningMonitor() {
+        pinningMonitor = new VirtualThreadPinningMonitor(Duration.ofMillis(20));
+        pinningMonitor.start();
+    }
+
+    @AfterAll
+    static void stopPinningMonitor() {
+        pinningMonitor.stop();
+    }
+
+    @Test
+    void compareThreadModels() throws Exception {
+        List<Result> results = new ArrayList<>();
+
+        try (HikariDataSource pool = pool("platform", Duration.ofSeconds(30))) {
+            results.add(run("platform threads (" + PLATFORM_THREADS + ")", pool,
+                    Executors.newFixedThreadPool(PLATFORM_THREADS)));
+        }
+        try (HikariDataSource pool = pool("virtual", Duration.ofSeconds(1))) {
+            results.add(run("virtual threads, no gate", pool, Executors.newVirtualThreadPerTaskExecutor()));
+        }
+        try (HikariDataSource pool = pool("gated", Duration.ofSeconds(1))) {
+            DataSource gated = new ConcurrencyLimitedDataSource(pool, POOL_SIZE, Duration.ofSeconds(30));
+            results.add(run("virtual threads + gate", gated, Executors.newVirtualThreadPerTaskExecutor()));
+        }
+
+        System.out.printf("%n%-28s %10s %10s %10s %10s %8s%n", "mode", "req/s", "p50 ms", "p99 ms", "max ms", "failed");
+        results.forEach(result -> System.out.printf("%-28s %10.0f %10.1f %10.1f %10.1f %8d%n", result.mode(),
+                result.throughput(), result.percentile(0.50), result.percentile(0.99), result.percentile(1.0),
+                result.failed()));
+        System.out.printf("pinned virtual threads (>= 20 ms): %d%n%n", pinningMonitor.getPinnedCount());
+
+        Result platform = results.get(0);
+        Result gated = results.get(2);
+        assertEquals(0, gated.failed(), "The gate should queue requests instead of failing them");
+        assertTrue(gated.throughput() > platform.throughput(),
+                "Virtual threads should not be capped by the platform thread pool");
+    }
+
+    private static Result run(String mode, DataSource dataSource, ExecutorService executor) throws Exception {
+        long[] latencies = new long[REQUESTS];
+        AtomicInteger failed = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>(REQUESTS);
+
+        long start = System.nanoTime();
+        try (executor) {
+            for (int i = 0; i < REQUESTS; i++) {
+                int request = i;
+                long submitted = System.nanoTime();
+                futures.add(executor.submit(() -> {
+                    try {
+                        handleRequest(dataSource);
+                    } catch (Exception ex) {
+                        failed.incrementAndGet();
+                    }
+                    latencies[request] = System.nanoTime() - submitted;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        Arrays.sort(latencies);
+        return new Result(mode, REQUESTS / (elapsed / 1e9), latencies, failed.get());
+    }
+
+    /** Uma requisição típica: espera fora do banco e depois faz uma consulta curta. */
+    private static void handleRequest(DataSource dataSource) throws Exception {
+        Thread.sleep(OTHER_IO_MS);
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("CALL SLEEP_MS(" + QUERY_LATENCY_MS + ")");
+        }
+    }
+
+    private static HikariDataSource pool(String name, Duration connectionTimeout) throws Exception {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:threadbench_" + name + ";DB_CLOSE_DELAY=-1");
+        config.setUsername("sa");
+        config.setMaximumPoolSize(POOL_SIZE);
+        config.setMinimumIdle(POOL_SIZE);
+        config.setConnectionTimeout(connectionTimeout.toMillis());
+        HikariDataSource pool = new HikariDataSource(config);
+        try (Connection connection = pool.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE ALIAS IF NOT EXISTS SLEEP_MS FOR 'java.lang.Thread.sleep(long)'");
+        }
+        return pool;
+    }
+
+    private record Result(String mode, double throughput, long[] sortedLatencies, int failed) {
+
+        double percentile(double p) {
+            int index = (int) Math.ceil(p * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(index, 0)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.jircik.springcrud.benchmark;
+
+import com.jircik.springcrud.benchmark.FixedRateLoad.Recording;
+import com.jircik.springcrud.model.User;
+import com.jircik.springcrud.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Teste de carga dos endpoints do UserController: sobe a aplicação numa porta aleatória sobre H2,
+ * popula usuários e dispara um mix de GET por ID, GET por nome, POST, PUT e DELETE a uma taxa fixa
+ * (ver {@link FixedRateLoad}). Registra um histograma HDR por endpoint, falha se algum orçamento de
+ * latência for estourado e, em seguida, procura a vazão de saturação de cada endpoint isoladamente.
+ * <p>
+ * Fora do build normal: {@code mvn -Pbenchmark test -Dtest=UserApiLoadTest}. Tudo é configurável por
+ * propriedades de sistema, ex.: {@code -Dload.rate=1000 -Dload.duration=60s -Dload.budget.get-by-id.p99=20ms}.
+ * Os histogramas completos ficam em {@code target/load-test/*.hgrm}.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:loadtest;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+        "spring.jpa.show-sql=false"
+})
+class UserApiLoadTest {
+
+    private static final int SEED_CHUNK = 1000;
+    private static final Path REPORT_DIR = Path.of("target", "load-test");
+
+    enum Endpoint {
+        GET_BY_ID, GET_BY_NAME, POST, PUT, DELETE;
+
+        String key() {
+            return name().toLowerCase(Locale.ROOT).replace('_', '-');
+        }
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final Queue<Integer> deletable = new ConcurrentLinkedQueue<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private List<User> seeded;
+
+    @BeforeEach
+    void seed() {
+        int users = Integer.getInteger("load.users", 10_000);
+        seeded = new ArrayList<>(users);
+        for (int from = 0; from < users; from += SEED_CHUNK) {
+            List<User> chunk = new ArrayList<>(SEED_CHUNK);
+            for (int i = from; i < Math.min(from + SEED_CHUNK, users); i++) {
+                chunk.add(new User(null, "load-user-" + i, "load-user-" + i + "@example.com"));
+            }
+            seeded.addAll(userRepository.saveAll(chunk));
+        }
+    }
+
+    @Test
+    void endpointsShouldStayWithinLatencyBudgets() throws IOException {
+        double rate = Double.parseDouble(System.getProperty("load.rate", "200"));
+        Duration duration = duration("load.duration", "30s");
+        Supplier<Endpoint> mix = mix(System.getProperty("load.mix", "get-by-id=50,get-by-name=20,post=10,put=15,delete=5"));
+
+        // Aquecimento (JIT, pool de conexões, cache) fora da medição
+        Duration warmup = duration("load.warmup", "10s");
+        prepareDeletes(rate * warmup.toSeconds());
+        FixedRateLoad.run(rate, warmup, mix, this::call);
+
+        prepareDeletes(rate * duration.toSeconds());
+        Map<Endpoint, Recording> results = FixedRateLoad.run(rate, duration, mix, this::call);
+        print("Fixed rate " + rate + " req/s for " + duration, results);
+        writeHistograms(results);
+
+        List<String> violations = new ArrayList<>();
+        double maxErrorRate = Double.parseDouble(System.getProperty("load.max-error-rate", "0.01"));
+        results.forEach((endpoint, recording) -> {
+            checkBudget(endpoint, "p50", 50.0, recording, violations);
+            checkBudget(endpoint, "p99", 99.0, recording, violations);
+            checkBudget(endpoint, "p999", 99.9, recording, violations);
+            if (recording.errorRate() > maxErrorRate) {
+                violations.add(String.format("%s: error rate %.2f%% > %.2f%%", endpoint.key(),
+                        recording.errorRate() * 100, maxErrorRate * 100));
+            }
+        });
+
+        if (Boolean.parseBoolean(System.getProperty("load.saturation", "true"))) {
+            findSaturationThroughput();
+        }
+        assertTrue(violations.isEmpty(), "Latency budgets exceeded:\n" + String.join("\n", violations));
+    }
+
+    /**
+     * Para cada endpoint sozinho, dobra a taxa a cada passo até a vazão efetiva ficar abaixo de 95% da
+     * pedida, a taxa de erro passar do limite ou o p99 estourar o orçamento. Só informa, não falha.
+     */
+    private void findSaturationThroughput() {
+        double startRate = Double.parseDouble(System.getProperty("load.saturation.start-rate", "250"));
+        double maxRate = Double.parseDouble(System.getProperty("load.saturation.max-rate", "8000"));
+        Duration step = duration("load.saturation.step", "3s");
+        double maxErrorRate = Double.parseDouble(System.getProperty("load.max-error-rate", "0.01"));
+
+        System.out.printf("%nSaturation (%s steps)%n%-12s %12s %12s %10s%n", step, "endpoint", "sustained/s", "next/s", "p99 ms");
+        for (Endpoint endpoint : Endpoint.values()) {
+            double sustained = 0;
+            double rate = startRate;
+            Recording last = null;
+            while (rate <= maxRate) {
+                if (endpoint == Endpoint.DELETE) {
+                    prepareDeletes(rate * step.toSeconds());
+                }
+                last = FixedRateLoad.run(rate, step, () -> endpoint, this::call).get(endpoint);
+                boolean keptUp = last.throughput() >= rate * 0.95 && last.errorRate() <= maxErrorRate
+                        && last.percentile(99.0).compareTo(budget(endpoint, "p99")) <= 0;
+                if (!keptUp) {
+                    break;
+                }
+                sustained = rate;
+                rate *= 2;
+            }
+            System.out.printf("%-12s %12.0f %12.0f %10.1f%n", endpoint.key(), sustained, rate,
+                    last == null ? 0 : millis(last.percentile(99.0)));
+        }
+    }
+
+    private boolean call(Endpoint endpoint) {
+        try {
+            return switch (endpoint) {
+                case GET_BY_ID -> send(get("/" + randomUser().getId())) == 200;
+                case GET_BY_NAME -> send(get("/name/" + randomUser().getName())) == 200;
+                case POST -> {
+                    long n = sequence.incrementAndGet();
+                    yield send(json("POST", "/", "{\"name\":\"load-post-" + n + "\",\"email\":\"load-post-" + n + "@example.com\"}")) == 201;
+                }
+                case PUT -> {
+                    User user = randomUser();
+                    String email = user.getName() + "." + sequence.incrementAndGet() + "@example.com";
+                    yield send(json("PUT", "/", "{\"id\":" + user.getId() + ",\"email\":\"" + email + "\"}")) == 200;
+                }
+                case DELETE -> {
+                    Integer id = deletable.poll();
+                    yield id != null && send(HttpRequest.newBuilder(uri("/" + id)).DELETE()) == 204;
+                }
+            };
+        } catch (IOException ex) {
+            return false;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private int send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return http.send(request.timeout(Duration.ofSeconds(30)).build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private HttpRequest.Builder get(String path) {
+        return HttpRequest.newBuilder(uri(path)).GET();
+    }
+
+    private HttpRequest.Builder json(String method, String path, String body) {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body));
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + "/api/v1/users" + (path.equals("/") ? "" : path));
+    }
+
+    private User randomUser() {
+        return seeded.get(ThreadLocalRandom.current().nextInt(seeded.size()));
+    }
+
+    /** Cria usuários só para serem removidos pelos DELETEs da próxima fase (com folga). */
+    private void prepareDeletes(double expected) {
+        int count = (int) (expected * 1.2) + 100;
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long n = sequence.incrementAndGet();
+            users.add(new User(null, "load-delete-" + n, "load-delete-" + n + "@example.com"));
+        }
+        userRepository.saveAll(users).forEach(user -> deletable.add(user.getId()));
+    }
+
+    private static Supplier<Endpoint> mix(String spec) {
+        Map<Endpoint, Integer> weights = new EnumMap<>(Endpoint.class);
+        for (String entry : spec.split(",")) {
+            String[] parts = entry.trim().split("=");
+            weights.put(Endpoint.valueOf(parts[0].trim().toUpperCase(Locale.ROOT).replace('-', '_')),
+                    Integer.parseInt(parts[1].trim()));
+        }
+        Endpoint[] endpoints = weights.keySet().toArray(Endpoint[]::new);
+        int[] cumulative = new int[endpoints.length];
+        int total = 0;
+        for (int i = 0; i < endpoints.length; i++) {
+            total += weights.get(endpoints[i]);
+            cumulative[i] = total;
+        }
+        int sum = total;
+        return () -> {
+            int pick = ThreadLocalRandom.current().nextInt(sum);
+            for (int i = 0; i < cumulative.length; i++) {
+                if (pick < cumulative[i]) {
+                    return endpoints[i];
+                }
+            }
+            throw new IllegalStateException("Empty load mix");
+        };
+    }
+
+    private static void checkBudget(Endpoint endpoint, String name, double percentile, Recording recording, List<String> violations) {
+        Duration actual = recording.percentile(percentile);
+        Duration budget = budget(endpoint, name);
+        if (actual.compareTo(budget) > 0) {
+            violations.add(String.format("%s: %s %.1f ms > budget %.1f ms", endpoint.key(), name, millis(actual), millis(budget)));
+        }
+    }
+
+    /** load.budget.&lt;endpoint&gt;.&lt;pXX&gt;, ou o padrão load.budget.&lt;pXX&gt;. */
+    private static Duration budget(Endpoint endpoint, String name) {
+        String fallback = System.getProperty("load.budget." + name, switch (name) {
+            case "p50" -> "25ms";
+            case "p99" -> "100ms";
+            default -> "500ms";
+        });
+        return DurationStyle.detectAndParse(System.getProperty("load.budget." + endpoint.key() + "." + name, fallback));
+    }
+
+    private static Duration duration(String property, String defaultValue) {
+        return DurationStyle.detectAndParse(System.getProperty(property, defaultValue));
+    }
+
+    private static void print(String title, Map<Endpoint, Recording> results) {
+        System.out.printf("%n%s%n%-12s %8s %7s %9s %9s %9s %9s %9s%n", title,
+                "endpoint", "count", "errors", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        new EnumMap<>(results).forEach((endpoint, r) -> System.out.printf("%-12s %8d %7d %9.0f %9.1f %9.1f %9.1f %9.1f%n",
+                endpoint.key(), r.count(), r.failed(), r.throughput(), millis(r.percentile(50.0)),
+                millis(r.percentile(99.0)), millis(r.percentile(99.9)), millis(r.percentile(100.0))));
+    }
+
+    private static void writeHistograms(Map<Endpoint, Recording> results) throws IOException {
+        Files.createDirectories(REPORT_DIR);
+        for (Map.Entry<Endpoint, Recording> entry : results.entrySet()) {
+            try (PrintStream out = new PrintStream(Files.newOutputStream(REPORT_DIR.resolve(entry.getKey().key() + ".hgrm")))) {
+                // Valores em microssegundos, escala 1000 => percentis em milissegundos
+                entry.getValue().histogram().outputPercentileDistribution(out, 1000.0);
+            }
+        }
+    }
+
+    private static double millis(Duration duration) {
+        return duration.toNanos() / 1e6;
+    }
+}
@@ -0,0 +1,136 @@
+package com.jircik.springcrud.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.apache.catalina.connector.ClientAbortException;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes do filtro: recusa com 503 acima do limite e limites separados para leitura e escrita.
+ */
+class AdaptiveConcurrencyFilterTest {
+
+    private final AdaptiveConcurrencyProperties properties =
+            new AdaptiveConcurrencyProperties(true, 1, 1, 10, 30, Duration.ofSeconds(2));
+    private final AdaptiveConcurrencyLimiter reads = new AdaptiveConcurrencyLimiter("read", properties);
+    private final AdaptiveConcurrencyLimiter writes = new AdaptiveConcurrencyLimiter("write", properties);
+    private final AdaptiveConcurrencyFilter filter = new AdaptiveConcurrencyFilter(reads, writes, properties.retryAfter());
+
+    @Test
+    void requestsAboveTheLimit_shouldBeRejectedWith503_whileOtherGroupStillPasses() throws Exception {
+        // Arrange: enquanto a primeira leitura está em andamento, chegam outra leitura e uma escrita
+        MockHttpServletResponse secondRead = new MockHttpServletResponse();
+        MockHttpServletResponse write = new MockHttpServletResponse();
+        FilterChain slowRead = (request, response) -> {
+            filter.doFilter(request("GET"), secondRead, (req, res) -> fail("second read should be rejected"));
+            filter.doFilter(request("POST"), write, (req, res) -> ((MockHttpServletResponse) res).setStatus(201));
+        };
+
+        // Act
+        MockHttpServletResponse firstRead = new MockHttpServletResponse();
+        filter.doFilter(request("GET"), firstRead, slowRead);
+
+        // Assert
+        assertEquals(200, firstRead.getStatus());
+        assertEquals(503, secondRead.getStatus());
+        assertEquals("2", secondRead.getHeader("Retry-After"));
+        assertEquals(201, write.getStatus());
+        assertEquals(1, reads.getRejected());
+        assertEquals(0, reads.getInFlight());
+        assertEquals(0, writes.getInFlight());
+    }
+
+    @Test
+    void permit_shouldBeReleased_whenTheRequestFails() throws Exception {
+        // Act
+        assertThrows(IllegalStateException.class, () -> filter.doFilter(request("GET"), new MockHttpServletResponse(),
+                (req, res) -> { throw new IllegalStateException("boom"); }));
+
+        // Assert
+        assertEquals(0, reads.getInFlight());
+        assertNotNull(reads.tryAcquire());
+    }
+
+    @Test
+    void downstreamTimeouts_shouldLowerTheLimit() {
+        // Arrange: limite 20; o pool não entrega conexão a tempo
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("read",
+                new AdaptiveConcurrencyProperties(true, 20, 1, 50, 30, Duration.ofSeconds(2)));
+        AdaptiveConcurrencyFilter limited = new AdaptiveConcurrencyFilter(limiter, writes, properties.retryAfter());
+        FilterChain timingOut = (req, res) -> {
+            throw new ServletException(new CannotCreateTransactionException("Could not open JPA EntityManager",
+                    new SQLTransientConnectionException("Timed out waiting for a database permit")));
+        };
+
+        // Act
+        for (int i = 0; i < 5; i++) {
+            assertThrows(ServletException.class, () -> limited.doFilter(request("GET"), new MockHttpServletResponse(), timingOut));
+        }
+
+        // Assert
+        assertTrue(limiter.getLimit() < 20, "Limit stayed at " + limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void clientErrorsAndAborts_shouldNotChangeTheLimit() {
+        // Arrange
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("read",
+                new AdaptiveConcurrencyProperties(true, 20, 1, 50, 30, Duration.ofSeconds(2)));
+        AdaptiveConcurrencyFilter limited = new AdaptiveConcurrencyFilter(limiter, writes, properties.retryAfter());
+
+        // Act
+        for (int i = 0; i < 5; i++) {
+            assertDoesNotThrow(() -> limited.doFilter(request("GET"), new MockHttpServletResponse(),
+                    (req, res) -> ((MockHttpServletResponse) res).setStatus(404)));
+            assertThrows(ClientAbortException.class, () -> limited.doFilter(request("GET"), new MockHttpServletResponse(),
+                    (req, res) -> { throw new ClientAbortException("Broken pipe"); }));
+        }
+
+        // Assert
+        assertEquals(20, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void nonApiRequests_shouldNotBeLimited() throws Exception {
+        // Arrange
+        reads.tryAcquire();
+        MockHttpServletRequest actuator = new MockHttpServletRequest("GET", "/actuator/prometheus");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        filter.doFilter(actuator, response, (req, res) -> {});
+
+        // Assert
+        assertEquals(200, response.getStatus());
+        assertEquals(0, reads.getRejected());
+    }
+
+    @Test
+    void changeStreams_shouldNotBeLimited() throws Exception {
+        // Arrange: limite de leitura esgotado
+        reads.tryAcquire();
+        MockHttpServletRequest stream = new MockHttpServletRequest("GET", "/api/v1/users/changes/stream");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        filter.doFilter(stream, response, (req, res) -> {});
+
+        // Assert
+        assertEquals(200, response.getStatus());
+        assertEquals(0, reads.getRejected());
+    }
+
+    private static MockHttpServletRequest request(String method) {
+        return new MockHttpServletRequest(method, "/api/v1/users");
+    }
+}
@@ -0,0 +1,81 @@
+package com.jircik.springcrud.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes do limite adaptativo com um "banco" simulado: cada rodada, 150 clientes tentam entrar,
+ * os que entram ficam o tempo de resposta do banco e saem. O banco atende `capacity` consultas em
+ * paralelo com latência `base`; acima disso as consultas esperam (latência cresce com a concorrência).
+ */
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final int CLIENTS = 150;
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("read",
+            new AdaptiveConcurrencyProperties(true, 20, 5, 200, 30, Duration.ofSeconds(1)), nanos::get);
+
+    @Test
+    void limit_shouldGrowWhileTheDatabaseIsFast_andShrinkWhenItSlowsDown() {
+        // Act: banco saudável, depois lento (10 conexões úteis, 20 ms), depois saudável de novo
+        run(300, 1000, Duration.ofMillis(5));
+        int healthy = limiter.getLimit();
+        long rejectedBeforeSlowdown = limiter.getRejected();
+
+        run(300, 10, Duration.ofMillis(20));
+        int slow = limiter.getLimit();
+        long rejectedDuringSlowdown = limiter.getRejected() - rejectedBeforeSlowdown;
+
+        run(300, 1000, Duration.ofMillis(5));
+        int recovered = limiter.getLimit();
+
+        // Assert
+        assertTrue(healthy >= CLIENTS, "limit should reach the offered concurrency, was " + healthy);
+        assertTrue(slow >= 5 && slow <= 20, "limit should settle near the database capacity, was " + slow);
+        assertTrue(rejectedDuringSlowdown > 0);
+        assertTrue(recovered >= CLIENTS, "limit should grow back, was " + recovered);
+    }
+
+    @Test
+    void tryAcquire_shouldRejectFast_whenTheLimitIsReached() {
+        // Arrange
+        List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            permits.add(limiter.tryAcquire());
+        }
+
+        // Act
+        AdaptiveConcurrencyLimiter.Permit rejected = limiter.tryAcquire();
+        permits.getFirst().release();
+        permits.getFirst().release();
+        AdaptiveConcurrencyLimiter.Permit afterRelease = limiter.tryAcquire();
+
+        // Assert: liberar duas vezes não abre duas vagas
+        assertNull(rejected);
+        assertNotNull(afterRelease);
+        assertNull(limiter.tryAcquire());
+        assertEquals(20, limiter.getInFlight());
+        assertEquals(2, limiter.getRejected());
+    }
+
+    private void run(int rounds, int capacity, Duration base) {
+        for (int round = 0; round < rounds; round++) {
+            List<AdaptiveConcurrencyLimiter.Permit> admitted = new ArrayList<>();
+            for (int client = 0; client < CLIENTS; client++) {
+                AdaptiveConcurrencyLimiter.Permit permit = limiter.tryAcquire();
+                if (permit != null) {
+                    admitted.add(permit);
+                }
+            }
+            nanos.addAndGet(base.toNanos() * Math.max(1, admitted.size()) / Math.min(capacity, Math.max(1, admitted.size())));
+            admitted.forEach(AdaptiveConcurrencyLimiter.Permit::release);
+        }
+    }
+}
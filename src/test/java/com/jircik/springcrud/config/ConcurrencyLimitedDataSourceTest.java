@@ -0,0 +1,77 @@
+package com.jircik.springcrud.config;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Testes unitários do limite de concorrência na frente do pool JDBC.
+ */
+class ConcurrencyLimitedDataSourceTest {
+
+    private final DataSource pool = mock(DataSource.class);
+    private final ConcurrencyLimitedDataSource gate =
+            new ConcurrencyLimitedDataSource(pool, 2, Duration.ofMillis(50));
+
+    @Test
+    void getConnection_shouldTimeOut_whenAllPermitsAreInUse() throws SQLException {
+        // Arrange
+        when(pool.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        gate.getConnection();
+        gate.getConnection();
+
+        // Act & Assert
+        assertThrows(SQLTransientConnectionException.class, gate::getConnection);
+        assertEquals(2, gate.getInUse());
+        verify(pool, times(2)).getConnection();
+    }
+
+    @Test
+    void close_shouldReleaseThePermitOnlyOnce() throws SQLException {
+        // Arrange
+        Connection target = mock(Connection.class);
+        when(pool.getConnection()).thenReturn(target);
+        Connection connection = gate.getConnection();
+
+        // Act
+        connection.close();
+        connection.close();
+
+        // Assert
+        assertEquals(0, gate.getInUse());
+        verify(target, times(2)).close();
+    }
+
+    @Test
+    void getConnection_shouldReleaseThePermit_whenThePoolFails() throws SQLException {
+        // Arrange
+        when(pool.getConnection()).thenThrow(new SQLException("pool exhausted"));
+
+        // Act & Assert
+        assertThrows(SQLException.class, gate::getConnection);
+        assertEquals(0, gate.getInUse());
+    }
+
+    @Test
+    void connection_shouldDelegateCallsAndRethrowTheOriginalException() throws SQLException {
+        // Arrange
+        Connection target = mock(Connection.class);
+        when(pool.getConnection()).thenReturn(target);
+        when(target.getAutoCommit()).thenReturn(false);
+        doThrow(new SQLException("rollback failed")).when(target).rollback();
+
+        // Act
+        Connection connection = gate.getConnection();
+
+        // Assert
+        assertFalse(connection.getAutoCommit());
+        assertEquals("rollback failed", assertThrows(SQLException.class, connection::rollback).getMessage());
+    }
+}
@@ -0,0 +1,149 @@
+package com.jircik.springcrud.config;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnknownFieldSet;
+import com.jircik.springcrud.model.User;
+import com.jircik.springcrud.service.UserBulkService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Negociação de formato pelo Accept e compressão das respostas, contra o Tomcat real
+ * (a compressão é feita pelo conector, não aparece no MockMvc).
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:negotiation;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+        "server.compression.enabled=true",
+        "server.compression.min-response-size=2KB",
+        "server.compression.mime-types=application/json,application/cbor,application/x-jackson-smile,application/x-protobuf"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ContentNegotiationIntegrationTest {
+
+    private static final int USERS = 200;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserBulkService userBulkService;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeAll
+    void setUp() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(new User(null, "User " + i, "user" + i + "@negotiation.com"));
+        }
+        userBulkService.createAll(users.iterator());
+    }
+
+    @Test
+    void json_shouldRemainTheDefault() throws Exception {
+        // Act
+        HttpResponse<byte[]> response = get("/api/v1/users", "*/*", null);
+
+        // Assert
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Type").orElseThrow().startsWith("application/json"));
+    }
+
+    @Test
+    void cborAndSmile_shouldDecodeToTheSameUsers() throws Exception {
+        // Act
+        HttpResponse<byte[]> cbor = get("/api/v1/users", "application/cbor", null);
+        HttpResponse<byte[]> smile = get("/api/v1/users", "application/x-jackson-smile", null);
+
+        // Assert
+        JsonNode fromCbor = new CBORMapper().readTree(cbor.body());
+        JsonNode fromSmile = new SmileMapper().readTree(smile.body());
+        assertEquals(USERS, fromCbor.size());
+        assertEquals(fromCbor, fromSmile);
+        assertEquals("User 0", fromCbor.get(0).get("name").asString());
+    }
+
+    @Test
+    void protobuf_shouldFollowTheUserListSchema() throws Exception {
+        // Act
+        HttpResponse<byte[]> response = get("/api/v1/users", "application/x-protobuf", null);
+
+        // Assert: campo 1 repetido (users), cada um com name = 2 e email = 3
+        List<ByteString> users = UnknownFieldSet.parseFrom(response.body()).getField(1).getLengthDelimitedList();
+        assertEquals(USERS, users.size());
+        UnknownFieldSet first = UnknownFieldSet.parseFrom(users.getFirst());
+        assertEquals("User 0", first.getField(2).getLengthDelimitedList().getFirst().toStringUtf8());
+        assertEquals("user0@negotiation.com", first.getField(3).getLengthDelimitedList().getFirst().toStringUtf8());
+    }
+
+    @Test
+    void protobuf_shouldBeNotAcceptable_forSparseFieldsets() throws Exception {
+        // Act
+        HttpResponse<byte[]> response = get("/api/v1/users?fields=id", "application/x-protobuf", null);
+
+        // Assert
+        assertEquals(406, response.statusCode());
+    }
+
+    @Test
+    void largeResponses_shouldBeGzipped_whenClientAcceptsIt() throws Exception {
+        // Act
+        HttpResponse<byte[]> plain = get("/api/v1/users", "application/json", null);
+        HttpResponse<byte[]> gzipped = get("/api/v1/users", "application/json", "gzip");
+
+        // Assert
+        assertEquals("gzip", gzipped.headers().firstValue("Content-Encoding").orElse(null));
+        assertTrue(gzipped.body().length < plain.body().length / 3);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.body()))) {
+            assertArrayEquals(plain.body(), in.readAllBytes());
+        }
+    }
+
+    @Test
+    void json_shouldBeTheDefault_whenAcceptIsMissing() throws Exception {
+        // Act
+        HttpResponse<byte[]> response = client.send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/users?limit=1")).build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+
+        // Assert
+        assertTrue(response.headers().firstValue("Content-Type").orElseThrow().startsWith("application/json"));
+    }
+
+    @Test
+    void responsesBelowTheThreshold_shouldNotBeCompressed() throws Exception {
+        // Act: corpo com Content-Length conhecido (respostas em streaming não têm tamanho e são sempre comprimidas)
+        HttpResponse<byte[]> response = get("/api/v1/users/-1", "application/json", "gzip");
+
+        // Assert
+        assertEquals(404, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Encoding").isEmpty());
+    }
+
+    private HttpResponse<byte[]> get(String path, String accept, String acceptEncoding) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Accept", accept);
+        if (acceptEncoding != null) {
+            request.header("Accept-Encoding", acceptEncoding);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+}
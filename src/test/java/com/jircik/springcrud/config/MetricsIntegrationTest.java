@@ -0,0 +1,77 @@
+package com.jircik.springcrud.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.micrometer.metrics.test.autoconfigure.AutoConfigureMetrics;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica que as métricas de endpoint, serviço, Hibernate e pool chegam ao registry e ao /actuator/prometheus.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:metrics;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.threads.virtual.enabled=true",
+        "app.threads.pinning-monitor.enabled=false",
+        "management.endpoints.web.exposure.include=prometheus",
+        "management.observations.annotations.enabled=true",
+        "management.metrics.distribution.percentiles-histogram.http.server.requests=true"
+})
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+class MetricsIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Test
+    void requests_shouldRecordServiceTimersAndQueriesPerRequest() throws Exception {
+        // Arrange
+        mockMvc.perform(post("/api/v1/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Metrics\",\"email\":\"metrics@test.com\"}"))
+                .andExpect(status().isCreated());
+
+        // Act
+        mockMvc.perform(get("/api/v1/users/name/Metrics")).andExpect(status().isOk());
+
+        // Assert
+        assertEquals(1, registry.get("users.service").tag("method", "getUserByName").timer().count());
+        assertEquals(1, registry.get("users.service").tag("method", "insertUser").timer().count());
+        assertTrue(registry.get("http.server.requests.queries")
+                .tag("uri", "/api/v1/users/name/{name}").summary().totalAmount() >= 1);
+        assertTrue(registry.get("hibernate.statements").tag("status", "prepared").functionCounter().count() >= 2);
+        assertNotNull(registry.get("hikaricp.connections.active").gauge());
+        assertNotNull(registry.get("db.gate.waiting").gauge());
+        assertNotNull(registry.get("http.server.concurrency.limit").tag("group", "read").gauge());
+    }
+
+    @Test
+    void prometheusEndpoint_shouldExposeLatencyHistogramsAndPoolGauges() throws Exception {
+        // Arrange
+        mockMvc.perform(get("/api/v1/users")).andExpect(status().isOk());
+
+        // Act & Assert
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("http_server_requests_seconds_bucket")))
+                .andExpect(content().string(containsString("users_service_seconds_bucket")))
+                .andExpect(content().string(containsString("hikaricp_connections_pending")))
+                .andExpect(content().string(containsString("hikaricp_connections_acquire_seconds")))
+                .andExpect(content().string(containsString("db_gate_acquire_seconds")));
+    }
+}
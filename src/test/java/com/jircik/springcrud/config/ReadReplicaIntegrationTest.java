@@ -0,0 +1,157 @@
+package com.jircik.springcrud.config;
+
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Roteamento leitura/escrita com dois bancos H2 em memória fazendo papel de primário e réplica.
+ * A réplica não recebe replicação: o que existe só nela ou só no primário mostra de onde veio a leitura.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ReadReplicaIntegrationTest.PRIMARY_URL,
+        "app.datasource.read.replicas[0].url=" + ReadReplicaIntegrationTest.REPLICA_URL,
+        "app.datasource.read.primary-after-write=1m"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ReadReplicaIntegrationTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE";
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @BeforeAll
+    void setUpReplica() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(REPLICA_URL, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("create table if not exists app_user (id integer primary key, name varchar(255) not null,"
+                    + " email varchar(255) not null unique, version bigint default 0 not null)");
+            statement.execute("merge into app_user key (id) values (1000, 'Replica Only', 'replica@routing.com', 0)");
+        }
+    }
+
+    @Test
+    void reads_shouldBeServedByTheReplica() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/users"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("Replica Only")));
+        mockMvc.perform(get("/api/v1/users/name/Replica Only").param("fields", "name")).andExpect(status().isOk());
+    }
+
+    @Test
+    void cachedLookups_shouldLoadFromThePrimary() throws Exception {
+        // Act & Assert: o que vai para o cache não vem da réplica
+        mockMvc.perform(get("/api/v1/users/name/Replica Only")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/v1/users/1000")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void laggingReplica_shouldNotReachTheCache_orTheWriter() throws Exception {
+        // Arrange: a réplica ainda tem a linha como estava antes da atualização
+        mockMvc.perform(post("/api/v1/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Lagging\",\"email\":\"lagging@routing.com\"}"))
+                .andExpect(status().isCreated());
+        int id = idByEmail(PRIMARY_URL, "lagging@routing.com");
+        try (Connection connection = DriverManager.getConnection(REPLICA_URL, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("merge into app_user key (id) values (" + id + ", 'Lagging', 'lagging@routing.com', 0)");
+        }
+
+        // Act: o dono da escrita renomeia; outro cliente, sem o cookie, lê logo depois e preenche o cache
+        Cookie pin = mockMvc.perform(patch("/api/v1/users/" + id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Caught Up\"}"))
+                .andExpect(status().isNoContent())
+                .andReturn().getResponse().getCookie(ReadYourWritesFilter.COOKIE);
+        mockMvc.perform(get("/api/v1/users/" + id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Caught Up"));
+
+        // Assert: quem escreveu vê a própria escrita, e o ETag (versão do cache) não devolve 304 para a versão antiga
+        assertNotNull(pin);
+        mockMvc.perform(get("/api/v1/users/" + id).cookie(pin))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Caught Up"))
+                .andExpect(header().string("ETag", "\"1\""));
+        mockMvc.perform(get("/api/v1/users/" + id).cookie(pin).header("If-None-Match", "\"0\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void writes_shouldGoToThePrimary_andPinTheWriterToIt() throws Exception {
+        // Act
+        Cookie pin = mockMvc.perform(post("/api/v1/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Writer\",\"email\":\"writer@routing.com\"}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getCookie(ReadYourWritesFilter.COOKIE);
+
+        // Assert: gravado só no primário
+        assertEquals(1, countByEmail(PRIMARY_URL, "writer@routing.com"));
+        assertEquals(0, countByEmail(REPLICA_URL, "writer@routing.com"));
+
+        // Assert: quem escreveu lê do primário; os demais clientes continuam na réplica
+        assertNotNull(pin);
+        mockMvc.perform(get("/api/v1/users").cookie(pin))
+                .andExpect(content().string(containsString("Writer")))
+                .andExpect(content().string(not(containsString("Replica Only"))));
+        mockMvc.perform(get("/api/v1/users"))
+                .andExpect(content().string(not(containsString("Writer"))));
+    }
+
+    @Test
+    void expiredPin_shouldReadFromTheReplicaAgain() throws Exception {
+        // Arrange
+        Cookie expired = new Cookie(ReadYourWritesFilter.COOKIE, Long.toString(System.currentTimeMillis() - 1));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/users").cookie(expired))
+                .andExpect(content().string(containsString("Replica Only")));
+    }
+
+    private static int idByEmail(String url, String email) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("select id from app_user where email = '" + email + "'")) {
+            assertTrue(rows.next());
+            return rows.getInt(1);
+        }
+    }
+
+    private static int countByEmail(String url, String email) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("select count(*) from app_user where email = '" + email + "'")) {
+            rows.next();
+            return rows.getInt(1);
+        }
+    }
+}
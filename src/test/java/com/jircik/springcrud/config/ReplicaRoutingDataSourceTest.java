@@ -0,0 +1,124 @@
+package com.jircik.springcrud.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Testes unitários do rodízio entre réplicas, do failover e da fixação no primário.
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private final DataSource primary = mock(DataSource.class);
+    private final DataSource replica1 = mock(DataSource.class);
+    private final DataSource replica2 = mock(DataSource.class);
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection replica1Connection = mock(Connection.class);
+    private final Connection replica2Connection = mock(Connection.class);
+    private final MutableClock clock = new MutableClock();
+    private final ReplicaRoutingDataSource routing;
+
+    ReplicaRoutingDataSourceTest() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica1.getConnection()).thenReturn(replica1Connection);
+        when(replica2.getConnection()).thenReturn(replica2Connection);
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-1", replica1);
+        replicas.put("replica-2", replica2);
+        routing = new ReplicaRoutingDataSource(primary, replicas, Duration.ofSeconds(10), clock);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReplicaRoutingDataSource.pinToPrimary(false);
+    }
+
+    @Test
+    void getConnection_shouldRoundRobinBetweenReplicas() throws SQLException {
+        // Act & Assert
+        assertSame(replica1Connection, routing.getConnection());
+        assertSame(replica2Connection, routing.getConnection());
+        assertSame(replica1Connection, routing.getConnection());
+        verifyNoInteractions(primary);
+    }
+
+    @Test
+    void getConnection_shouldSkipAFailedReplica_untilTheCooldownExpires() throws SQLException {
+        // Arrange
+        when(replica1.getConnection()).thenThrow(new SQLTransientConnectionException("replica-1 down"));
+
+        // Act: a falha cai na réplica seguinte e tira a replica-1 do rodízio
+        Connection first = routing.getConnection();
+        Connection second = routing.getConnection();
+        int availableDuringCooldown = routing.getAvailableCount();
+        clock.advance(Duration.ofSeconds(11));
+        routing.getConnection();
+        routing.getConnection();
+
+        // Assert: tentada uma vez, pulada no cooldown e tentada de novo depois dele
+        assertSame(replica2Connection, first);
+        assertSame(replica2Connection, second);
+        assertEquals(1, availableDuringCooldown);
+        verify(replica1, times(2)).getConnection();
+    }
+
+    @Test
+    void getConnection_shouldFallBackToThePrimary_whenNoReplicaIsAvailable() throws SQLException {
+        // Arrange
+        when(replica1.getConnection()).thenThrow(new SQLTransientConnectionException("replica-1 down"));
+        when(replica2.getConnection()).thenThrow(new SQLTransientConnectionException("replica-2 down"));
+
+        // Act & Assert
+        assertSame(primaryConnection, routing.getConnection());
+        assertSame(primaryConnection, routing.getConnection());
+        assertEquals(0, routing.getAvailableCount());
+    }
+
+    @Test
+    void getConnection_shouldUseThePrimary_whenPinned() throws SQLException {
+        // Arrange
+        ReplicaRoutingDataSource.pinToPrimary(true);
+
+        // Act & Assert
+        assertSame(primaryConnection, routing.getConnection());
+        verifyNoInteractions(replica1, replica2);
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package com.jircik.springcrud.config;
+
+import com.jircik.springcrud.dto.ReshardResult;
+import com.jircik.springcrud.dto.ShardStats;
+import com.jircik.springcrud.dto.UserPage;
+import com.jircik.springcrud.dto.UserPatch;
+import com.jircik.springcrud.model.User;
+import com.jircik.springcrud.repository.ShardRing;
+import com.jircik.springcrud.repository.ShardedUserRepository;
+import com.jircik.springcrud.service.UserExportService;
+import com.jircik.springcrud.service.UserService;
+import com.jircik.springcrud.service.UserVersionMismatchException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Modo particionado com quatro bancos H2 em memória: o primário (diretório e sequence) e três shards. Os testes
+ * começam com o anel em shard-1 e shard-2; shard-3 entra pelo rebalanceamento. As asserções leem os shards direto
+ * pelo JDBC para ver onde cada linha ficou.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:sharding-directory;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+        "app.sharding.shards[0].name=shard-1",
+        "app.sharding.shards[0].url=" + ShardingIntegrationTest.SHARD_1,
+        "app.sharding.shards[1].name=shard-2",
+        "app.sharding.shards[1].url=" + ShardingIntegrationTest.SHARD_2,
+        "app.sharding.shards[2].name=shard-3",
+        "app.sharding.shards[2].url=" + ShardingIntegrationTest.SHARD_3,
+        "app.sharding.ring=shard-1,shard-2",
+        "app.sharding.move-batch-size=50"
+})
+@AutoConfigureMockMvc
+class ShardingIntegrationTest {
+
+    static final String SHARD_1 = "jdbc:h2:mem:sharding-1;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE";
+    static final String SHARD_2 = "jdbc:h2:mem:sharding-2;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE";
+    static final String SHARD_3 = "jdbc:h2:mem:sharding-3;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE";
+    private static final String DIRECTORY = "jdbc:h2:mem:sharding-directory;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE";
+    private static final Map<String, String> SHARDS = Map.of("shard-1", SHARD_1, "shard-2", SHARD_2, "shard-3", SHARD_3);
+    private static final List<String> INITIAL_RING = List.of("shard-1", "shard-2");
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserExportService userExportService;
+
+    @Autowired
+    private ShardedUserRepository shardedUserRepository;
+
+    @Autowired
+    private ShardEndpoint shardEndpoint;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @AfterEach
+    void cleanUp() throws SQLException {
+        for (String url : SHARDS.values()) {
+            execute(url, "delete from app_user");
+        }
+        execute(DIRECTORY, "delete from user_directory");
+        shardedUserRepository.setRing(new ShardRing(INITIAL_RING, 128));
+    }
+
+    @Test
+    void insert_shouldPlaceEachUserOnItsRingOwner_andRegisterItInTheDirectory() throws SQLException {
+        // Act
+        List<User> users = insert(100, "place");
+
+        // Assert: só os shards do anel recebem usuários, cada um no dono pelo hash
+        Map<Integer, String> directory = directory();
+        for (User user : users) {
+            String owner = shardedUserRepository.getRing().ownerOf(user.getId());
+            assertTrue(rows(SHARDS.get(owner)).containsKey(user.getId()));
+            assertEquals(owner, directory.get(user.getId()));
+        }
+        assertTrue(rows(SHARD_1).size() > 20);
+        assertTrue(rows(SHARD_2).size() > 20);
+        assertTrue(rows(SHARD_3).isEmpty());
+        assertEquals(100, users.stream().map(User::getId).distinct().count());
+    }
+
+    @Test
+    void lookups_shouldRouteById_andUseTheDirectoryForNames() {
+        // Arrange
+        List<User> users = insert(20, "lookup");
+        User user = users.get(7);
+
+        // Act & Assert
+        assertEquals("user7@lookup.com", userService.getUserById(user.getId()).getEmail());
+        assertEquals(user.getId(), userService.getUserByName("Lookup 7").getId());
+        assertEquals(user.getId(), shardedUserRepository.findByEmail("user7@lookup.com").orElseThrow().getId());
+        assertEquals(0L, userService.getUserVersionById(user.getId()));
+        assertThrows(IllegalStateException.class, () -> userService.getUserById(-1));
+    }
+
+    @Test
+    void lookups_shouldIgnoreShardRowsWithoutADirectoryEntry() throws SQLException {
+        // Arrange: sobra num shard, no dono pelo anel, sem linha no diretório
+        int id = 999_999;
+        execute(SHARDS.get(shardedUserRepository.getRing().ownerOf(id)),
+                "insert into app_user (id, name, email, version) values (" + id + ", 'Orphan', 'orphan@lookup.com', 0)");
+
+        // Act & Assert
+        assertTrue(shardedUserRepository.findById(id).isEmpty());
+        assertThrows(IllegalStateException.class, () -> userService.getUserById(id));
+    }
+
+    @Test
+    void writes_shouldBeUndoneOnTheShards_whenThePrimaryTransactionFailsToCommit() throws SQLException {
+        // Arrange
+        List<User> users = insert(2, "rollback");
+        User renamed = users.getFirst();
+        User deleted = users.getLast();
+        User inserted = new User(null, "Inserted", "inserted@rollback.com");
+
+        // Act: as escritas no shard já rodaram no commit quando uma sincronização registrada depois falha
+        assertThrows(IllegalStateException.class, () -> transactionTemplate.executeWithoutResult(status -> {
+            userService.insertUser(inserted);
+            userService.updateUser(new User(renamed.getId(), "Renamed", null), 0L);
+            userService.deleteById(deleted.getId());
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    throw new IllegalStateException("Simulated failure after the shard writes");
+                }
+            });
+        }));
+
+        // Assert: shards e diretório como antes da transação
+        Map<Integer, String> found = new HashMap<>();
+        for (String url : SHARDS.values()) {
+            found.putAll(rows(url));
+        }
+        assertEquals(Map.of(renamed.getId(), "Rollback 0", deleted.getId(), "Rollback 1"), found);
+        assertEquals(2, directory().size());
+        assertEquals(0L, userService.getUserById(renamed.getId()).getVersion());
+        assertEquals("Rollback 1", userService.getUserById(deleted.getId()).getName());
+    }
+
+    @Test
+    void email_shouldBeUniqueAcrossShards() {
+        // Arrange: com 20 usuários os dois shards do anel já têm linhas
+        insert(20, "unique");
+
+        // Act & Assert: o índice único do diretório cobre todos os shards
+        for (int i = 0; i < 10; i++) {
+            User duplicate = new User(null, "Duplicate " + i, "user" + i + "@unique.com");
+            assertThrows(DataIntegrityViolationException.class, () -> userService.insertUser(duplicate));
+        }
+        assertEquals(20, shardedUserRepository.count());
+    }
+
+    @Test
+    void listings_shouldMergeAllShardsInIdOrder() {
+        // Arrange
+        List<Integer> ids = insert(30, "list").stream().map(User::getId).toList();
+
+        // Act
+        List<Integer> all = userService.getUsers().stream().map(User::getId).toList();
+        UserPage<User> first = userService.getUsersAfter(null, 12);
+        UserPage<User> second = userService.getUsersAfter(first.nextCursor(), 12);
+        UserPage<User> last = userService.getUsersAfter(second.nextCursor(), 12);
+
+        // Assert
+        assertEquals(ids, all);
+        List<Integer> paged = new ArrayList<>();
+        List.of(first, second, last).forEach(page -> page.items().forEach(user -> paged.add(user.getId())));
+        assertEquals(ids, paged);
+        assertNull(last.nextCursor());
+    }
+
+    @Test
+    void export_shouldMergeTheShardCursorsInIdOrder() {
+        // Arrange
+        List<User> users = insert(40, "export");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        long written = userExportService.exportNdjson(out);
+
+        // Assert
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(40, written);
+        assertEquals(40, lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            assertTrue(lines[i].contains("\"id\":" + users.get(i).getId() + ","), lines[i]);
+        }
+    }
+
+    @Test
+    void writes_shouldGoToTheShardHoldingTheUser() throws SQLException {
+        // Arrange
+        User user = insert(5, "write").get(3);
+        String shard = SHARDS.get(shardedUserRepository.getRing().ownerOf(user.getId()));
+
+        // Act
+        userService.updateUser(new User(user.getId(), "Renamed", null), 0L);
+        userService.patchUser(user.getId(), new UserPatch(null, "renamed@write.com"), 1L);
+
+        // Assert
+        assertEquals("Renamed", rows(shard).get(user.getId()));
+        User updated = userService.getUserById(user.getId());
+        assertEquals("renamed@write.com", updated.getEmail());
+        assertEquals(2L, updated.getVersion());
+        assertThrows(UserVersionMismatchException.class,
+                () -> userService.updateUser(new User(user.getId(), "Stale", null), 0L));
+
+        // Act: remoção pelo nome limpa shard e diretório
+        userService.deleteByName("Renamed");
+
+        // Assert
+        assertFalse(rows(shard).containsKey(user.getId()));
+        assertFalse(directory().containsKey(user.getId()));
+        assertThrows(IllegalStateException.class, () -> userService.deleteById(user.getId()));
+        // Assert: escritas nos shards não passam pelo outbox
+        assertTrue(query(DIRECTORY, "select id, change_type from user_change").isEmpty());
+    }
+
+    @Test
+    void reshard_shouldMoveUsersToTheNewShard_whileTheyAreBeingUpdated() throws Exception {
+        // Arrange
+        List<User> users = insert(300, "reshard");
+        Map<Integer, String> lastNames = new ConcurrentHashMap<>();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicInteger writerErrors = new AtomicInteger();
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+            for (int round = 0; writing.get(); round++) {
+                for (User user : users) {
+                    String name = "Round " + round + " " + user.getId();
+                    try {
+                        userService.updateUser(new User(user.getId(), name, null));
+                        lastNames.put(user.getId(), name);
+                    } catch (RuntimeException ex) {
+                        writerErrors.incrementAndGet();
+                    }
+                }
+            }
+        });
+
+        // Act: shard-3 entra no anel com as escritas rodando
+        ReshardResult result = shardEndpoint.reshard(List.of("shard-1", "shard-2", "shard-3"));
+        writing.set(false);
+        writer.get();
+
+        // Assert: cada usuário está uma vez só, no dono novo, com a última escrita
+        assertEquals(0, result.failed());
+        assertEquals(0, writerErrors.get());
+        ShardRing ring = shardedUserRepository.getRing();
+        Map<Integer, String> directory = directory();
+        Map<Integer, String> found = new HashMap<>();
+        for (Map.Entry<String, String> shard : SHARDS.entrySet()) {
+            rows(shard.getValue()).forEach((id, name) -> {
+                assertNull(found.put(id, name), "User " + id + " on more than one shard");
+                assertEquals(ring.ownerOf(id), shard.getKey());
+                assertEquals(shard.getKey(), directory.get(id));
+            });
+        }
+        assertEquals(300, found.size());
+        users.forEach(user -> assertEquals(lastNames.getOrDefault(user.getId(), user.getName()), found.get(user.getId())));
+        assertEquals(result.moved(), rows(SHARD_3).size());
+        assertTrue(result.moved() > 50, "Moved only " + result.moved());
+
+        ShardStats stats = shardEndpoint.shards();
+        assertEquals(List.of("shard-1", "shard-2", "shard-3"), stats.ring());
+        assertEquals(300, stats.shards().stream().mapToLong(ShardStats.Shard::users).sum());
+    }
+
+    @Test
+    void reads_shouldFindUsersNotMovedYet_afterTheRingChanges() {
+        // Arrange
+        List<User> users = insert(60, "pending");
+
+        // Act: anel novo sem mover ninguém (como no meio de um rebalanceamento)
+        shardedUserRepository.setRing(new ShardRing(List.of("shard-1", "shard-2", "shard-3"), 128));
+
+        // Assert: quem o anel manda para shard-3 ainda é achado pelo diretório
+        for (User user : users) {
+            assertEquals(user.getEmail(), shardedUserRepository.findById(user.getId()).orElseThrow().getEmail());
+        }
+        assertEquals(60, userService.getUsers().size());
+    }
+
+    @Test
+    void unsupportedEndpoints_shouldAnswer501() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/users/count")).andExpect(status().isNotImplemented());
+        mockMvc.perform(get("/api/v1/users").param("page", "0")).andExpect(status().isNotImplemented());
+        mockMvc.perform(get("/api/v1/users")).andExpect(status().isOk());
+    }
+
+    private List<User> insert(int count, String domain) {
+        List<User> users = new ArrayList<>();
+        String name = Character.toUpperCase(domain.charAt(0)) + domain.substring(1);
+        for (int i = 0; i < count; i++) {
+            User user = new User(null, name + " " + i, "user" + i + "@" + domain + ".com");
+            userService.insertUser(user);
+            users.add(user);
+        }
+        return users;
+    }
+
+    private static Map<Integer, String> rows(String url) throws SQLException {
+        return query(url, "select id, name from app_user");
+    }
+
+    private static Map<Integer, String> directory() throws SQLException {
+        return query(DIRECTORY, "select id, shard from user_directory");
+    }
+
+    private static Map<Integer, String> query(String url, String sql) throws SQLException {
+        Map<Integer, String> rows = new HashMap<>();
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            while (resultSet.next()) {
+                rows.put(resultSet.getInt(1), resultSet.getString(2));
+            }
+        }
+        return rows;
+    }
+
+    private static void execute(String url, String sql) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.jircik.springcrud.config;
+
+import com.jircik.springcrud.dto.SlowQueryReport;
+import com.jircik.springcrud.model.User;
+import com.jircik.springcrud.service.UserBulkService;
+import com.jircik.springcrud.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica a interceptação do DataSource: origem de cada statement, batches e o endpoint do actuator.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:slowquery;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+        "management.endpoints.web.exposure.include=slowqueries",
+        "app.users.cache.enabled=false",
+        "app.users.bulk.chunk-size=50"
+})
+@AutoConfigureMockMvc
+class SlowQueryIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SlowQueryLog slowQueryLog;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserBulkService userBulkService;
+
+    @BeforeEach
+    void setUp() {
+        slowQueryLog.reset();
+    }
+
+    @Test
+    void statements_shouldBeAttributedToTheOriginatingServiceMethod() {
+        // Arrange
+        userService.insertUser(new User(null, "Origin", "origin@test.com"));
+        slowQueryLog.reset();
+
+        // Act
+        userService.getUserByName("Origin");
+
+        // Assert: ignora os statements das threads de fundo (relay do feed, filtro de e-mails) sobre user_change
+        SlowQueryReport.Query query = slowQueryLog.report().slowest().stream()
+                .filter(candidate -> !candidate.sql().contains("user_change"))
+                .findFirst().orElseThrow();
+        assertEquals("UserService.getUserByName", query.origin());
+        assertEquals(1, query.parameters());
+        assertTrue(query.sql().contains("app_user"));
+    }
+
+    @Test
+    void batchedInserts_shouldBeRecordedOnceWithTheirBatchSize() {
+        // Arrange
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            users.add(new User(null, "Batch " + i, "batch" + i + "@test.com"));
+        }
+
+        // Act
+        userBulkService.createAll(users.iterator());
+
+        // Assert: o INSERT ... SELECT do outbox (user_change) também começa com insert
+        SlowQueryReport.Query insert = slowQueryLog.report().slowest().stream()
+                .filter(query -> query.sql().startsWith("insert into app_user"))
+                .findFirst().orElseThrow();
+        assertEquals(50, insert.batchSize());
+        assertEquals("UserBulkService.createAll", insert.origin());
+    }
+
+    @Test
+    void actuatorEndpoint_shouldExposeTheReport() throws Exception {
+        // Arrange
+        userService.getUsers();
+
+        // Act & Assert
+        mockMvc.perform(get("/actuator/slowqueries"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.recorded").isNumber())
+                .andExpect(jsonPath("$.slowest[*].origin", hasItem("UserService.getUsers")))
+                .andExpect(jsonPath("$.topShapes[0].count").isNumber());
+    }
+}
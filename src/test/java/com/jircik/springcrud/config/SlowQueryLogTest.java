@@ -0,0 +1,98 @@
+package com.jircik.springcrud.config;
+
+import com.jircik.springcrud.dto.SlowQueryReport;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes unitários do top das consultas mais lentas e da agregação por forma de SQL.
+ */
+class SlowQueryLogTest {
+
+    private final SlowQueryLog slowQueryLog =
+            new SlowQueryLog(new SlowQueryProperties(true, Duration.ofSeconds(10), 0, 3, 100));
+
+    @Test
+    void normalize_shouldReplaceLiteralsAndCollapseInLists() {
+        // Act
+        String shape = SlowQueryLog.normalize(
+                "select u1_0.id from app_user u1_0\n  where u1_0.name = 'O''Brien' and u1_0.id in (?, ?, ?) limit 10");
+
+        // Assert: aliases do Hibernate (u1_0) ficam intactos
+        assertEquals("select u1_0.id from app_user u1_0 where u1_0.name = ? and u1_0.id in (?...) limit ?", shape);
+    }
+
+    @Test
+    void report_shouldAggregateShapesByTotalTime() {
+        // Arrange
+        slowQueryLog.record("select * from app_user where id = 1", 1_000_000, 0, 1);
+        slowQueryLog.record("select * from app_user where id = 2", 3_000_000, 0, 1);
+        slowQueryLog.record("delete from app_user where id = ?", 1_000_000, 1, 1);
+
+        // Act
+        List<SlowQueryReport.Shape> shapes = slowQueryLog.report().topShapes();
+
+        // Assert
+        assertEquals(2, shapes.size());
+        assertEquals("select * from app_user where id = ?", shapes.getFirst().sql());
+        assertEquals(2, shapes.getFirst().count());
+        assertEquals(4.0, shapes.getFirst().totalMillis(), 0.001);
+        assertEquals(3.0, shapes.getFirst().maxMillis(), 0.001);
+    }
+
+    @Test
+    void slowest_shouldKeepTheSlowQueries_afterThousandsOfFastOnes() {
+        // Arrange: as lentas vêm primeiro e são seguidas por muitas rápidas
+        slowQueryLog.record("select slow 1", 100_000_000, 0, 1);
+        slowQueryLog.record("select slow 2", 300_000_000, 0, 1);
+        slowQueryLog.record("select slow 3", 200_000_000, 0, 1);
+        for (int i = 0; i < 10_000; i++) {
+            slowQueryLog.record("select fast", 1_000_000, 0, 1);
+        }
+        slowQueryLog.record("select slow 4", 150_000_000, 0, 1);
+
+        // Act
+        SlowQueryReport report = slowQueryLog.report();
+
+        // Assert: top 3, do mais lento para o menos lento
+        assertEquals(10_004, report.recorded());
+        assertEquals(List.of("select slow 2", "select slow 3", "select slow 4"),
+                report.slowest().stream().map(SlowQueryReport.Query::sql).toList());
+    }
+
+    @Test
+    void reset_shouldEmptyTheSlowest() {
+        // Arrange
+        slowQueryLog.record("select slow", 100_000_000, 0, 1);
+
+        // Act
+        slowQueryLog.reset();
+        slowQueryLog.record("select after", 1_000, 0, 1);
+
+        // Assert
+        assertEquals(List.of("select after"), slowQueryLog.report().slowest().stream().map(SlowQueryReport.Query::sql).toList());
+    }
+
+    @Test
+    void shapes_shouldOverflowIntoOther_whenLimitIsReached() {
+        // Arrange
+        SlowQueryLog limited = new SlowQueryLog(new SlowQueryProperties(true, Duration.ofSeconds(10), 0, 10, 2));
+
+        // Act
+        limited.record("select a from t", 1, 0, 1);
+        limited.record("select b from t", 1, 0, 1);
+        limited.record("select c from t", 1, 0, 1);
+
+        // Assert
+        assertTrue(limited.report().topShapes().stream().anyMatch(shape -> shape.sql().equals("(other)")));
+    }
+
+    @Test
+    void countPlaceholders_shouldIgnoreQuestionMarksInsideLiterals() {
+        assertEquals(2, QueryTracingDataSource.countPlaceholders("select * from t where a = ? and b = '?' and c = ?"));
+    }
+}
@@ -0,0 +1,39 @@
+package com.jircik.springcrud.config;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica que o gate na frente do pool só envolve o DataSource no modo com virtual threads.
+ */
+class VirtualThreadConfigurationTest {
+
+    private final ApplicationContextRunner runner = new ApplicationContextRunner()
+            .withUserConfiguration(VirtualThreadConfiguration.class)
+            .withBean(DatabaseGateProperties.class, () -> new DatabaseGateProperties(true, 10, Duration.ofSeconds(30)))
+            .withBean(DataSource.class, JdbcDataSource::new)
+            .withPropertyValues("app.threads.pinning-monitor.enabled=false");
+
+    @Test
+    void gate_shouldNotWrapTheDataSource_withPlatformThreads() {
+        // Act & Assert
+        runner.run(context -> assertFalse(context.getBean(DataSource.class) instanceof ConcurrencyLimitedDataSource));
+        runner.withPropertyValues("spring.threads.virtual.enabled=false")
+                .run(context -> assertFalse(context.getBean(DataSource.class) instanceof ConcurrencyLimitedDataSource));
+    }
+
+    @Test
+    void gate_shouldWrapTheDataSource_withVirtualThreads() {
+        // Act & Assert
+        runner.withPropertyValues("spring.threads.virtual.enabled=true")
+                .run(context -> assertInstanceOf(ConcurrencyLimitedDataSource.class, context.getBean(DataSource.class)));
+        runner.withPropertyValues("spring.threads.virtual.enabled=true", "app.datasource.gate.enabled=false")
+                .run(context -> assertFalse(context.getBean(DataSource.class) instanceof ConcurrencyLimitedDataSource));
+    }
+}
@@ -0,0 +1,48 @@
+package com.jircik.springcrud.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica que o monitor enxerga uma virtual thread bloqueada dentro de um synchronized.
+ */
+class VirtualThreadPinningMonitorTest {
+
+    private final Object lock = new Object();
+
+    @Test
+    void shouldCountVirtualThreadsPinnedInsideSynchronized() throws Exception {
+        // Arrange
+        VirtualThreadPinningMonitor monitor = new VirtualThreadPinningMonitor(Duration.ofMillis(10));
+        monitor.start();
+        try {
+            // Act: dormir segurando um monitor prende a virtual thread à carrier thread
+            Thread.ofVirtual().start(() -> {
+                synchronized (lock) {
+                    sleep(50);
+                }
+            }).join();
+
+            // Assert: o JFR entrega os eventos em lotes, então espera um pouco
+            long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+            while (monitor.getPinnedCount() == 0 && System.nanoTime() < deadline) {
+                sleep(50);
+            }
+            assertTrue(monitor.getPinnedCount() > 0);
+        } finally {
+            monitor.stop();
+        }
+        assertFalse(monitor.isRunning());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,19 +1,64 @@
 package com.jircik.springcrud.controller;
 
+import com.jircik.springcrud.dto.BulkCreateResult;
+import com.jircik.springcrud.dto.BulkGetResult;
+import com.jircik.springcrud.dto.BulkUpdateResult;
+import com.jircik.springcrud.dto.EmailAvailability;
+import com.jircik.springcrud.dto.ImportResult;
+import com.jircik.springcrud.dto.UserCacheStats;
+import com.jircik.springcrud.dto.UserChangeEvent;
+import com.jircik.springcrud.dto.UserChangePage;
+import com.jircik.springcrud.dto.UserCount;
+import com.jircik.springcrud.dto.UserPage;
+import com.jircik.springcrud.dto.UserPatch;
+import com.jircik.springcrud.dto.UserSearchHit;
+import com.jircik.springcrud.dto.UserSearchResult;
+import com.jircik.springcrud.dto.UserWriteStatus;
 import com.jircik.springcrud.model.User;
+import com.jircik.springcrud.model.UserChange;
+import com.jircik.springcrud.model.UserField;
+import com.jircik.springcrud.service.UserBulkService;
+import com.jircik.springcrud.service.UserChangeFeed;
+import com.jircik.springcrud.service.UserCountService;
+import com.jircik.springcrud.service.UserEmailFilter;
+import com.jircik.springcrud.service.UserExportService;
+import com.jircik.springcrud.service.UserImportService;
+import com.jircik.springcrud.service.UserSearch;
 import com.jircik.springcrud.service.UserService;
+import com.jircik.springcrud.service.UserVersionMismatchException;
+import com.jircik.springcrud.service.WriteBehindRejectedException;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
-import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
-
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -28,9 +73,30 @@ class UserControllerTest {
     @Autowired
     private MockMvc mockMvc; // Objeto para simular requisições HTTP
 
-    @MockBean
+    @MockitoBean
     private UserService userService; // Mock do Service injetado no Controller
 
+    @MockitoBean
+    private UserExportService userExportService;
+
+    @MockitoBean
+    private UserBulkService userBulkService;
+
+    @MockitoBean
+    private UserCountService userCountService;
+
+    @MockitoBean
+    private UserImportService userImportService;
+
+    @MockitoBean
+    private UserChangeFeed userChangeFeed;
+
+    @MockitoBean
+    private UserEmailFilter userEmailFilter;
+
+    @MockitoBean
+    private UserSearch userSearch;
+
     private final User mockUser = new User(1, "Ana", "ana@test.com");
     private final String API_BASE = "/api/v1/users";
     private final String USER_JSON = """
@@ -56,6 +122,146 @@ class UserControllerTest {
                 .andExpect(jsonPath("$[0].name").value("Ana"));
     }
 
+    @Test
+    void getUsersAfter_shouldReturnPageWithNextCursor() throws Exception {
+        // Arrange
+        when(userService.getUsersAfter("abc", 1))
+                .thenReturn(new UserPage<>(List.of(mockUser), "next"));
+
+        // Act & Assert
+        mockMvc.perform(get(API_BASE).param("after", "abc").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(1))
+                .andExpect(jsonPath("$.nextCursor").value("next"));
+    }
+
+    @Test
+    void getUsersAfter_shouldReturnBadRequest_whenCursorIsInvalid() throws Exception {
+        // Arrange
+        when(userService.getUsersAfter("???", 10))
+                .thenThrow(new IllegalArgumentException("Invalid cursor: ???"));
+
+        // Act & Assert: Espera status 400
+        mockMvc.perform(get(API_BASE).param("after", "???").param("limit", "10"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Invalid cursor: ???"));
+    }
+
+    @Test
+    void getUsersWithFields_shouldReturnOnlyRequestedKeys() throws Exception {
+        // Arrange
+        when(userService.getUsers(EnumSet.of(UserField.ID, UserField.EMAIL)))
+                .thenReturn(List.of(Map.of("id", 1, "email", "ana@test.com")));
+
+        // Act & Assert
+        mockMvc.perform(get(API_BASE).param("fields", "email,id"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].email").value("ana@test.com"))
+                .andExpect(jsonPath("$[0].name").doesNotExist());
+    }
+
+    @Test
+    void getUserByIdWithFields_shouldKeepETag_andDropUnrequestedVersion() throws Exception {
+        // Arrange
+        when(userService.getUserFieldsById(1, EnumSet.of(UserField.EMAIL, UserField.VERSION)))
+                .thenReturn(new LinkedHashMap<>(Map.of("email", "ana@test.com", "version", 3L)));
+
+        // Act & Assert
+        mockMvc.perform(get(API_BASE + "/1").param("fields", "email"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(jsonPath("$.email").value("ana@test.com"))
+                .andExpect(jsonPath("$.version").doesNotExist());
+    }
+
+    @Test
+    void getUsersWithFields_shouldReturnBadRequest_whenFieldIsUnknown() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get(API_BASE).param("fields", "id,password"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Unknown field 'password'. Allowed: id,name,email,version"));
+    }
+
+    @Test
+    void getUsersPage_shouldReturnOffsetPage() throws Exception {
+        // Arrange
+        when(userService.getUsersPage(0, 20))
+                .thenReturn(new PageImpl<>(List.of(mockUser), PageRequest.of(0, 20), 1));
+
+        // Act & Assert
+        mockMvc.perform(get(API_BASE).param("page", "0"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].name").value("Ana"))
+                .andExpect(jsonPath("$.page.totalElements").value(1));
+    }
+
+    @Test
+    void exportUsers_shouldStreamNdjson() throws Exception {
+        // Arrange: o service escreve uma linha por usuário no stream da resposta
+        when(userExportService.exportNdjson(any(OutputStream.class))).thenAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(0);
+            out.write("{\"id\":1,\"name\":\"Ana\",\"email\":\"ana@test.com\"}\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        });
+
+        // Act: StreamingResponseBody é assíncrono, então despacha novamente após iniciar
+        MvcResult result = mockMvc.perform(get(API_BASE + "/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("{\"id\":1,\"name\":\"Ana\",\"email\":\"ana@test.com\"}\n"));
+    }
+
+    @Test
+    void getCacheStats_shouldReturnStatsPerIndex() throws Exception {
+        // Arrange
+        when(userService.getCacheStats())
+                .thenReturn(List.of(new UserCacheStats("byId", 10, 90, 10, 0.9, 2)));
+
+        // Act & Assert
+        mockMvc.perform(get(API_BASE + "/cache/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].cache").value("byId"))
+                .andExpect(jsonPath("$[0].hitRate").value(0.9));
+    }
+
+    @Test
+    void countUsers_shouldReportModeAndAge() throws Exception {
+        // Arrange
+        when(userCountService.count(UserCount.Mode.APPROXIMATE))
+                .thenReturn(new UserCount(1000, UserCount.Mode.APPROXIMATE, Instant.parse("2026-01-01T00:00:00Z"), 60000L));
+
+        // Act & Assert
+        mockMvc.perform(get(API_BASE + "/count").param("mode", "approximate"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(1000))
+                .andExpect(jsonPath("$.mode").value("APPROXIMATE"))
+                .andExpect(jsonPath("$.ageMillis").value(60000));
+    }
+
+    @Test
+    void countUsers_shouldDefaultToExact() throws Exception {
+        // Arrange
+        when(userCountService.count(UserCount.Mode.EXACT))
+                .thenReturn(new UserCount(3, UserCount.Mode.EXACT, Instant.now(), 0L));
+
+        // Act & Assert
+        mockMvc.perform(get(API_BASE + "/count"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.mode").value("EXACT"));
+    }
+
+    @Test
+    void countUsers_shouldReturnBadRequest_whenModeIsUnknown() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get(API_BASE + "/count").param("mode", "fast"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void getUserById_shouldReturnUser() throws Exception {
         // Arrange: Simula o service retornando o usuário
@@ -82,6 +288,42 @@ class UserControllerTest {
                 .andExpect(content().string("User not found"));
     }
 
+    @Test
+    void getUserById_shouldReturnETagWithVersion() throws Exception {
+        // Arrange
+        when(userService.getUserById(1)).thenReturn(new User(1, "Ana", "ana@test.com", 3L));
+
+        // Act & Assert
+        mockMvc.perform(get(API_BASE + "/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""));
+    }
+
+    @Test
+    void getUserById_shouldReturnNotModified_withoutLoadingUser_whenETagMatches() throws Exception {
+        // Arrange: só a versão é consultada
+        when(userService.getUserVersionById(1)).thenReturn(3L);
+
+        // Act & Assert: Espera 304 sem corpo
+        mockMvc.perform(get(API_BASE + "/1").header("If-None-Match", "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        verify(userService, never()).getUserById(any());
+    }
+
+    @Test
+    void getUserByName_shouldReturnBody_whenETagIsStale() throws Exception {
+        // Arrange
+        when(userService.getUserVersionByName("Ana")).thenReturn(4L);
+        when(userService.getUserByName("Ana")).thenReturn(new User(1, "Ana", "ana@test.com", 4L));
+
+        // Act & Assert
+        mockMvc.perform(get(API_BASE + "/name/Ana").header("If-None-Match", "\"3\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""))
+                .andExpect(jsonPath("$.version").value(4));
+    }
+
     @Test
     void getUserByName_shouldReturnUser() throws Exception {
         // Arrange
@@ -98,8 +340,8 @@ class UserControllerTest {
 
     @Test
     void insertUser_shouldReturnCreated() throws Exception {
-        // Arrange: Simula a inserção sem lançar exceção
-        doNothing().when(userService).insertUser(any(User.class));
+        // Arrange: Simula a inserção síncrona (sem token de write-behind)
+        when(userService.insertUser(any(User.class))).thenReturn(Optional.empty());
 
         // Act & Assert: Espera status 201 (Created)
         mockMvc.perform(post(API_BASE)
@@ -108,13 +350,144 @@ class UserControllerTest {
                 .andExpect(status().isCreated());
     }
 
+    @Test
+    void insertUser_shouldReturnAcceptedWithToken_inWriteBehindMode() throws Exception {
+        // Arrange
+        when(userService.insertUser(any(User.class))).thenReturn(Optional.of(UserWriteStatus.pending("abc")));
+
+        // Act & Assert: Espera status 202 (Accepted) e o link para acompanhar a gravação
+        mockMvc.perform(post(API_BASE)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(USER_JSON))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "http://localhost/api/v1/users/writes/abc"))
+                .andExpect(jsonPath("$.state").value("PENDING"));
+    }
+
+    @Test
+    void insertUser_shouldReturnTooManyRequests_whenWriteBehindQueueIsFull() throws Exception {
+        // Arrange
+        when(userService.insertUser(any(User.class)))
+                .thenThrow(new WriteBehindRejectedException("User write-behind queue is full (10000)"));
+
+        // Act & Assert: Espera status 429 e Retry-After
+        mockMvc.perform(post(API_BASE)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(USER_JSON))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "1"));
+    }
+
+    @Test
+    void getWriteStatus_shouldReturnOutcome_orNotFoundForUnknownToken() throws Exception {
+        // Arrange
+        when(userService.getWriteStatus("abc")).thenReturn(UserWriteStatus.failed("abc", "User with email ana@test.com already exists"));
+        when(userService.getWriteStatus("zzz")).thenThrow(new IllegalStateException("Unknown or expired write token zzz"));
+
+        // Act & Assert
+        mockMvc.perform(get(API_BASE + "/writes/abc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state").value("FAILED"))
+                .andExpect(jsonPath("$.error").value("User with email ana@test.com already exists"));
+        mockMvc.perform(get(API_BASE + "/writes/zzz"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void addUsers_shouldAcceptJsonArray_andReportPerItemResults() throws Exception {
+        // Arrange: o service consome o iterator e devolve um resultado por item
+        List<String> emails = new ArrayList<>();
+        when(userBulkService.createAll(any())).thenAnswer(invocation -> {
+            Iterator<User> users = invocation.getArgument(0);
+            users.forEachRemaining(user -> emails.add(user.getEmail()));
+            return new BulkCreateResult(1, 1, List.of(
+                    BulkCreateResult.Item.created(0, 10),
+                    BulkCreateResult.Item.failed(1, "User with email bob@test.com already exists")));
+        });
+
+        // Act & Assert
+        mockMvc.perform(post(API_BASE + "/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                [{"name": "Ana", "email": "ana@test.com"}, {"name": "Bob", "email": "bob@test.com"}]
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.items[1].status").value("FAILED"));
+        assertEquals(List.of("ana@test.com", "bob@test.com"), emails);
+    }
+
+    @Test
+    void addUsers_shouldAcceptNdjson() throws Exception {
+        // Arrange
+        List<String> emails = new ArrayList<>();
+        when(userBulkService.createAll(any())).thenAnswer(invocation -> {
+            Iterator<User> users = invocation.getArgument(0);
+            users.forEachRemaining(user -> emails.add(user.getEmail()));
+            return new BulkCreateResult(2, 0, List.of());
+        });
+
+        // Act & Assert
+        mockMvc.perform(post(API_BASE + "/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"name\":\"Ana\",\"email\":\"ana@test.com\"}\n{\"name\":\"Bob\",\"email\":\"bob@test.com\"}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(2));
+        assertEquals(List.of("ana@test.com", "bob@test.com"), emails);
+    }
+
+    @Test
+    void importUsers_shouldParseCsvWithHeader_ignoringUnknownColumns() throws Exception {
+        // Arrange
+        List<User> rows = new ArrayList<>();
+        when(userImportService.importUsers(any())).thenAnswer(invocation -> {
+            Iterator<User> users = invocation.getArgument(0);
+            users.forEachRemaining(rows::add);
+            return new ImportResult(1, 1, 0, 0, List.of());
+        });
+
+        // Act & Assert: colunas em outra ordem, espaços e uma coluna a mais vinda do sistema de origem
+        mockMvc.perform(post(API_BASE + "/import")
+                        .contentType("text/csv")
+                        .content("""
+                                email,department,name
+                                ana@test.com, RH ,Ana
+                                bob@test.com ,TI,"Silva, Bob"
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inserted").value(1))
+                .andExpect(jsonPath("$.updated").value(1));
+        assertEquals(List.of("ana@test.com", "bob@test.com"), rows.stream().map(User::getEmail).toList());
+        assertEquals("Silva, Bob", rows.get(1).getName());
+    }
+
+    @Test
+    void importUsers_shouldAcceptNdjson() throws Exception {
+        // Arrange
+        List<String> emails = new ArrayList<>();
+        when(userImportService.importUsers(any())).thenAnswer(invocation -> {
+            Iterator<User> users = invocation.getArgument(0);
+            users.forEachRemaining(user -> emails.add(user.getEmail()));
+            return new ImportResult(0, 0, 1, 1, List.of(new ImportResult.Rejection(1, "name and email are required")));
+        });
+
+        // Act & Assert
+        mockMvc.perform(post(API_BASE + "/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"name\":\"Ana\",\"email\":\"ana@test.com\"}\n{\"email\":\"bob@test.com\"}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.unchanged").value(1))
+                .andExpect(jsonPath("$.rejections[0].index").value(1));
+        assertEquals(List.of("ana@test.com", "bob@test.com"), emails);
+    }
+
     // --- TESTE PUT (UPDATE) ---
 
     // TESTE ADICIONADO: Update bem-sucedido
     @Test
     void updateUser_shouldReturnOk() throws Exception {
         // Arrange: Simula o update sem lançar exceção
-        doNothing().when(userService).updateUser(any(User.class));
+        doNothing().when(userService).updateUser(any(User.class), isNull());
 
         // Act & Assert: Espera status 200 (OK)
         mockMvc.perform(put(API_BASE)
@@ -129,7 +502,7 @@ class UserControllerTest {
         // Arrange
         String notFoundMessage = "User not found for update";
         // Simula o Service lançando a exceção
-        doThrow(new IllegalStateException(notFoundMessage)).when(userService).updateUser(any(User.class));
+        doThrow(new IllegalStateException(notFoundMessage)).when(userService).updateUser(any(User.class), isNull());
 
         // Act & Assert: Espera o status 404 (Not Found)
         mockMvc.perform(put(API_BASE)
@@ -139,6 +512,82 @@ class UserControllerTest {
                 .andExpect(content().string(notFoundMessage));
     }
 
+    @Test
+    void updateUser_shouldPassIfMatchVersion_andReturnPreconditionFailed_whenStale() throws Exception {
+        // Arrange
+        doThrow(new UserVersionMismatchException("User with ID 1 was modified"))
+                .when(userService).updateUser(any(User.class), eq(2L));
+
+        // Act & Assert: Espera 412 (Precondition Failed)
+        mockMvc.perform(put(API_BASE)
+                        .header("If-Match", "\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(USER_JSON))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(content().string("User with ID 1 was modified"));
+    }
+
+    @Test
+    void updateUser_shouldRejectWeakIfMatch() throws Exception {
+        // Act & Assert
+        mockMvc.perform(put(API_BASE)
+                        .header("If-Match", "W/\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(USER_JSON))
+                .andExpect(status().isPreconditionFailed());
+        verify(userService, never()).updateUser(any(User.class), any());
+    }
+
+    @Test
+    void updateUser_shouldReturnBadRequest_whenIfMatchIsMalformed() throws Exception {
+        // Act & Assert: sem aspas não é uma ETag
+        mockMvc.perform(put(API_BASE)
+                        .header("If-Match", "2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(USER_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Invalid If-Match header: 2"));
+        verify(userService, never()).updateUser(any(User.class), any());
+    }
+
+    @Test
+    void updateUser_shouldReturnBadRequest_whenIfMatchIsNotAVersion() throws Exception {
+        // Act & Assert
+        mockMvc.perform(put(API_BASE)
+                        .header("If-Match", "\"abc\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(USER_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("If-Match is not a user version: \"abc\""));
+        verify(userService, never()).updateUser(any(User.class), any());
+    }
+
+    // --- TESTES PATCH ---
+
+    @Test
+    void patchUser_shouldReturnNoContent() throws Exception {
+        // Act & Assert
+        mockMvc.perform(patch(API_BASE + "/1")
+                        .header("If-Match", "\"4\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\": \"ana.new@test.com\"}"))
+                .andExpect(status().isNoContent());
+        verify(userService).patchUser(1, new UserPatch(null, "ana.new@test.com"), 4L);
+    }
+
+    @Test
+    void patchUser_shouldReturnNotFound_whenUserDoesNotExist() throws Exception {
+        // Arrange
+        doThrow(new IllegalStateException("User with ID 99 does not exist and cannot be updated."))
+                .when(userService).patchUser(eq(99), any(UserPatch.class), isNull());
+
+        // Act & Assert
+        mockMvc.perform(patch(API_BASE + "/99")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Ghost\"}"))
+                .andExpect(status().isNotFound());
+    }
+
     // --- TESTES DELETE ---
 
     @Test
@@ -192,4 +641,199 @@ class UserControllerTest {
                 .andExpect(status().isNotFound()) // Espera 404
                 .andExpect(content().string(notFoundMessage));
     }
-}
\ No newline at end of file
+
+    // --- TESTES OPERAÇÕES EM LOTE ---
+
+    @Test
+    void getUsersByIds_shouldReturnOneItemPerId_inRequestOrder() throws Exception {
+        // Arrange
+        when(userBulkService.getByIds(List.of(2, 9, 1))).thenReturn(new BulkGetResult(2, 1, List.of(
+                BulkGetResult.Item.of(2, new User(2, "Bob", "bob@test.com")),
+                BulkGetResult.Item.of(9, null),
+                BulkGetResult.Item.of(1, new User(1, "Ana", "ana@test.com")))));
+
+        // Act & Assert
+        mockMvc.perform(get(API_BASE).param("ids", "2,9,1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.found").value(2))
+                .andExpect(jsonPath("$.items[0].user.name").value("Bob"))
+                .andExpect(jsonPath("$.items[1].id").value(9))
+                .andExpect(jsonPath("$.items[1].status").value("NOT_FOUND"));
+    }
+
+    @Test
+    void getUsersByIdsPost_shouldReturnBadRequest_whenTooManyIds() throws Exception {
+        // Arrange
+        when(userBulkService.getByIds(List.of(1, 2))).thenThrow(new IllegalArgumentException("At most 1 distinct ids per request, got 2"));
+
+        // Act & Assert
+        mockMvc.perform(post(API_BASE + "/bulk/get")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\": [1, 2]}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void removeUsersByIds_shouldReturnAffectedRows() throws Exception {
+        // Arrange
+        when(userBulkService.deleteByIds(List.of(1, 2, 3))).thenReturn(new BulkUpdateResult(2));
+
+        // Act & Assert
+        mockMvc.perform(post(API_BASE + "/bulk/delete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\": [1, 2, 3]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(2));
+    }
+
+    @Test
+    void removeUsersByEmailDomain_shouldReturnAffectedRows() throws Exception {
+        // Arrange
+        when(userBulkService.deleteByEmailDomain("test.com")).thenReturn(new BulkUpdateResult(5));
+
+        // Act & Assert
+        mockMvc.perform(delete(API_BASE).param("emailDomain", "test.com"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(5));
+    }
+
+    @Test
+    void removeUsersByNamePrefix_shouldReturnBadRequest_whenPrefixIsBlank() throws Exception {
+        // Arrange
+        when(userBulkService.deleteByNamePrefix(" ")).thenThrow(new IllegalArgumentException("namePrefix must not be blank"));
+
+        // Act & Assert
+        mockMvc.perform(delete(API_BASE).param("namePrefix", " "))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void rewriteEmailDomain_shouldReturnConflict_whenEmailsCollide() throws Exception {
+        // Arrange
+        when(userBulkService.rewriteEmailDomain("old.com", "new.com"))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+        // Act & Assert
+        mockMvc.perform(post(API_BASE + "/bulk/email-domain")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"from\": \"old.com\", \"to\": \"new.com\"}"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void renameUsers_shouldReturnAffectedRows() throws Exception {
+        // Arrange
+        when(userBulkService.renameByIds(List.of(1), "Ana Maria")).thenReturn(new BulkUpdateResult(1));
+
+        // Act & Assert
+        mockMvc.perform(post(API_BASE + "/bulk/rename")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\": [1], \"name\": \"Ana Maria\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(1));
+    }
+
+    // --- FEED DE ALTERAÇÕES ---
+
+    @Test
+    void getChanges_shouldReturnPageAfterOffset() throws Exception {
+        // Arrange
+        UserChangeEvent change = new UserChangeEvent(42, UserChange.Type.UPDATED, 1, "Ana", "ana@test.com", 3L,
+                Instant.parse("2026-01-01T00:00:00Z"));
+        when(userChangeFeed.read(41, 10)).thenReturn(new UserChangePage(List.of(change), 42));
+
+        // Act & Assert
+        mockMvc.perform(get(API_BASE + "/changes").param("after", "41").param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changes[0].offset").value(42))
+                .andExpect(jsonPath("$.changes[0].type").value("UPDATED"))
+                .andExpect(jsonPath("$.changes[0].version").value(3))
+                .andExpect(jsonPath("$.nextOffset").value(42));
+    }
+
+    @Test
+    void getChanges_shouldReturnBadRequest_whenOffsetIsNegative() throws Exception {
+        // Arrange
+        when(userChangeFeed.read(-1, 100)).thenThrow(new IllegalArgumentException("after must be >= 0"));
+
+        // Act & Assert
+        mockMvc.perform(get(API_BASE + "/changes").param("after", "-1"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getChangesHead_shouldReturnCurrentOffset() throws Exception {
+        // Arrange
+        when(userChangeFeed.head()).thenReturn(120L);
+
+        // Act & Assert
+        mockMvc.perform(get(API_BASE + "/changes/head"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changes").isEmpty())
+                .andExpect(jsonPath("$.nextOffset").value(120));
+    }
+
+    @Test
+    void streamChanges_shouldResumeFromLastEventId() throws Exception {
+        // Arrange
+        when(userChangeFeed.stream(anyLong())).thenReturn(new SseEmitter());
+
+        // Act
+        mockMvc.perform(get(API_BASE + "/changes/stream").param("after", "5").header("Last-Event-ID", "17")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted());
+
+        // Assert: o Last-Event-ID da reconexão tem prioridade sobre o after da URL
+        verify(userChangeFeed).stream(17);
+    }
+
+    // --- DISPONIBILIDADE DE E-MAIL ---
+
+    @Test
+    void getEmailAvailability_shouldReturnAnswerFromFilter() throws Exception {
+        // Arrange
+        when(userEmailFilter.check("ana@test.com")).thenReturn(new EmailAvailability("ana@test.com", false));
+
+        // Act & Assert
+        mockMvc.perform(get(API_BASE + "/email-availability").param("email", "ana@test.com"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.email").value("ana@test.com"))
+                .andExpect(jsonPath("$.available").value(false));
+    }
+
+    @Test
+    void getEmailAvailability_shouldReturnBadRequest_whenEmailIsBlank() throws Exception {
+        // Arrange
+        when(userEmailFilter.check(" ")).thenThrow(new IllegalArgumentException("email must not be blank"));
+
+        // Act & Assert
+        mockMvc.perform(get(API_BASE + "/email-availability").param("email", " "))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void searchUsers_shouldReturnRankedHits() throws Exception {
+        // Arrange
+        when(userSearch.search("ana", 0, 20)).thenReturn(new UserSearchResult("ana", List.of(
+                new UserSearchHit(1, "Ana", "ana@test.com", UserSearchHit.Match.EXACT),
+                new UserSearchHit(2, "Anabela", "anabela@test.com", UserSearchHit.Match.PREFIX)), 0, 20, false));
+
+        // Act & Assert
+        mockMvc.perform(get(API_BASE + "/search").param("q", "ana"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hits.length()").value(2))
+                .andExpect(jsonPath("$.hits[0].match").value("EXACT"))
+                .andExpect(jsonPath("$.hits[1].name").value("Anabela"))
+                .andExpect(jsonPath("$.hasNext").value(false));
+    }
+
+    @Test
+    void searchUsers_shouldReturnBadRequest_whenPageIsTooDeep() throws Exception {
+        // Arrange
+        when(userSearch.search("ana", 50, 100)).thenThrow(new IllegalArgumentException("page too deep"));
+
+        // Act & Assert
+        mockMvc.perform(get(API_BASE + "/search").param("q", "ana").param("page", "50").param("size", "100"))
+                .andExpect(status().isBadRequest());
+    }
+}
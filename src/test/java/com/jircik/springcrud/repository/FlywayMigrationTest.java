@@ -0,0 +1,44 @@
+package com.jircik.springcrud.repository;
+
+import com.jircik.springcrud.model.User;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Profile "migrations": o esquema vem só do Flyway. O ddl-auto=validate aqui faz o Hibernate conferir
+ * que as migrações batem com as entidades (em produção o profile usa none e não lê o esquema).
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:migrations;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        // A validação precisa dos metadados JDBC (sem eles o Hibernate procura o schema PUBLIC em maiúsculas no H2)
+        "spring.jpa.properties.hibernate.boot.allow_jdbc_metadata_access=true"
+})
+@ActiveProfiles("migrations")
+class FlywayMigrationTest {
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void migrations_shouldCreateTheSchemaMappedByTheEntities() {
+        // Act
+        User saved = userRepository.save(new User(null, "Migrated", "migrated@test.com"));
+
+        // Assert
+        MigrationInfo current = flyway.info().current();
+        assertEquals("2", current.getVersion().getVersion());
+        assertTrue(current.getState().isApplied());
+        assertEquals(0L, userRepository.findById(saved.getId()).orElseThrow().getVersion());
+    }
+}
@@ -0,0 +1,74 @@
+package com.jircik.springcrud.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes unitários do anel de hash consistente: distribuição equilibrada e movimentação mínima quando um
+ * shard entra.
+ */
+class ShardRingTest {
+
+    private static final int IDS = 100_000;
+
+    @Test
+    void ownerOf_shouldSpreadIdsEvenly() {
+        // Arrange
+        ShardRing ring = new ShardRing(List.of("a", "b", "c"), 128);
+        Map<String, Integer> counts = new HashMap<>();
+
+        // Act: IDs sequenciais, como os da sequence
+        for (int id = 1; id <= IDS; id++) {
+            counts.merge(ring.ownerOf(id), 1, Integer::sum);
+        }
+
+        // Assert: cada shard fica a menos de 20% da fatia ideal
+        assertEquals(3, counts.size());
+        counts.values().forEach(count -> assertEquals(IDS / 3.0, count, IDS / 3.0 * 0.2, "Unbalanced: " + counts));
+    }
+
+    @Test
+    void addingAShard_shouldOnlyMoveIdsToTheNewShard() {
+        // Arrange
+        ShardRing before = new ShardRing(List.of("a", "b", "c"), 128);
+        ShardRing after = new ShardRing(List.of("a", "b", "c", "d"), 128);
+        int moved = 0;
+
+        // Act
+        for (int id = 1; id <= IDS; id++) {
+            String from = before.ownerOf(id);
+            String to = after.ownerOf(id);
+            if (!from.equals(to)) {
+                assertEquals("d", to, "ID " + id + " moved between existing shards");
+                moved++;
+            }
+        }
+
+        // Assert: ~1/4 dos IDs, em vez dos ~3/4 de id % N
+        assertEquals(IDS / 4.0, moved, IDS / 4.0 * 0.2);
+    }
+
+    @Test
+    void ownerOf_shouldNotDependOnShardOrder() {
+        // Arrange
+        ShardRing ring = new ShardRing(List.of("a", "b", "c"), 64);
+        ShardRing reordered = new ShardRing(List.of("c", "a", "b"), 64);
+
+        // Act & Assert
+        for (int id = 1; id <= 1000; id++) {
+            assertEquals(ring.ownerOf(id), reordered.ownerOf(id));
+        }
+    }
+
+    @Test
+    void constructor_shouldRejectEmptyRing() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> new ShardRing(List.of(), 128));
+        assertThrows(IllegalArgumentException.class, () -> new ShardRing(List.of("a"), 0));
+    }
+}
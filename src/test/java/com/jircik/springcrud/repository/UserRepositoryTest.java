@@ -1,11 +1,18 @@
 package com.jircik.springcrud.repository;
 
 import com.jircik.springcrud.model.User;
+import com.jircik.springcrud.model.UserField;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
-import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.data.domain.Limit;
 
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -17,6 +24,9 @@ class UserRepositoryTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private EntityManager entityManager;
+
     @Test
     void findByName_shouldReturnUser() {
         User user = new User(null, "TestName", "test@repo.com");
@@ -34,4 +44,88 @@ class UserRepositoryTest {
 
         assertTrue(foundUser.isEmpty());
     }
+
+    @Test
+    void findByIdGreaterThan_shouldSeekAfterGivenIdInOrder() {
+        User first = userRepository.save(new User(null, "First", "first@repo.com"));
+        User second = userRepository.save(new User(null, "Second", "second@repo.com"));
+        User third = userRepository.save(new User(null, "Third", "third@repo.com"));
+
+        List<User> firstPage = userRepository.findAllByOrderByIdAsc(Limit.of(2));
+        List<User> nextPage = userRepository.findByIdGreaterThanOrderByIdAsc(second.getId(), Limit.of(2));
+
+        assertEquals(List.of(first.getId(), second.getId()), firstPage.stream().map(User::getId).toList());
+        assertEquals(List.of(third.getId()), nextPage.stream().map(User::getId).toList());
+    }
+
+    @Test
+    void deleteUserByName_shouldDeleteOnlyTheLowestIdWithThatName() {
+        User first = userRepository.save(new User(null, "Twin", "twin1@repo.com"));
+        User second = userRepository.save(new User(null, "Twin", "twin2@repo.com"));
+        userRepository.flush();
+
+        int deleted = userRepository.deleteUserByName("Twin");
+        entityManager.clear();
+
+        assertEquals(1, deleted);
+        assertTrue(userRepository.findById(first.getId()).isEmpty());
+        assertTrue(userRepository.findById(second.getId()).isPresent());
+        assertEquals(0, userRepository.deleteUserByName("Ghost"));
+    }
+
+    @Test
+    void findVersionById_shouldReturnOnlyTheVersionColumn() {
+        User user = userRepository.saveAndFlush(new User(null, "Versioned", "versioned@repo.com"));
+
+        Optional<Long> version = userRepository.findVersionById(user.getId());
+
+        assertEquals(Optional.of(0L), version);
+        assertTrue(userRepository.findVersionById(-1).isEmpty());
+    }
+
+    @Test
+    void patchUser_shouldUpdateOnlyWhenSomethingChanges() {
+        User user = userRepository.saveAndFlush(new User(null, "Patch", "patch@repo.com"));
+
+        int unchanged = userRepository.patchUser(user.getId(), "Patch", null, null);
+        int staleVersion = userRepository.patchUser(user.getId(), "Patched", null, 99L);
+        int changed = userRepository.patchUser(user.getId(), "Patched", null, 0L);
+        int missing = userRepository.patchUser(-1, "Ghost", null, null);
+
+        assertEquals(0, unchanged);
+        assertEquals(0, staleVersion);
+        assertEquals(1, changed);
+        assertEquals(0, missing);
+        assertEquals(Optional.of(1L), userRepository.findVersionById(user.getId()));
+        assertTrue(userRepository.findByName("Patched").isPresent());
+    }
+
+    @Test
+    void findFields_shouldSelectOnlyRequestedColumns_withoutManagedEntities() {
+        User first = userRepository.save(new User(null, "Sparse", "sparse@repo.com"));
+        userRepository.save(new User(null, "Sparse 2", "sparse2@repo.com"));
+        entityManager.flush();
+        entityManager.clear();
+
+        Map<String, Object> row = userRepository.findFieldsById(first.getId(), EnumSet.of(UserField.EMAIL, UserField.ID))
+                .orElseThrow();
+        List<Map<String, Object>> after = userRepository.findFieldsAfter(first.getId(), EnumSet.of(UserField.NAME), Limit.of(10));
+
+        // Chaves na ordem de UserField, independente da ordem pedida
+        assertEquals(List.of("id", "email"), List.copyOf(row.keySet()));
+        assertEquals("sparse@repo.com", row.get("email"));
+        assertEquals(List.of(Map.of("name", "Sparse 2")), after);
+        assertEquals(0, entityManager.unwrap(Session.class).getStatistics().getEntityCount());
+    }
+
+    @Test
+    void estimateRowCount_shouldReadTableStatisticsFromTheCatalog() {
+        userRepository.saveAndFlush(new User(null, "Estimated", "estimated@repo.com"));
+
+        Optional<UserStatisticsRepository.RowEstimate> estimate = userRepository.estimateRowCount();
+
+        // H2 mantém a estimativa por tabela; no PostgreSQL vem de pg_class.reltuples
+        assertTrue(estimate.isPresent());
+        assertTrue(estimate.get().rows() >= 0);
+    }
 }
@@ -0,0 +1,85 @@
+package com.jircik.springcrud.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes unitários do Bloom filter escalável: sem falsos negativos e taxa de falsos positivos dentro do
+ * configurado mesmo crescendo muito além da capacidade inicial.
+ */
+class ScalableBloomFilterTest {
+
+    private static final int EMAILS = 200_000;
+
+    @Test
+    void filter_shouldNeverMissAnAddedValue_whileGrowingBeyondInitialCapacity() {
+        // Arrange: capacidade inicial 200 vezes menor que o total
+        ScalableBloomFilter filter = new ScalableBloomFilter(1_000, 0.01);
+
+        // Act
+        for (int i = 0; i < EMAILS; i++) {
+            filter.add("user" + i + "@taken.com");
+        }
+
+        // Assert
+        for (int i = 0; i < EMAILS; i++) {
+            assertTrue(filter.mightContain("user" + i + "@taken.com"), "False negative for user" + i);
+        }
+        assertTrue(filter.layerCount() > 1);
+        assertTrue(filter.size() > EMAILS * 0.99);
+    }
+
+    @Test
+    void falsePositiveRate_shouldStayBelowTheConfiguredRate() {
+        // Arrange
+        ScalableBloomFilter filter = new ScalableBloomFilter(1_000, 0.01);
+        for (int i = 0; i < EMAILS; i++) {
+            filter.add("user" + i + "@taken.com");
+        }
+
+        // Act: e-mails que nunca foram adicionados
+        long falsePositives = IntStream.range(0, EMAILS)
+                .filter(i -> filter.mightContain("user" + i + "@free.com"))
+                .count();
+
+        // Assert: a taxa medida e a estimada ficam abaixo de 1% (com folga para a variação da amostra)
+        double observed = (double) falsePositives / EMAILS;
+        assertTrue(observed < 0.012, "Observed false positive rate " + observed);
+        assertTrue(filter.expectedFalsePositiveRate() < 0.012, "Expected rate " + filter.expectedFalsePositiveRate());
+        // ~9.6 bits por e-mail no limite de 1%; as camadas ainda não cheias somam mais
+        assertTrue(filter.bitCount() / EMAILS < 32, "Bits per email " + filter.bitCount() / EMAILS);
+    }
+
+    @Test
+    void concurrentAdds_shouldAllBeVisible() {
+        // Arrange
+        ScalableBloomFilter filter = new ScalableBloomFilter(100, 0.01);
+
+        // Act: 4 threads adicionando enquanto as camadas crescem
+        CompletableFuture.allOf(IntStream.range(0, 4)
+                .mapToObj(thread -> CompletableFuture.runAsync(() -> {
+                    for (int i = 0; i < 20_000; i++) {
+                        filter.add("t" + thread + "-" + i + "@taken.com");
+                    }
+                }))
+                .toArray(CompletableFuture[]::new)).join();
+
+        // Assert
+        for (int thread = 0; thread < 4; thread++) {
+            for (int i = 0; i < 20_000; i++) {
+                assertTrue(filter.mightContain("t" + thread + "-" + i + "@taken.com"));
+            }
+        }
+    }
+
+    @Test
+    void constructor_shouldRejectInvalidRates() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> new ScalableBloomFilter(100, 0));
+        assertThrows(IllegalArgumentException.class, () -> new ScalableBloomFilter(0, 0.01));
+    }
+}
@@ -0,0 +1,234 @@
+package com.jircik.springcrud.service;
+
+import com.jircik.springcrud.dto.BulkCreateResult;
+import com.jircik.springcrud.dto.BulkGetResult;
+import com.jircik.springcrud.dto.BulkCreateResult.Status;
+import com.jircik.springcrud.dto.BulkUpdateResult;
+import com.jircik.springcrud.model.User;
+import com.jircik.springcrud.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes de integração das operações em lote contra o H2 em memória.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:bulk;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "app.users.bulk.chunk-size=50",
+        // As estatísticas são globais: sem consultas periódicas em segundo plano durante a contagem de statements
+        "app.users.changes.poll-interval=1h",
+        "app.users.email-filter.refresh-interval=1h",
+        "app.users.search.enabled=false"
+})
+class UserBulkServiceTest {
+
+    @Autowired
+    private UserBulkService userBulkService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void createAll_shouldInsertInJdbcBatches() {
+        // Arrange
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            users.add(new User(null, "User " + i, "user" + i + "@bulk.com"));
+        }
+
+        // Act
+        BulkCreateResult result = userBulkService.createAll(users.iterator());
+
+        // Assert: 120 usuários em 3 blocos, sem um statement por usuário. Cada bloco soma o INSERT ... SELECT
+        // do outbox, e o relay do feed (em outra thread) prepara alguns statements por commit
+        assertEquals(120, result.created());
+        assertEquals(0, result.failed());
+        assertEquals(120, userRepository.count());
+        assertTrue(statistics.getPrepareStatementCount() < 40,
+                "Expected batched inserts but prepared " + statistics.getPrepareStatementCount() + " statements");
+    }
+
+    @Test
+    void createAll_shouldReportDuplicatesAndInvalidItems_withoutFailingTheBatch() {
+        // Arrange
+        userRepository.save(new User(null, "Existing", "taken@bulk.com"));
+        List<User> users = List.of(
+                new User(null, "Ana", "ana@bulk.com"),
+                new User(null, "Taken", "taken@bulk.com"),
+                new User(null, "Ana Again", "ana@bulk.com"),
+                new User(null, null, "noname@bulk.com"),
+                new User(null, "Bob", "bob@bulk.com"));
+
+        // Act
+        BulkCreateResult result = userBulkService.createAll(users.iterator());
+
+        // Assert
+        assertEquals(2, result.created());
+        assertEquals(3, result.failed());
+        assertEquals(List.of(Status.CREATED, Status.FAILED, Status.FAILED, Status.FAILED, Status.CREATED),
+                result.items().stream().map(BulkCreateResult.Item::status).toList());
+        assertNotNull(result.items().get(0).id());
+        assertTrue(userRepository.findByName("Bob").isPresent());
+    }
+
+    @Test
+    void createAll_shouldKeepCommittedChunks_whenBodyIsMalformed() {
+        // Arrange: o iterator falha depois do primeiro item, como um parser com JSON inválido
+        Iterator<User> users = new Iterator<>() {
+            private int calls;
+
+            @Override
+            public boolean hasNext() {
+                if (calls == 1) {
+                    throw new IllegalStateException("Unexpected character");
+                }
+                return true;
+            }
+
+            @Override
+            public User next() {
+                calls++;
+                return new User(null, "Ana", "ana@bulk.com");
+            }
+        };
+
+        // Act
+        BulkCreateResult result = userBulkService.createAll(users);
+
+        // Assert
+        assertEquals(1, result.created());
+        assertEquals(Status.FAILED, result.items().get(1).status());
+        assertEquals(1, userRepository.count());
+    }
+
+    @Test
+    void deleteByIds_shouldDeleteInChunks_andReturnAffectedRows() {
+        // Arrange: 120 IDs em blocos de 50, mais um ID inexistente e um repetido
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            users.add(new User(null, "User " + i, "user" + i + "@bulk.com"));
+        }
+        List<Integer> ids = new ArrayList<>(userRepository.saveAll(users).stream().map(User::getId).toList());
+        ids.add(-1);
+        ids.add(ids.getFirst());
+
+        // Act
+        BulkUpdateResult result = userBulkService.deleteByIds(ids);
+
+        // Assert
+        assertEquals(120, result.affected());
+        assertEquals(0, userRepository.count());
+    }
+
+    @Test
+    void getByIds_shouldKeepRequestOrder_andReportMissingIds_usingOneQueryPerChunk() {
+        // Arrange: 120 IDs em ordem inversa, um inexistente e um repetido (121 distintos, blocos de 50)
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            users.add(new User(null, "User " + i, "user" + i + "@bulk.com"));
+        }
+        List<Integer> ids = new ArrayList<>(userRepository.saveAll(users).stream().map(User::getId).toList().reversed());
+        ids.add(-1);
+        ids.add(ids.getFirst());
+        statistics.clear();
+
+        // Act
+        BulkGetResult result = userBulkService.getByIds(ids);
+        long firstCallStatements = statistics.getPrepareStatementCount();
+        userBulkService.getByIds(ids);
+
+        // Assert: 3 SELECT ... IN na primeira chamada; a segunda sai toda do cache
+        assertEquals(120, result.found());
+        assertEquals(1, result.missing());
+        assertEquals(ids.subList(0, 121), result.items().stream().map(BulkGetResult.Item::id).toList());
+        assertEquals("User 119", result.items().getFirst().user().getName());
+        assertEquals(BulkGetResult.Status.NOT_FOUND, result.items().getLast().status());
+        assertNull(result.items().getLast().user());
+        assertEquals(3, firstCallStatements);
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getByIds_shouldRejectTooManyIds() {
+        // Arrange
+        List<Integer> ids = IntStream.rangeClosed(1, 1001).boxed().toList();
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> userBulkService.getByIds(ids));
+        assertThrows(IllegalArgumentException.class, () -> userBulkService.getByIds(List.of()));
+    }
+
+    @Test
+    void deleteByEmailDomain_shouldOnlyMatchTheExactDomain() {
+        // Arrange: '_' não pode agir como curinga do LIKE
+        userRepository.save(new User(null, "Ana", "ana@test_1.com"));
+        userRepository.save(new User(null, "Bob", "bob@testX1.com"));
+
+        // Act
+        BulkUpdateResult result = userBulkService.deleteByEmailDomain("test_1.com");
+
+        // Assert
+        assertEquals(1, result.affected());
+        assertTrue(userRepository.findByName("Bob").isPresent());
+    }
+
+    @Test
+    void deleteByNamePrefix_shouldDeleteMatchingNames() {
+        // Arrange
+        userRepository.save(new User(null, "test-ana", "ana@bulk.com"));
+        userRepository.save(new User(null, "test-bob", "bob@bulk.com"));
+        userRepository.save(new User(null, "Carol", "carol@bulk.com"));
+
+        // Act & Assert
+        assertEquals(2, userBulkService.deleteByNamePrefix("test-").affected());
+        assertEquals(1, userRepository.count());
+        assertThrows(IllegalArgumentException.class, () -> userBulkService.deleteByNamePrefix(" "));
+    }
+
+    @Test
+    void renameByIds_andRewriteEmailDomain_shouldUpdateInPlace() {
+        // Arrange
+        User ana = userRepository.save(new User(null, "Ana", "ana@old.com"));
+        User bob = userRepository.save(new User(null, "Bob", "bob@old.com"));
+
+        // Act
+        BulkUpdateResult renamed = userBulkService.renameByIds(List.of(ana.getId()), "Ana Maria");
+        BulkUpdateResult rewritten = userBulkService.rewriteEmailDomain("old.com", "new.com");
+
+        // Assert
+        assertEquals(1, renamed.affected());
+        assertEquals(2, rewritten.affected());
+        assertEquals("Ana Maria", userRepository.findById(ana.getId()).orElseThrow().getName());
+        assertEquals("bob@new.com", userRepository.findById(bob.getId()).orElseThrow().getEmail());
+    }
+}
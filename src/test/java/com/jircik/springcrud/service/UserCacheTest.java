@@ -0,0 +1,201 @@
+package com.jircik.springcrud.service;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.jircik.springcrud.config.UserCacheProperties;
+import com.jircik.springcrud.dto.UserCacheStats;
+import com.jircik.springcrud.model.User;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes unitários do cache de usuários, incluindo os casos de concorrência entre
+ * escrita (invalidação) e carga.
+ */
+class UserCacheTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final Ticker ticker = nanos::get;
+    private final UserCache cache = new UserCache(
+            new UserCacheProperties(true, 1000, Duration.ofMinutes(10), Duration.ofSeconds(5)), ticker);
+
+    @Test
+    void getById_shouldLoadOnce_andServeHitsFromMemory() {
+        // Arrange
+        AtomicInteger loads = new AtomicInteger();
+
+        // Act
+        for (int i = 0; i < 3; i++) {
+            cache.getById(1, id -> {
+                loads.incrementAndGet();
+                return Optional.of(new User(1, "Ana", "ana@test.com"));
+            });
+        }
+
+        // Assert
+        assertEquals(1, loads.get());
+        UserCacheStats stats = cache.stats().getFirst();
+        assertEquals(2, stats.hits());
+        assertEquals(1, stats.misses());
+    }
+
+    @Test
+    void negativeResults_shouldExpireAfterShortTtl() {
+        // Arrange
+        AtomicInteger loads = new AtomicInteger();
+
+        // Act: o "não encontrado" fica em cache até o negative-ttl
+        cache.getById(9, id -> { loads.incrementAndGet(); return Optional.empty(); });
+        cache.getById(9, id -> { loads.incrementAndGet(); return Optional.empty(); });
+        nanos.addAndGet(Duration.ofSeconds(6).toNanos());
+        Optional<User> afterTtl = cache.getById(9, id -> {
+            loads.incrementAndGet();
+            return Optional.of(new User(9, "Late", "late@test.com"));
+        });
+
+        // Assert
+        assertEquals(2, loads.get());
+        assertTrue(afterTtl.isPresent());
+    }
+
+    @Test
+    void getAllById_shouldLoadOnlyTheMisses_andCacheMissingIdsToo() {
+        // Arrange
+        cache.getById(1, id -> Optional.of(new User(1, "Ana", "ana@test.com")));
+        List<List<Integer>> loads = new ArrayList<>();
+
+        // Act: 1 já está em cache; 2 existe; 3 não existe
+        Map<Integer, Optional<User>> first = cache.getAllById(List.of(1, 2, 3), ids -> {
+            loads.add(ids);
+            return List.of(new User(2, "Bob", "bob@test.com"));
+        });
+        Map<Integer, Optional<User>> second = cache.getAllById(List.of(3, 2), ids -> {
+            loads.add(ids);
+            return List.of();
+        });
+
+        // Assert
+        assertEquals(List.of(List.of(2, 3)), loads);
+        assertEquals("Ana", first.get(1).orElseThrow().getName());
+        assertTrue(first.get(3).isEmpty());
+        assertEquals(first.get(2), second.get(2));
+    }
+
+    @Test
+    void getByName_shouldUseSecondaryIndex_andDetectRenamedUsers() {
+        // Arrange
+        cache.getByName("Ana", name -> Optional.of(new User(1, "Ana", "ana@test.com")));
+
+        // Act: o ID 1 foi renomeado (ex.: PATCH) e só o índice por ID foi invalidado
+        cache.evict(1);
+        cache.getById(1, id -> Optional.of(new User(1, "Bia", "ana@test.com")));
+        AtomicInteger loads = new AtomicInteger();
+        Optional<User> byOldName = cache.getByName("Ana", name -> {
+            loads.incrementAndGet();
+            return Optional.empty();
+        });
+
+        // Assert: o índice por nome não devolve o usuário com nome diferente, vai ao banco
+        assertTrue(byOldName.isEmpty());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void evictByName_shouldAlsoRemoveEntriesCachedById() {
+        // Arrange
+        cache.getById(1, id -> Optional.of(new User(1, "Ana", "ana@test.com")));
+
+        // Act
+        cache.evictByName("Ana");
+
+        // Assert
+        assertTrue(cache.getById(1, id -> Optional.empty()).isEmpty());
+    }
+
+    @Test
+    void invalidation_duringLoadById_shouldDiscardTheLoadedValue() throws Exception {
+        // Arrange: a carga lê o valor antigo e fica parada
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Optional<User>> reader = CompletableFuture.supplyAsync(() ->
+                cache.getById(1, id -> {
+                    loading.countDown();
+                    await(release);
+                    return Optional.of(new User(1, "Old", "old@test.com"));
+                }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        // Act: a escrita (já commitada) invalida sem esperar pela carga em andamento
+        CompletableFuture.runAsync(() -> cache.evict(1, "Old", "New")).get(5, TimeUnit.SECONDS);
+        release.countDown();
+        assertEquals("Old", reader.get(5, TimeUnit.SECONDS).orElseThrow().getName());
+
+        // Assert: a próxima leitura vê o valor novo
+        Optional<User> fresh = cache.getById(1, id -> Optional.of(new User(1, "New", "new@test.com")));
+        assertEquals("New", fresh.orElseThrow().getName());
+    }
+
+    @Test
+    void invalidation_duringLoadByName_shouldDiscardTheLoadedValue() throws Exception {
+        // Arrange: a carga por nome lê o valor antigo e fica parada
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Optional<User>> reader = CompletableFuture.supplyAsync(() ->
+                cache.getByName("Ana", name -> {
+                    loading.countDown();
+                    await(release);
+                    return Optional.of(new User(1, "Ana", "old@test.com"));
+                }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        // Act: um PATCH sem conhecer o nome invalida só o ID enquanto a carga está em andamento
+        cache.evict(1);
+        release.countDown();
+        assertEquals("old@test.com", reader.get(5, TimeUnit.SECONDS).orElseThrow().getEmail());
+
+        // Assert: nada obsoleto ficou em nenhum dos índices
+        AtomicReference<String> loadedBy = new AtomicReference<>();
+        Optional<User> byId = cache.getById(1, id -> {
+            loadedBy.set("id");
+            return Optional.of(new User(1, "Ana", "new@test.com"));
+        });
+        assertEquals("id", loadedBy.get());
+        assertEquals("new@test.com", byId.orElseThrow().getEmail());
+    }
+
+    @Test
+    void disabledCache_shouldAlwaysCallTheLoader() {
+        // Arrange
+        UserCache disabled = new UserCache(
+                new UserCacheProperties(false, 1000, Duration.ofMinutes(10), Duration.ofSeconds(5)), ticker);
+        AtomicInteger loads = new AtomicInteger();
+
+        // Act
+        disabled.getById(1, id -> { loads.incrementAndGet(); return Optional.empty(); });
+        disabled.getById(1, id -> { loads.incrementAndGet(); return Optional.empty(); });
+
+        // Assert
+        assertEquals(2, loads.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        }
+    }
+}
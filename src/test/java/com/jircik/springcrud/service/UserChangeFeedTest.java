@@ -0,0 +1,313 @@
+package com.jircik.springcrud.service;
+
+import com.jircik.springcrud.dto.UserChangeEvent;
+import com.jircik.springcrud.dto.UserChangePage;
+import com.jircik.springcrud.dto.UserPatch;
+import com.jircik.springcrud.model.User;
+import com.jircik.springcrud.model.UserChange.Type;
+import com.jircik.springcrud.repository.UserChangeRepository;
+import com.jircik.springcrud.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes de integração do outbox e do feed de alterações contra o H2 em memória e o Tomcat real (SSE).
+ * Os testes chamam {@code sequence()} direto em vez de esperar o relay.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:changes;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+        "app.users.bulk.import-chunk-size=3",
+        "app.users.changes.compact-after=0s",
+        "app.users.changes.heartbeat=200ms"
+})
+class UserChangeFeedTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserChangeFeed userChangeFeed;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserBulkService userBulkService;
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserChangeRepository userChangeRepository;
+
+    @Autowired
+    private UserSearch userSearch;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        userRepository.deleteAllInBatch();
+        userChangeRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void writes_shouldAppearInFeed_withConsecutiveOffsetsAndVersions() {
+        // Arrange
+        User ana = new User(null, "Ana", "ana@changes.com");
+        userService.insertUser(ana);
+        userService.updateUser(new User(ana.getId(), "Ana Maria", null));
+        userService.deleteById(ana.getId());
+
+        // Act
+        userChangeFeed.sequence();
+        UserChangePage page = userChangeFeed.read(0, 10);
+
+        // Assert: o DELETED leva o último estado do usuário
+        assertEquals(List.of(Type.CREATED, Type.UPDATED, Type.DELETED), types(page));
+        assertEquals(List.of(1L, 2L, 3L), page.changes().stream().map(UserChangeEvent::offset).toList());
+        assertEquals(List.of(0L, 1L, 1L), page.changes().stream().map(UserChangeEvent::version).toList());
+        assertEquals("Ana Maria", page.changes().get(2).name());
+        assertEquals(3, page.nextOffset());
+        assertEquals(3, userChangeFeed.head());
+    }
+
+    @Test
+    void concurrentUpdateAndDelete_shouldEndWithTheUserDeleted() throws Exception {
+        // Arrange
+        User ana = new User(null, "Ana", "ana@changes.com");
+        userService.insertUser(ana);
+        userSearch.build();
+        CountDownLatch updated = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        Thread updater = Thread.ofPlatform().start(() -> transactionTemplate.executeWithoutResult(status -> {
+            userService.patchUser(ana.getId(), new UserPatch("Ana Maria", null), null);
+            updated.countDown();
+            await(commit);
+        }));
+        assertTrue(updated.await(5, TimeUnit.SECONDS));
+
+        // Act: a remoção começa com a atualização ainda aberta, segurando a linha; a atualização faz commit depois
+        Thread deleter = Thread.ofPlatform().start(() -> userService.deleteById(ana.getId()));
+        awaitBlocked(deleter);
+        commit.countDown();
+        updater.join(5000);
+        deleter.join(5000);
+        userChangeFeed.sequence();
+        userSearch.follow();
+
+        // Assert: o DELETED vem por último, com o estado deixado pela atualização, e a busca não traz Ana de volta
+        List<UserChangeEvent> changes = userChangeFeed.read(0, 10).changes();
+        assertEquals(List.of(Type.CREATED, Type.UPDATED, Type.DELETED), types(changes));
+        assertEquals("Ana Maria", changes.getLast().name());
+        assertFalse(userRepository.existsById(ana.getId()));
+        assertTrue(userSearch.search("Ana", 0, 10).hits().isEmpty());
+    }
+
+    @Test
+    void read_shouldResumeFromOffset() {
+        // Arrange
+        userBulkService.createAll(users(5, "resume").iterator());
+        userChangeFeed.sequence();
+
+        // Act: duas páginas, a segunda a partir do nextOffset da primeira
+        UserChangePage first = userChangeFeed.read(0, 3);
+        UserChangePage second = userChangeFeed.read(first.nextOffset(), 3);
+        UserChangePage empty = userChangeFeed.read(second.nextOffset(), 3);
+
+        // Assert
+        assertEquals(3, first.changes().size());
+        assertEquals(2, second.changes().size());
+        assertEquals(4, second.changes().getFirst().offset());
+        assertTrue(empty.changes().isEmpty());
+        assertEquals(5, empty.nextOffset());
+    }
+
+    @Test
+    void bulkWrites_shouldRecordTheStateTheyProduce() {
+        // Arrange
+        userBulkService.createAll(users(3, "old.com").iterator());
+        userChangeFeed.sequence();
+        long head = userChangeFeed.head();
+
+        // Act
+        userBulkService.rewriteEmailDomain("old.com", "new.com");
+        userBulkService.deleteByNamePrefix("User 0");
+        userChangeFeed.sequence();
+        List<UserChangeEvent> changes = userChangeFeed.read(head, 10).changes();
+
+        // Assert: o estado previsto antes do UPDATE é o mesmo que ficou no banco (ou no DELETED, para User 0)
+        assertEquals(List.of(Type.UPDATED, Type.UPDATED, Type.UPDATED, Type.DELETED), types(changes));
+        UserChangeEvent deleted = changes.getLast();
+        for (UserChangeEvent change : changes.subList(0, 3)) {
+            User user = change.id().equals(deleted.id())
+                    ? new User(deleted.id(), deleted.name(), deleted.email(), deleted.version())
+                    : userRepository.findById(change.id()).orElseThrow();
+            assertEquals(user.getEmail(), change.email());
+            assertEquals(user.getVersion(), change.version());
+        }
+        assertTrue(deleted.email().endsWith("@new.com"));
+    }
+
+    @Test
+    void import_shouldRecordInsertsAndRenamesOnly() {
+        // Arrange
+        userImportService.importUsers(users(4, "import.com").iterator());
+        List<User> changed = users(4, "import.com");
+        changed.set(1, new User(null, "Renamed", "user1@import.com"));
+
+        // Act: a segunda importação só renomeia user1
+        userImportService.importUsers(changed.iterator());
+        userChangeFeed.sequence();
+        List<UserChangeEvent> changes = userChangeFeed.read(0, 10).changes();
+
+        // Assert
+        assertEquals(List.of(Type.CREATED, Type.CREATED, Type.CREATED, Type.CREATED, Type.UPDATED), types(changes));
+        UserChangeEvent renamed = changes.getLast();
+        assertEquals("Renamed", renamed.name());
+        assertEquals(userRepository.findById(renamed.id()).orElseThrow().getVersion(), renamed.version());
+    }
+
+    @Test
+    void concurrentUpdateAndImport_shouldRecordTheStateTheImportLeaves() throws Exception {
+        // Arrange
+        User ana = new User(null, "Ana", "ana@changes.com");
+        userService.insertUser(ana);
+        CountDownLatch updated = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        Thread updater = Thread.ofPlatform().start(() -> transactionTemplate.executeWithoutResult(status -> {
+            userService.patchUser(ana.getId(), new UserPatch("Ana Maria", null), null);
+            updated.countDown();
+            await(commit);
+        }));
+        assertTrue(updated.await(5, TimeUnit.SECONDS));
+
+        // Act: a importação renomeia Ana com a atualização ainda aberta, segurando a linha
+        Thread importer = Thread.ofPlatform().start(() ->
+                userImportService.importUsers(List.of(new User(null, "Ana Clara", "ana@changes.com")).iterator()));
+        awaitBlocked(importer);
+        commit.countDown();
+        updater.join(5000);
+        importer.join(5000);
+        userChangeFeed.sequence();
+
+        // Assert: o último evento é o estado final da linha, por cima da atualização concorrente
+        UserChangeEvent last = userChangeFeed.read(0, 10).changes().getLast();
+        User stored = userRepository.findById(ana.getId()).orElseThrow();
+        assertEquals("Ana Clara", stored.getName());
+        assertEquals(stored.getName(), last.name());
+        assertEquals(stored.getVersion(), last.version());
+    }
+
+    @Test
+    void compact_shouldKeepOnlyTheLatestChangePerUser() throws Exception {
+        // Arrange: três alterações de Ana, uma de Bob
+        User ana = new User(null, "Ana", "ana@changes.com");
+        userService.insertUser(ana);
+        userService.updateUser(new User(ana.getId(), "Ana Maria", null));
+        userService.updateUser(new User(ana.getId(), "Ana Clara", null));
+        userService.insertUser(new User(null, "Bob", "bob@changes.com"));
+        userChangeFeed.sequence();
+        Thread.sleep(5); // compact-after=0s: tudo que foi gravado antes de agora pode ser compactado
+
+        // Act
+        int removed = userChangeFeed.compact();
+        List<UserChangeEvent> changes = userChangeFeed.read(0, 10).changes();
+
+        // Assert: quem parou em qualquer offset ainda chega ao estado final
+        assertEquals(2, removed);
+        assertEquals(List.of(3L, 4L), changes.stream().map(UserChangeEvent::offset).toList());
+        assertEquals("Ana Clara", changes.getFirst().name());
+        assertEquals(changes, userChangeFeed.read(1, 10).changes());
+    }
+
+    @Test
+    void stream_shouldResumeFromLastEventId_andPushNewChanges() throws Exception {
+        // Arrange
+        userBulkService.createAll(users(3, "stream").iterator());
+        userChangeFeed.sequence();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/users/changes/stream"))
+                .header("Accept", "text/event-stream")
+                .header("Last-Event-ID", "1")
+                .build();
+
+        // Act & Assert: 2 e 3 já estavam no feed; 4 chega pelo relay depois do commit
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            HttpResponse<InputStream> response = HttpClient.newHttpClient()
+                    .send(request, HttpResponse.BodyHandlers.ofInputStream());
+            assertEquals(200, response.statusCode());
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+                assertEquals(List.of("2", "3"), eventIds(reader, 2));
+                userService.insertUser(new User(null, "Late", "late@stream.com"));
+                assertEquals(List.of("4"), eventIds(reader, 1));
+            }
+        });
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Esperando a trava da linha no H2
+    private static void awaitBlocked(Thread thread) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (thread.getState() != Thread.State.TIMED_WAITING && thread.getState() != Thread.State.WAITING) {
+            assertTrue(System.nanoTime() < deadline, "Delete did not block on the row lock");
+            Thread.sleep(1);
+        }
+    }
+
+    private static List<String> eventIds(BufferedReader reader, int count) throws Exception {
+        List<String> ids = new ArrayList<>();
+        while (ids.size() < count) {
+            String line = reader.readLine();
+            assertNotNull(line, "Stream closed early");
+            if (line.startsWith("id:")) {
+                ids.add(line.substring(3).trim());
+            }
+        }
+        return ids;
+    }
+
+    private static List<Type> types(UserChangePage page) {
+        return types(page.changes());
+    }
+
+    private static List<Type> types(List<UserChangeEvent> changes) {
+        return changes.stream().map(UserChangeEvent::type).toList();
+    }
+
+    private static List<User> users(int count, String domain) {
+        return new ArrayList<>(IntStream.range(0, count)
+                .mapToObj(i -> new User(null, "User " + i, "user" + i + "@" + domain)).toList());
+    }
+}
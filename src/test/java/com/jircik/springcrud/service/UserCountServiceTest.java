@@ -0,0 +1,135 @@
+package com.jircik.springcrud.service;
+
+import com.jircik.springcrud.config.UserCountProperties;
+import com.jircik.springcrud.dto.UserCount;
+import com.jircik.springcrud.dto.UserCount.Mode;
+import com.jircik.springcrud.repository.UserRepository;
+import com.jircik.springcrud.repository.UserStatisticsRepository.RowEstimate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Testes unitários dos três modos de contagem, com relógio controlado.
+ */
+@ExtendWith(MockitoExtension.class)
+class UserCountServiceTest {
+
+    private static final Instant START = Instant.parse("2026-01-01T00:00:00Z");
+
+    @Mock
+    private UserRepository userRepository;
+
+    private final MutableClock clock = new MutableClock();
+    private final UserCountProperties properties = new UserCountProperties(Duration.ofSeconds(5), Duration.ofMinutes(1));
+    private final UserCounter userCounter = new UserCounter(properties, clock);
+
+    private UserCountService service() {
+        return new UserCountService(userRepository, userCounter, properties, clock);
+    }
+
+    @Test
+    void exact_shouldReuseCountWithinTtl_andReportItsAge() {
+        // Arrange
+        when(userRepository.count()).thenReturn(10L, 12L);
+        UserCountService service = service();
+
+        // Act
+        service.count(Mode.EXACT);
+        clock.advance(Duration.ofSeconds(3));
+        UserCount cached = service.count(Mode.EXACT);
+        clock.advance(Duration.ofSeconds(2));
+        UserCount refreshed = service.count(Mode.EXACT);
+
+        // Assert
+        assertEquals(new UserCount(10, Mode.EXACT, START, 3000L), cached);
+        assertEquals(12, refreshed.count());
+        assertEquals(0L, refreshed.ageMillis());
+        verify(userRepository, times(2)).count();
+    }
+
+    @Test
+    void approximate_shouldUseTableStatistics_withoutCounting() {
+        // Arrange
+        Instant analyzedAt = START.minus(Duration.ofMinutes(10));
+        when(userRepository.estimateRowCount()).thenReturn(Optional.of(new RowEstimate(1_000_000, analyzedAt)));
+
+        // Act
+        UserCount count = service().count(Mode.APPROXIMATE);
+
+        // Assert
+        assertEquals(new UserCount(1_000_000, Mode.APPROXIMATE, analyzedAt, 600_000L), count);
+        verify(userRepository, never()).count();
+    }
+
+    @Test
+    void approximate_shouldFallBackToExact_whenDatabaseHasNoEstimate() {
+        // Arrange
+        when(userRepository.estimateRowCount()).thenReturn(Optional.empty());
+        when(userRepository.count()).thenReturn(7L);
+
+        // Act
+        UserCount count = service().count(Mode.APPROXIMATE);
+
+        // Assert
+        assertEquals(Mode.EXACT, count.mode());
+        assertEquals(7, count.count());
+    }
+
+    @Test
+    void live_shouldApplyWrites_andResyncAfterInterval() {
+        // Arrange
+        when(userRepository.count()).thenReturn(100L, 90L);
+        UserCountService service = service();
+        service.count(Mode.LIVE);
+
+        // Act
+        userCounter.add(3);
+        userCounter.add(-1);
+        clock.advance(Duration.ofSeconds(30));
+        UserCount beforeResync = service.count(Mode.LIVE);
+        clock.advance(Duration.ofSeconds(30));
+        UserCount afterResync = service.count(Mode.LIVE);
+
+        // Assert: a ressincronização descarta o desvio acumulado
+        assertEquals(new UserCount(102, Mode.LIVE, START, 30_000L), beforeResync);
+        assertEquals(90, afterResync.count());
+        assertEquals(START.plus(Duration.ofMinutes(1)), afterResync.asOf());
+        verify(userRepository, times(2)).count();
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now = START;
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
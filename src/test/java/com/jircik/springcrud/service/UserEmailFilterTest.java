@@ -0,0 +1,147 @@
+package com.jircik.springcrud.service;
+
+import com.jircik.springcrud.dto.EmailAvailability;
+import com.jircik.springcrud.model.User;
+import com.jircik.springcrud.repository.UserChangeRepository;
+import com.jircik.springcrud.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes de integração do filtro de disponibilidade de e-mail contra o H2 em memória. A thread do filtro só
+ * reconstrói quando pedido (refresh-interval longo), então os testes chamam rebuild()/follow() direto.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:emailfilter;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+        "app.users.email-filter.refresh-interval=1h",
+        "app.users.email-filter.rebuild-removed-ratio=100"
+})
+class UserEmailFilterTest {
+
+    @Autowired
+    private UserEmailFilter userEmailFilter;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserBulkService userBulkService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserChangeRepository userChangeRepository;
+
+    @Autowired
+    private UserChangeFeed userChangeFeed;
+
+    @Autowired
+    private UserChangeLog userChangeLog;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        userBulkService.createAll(IntStream.range(0, 100)
+                .mapToObj(i -> new User(null, "User " + i, "user" + i + "@filter.com")).iterator());
+        userEmailFilter.rebuild();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        userRepository.deleteAllInBatch();
+        userChangeRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void check_shouldAnswerFreeEmailsFromTheFilter_andTakenOnesFromTheDatabase() {
+        // Arrange
+        long absentBefore = userEmailFilter.getDefinitelyAbsentCount();
+        long takenBefore = userEmailFilter.getTakenCount();
+
+        // Act
+        EmailAvailability free = userEmailFilter.check("nobody@filter.com");
+        EmailAvailability taken = userEmailFilter.check("user42@filter.com");
+
+        // Assert
+        assertTrue(free.available());
+        assertFalse(taken.available());
+        assertEquals(absentBefore + 1, userEmailFilter.getDefinitelyAbsentCount());
+        assertEquals(takenBefore + 1, userEmailFilter.getTakenCount());
+        assertTrue(userEmailFilter.getSize() >= 100);
+    }
+
+    @Test
+    void writes_shouldKeepTheAnswerCorrect() {
+        // Act: cadastro, troca de e-mail e remoção pelo serviço
+        User ana = new User(null, "Ana", "ana@filter.com");
+        userService.insertUser(ana);
+        boolean takenAfterInsert = !userEmailFilter.check("ana@filter.com").available();
+        userService.updateUser(new User(ana.getId(), null, "ana.maria@filter.com"));
+        boolean newTaken = !userEmailFilter.check("ana.maria@filter.com").available();
+        boolean oldFree = userEmailFilter.check("ana@filter.com").available();
+        userService.deleteById(ana.getId());
+        boolean freeAfterDelete = userEmailFilter.check("ana.maria@filter.com").available();
+
+        // Assert: os e-mails antigos continuam no filtro, mas o banco desempata
+        assertTrue(takenAfterInsert);
+        assertTrue(newTaken);
+        assertTrue(oldFree);
+        assertTrue(freeAfterDelete);
+        assertTrue(userEmailFilter.getFalsePositiveCount() >= 2);
+    }
+
+    @Test
+    void follow_shouldAddEmailsWrittenByOtherInstances() {
+        // Arrange: gravação que não passou por esta instância (sem add), só pelo outbox
+        transactionTemplate.executeWithoutResult(status -> {
+            User remote = userRepository.save(new User(null, "Remote", "remote@filter.com"));
+            userRepository.flush();
+            userChangeLog.created(List.of(remote.getId()));
+        });
+        userChangeFeed.sequence();
+        long takenBefore = userEmailFilter.getTakenCount();
+
+        // Act
+        int events = userEmailFilter.follow();
+
+        // Assert: o filtro responde "talvez" e o banco confirma
+        assertTrue(events >= 1);
+        assertFalse(userEmailFilter.check("remote@filter.com").available());
+        assertEquals(takenBefore + 1, userEmailFilter.getTakenCount());
+    }
+
+    @Test
+    void emailDomainRewrite_shouldFallBackToTheDatabase_untilRebuilt() throws Exception {
+        // Act
+        userBulkService.rewriteEmailDomain("filter.com", "renamed.com");
+        boolean takenRightAfter = !userEmailFilter.check("user7@renamed.com").available();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!userEmailFilter.isReady() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+
+        // Assert: a reconstrução pedida após o commit já contém os e-mails novos
+        assertTrue(takenRightAfter);
+        assertTrue(userEmailFilter.isReady());
+        assertFalse(userEmailFilter.check("user7@renamed.com").available());
+        assertTrue(userEmailFilter.check("user7@filter.com").available());
+    }
+
+    @Test
+    void check_shouldRejectBlankEmail() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> userEmailFilter.check(" "));
+    }
+}
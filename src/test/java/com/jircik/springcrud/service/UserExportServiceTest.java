@@ -0,0 +1,128 @@
+package com.jircik.springcrud.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes de integração da exportação NDJSON contra o H2 em memória.
+ * MAX_MEMORY_ROWS baixo faz o H2 paginar o resultado em disco, como um cursor do Postgres.
+ */
+@SpringBootTest(properties =
+        "spring.datasource.url=jdbc:h2:mem:export;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;MAX_MEMORY_ROWS=5000")
+class UserExportServiceTest {
+
+    private static final int LARGE_DATASET = 200_000;
+    private static final long MAX_HEAP_GROWTH_BYTES = 32L * 1024 * 1024;
+
+    @Autowired
+    private UserExportService userExportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("delete from app_user");
+    }
+
+    @Test
+    void exportNdjson_shouldWriteOneLinePerUserInIdOrder() {
+        // Arrange
+        seed(3);
+        LineCollector out = new LineCollector();
+
+        // Act
+        long written = userExportService.exportNdjson(out);
+
+        // Assert
+        assertEquals(3, written);
+        assertEquals(3, out.lines.size());
+        assertTrue(out.lines.get(0).contains("\"email\":\"user0@export.com\""));
+        assertTrue(out.lines.get(2).contains("\"email\":\"user2@export.com\""));
+    }
+
+    @Test
+    void exportNdjson_shouldKeepHeapBounded_forLargeDataset() {
+        // Arrange
+        seed(LARGE_DATASET);
+        long baseline = usedHeapAfterGc();
+        HeapProbe out = new HeapProbe(LARGE_DATASET - 1);
+
+        // Act
+        long written = userExportService.exportNdjson(out);
+
+        // Assert: no fim do stream (ainda dentro da transação) o heap não cresceu com a tabela
+        assertEquals(LARGE_DATASET, written);
+        assertEquals(LARGE_DATASET, out.lineCount);
+        assertTrue(out.heapAtProbe - baseline < MAX_HEAP_GROWTH_BYTES,
+                "Heap grew " + (out.heapAtProbe - baseline) / (1024 * 1024) + " MB during export");
+    }
+
+    private void seed(int count) {
+        List<Object[]> rows = new ArrayList<>(10_000);
+        for (int i = 0; i < count; i++) {
+            rows.add(new Object[]{"User " + i, "user" + i + "@export.com"});
+            if (rows.size() == 10_000 || i == count - 1) {
+                jdbcTemplate.batchUpdate("insert into app_user (id, name, email) values (nextval('app_user_seq'), ?, ?)", rows);
+                rows.clear();
+            }
+        }
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /** Conta as linhas e mede o heap quando a linha informada é escrita. */
+    private static class HeapProbe extends OutputStream {
+        private final int probeAtLine;
+        private int lineCount;
+        private long heapAtProbe;
+
+        HeapProbe(int probeAtLine) {
+            this.probeAtLine = probeAtLine;
+        }
+
+        @Override
+        public void write(int b) {
+            if (b == '\n' && ++lineCount == probeAtLine) {
+                heapAtProbe = usedHeapAfterGc();
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                write(b[i]);
+            }
+        }
+    }
+
+    private static class LineCollector extends OutputStream {
+        private final List<String> lines = new ArrayList<>();
+        private final StringBuilder current = new StringBuilder();
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                lines.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append((char) b);
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.jircik.springcrud.service;
+
+import com.jircik.springcrud.dto.ImportResult;
+import com.jircik.springcrud.dto.ImportResult.Rejection;
+import com.jircik.springcrud.model.User;
+import com.jircik.springcrud.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes de integração da importação com upsert contra o H2 em memória (blocos de 3 linhas).
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:import;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+        "app.users.bulk.import-chunk-size=3"
+})
+class UserImportServiceTest {
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @AfterEach
+    void cleanUp() {
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void importUsers_shouldInsert_thenReportUnchangedWithoutWrites_onRepeat() {
+        // Arrange
+        List<User> rows = rows(7);
+
+        // Act
+        ImportResult first = userImportService.importUsers(rows.iterator());
+        ImportResult second = userImportService.importUsers(rows(7).iterator());
+
+        // Assert: a segunda importação não alterou nenhuma linha (versões continuam 0)
+        assertEquals(new ImportResult(7, 0, 0, 0, List.of()), first);
+        assertEquals(new ImportResult(0, 0, 7, 0, List.of()), second);
+        assertTrue(userRepository.findAll().stream().allMatch(user -> user.getVersion() == 0));
+    }
+
+    @Test
+    void importUsers_shouldUpdateOnlyChangedNames() {
+        // Arrange
+        userImportService.importUsers(rows(5).iterator());
+        List<User> changed = rows(6);
+        changed.set(2, new User(null, "Renamed", "user2@import.com"));
+
+        // Act
+        ImportResult result = userImportService.importUsers(changed.iterator());
+
+        // Assert
+        assertEquals(new ImportResult(1, 1, 4, 0, List.of()), result);
+        Map<String, User> byEmail = userRepository.findAll().stream()
+                .collect(Collectors.toMap(User::getEmail, Function.identity()));
+        assertEquals("Renamed", byEmail.get("user2@import.com").getName());
+        assertEquals(1L, byEmail.get("user2@import.com").getVersion());
+        assertEquals(0L, byEmail.get("user3@import.com").getVersion());
+    }
+
+    @Test
+    void importUsers_shouldRejectInvalidRows_andKeepGoing() {
+        // Arrange
+        List<User> rows = new ArrayList<>(rows(2));
+        rows.add(new User(null, "", "blank@import.com"));
+        rows.add(new User(null, "Dup", "user1@import.com"));
+        rows.add(new User(null, "Long", "x".repeat(250) + "@import.com"));
+        rows.add(new User(null, "Last", "last@import.com"));
+
+        // Act
+        ImportResult result = userImportService.importUsers(rows.iterator());
+
+        // Assert: user1 repetido no mesmo bloco é recusado; as linhas válidas são gravadas
+        assertEquals(3, result.inserted());
+        assertEquals(3, result.rejected());
+        assertEquals(List.of(2L, 3L, 4L), result.rejections().stream().map(Rejection::index).toList());
+        assertEquals("Duplicate email user1@import.com in the same chunk", result.rejections().get(1).error());
+        assertEquals(3, userRepository.count());
+    }
+
+    @Test
+    void importedIds_shouldNotCollideWithJpaInserts() {
+        // Arrange: importação e cadastros via JPA intercalados, usando a mesma sequence
+        userRepository.save(new User(null, "Before", "before@import.com"));
+        userImportService.importUsers(rows(10).iterator());
+
+        // Act
+        List<User> saved = userRepository.saveAll(IntStream.range(0, 60)
+                .mapToObj(i -> new User(null, "After " + i, "after" + i + "@import.com")).toList());
+
+        // Assert
+        Set<Integer> ids = new HashSet<>();
+        userRepository.findAll().forEach(user -> assertTrue(ids.add(user.getId()), "Duplicate id " + user.getId()));
+        assertEquals(71, ids.size());
+        assertEquals(60, saved.size());
+    }
+
+    private static List<User> rows(int count) {
+        return new ArrayList<>(IntStream.range(0, count)
+                .mapToObj(i -> new User(null, "User " + i, "user" + i + "@import.com")).toList());
+    }
+}
@@ -0,0 +1,139 @@
+package com.jircik.springcrud.service;
+
+import com.jircik.springcrud.dto.UserSearchHit;
+import com.jircik.springcrud.dto.UserSearchHit.Match;
+import com.jircik.springcrud.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes unitários do índice de busca: prefixo em nome e e-mail, acentos, erros de digitação, ranking e
+ * atualizações incrementais.
+ */
+class UserSearchIndexTest {
+
+    private UserSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = UserSearchIndex.build(List.of(
+                new User(1, "Ana Silva", "ana.silva@test.com", 0L),
+                new User(2, "Anabela Costa", "anabela@test.com", 0L),
+                new User(3, "José Souza", "jose@test.com", 0L),
+                new User(4, "Mariana Ana", "mari@test.com", 0L),
+                new User(5, "Bruno Lima", "bruno@test.com", 0L)));
+    }
+
+    @Test
+    void search_shouldMatchPrefixOfAnyNameWordOrEmail_ignoringCase() {
+        // Act
+        List<UserSearchHit> hits = index.search("ANAB", 10);
+        List<Integer> byEmail = ids(index.search("bruno@", 10));
+        List<Integer> bySurname = ids(index.search("sil", 10));
+
+        // Assert
+        assertEquals(2, hits.getFirst().id());
+        assertEquals(Match.PREFIX, hits.getFirst().match());
+        assertEquals(List.of(5), byEmail);
+        assertEquals(List.of(1), bySurname);
+    }
+
+    @Test
+    void search_shouldIgnoreAccents() {
+        // Act & Assert
+        assertEquals(List.of(3), ids(index.search("jose s", 10)));
+        assertEquals(List.of(3), ids(index.search("JOSÉ", 10)));
+    }
+
+    @Test
+    void search_shouldRankExactBeforePrefix() {
+        // Act
+        List<UserSearchHit> hits = index.search("ana", 10);
+
+        // Assert: "ana" é palavra inteira de 1 e 4; 2 só começa com "ana"
+        assertEquals(List.of(1, 4, 2), ids(hits));
+        assertEquals(List.of(Match.EXACT, Match.EXACT, Match.PREFIX), hits.stream().map(UserSearchHit::match).toList());
+    }
+
+    @Test
+    void search_shouldTolerateOneTypo_afterExactAndPrefixMatches() {
+        // Act: troca, inversão, letra a mais e letra a menos
+        List<UserSearchHit> substituted = index.search("brumo", 10);
+        List<UserSearchHit> transposed = index.search("burno", 10);
+        List<UserSearchHit> extra = index.search("souuza", 10);
+        List<UserSearchHit> missing = index.search("cota", 10);
+
+        // Assert
+        assertEquals(List.of(5), ids(substituted));
+        assertEquals(Match.FUZZY, substituted.getFirst().match());
+        assertEquals(List.of(5), ids(transposed));
+        assertEquals(List.of(3), ids(extra));
+        assertEquals(List.of(2), ids(missing));
+    }
+
+    @Test
+    void search_shouldStopAtCount() {
+        // Act & Assert
+        assertEquals(2, index.search("a", 2).size());
+        assertTrue(index.search("zzzz", 10).isEmpty());
+    }
+
+    @Test
+    void put_shouldReindexChangedName_andIgnoreOlderVersions() {
+        // Act
+        index.put(new User(5, "Carla Lima", "carla@test.com", 1L));
+        index.put(new User(5, "Bruno Lima", "bruno@test.com", 0L)); // evento atrasado
+
+        // Assert
+        assertTrue(index.search("bruno", 10).isEmpty());
+        assertEquals(List.of(5), ids(index.search("carla", 10)));
+        assertEquals(List.of(5), ids(index.search("lima", 10)));
+    }
+
+    @Test
+    void patch_shouldKeepMissingFields() {
+        // Act
+        index.patch(5, null, "b.lima@test.com");
+
+        // Assert
+        assertEquals(List.of(5), ids(index.search("bruno", 10)));
+        assertEquals("b.lima@test.com", index.search("b.lima", 10).getFirst().email());
+        assertTrue(index.search("bruno@test.com", 10).isEmpty());
+    }
+
+    @Test
+    void remove_shouldDropTheUserAndItsTerms() {
+        // Arrange
+        int termsBefore = index.termCount();
+
+        // Act
+        index.remove(5);
+        index.remove(3, 0L);
+
+        // Assert
+        assertTrue(index.search("bruno", 10).isEmpty());
+        assertTrue(index.search("jose", 10).isEmpty());
+        assertEquals(3, index.size());
+        assertTrue(index.termCount() < termsBefore);
+    }
+
+    @Test
+    void removeByName_shouldRemoveOnlyTheLowestIdWithThatName() {
+        // Arrange: nomes não são únicos
+        index.put(new User(6, "Ana Silva", "ana2@test.com", 0L));
+
+        // Act
+        index.removeByName("Ana Silva");
+
+        // Assert
+        assertEquals(List.of(4, 6, 2), ids(index.search("ana", 10)));
+    }
+
+    private static List<Integer> ids(List<UserSearchHit> hits) {
+        return hits.stream().map(UserSearchHit::id).toList();
+    }
+}
@@ -0,0 +1,129 @@
+package com.jircik.springcrud.service;
+
+import com.jircik.springcrud.dto.UserPatch;
+import com.jircik.springcrud.dto.UserSearchHit;
+import com.jircik.springcrud.dto.UserSearchResult;
+import com.jircik.springcrud.model.User;
+import com.jircik.springcrud.repository.UserChangeRepository;
+import com.jircik.springcrud.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes de integração da busca contra o H2 em memória. A thread do índice só lê o feed quando pedido
+ * (refresh-interval longo), então os testes chamam build()/follow() direto.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:usersearch;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+        "app.users.search.refresh-interval=1h"
+})
+class UserSearchTest {
+
+    @Autowired
+    private UserSearch userSearch;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserBulkService userBulkService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserChangeRepository userChangeRepository;
+
+    @Autowired
+    private UserChangeFeed userChangeFeed;
+
+    @BeforeEach
+    void setUp() {
+        userBulkService.createAll(IntStream.range(0, 50)
+                .mapToObj(i -> new User(null, "Search User " + i, "search" + i + "@search.com")).iterator());
+        userSearch.build();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        userRepository.deleteAllInBatch();
+        userChangeRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void search_shouldPageThroughRankedHits() {
+        // Act
+        UserSearchResult first = userSearch.search("search1", 0, 5);
+        UserSearchResult second = userSearch.search("search1", 1, 5);
+
+        // Assert: search1 e search10..search19 (e-mails), 11 no total
+        assertEquals(5, first.hits().size());
+        assertTrue(first.hasNext());
+        assertEquals(5, second.hits().size());
+        assertTrue(second.hasNext());
+        assertTrue(first.hits().stream().noneMatch(hit -> second.hits().contains(hit)));
+        assertTrue(userSearch.isReady());
+        assertTrue(userSearch.getSize() >= 50);
+    }
+
+    @Test
+    void serviceWrites_shouldBeSearchableRightAfterCommit() {
+        // Act
+        User ana = new User(null, "Ana Beatriz", "ana.beatriz@search.com");
+        userService.insertUser(ana);
+        List<Integer> afterInsert = ids(userSearch.search("beatr", 0, 10));
+        userService.patchUser(ana.getId(), new UserPatch("Ana Clara", null), null);
+        List<Integer> oldName = ids(userSearch.search("beatriz", 0, 10));
+        List<Integer> byEmail = ids(userSearch.search("ana.beatriz@", 0, 10));
+        List<Integer> newName = ids(userSearch.search("clara", 0, 10));
+        userService.deleteById(ana.getId());
+        List<Integer> afterDelete = ids(userSearch.search("ana", 0, 10));
+
+        // Assert: o PATCH trocou só o nome; o e-mail continua o mesmo
+        assertEquals(List.of(ana.getId()), afterInsert);
+        assertEquals(List.of(), oldName);
+        assertEquals(List.of(ana.getId()), byEmail);
+        assertEquals(List.of(ana.getId()), newName);
+        assertEquals(List.of(), afterDelete);
+    }
+
+    @Test
+    void follow_shouldApplyBulkWrites() {
+        // Arrange: operações set-based não passam pelos ganchos do UserService, só pelo outbox
+        userBulkService.rewriteEmailDomain("search.com", "found.com");
+        userBulkService.deleteByNamePrefix("Search User 4");
+        userChangeFeed.sequence();
+
+        // Act
+        int events = userSearch.follow();
+
+        // Assert
+        assertTrue(events >= 50);
+        assertEquals(11, userSearch.search("search1", 0, 20).hits().stream()
+                .filter(hit -> hit.match() != UserSearchHit.Match.FUZZY && hit.email().endsWith("@found.com")).count());
+        assertTrue(userSearch.search("search user 4", 0, 20).hits().stream()
+                .noneMatch(hit -> hit.name().startsWith("Search User 4")));
+    }
+
+    @Test
+    void search_shouldRejectInvalidArguments() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> userSearch.search(" ", 0, 10));
+        assertThrows(IllegalArgumentException.class, () -> userSearch.search("a".repeat(101), 0, 10));
+        assertThrows(IllegalArgumentException.class, () -> userSearch.search("ana", -1, 10));
+        assertThrows(IllegalArgumentException.class, () -> userSearch.search("ana", 0, 101));
+        assertThrows(IllegalArgumentException.class, () -> userSearch.search("ana", 10, 100));
+    }
+
+    private static List<Integer> ids(UserSearchResult result) {
+        return result.hits().stream().map(UserSearchHit::id).toList();
+    }
+}
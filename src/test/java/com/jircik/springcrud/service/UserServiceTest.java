@@ -1,14 +1,30 @@
 package com.jircik.springcrud.service;
 
+import com.jircik.springcrud.config.UserCacheProperties;
+import com.jircik.springcrud.config.UserCountProperties;
+import com.jircik.springcrud.dto.UserPage;
+import com.jircik.springcrud.dto.UserPatch;
+import com.jircik.springcrud.dto.UserWriteStatus;
 import com.jircik.springcrud.model.User;
+import com.jircik.springcrud.model.UserField;
 import com.jircik.springcrud.repository.UserRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -24,6 +40,47 @@ class UserServiceTest {
     @Mock
     private UserRepository userRepository; // O mock do repositório
 
+    @Spy
+    private UserCache userCache = new UserCache(
+            new UserCacheProperties(true, 100, Duration.ofMinutes(1), Duration.ofSeconds(1))); // Cache real, novo a cada teste
+
+    @Spy
+    private UserCounter userCounter = new UserCounter(
+            new UserCountProperties(Duration.ofSeconds(5), Duration.ofMinutes(1)));
+
+    @Mock
+    private UserWriteBehind userWriteBehind; // desligado (isEnabled() = false): insertUser grava na hora
+
+    @Mock
+    private UserChangeLog userChangeLog;
+
+    @Mock
+    private UserEmailFilter userEmailFilter;
+
+    @Mock
+    private UserSearch userSearch;
+
+    // Transação sem banco: roda o callback e as sincronizações de commit (evicts do cache)
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(new AbstractPlatformTransactionManager() {
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    });
+
     @InjectMocks
     private UserService userService; // A classe a ser testada, com o mock injetado
 
@@ -45,6 +102,76 @@ class UserServiceTest {
         verify(userRepository).findAll(); // Verifica se o método foi chamado
     }
 
+    @Test
+    void getUsersAfter_shouldReturnNextCursor_whenMoreRowsExist() {
+        // Arrange: o repositório devolve limit + 1 registros
+        User second = new User(2, "Bob", "bob@test.com");
+        when(userRepository.findAllByOrderByIdAsc(Limit.of(2)))
+                .thenReturn(List.of(mockUser, second));
+
+        // Act
+        UserPage<User> page = userService.getUsersAfter(null, 1);
+
+        // Assert
+        assertEquals(1, page.items().size());
+        assertEquals(1, UserCursor.decode(page.nextCursor()));
+    }
+
+    @Test
+    void getUsersAfter_shouldSeekFromCursor_andEndWithoutNextCursor() {
+        // Arrange
+        String cursor = UserCursor.encode(1);
+        User second = new User(2, "Bob", "bob@test.com");
+        when(userRepository.findByIdGreaterThanOrderByIdAsc(1, Limit.of(11)))
+                .thenReturn(List.of(second));
+
+        // Act
+        UserPage<User> page = userService.getUsersAfter(cursor, 10);
+
+        // Assert
+        assertEquals(List.of(second), page.items());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void getUsersAfter_shouldRejectInvalidCursorAndLimit() {
+        assertThrows(IllegalArgumentException.class, () -> userService.getUsersAfter("not-a-cursor", 10));
+        assertThrows(IllegalArgumentException.class, () -> userService.getUsersAfter(null, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> userService.getUsersAfter(null, UserService.MAX_CURSOR_LIMIT + 1));
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void getUsersAfterWithFields_shouldSelectIdForCursor_andDropItFromTheRows() {
+        // Arrange
+        Map<String, Object> ana = new LinkedHashMap<>(Map.of("id", 1, "email", "ana@test.com"));
+        Map<String, Object> bob = new LinkedHashMap<>(Map.of("id", 2, "email", "bob@test.com"));
+        when(userRepository.findFieldsAfter(null, EnumSet.of(UserField.ID, UserField.EMAIL), Limit.of(2)))
+                .thenReturn(List.of(ana, bob));
+
+        // Act
+        UserPage<Map<String, Object>> page = userService.getUsersAfter(null, 1, EnumSet.of(UserField.EMAIL));
+
+        // Assert
+        assertEquals(List.of(Map.of("email", "ana@test.com")), page.items());
+        assertEquals(1, UserCursor.decode(page.nextCursor()));
+    }
+
+    @Test
+    void getUserFieldsById_shouldProjectCachedUser_withoutQuerying() {
+        // Arrange: a primeira leitura popula o cache
+        when(userRepository.findById(1)).thenReturn(Optional.of(mockUser));
+        userService.getUserById(1);
+
+        // Act
+        Map<String, Object> fields = userService.getUserFieldsById(1, EnumSet.of(UserField.NAME));
+
+        // Assert
+        assertEquals(Map.of("name", "Ana"), fields);
+        verify(userRepository, never()).findFieldsById(any(), any());
+    }
+
     // TESTE ADICIONADO: GET by ID bem-sucedido
     @Test
     void getUserById_shouldReturnUser_whenExists() {
@@ -71,6 +198,51 @@ class UserServiceTest {
                 "Deve lançar IllegalStateException quando o usuário por ID não é encontrado");
     }
 
+    @Test
+    void getUserById_shouldServeRepeatedReadsFromCache() {
+        // Arrange
+        when(userRepository.findById(1)).thenReturn(Optional.of(mockUser));
+
+        // Act
+        userService.getUserById(1);
+        userService.getUserById(1);
+
+        // Assert: apenas uma ida ao banco
+        verify(userRepository, times(1)).findById(1);
+    }
+
+    @Test
+    void getUserByName_shouldReturnUserAfterItIsInserted_evenIfNotFoundWasCached() {
+        // Arrange: "Bob" não existe e o resultado negativo fica em cache
+        User bob = new User(2, "Bob", "bob@test.com");
+        when(userRepository.findByName("Bob")).thenReturn(Optional.empty(), Optional.of(bob));
+        when(userRepository.save(bob)).thenReturn(bob);
+        assertThrows(IllegalStateException.class, () -> userService.getUserByName("Bob"));
+
+        // Act
+        userService.insertUser(bob);
+
+        // Assert
+        assertEquals(2, userService.getUserByName("Bob").getId());
+    }
+
+    @Test
+    void updateUser_shouldInvalidateCachedUser() {
+        // Arrange
+        User cached = new User(1, "Old", "old@test.com");
+        User existing = new User(1, "Old", "old@test.com");
+        when(userRepository.findById(1)).thenReturn(Optional.of(cached), Optional.of(existing),
+                Optional.of(new User(1, "New", "old@test.com")));
+        userService.getUserById(1);
+
+        // Act
+        userService.updateUser(new User(1, "New", null));
+
+        // Assert
+        assertEquals("New", userService.getUserById(1).getName());
+        verify(userCache).evict(1, "Old", "New");
+    }
+
     @Test
     void getUserByName_shouldReturnUser_whenExists() {
         // Arrange
@@ -100,60 +272,80 @@ class UserServiceTest {
     void insertUser_shouldSaveUser() {
         // Arrange
         User user = new User(null, "Bob", "bob@test.com");
+        when(userRepository.save(user)).thenReturn(new User(2, "Bob", "bob@test.com"));
 
         // Act
         userService.insertUser(user);
 
         // Assert
         verify(userRepository).save(user); // Verifica se o save foi chamado
+        verify(userCounter).add(1);
+        verify(userChangeLog).created(List.of(2));
+    }
+
+    @Test
+    void insertUser_shouldOnlyQueue_withoutTransaction_inWriteBehindMode() {
+        // Arrange
+        User user = new User(null, "Bob", "bob@test.com");
+        when(userWriteBehind.isEnabled()).thenReturn(true);
+        when(userWriteBehind.submit(user)).thenReturn(UserWriteStatus.pending("abc"));
+
+        // Act
+        Optional<UserWriteStatus> status = userService.insertUser(user);
+
+        // Assert: nem transação nem repositório no caminho da requisição
+        assertEquals(Optional.of(UserWriteStatus.pending("abc")), status);
+        verifyNoInteractions(transactionTemplate, userRepository);
     }
 
     // --- TESTES DELETE ---
 
     @Test
     void deleteById_shouldDelete_whenUserExists() {
-        // Arrange
-        when(userRepository.existsById(1)).thenReturn(true);
+        // Arrange: o DELETE afeta uma linha
+        when(userRepository.deleteUserById(1)).thenReturn(1);
 
         // Act
         userService.deleteById(1);
 
-        // Assert
-        verify(userRepository).deleteById(1);
+        // Assert: um único statement, sem carregar a entidade antes
+        verify(userRepository).deleteUserById(1);
+        verify(userRepository, never()).existsById(any());
+        verify(userCounter).add(-1);
+        verify(userChangeLog).deleting(List.of(1)); // outbox gravado antes, com o último estado
     }
 
     @Test
     void deleteById_shouldThrowException_whenUserDoesNotExist() {
-        // Arrange
-        when(userRepository.existsById(99)).thenReturn(false);
+        // Arrange: nenhuma linha afetada
+        when(userRepository.deleteUserById(99)).thenReturn(0);
 
         // Act & Assert
         assertThrows(IllegalStateException.class,
                 () -> userService.deleteById(99));
-        verify(userRepository, never()).deleteById(any()); // Garante que o delete NÃO foi chamado
     }
 
     @Test
     void deleteByName_shouldDeleteUser_whenExists() {
         // Arrange
-        when(userRepository.findByName("Ana")).thenReturn(Optional.of(mockUser));
+        when(userRepository.deleteUserByName("Ana")).thenReturn(1);
 
         // Act
         userService.deleteByName("Ana");
 
         // Assert
-        verify(userRepository).delete(mockUser);
+        verify(userRepository).deleteUserByName("Ana");
+        verify(userRepository, never()).findByName(any());
     }
 
     @Test
     void deleteByName_shouldThrowException_whenNotFound() {
         // Arrange
-        when(userRepository.findByName("Ghost")).thenReturn(Optional.empty());
+        when(userRepository.deleteUserByName("Ghost")).thenReturn(0);
 
         // Act & Assert
         assertThrows(IllegalStateException.class,
                 () -> userService.deleteByName("Ghost"));
-        verify(userRepository, never()).delete(any()); // Garante que o delete NÃO foi chamado
     }
 
     // --- TESTES PUT (UPDATE) ---
@@ -173,6 +365,7 @@ class UserServiceTest {
         assertEquals("New", existingUser.getName());
         assertEquals("new@test.com", existingUser.getEmail());
         verify(userRepository).save(existingUser);
+        verify(userChangeLog).updated(List.of(1));
     }
 
     // TESTE ADICIONADO: Não deve atualizar se os campos forem nulos ou vazios
@@ -209,6 +402,32 @@ class UserServiceTest {
         assertEquals("Same Name", existingUser.getName());
         assertEquals("same@test.com", existingUser.getEmail());
         verify(userRepository).save(existingUser);
+        verify(userChangeLog, never()).updated(any()); // nada mudou: nenhum evento no feed
+    }
+
+    @Test
+    void updateUser_shouldThrowVersionMismatch_whenIfMatchVersionIsStale() {
+        // Arrange: versão atual 5, cliente enviou 4
+        when(userRepository.findById(1)).thenReturn(Optional.of(new User(1, "Old", "old@test.com", 5L)));
+
+        // Act & Assert
+        assertThrows(UserVersionMismatchException.class,
+                () -> userService.updateUser(new User(1, "New", null), 4L));
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    void getUserVersionById_shouldUseCachedUser_beforeQueryingVersionColumn() {
+        // Arrange
+        when(userRepository.findById(1)).thenReturn(Optional.of(new User(1, "Ana", "ana@test.com", 7L)));
+        when(userRepository.findVersionById(2)).thenReturn(Optional.of(2L));
+        userService.getUserById(1);
+
+        // Act & Assert
+        assertEquals(7L, userService.getUserVersionById(1));
+        assertEquals(2L, userService.getUserVersionById(2));
+        verify(userRepository, never()).findVersionById(1);
+        assertThrows(IllegalStateException.class, () -> userService.getUserVersionById(3));
     }
 
     @Test
@@ -222,4 +441,54 @@ class UserServiceTest {
                 () -> userService.updateUser(updatedUser));
         verify(userRepository, never()).save(any()); // Garante que o save NÃO foi chamado
     }
-}
\ No newline at end of file
+
+    // --- TESTES PATCH ---
+
+    @Test
+    void patchUser_shouldIssueSingleUpdate_whenFieldChanges() {
+        // Arrange
+        when(userRepository.patchUser(1, "New", null, null)).thenReturn(1);
+
+        // Act
+        userService.patchUser(1, new UserPatch("New", ""), null);
+
+        // Assert: nenhuma leitura antes ou depois do UPDATE
+        verify(userRepository, never()).findById(any());
+        verify(userRepository, never()).findVersionById(any());
+        verify(userCache).evict(1, "New");
+    }
+
+    @Test
+    void patchUser_shouldNotWrite_whenPatchIsEmpty() {
+        // Arrange
+        when(userRepository.findVersionById(1)).thenReturn(Optional.of(0L));
+
+        // Act
+        userService.patchUser(1, new UserPatch(null, ""), null);
+
+        // Assert
+        verify(userRepository, never()).patchUser(any(), any(), any(), any());
+    }
+
+    @Test
+    void patchUser_shouldThrowNotFound_whenNoRowMatches() {
+        // Arrange
+        when(userRepository.patchUser(99, "New", null, null)).thenReturn(0);
+        when(userRepository.findVersionById(99)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class,
+                () -> userService.patchUser(99, new UserPatch("New", null), null));
+    }
+
+    @Test
+    void patchUser_shouldThrowVersionMismatch_whenIfMatchIsStale() {
+        // Arrange
+        when(userRepository.patchUser(1, "New", null, 1L)).thenReturn(0);
+        when(userRepository.findVersionById(1)).thenReturn(Optional.of(2L));
+
+        // Act & Assert
+        assertThrows(UserVersionMismatchException.class,
+                () -> userService.patchUser(1, new UserPatch("New", null), 1L));
+    }
+}
@@ -0,0 +1,61 @@
+package com.jircik.springcrud.service;
+
+import com.jircik.springcrud.dto.UserWriteStatus;
+import com.jircik.springcrud.dto.UserWriteStatus.State;
+import com.jircik.springcrud.model.User;
+import com.jircik.springcrud.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Write-behind ligado, gravando de verdade no H2: conflito de e-mail e status por token.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:writebehind;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+        "app.users.write-behind.enabled=true",
+        "app.users.cache.enabled=false"
+})
+class UserWriteBehindIntegrationTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void insertUser_shouldQueue_andReportCreatedAndConflictingEmails() throws Exception {
+        // Arrange
+        userRepository.save(new User(null, "Existing", "taken@writebehind.com"));
+
+        // Act
+        Optional<UserWriteStatus> created = userService.insertUser(new User(null, "Queued", "queued@writebehind.com"));
+        Optional<UserWriteStatus> conflict = userService.insertUser(new User(null, "Conflict", "taken@writebehind.com"));
+
+        // Assert
+        UserWriteStatus createdStatus = awaitDone(created.orElseThrow().token());
+        assertEquals(State.CREATED, createdStatus.state());
+        assertEquals("Queued", userRepository.findById(createdStatus.id()).orElseThrow().getName());
+        UserWriteStatus conflictStatus = awaitDone(conflict.orElseThrow().token());
+        assertEquals(State.FAILED, conflictStatus.state());
+        assertEquals("User with email taken@writebehind.com already exists", conflictStatus.error());
+    }
+
+    private UserWriteStatus awaitDone(String token) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            UserWriteStatus status = userService.getWriteStatus(token);
+            if (status.state() != State.PENDING) {
+                return status;
+            }
+            Thread.sleep(10);
+        }
+        return fail("Write " + token + " still pending");
+    }
+}
@@ -0,0 +1,159 @@
+package com.jircik.springcrud.service;
+
+import com.jircik.springcrud.config.BulkProperties;
+import com.jircik.springcrud.config.WriteBehindProperties;
+import com.jircik.springcrud.dto.BulkCreateResult;
+import com.jircik.springcrud.dto.BulkCreateResult.Item;
+import com.jircik.springcrud.dto.UserWriteStatus;
+import com.jircik.springcrud.dto.UserWriteStatus.State;
+import com.jircik.springcrud.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Testes unitários da fila write-behind, com o UserBulkService simulado.
+ */
+@ExtendWith(MockitoExtension.class)
+class UserWriteBehindTest {
+
+    @Mock
+    private UserBulkService userBulkService;
+
+    private UserWriteBehind writeBehind;
+
+    private UserWriteBehind start(int capacity) {
+        writeBehind = new UserWriteBehind(
+                new WriteBehindProperties(true, capacity, Duration.ofMinutes(1), 1000, Duration.ofSeconds(5)),
+                new BulkProperties(100, 1000, 5000), userBulkService);
+        writeBehind.start();
+        return writeBehind;
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (writeBehind != null) {
+            writeBehind.stop();
+        }
+    }
+
+    @Test
+    void submit_shouldWriteInBatches_andReportEachOutcome() throws Exception {
+        // Arrange: o primeiro lote fica preso até os outros dois usuários estarem na fila
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        when(userBulkService.createAll(any())).thenAnswer(invocation -> {
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            List<Item> items = new ArrayList<>();
+            Iterator<User> users = invocation.getArgument(0);
+            for (int index = 0; users.hasNext(); index++) {
+                User user = users.next();
+                items.add(user.getEmail().startsWith("dup")
+                        ? Item.failed(index, "User with email " + user.getEmail() + " already exists")
+                        : Item.created(index, 100 + index));
+            }
+            batchSizes.add(items.size());
+            return new BulkCreateResult(0, 0, items);
+        });
+        start(10);
+
+        // Act
+        UserWriteStatus first = writeBehind.submit(new User(null, "Ana", "ana@test.com"));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        UserWriteStatus second = writeBehind.submit(new User(null, "Bob", "bob@test.com"));
+        UserWriteStatus duplicate = writeBehind.submit(new User(null, "Dup", "dup@test.com"));
+        release.countDown();
+
+        // Assert: o 2º e o 3º se acumularam enquanto o 1º era gravado e foram juntos
+        assertEquals(State.PENDING, first.state());
+        assertEquals(State.CREATED, awaitDone(second.token()).state());
+        assertEquals("User with email dup@test.com already exists", awaitDone(duplicate.token()).error());
+        assertEquals(List.of(1, 2), batchSizes);
+    }
+
+    @Test
+    void submit_shouldReject_whenQueueIsFull() throws Exception {
+        // Arrange: o writer fica preso no primeiro lote e a fila (capacidade 1) enche
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(userBulkService.createAll(any())).thenAnswer(invocation -> {
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return new BulkCreateResult(0, 0, List.of());
+        });
+        start(1);
+        writeBehind.submit(new User(null, "Ana", "ana@test.com"));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        writeBehind.submit(new User(null, "Bob", "bob@test.com"));
+
+        // Act & Assert
+        assertThrows(WriteBehindRejectedException.class,
+                () -> writeBehind.submit(new User(null, "Carol", "carol@test.com")));
+        release.countDown();
+    }
+
+    @Test
+    void stop_shouldDrainQueuedUsers_beforeReturning() {
+        // Arrange
+        when(userBulkService.createAll(any())).thenAnswer(invocation -> {
+            List<Item> items = new ArrayList<>();
+            Iterator<User> users = invocation.getArgument(0);
+            for (int index = 0; users.hasNext(); index++) {
+                users.next();
+                items.add(Item.created(index, index));
+            }
+            return new BulkCreateResult(items.size(), 0, items);
+        });
+        start(1000);
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            tokens.add(writeBehind.submit(new User(null, "User " + i, "user" + i + "@test.com")).token());
+        }
+
+        // Act
+        writeBehind.stop();
+
+        // Assert: nada ficou pendente e novos cadastros são recusados
+        assertTrue(tokens.stream().allMatch(token -> writeBehind.status(token).orElseThrow().state() == State.CREATED));
+        assertThrows(WriteBehindRejectedException.class,
+                () -> writeBehind.submit(new User(null, "Late", "late@test.com")));
+    }
+
+    @Test
+    void submit_shouldRejectInvalidUsersImmediately() {
+        // Arrange
+        start(10);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> writeBehind.submit(new User(null, "", "ana@test.com")));
+        assertEquals(0, writeBehind.getQueueSize());
+    }
+
+    private UserWriteStatus awaitDone(String token) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            UserWriteStatus status = writeBehind.status(token).orElseThrow();
+            if (status.state() != State.PENDING) {
+                return status;
+            }
+            Thread.sleep(10);
+        }
+        return fail("Write " + token + " still pending");
+    }
+}